@@ -0,0 +1,327 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.equinox.log.test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.eclipse.core.runtime.adaptor.EclipseStarter;
+import org.eclipse.osgi.framework.log.FrameworkLog;
+import org.eclipse.osgi.framework.log.FrameworkLogEntry;
+import org.eclipse.osgi.internal.framework.EquinoxConfiguration;
+import org.eclipse.osgi.internal.log.CompactLogDecoder;
+import org.eclipse.osgi.launch.Equinox;
+import org.eclipse.osgi.service.debug.LogStatistics;
+import org.eclipse.osgi.tests.OSGiTestsActivator;
+import org.eclipse.osgi.tests.bundles.AbstractBundleTests;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.Constants;
+
+public class EquinoxLogWriterTest extends AbstractBundleTests {
+	private static final Pattern MESSAGE = Pattern.compile("^!MESSAGE " + EquinoxLogWriterTest.class.getSimpleName() + " (\\d+)", Pattern.MULTILINE); //$NON-NLS-1$ //$NON-NLS-2$
+	private static final Pattern DATE = Pattern.compile("\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}\\.\\d{3}"); //$NON-NLS-1$
+	private static final Pattern DROPPED = Pattern.compile("^!MESSAGE (\\d+) log entries were dropped", Pattern.MULTILINE); //$NON-NLS-1$
+
+	private File config;
+	private File logFile;
+	private Map<String, Object> configuration;
+	private Equinox equinox;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		config = OSGiTestsActivator.getContext().getDataFile(getName());
+		rm(config);
+		config.mkdirs();
+		logFile = new File(config, "test.log"); //$NON-NLS-1$
+		configuration = new HashMap<String, Object>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, config.getAbsolutePath());
+		configuration.put(EclipseStarter.PROP_LOGFILE, logFile.getAbsolutePath());
+		configuration.put(EquinoxConfiguration.PROP_LOG_WRITER_QUEUE_SIZE, "1000"); //$NON-NLS-1$
+	}
+
+	protected void tearDown() throws Exception {
+		if (equinox != null) {
+			stop(equinox);
+		}
+		super.tearDown();
+	}
+
+	public void testAsyncWriterFlushOnStop() throws Exception {
+		FrameworkLog log = startFramework();
+		log(log, 0, 500);
+		stop(equinox);
+		equinox = null;
+		assertMessages(read(logFile), 0, 500);
+	}
+
+	public void testAsyncWriterFlushOnClose() throws Exception {
+		FrameworkLog log = startFramework();
+		log(log, 0, 500);
+		log.close();
+		assertMessages(read(logFile), 0, 500);
+	}
+
+	public void testAsyncWriterRotation() throws Exception {
+		assertRotation();
+	}
+
+	public void testCompactRotation() throws Exception {
+		configuration.put(EquinoxConfiguration.PROP_LOG_FORMAT, "compact"); //$NON-NLS-1$
+		assertRotation();
+	}
+
+	public void testCompactDecoder() throws Exception {
+		// the same entries are logged in both formats so that the stacks are the same
+		FrameworkLogEntry[] entries = createNestedEntries();
+		File textFile = new File(config, "text.log"); //$NON-NLS-1$
+		configuration.put(EclipseStarter.PROP_LOGFILE, textFile.getAbsolutePath());
+		log(startFramework(), entries);
+		stop(equinox);
+
+		configuration.put(EclipseStarter.PROP_LOGFILE, logFile.getAbsolutePath());
+		configuration.put(EquinoxConfiguration.PROP_LOG_FORMAT, "compact"); //$NON-NLS-1$
+		log(startFramework(), entries);
+		stop(equinox);
+		equinox = null;
+
+		String text = read(textFile);
+		assertTrue("No stack: " + text, text.contains(EquinoxLogWriterTest.class.getName()));
+		assertTrue("No sub-entry: " + text, text.contains("!SUBENTRY 2")); //$NON-NLS-1$
+		assertEquals("Wrong decoded log.", withoutDates(text), withoutDates(readLog(logFile)));
+		// the repeated stacks are only written once
+		assertTrue("Stacks are not interned.", logFile.length() * 2 < textFile.length());
+	}
+
+	public void testCompactAppendToFile() throws Exception {
+		configuration.put(EquinoxConfiguration.PROP_LOG_FORMAT, "compact"); //$NON-NLS-1$
+		File otherFile = new File(config, "other.log"); //$NON-NLS-1$
+		configuration.put(EclipseStarter.PROP_LOGFILE, otherFile.getAbsolutePath());
+		log(startFramework(), 0, 100);
+		stop(equinox);
+
+		configuration.put(EclipseStarter.PROP_LOGFILE, logFile.getAbsolutePath());
+		FrameworkLog log = startFramework();
+		log(log, 100, 200);
+		log.close();
+		// the records are copied after the records already in the other file
+		log.setFile(otherFile, true);
+		log(log, 200, 300);
+		log.close();
+		// the header is copied to a new file
+		File newFile = new File(config, "new.log"); //$NON-NLS-1$
+		log.setFile(newFile, true);
+		log(log, 300, 400);
+		stop(equinox);
+		equinox = null;
+
+		assertFalse("The old log file was not deleted.", logFile.exists());
+		assertFalse("The old log file was not deleted.", otherFile.exists());
+		assertMessages(readLog(newFile), 0, 400);
+	}
+
+	public void testCompactAppendToWriter() throws Exception {
+		configuration.put(EquinoxConfiguration.PROP_LOG_FORMAT, "compact"); //$NON-NLS-1$
+		FrameworkLog log = startFramework();
+		log(log, 0, 100);
+		log.close();
+		// the compact log is decoded into the text writer
+		StringWriter output = new StringWriter();
+		log.setWriter(output, true);
+		log(log, 100, 200);
+		stop(equinox);
+		equinox = null;
+
+		assertFalse("The old log file was not deleted.", logFile.exists());
+		assertMessages(output.toString(), 0, 200);
+	}
+
+	public void testAsyncWriterDropped() throws Exception {
+		configuration.put(EquinoxConfiguration.PROP_LOG_WRITER_QUEUE_SIZE, "1"); //$NON-NLS-1$
+		FrameworkLog log = startFramework();
+		final CountDownLatch writing = new CountDownLatch(1);
+		final CountDownLatch blocked = new CountDownLatch(1);
+		final StringWriter output = new StringWriter();
+		log.setWriter(new FilterWriter(output) {
+			public void write(String str, int off, int len) throws IOException {
+				block();
+				super.write(str, off, len);
+			}
+
+			public void write(char[] cbuf, int off, int len) throws IOException {
+				block();
+				super.write(cbuf, off, len);
+			}
+
+			public void write(int c) throws IOException {
+				block();
+				super.write(c);
+			}
+
+			private void block() throws IOException {
+				writing.countDown();
+				try {
+					blocked.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					throw new InterruptedIOException();
+				}
+			}
+		}, false);
+
+		LogStatistics statistics = equinox.getBundleContext().getService(equinox.getBundleContext().getServiceReference(LogStatistics.class));
+		assertEquals("Wrong queue depth.", 0, statistics.getWriterQueueDepth());
+		// the writer thread blocks on the first entry; the queue holds one more entry
+		log(log, 0, 1);
+		assertTrue("Writer thread did not write.", writing.await(10, TimeUnit.SECONDS));
+		log(log, 1, 10);
+		assertEquals("Wrong queue depth.", 1, statistics.getWriterQueueDepth());
+		assertEquals("Wrong dropped count.", 8, statistics.getWriterDroppedCount());
+		blocked.countDown();
+		stop(equinox);
+		equinox = null;
+		assertEquals("Wrong queue depth.", 0, statistics.getWriterQueueDepth());
+
+		String text = output.toString();
+		Matcher dropped = DROPPED.matcher(text);
+		assertTrue("No dropped entries reported: " + text, dropped.find());
+		int droppedCount = Integer.parseInt(dropped.group(1));
+		int writtenCount = 0;
+		for (Matcher messages = MESSAGE.matcher(text); messages.find();) {
+			writtenCount++;
+		}
+		assertEquals("Wrong number of dropped entries.", statistics.getWriterDroppedCount(), droppedCount);
+		assertEquals("Wrong number of entries.", 10, writtenCount + droppedCount);
+	}
+
+	private FrameworkLog startFramework() throws BundleException {
+		equinox = new Equinox(configuration);
+		equinox.start();
+		return equinox.getBundleContext().getService(equinox.getBundleContext().getServiceReference(FrameworkLog.class));
+	}
+
+	private void assertRotation() throws Exception {
+		configuration.put("eclipse.log.size.max", "10"); //$NON-NLS-1$ //$NON-NLS-2$
+		FrameworkLog log = startFramework();
+		StringBuilder padding = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			padding.append('x');
+		}
+		for (int round = 0; round < 5; round++) {
+			for (int i = round * 100; i < (round + 1) * 100; i++) {
+				log.log(new FrameworkLogEntry(getName(), FrameworkLogEntry.ERROR, 0, EquinoxLogWriterTest.class.getSimpleName() + " " + i + " " + padding, 0, null, null)); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			// let the writer thread write the round so that the next round rotates the log
+			log.close();
+		}
+		stop(equinox);
+		equinox = null;
+
+		File backup = new File(config, "test.bak_0.log"); //$NON-NLS-1$
+		assertTrue("No backup log file.", backup.isFile());
+		// no entry is lost when the log is rotated
+		StringBuilder all = new StringBuilder();
+		// the oldest backup has the lowest index
+		for (int i = 0; i < 10; i++) {
+			File file = new File(config, "test.bak_" + i + ".log"); //$NON-NLS-1$ //$NON-NLS-2$
+			if (file.isFile()) {
+				all.append(readLog(file));
+			}
+		}
+		all.append(readLog(logFile));
+		assertMessages(all.toString(), 0, 500);
+	}
+
+	// nested entries with stacks; the same stacks and tags are used more than once
+	private FrameworkLogEntry[] createNestedEntries() {
+		Exception cause = new IllegalStateException("cause"); //$NON-NLS-1$
+		Exception error = new RuntimeException("error \u00e9\u4e2d", cause); //$NON-NLS-1$
+		FrameworkLogEntry grandChild = new FrameworkLogEntry("grand.child", FrameworkLogEntry.WARNING, 3, "grand child", 4, error, null); //$NON-NLS-1$ //$NON-NLS-2$
+		FrameworkLogEntry child = new FrameworkLogEntry("child", FrameworkLogEntry.INFO, 1, "child", 2, cause, new FrameworkLogEntry[] {grandChild}); //$NON-NLS-1$ //$NON-NLS-2$
+		FrameworkLogEntry noMessage = new FrameworkLogEntry("child", FrameworkLogEntry.ERROR, 0, null, 0, null, null); //$NON-NLS-1$
+		FrameworkLogEntry root = new FrameworkLogEntry(getName(), FrameworkLogEntry.ERROR, 0, "root", 0, error, new FrameworkLogEntry[] {child, noMessage}); //$NON-NLS-1$
+		FrameworkLogEntry other = new FrameworkLogEntry(getName(), FrameworkLogEntry.ERROR, 0, "other", 0, cause, null); //$NON-NLS-1$
+		return new FrameworkLogEntry[] {root, other, root, other, root};
+	}
+
+	private void log(FrameworkLog log, FrameworkLogEntry[] entries) {
+		for (int i = 0; i < entries.length; i++) {
+			log.log(entries[i]);
+		}
+	}
+
+	private void log(FrameworkLog log, int start, int end) {
+		for (int i = start; i < end; i++) {
+			log.log(new FrameworkLogEntry(getName(), FrameworkLogEntry.ERROR, 0, EquinoxLogWriterTest.class.getSimpleName() + " " + i, 0, null, null)); //$NON-NLS-1$
+		}
+	}
+
+	private void assertMessages(String text, int start, int end) {
+		int expected = start;
+		for (Matcher messages = MESSAGE.matcher(text); messages.find(); expected++) {
+			assertEquals("Wrong message.", expected, Integer.parseInt(messages.group(1)));
+		}
+		assertEquals("Wrong number of messages.", end, expected);
+	}
+
+	private void rm(File file) {
+		if (file.isDirectory()) {
+			File[] list = file.listFiles();
+			if (list != null) {
+				for (int idx = 0; idx < list.length; idx++) {
+					rm(list[idx]);
+				}
+			}
+		}
+		file.delete();
+	}
+
+	private String readLog(File file) throws IOException {
+		if (!"compact".equals(configuration.get(EquinoxConfiguration.PROP_LOG_FORMAT))) { //$NON-NLS-1$
+			return read(file);
+		}
+		StringWriter text = new StringWriter();
+		InputStream in = new FileInputStream(file);
+		try {
+			new CompactLogDecoder(in).decode(text);
+		} finally {
+			in.close();
+		}
+		return text.toString();
+	}
+
+	private static String withoutDates(String text) {
+		return DATE.matcher(text).replaceAll("DATE"); //$NON-NLS-1$
+	}
+
+	private static String read(File file) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		InputStream in = new FileInputStream(file);
+		try {
+			byte[] buffer = new byte[8192];
+			for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+				bytes.write(buffer, 0, read);
+			}
+		} finally {
+			in.close();
+		}
+		return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static void stop(Equinox equinox) throws InterruptedException {
+		try {
+			equinox.stop();
+		} catch (BundleException e) {
+			// ignore
+		}
+		equinox.waitForStop(10000);
+	}
+}
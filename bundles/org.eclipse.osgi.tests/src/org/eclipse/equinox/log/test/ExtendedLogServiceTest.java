@@ -8,14 +8,19 @@
  *******************************************************************************/
 package org.eclipse.equinox.log.test;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import junit.framework.TestCase;
 import org.eclipse.equinox.log.*;
+import org.eclipse.osgi.internal.log.ExtendedLogReaderServiceFactory;
+import org.eclipse.osgi.internal.log.ExtendedLogReaderServiceImpl;
+import org.eclipse.osgi.internal.log.ExtendedLogServiceFactory;
 import org.eclipse.osgi.tests.OSGiTestsActivator;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.ServiceReference;
+import org.osgi.service.log.LogEntry;
 import org.osgi.service.log.LogLevel;
+import org.osgi.service.log.LogListener;
 import org.osgi.service.log.LogService;
 import org.osgi.service.log.Logger;
 import org.osgi.service.log.admin.LoggerAdmin;
@@ -213,4 +218,114 @@ public class ExtendedLogServiceTest extends TestCase {
 		if (log.getLogger("test").isLoggable(LogService.LOG_INFO))
 			fail();
 	}
+
+	public void testLoggerFilterDecisionChange() throws Exception {
+		reader.removeLogListener(listener);
+		final AtomicBoolean loggable = new AtomicBoolean(false);
+		final List<LogEntry> entries = new ArrayList<LogEntry>();
+		LogListener syncListener = new SynchronousLogListener() {
+			public void logged(LogEntry entry) {
+				entries.add(entry);
+			}
+		};
+		reader.addLogListener(syncListener, new LogFilter() {
+			public boolean isLoggable(Bundle b, String loggerName, int logLevel) {
+				return loggable.get() && "test.filter".equals(loggerName);
+			}
+		});
+		try {
+			Logger logger = log.getLogger("test.filter");
+			logger.debug("debug {}", "one");
+			logger.info("info {} {}", "one", "two");
+			assertEquals("Wrong number of entries.", 0, entries.size());
+
+			// the filter changes its decision without adding its listener again
+			loggable.set(true);
+			logger.debug("debug {}", "two");
+			logger.info("info {} {}", "three", "four");
+			assertEquals("Wrong number of entries.", 2, entries.size());
+			assertEquals("Wrong message.", "debug two", entries.get(0).getMessage());
+			assertEquals("Wrong message.", "info three four", entries.get(1).getMessage());
+
+			loggable.set(false);
+			logger.debug("debug {}", "three");
+			assertEquals("Wrong number of entries.", 2, entries.size());
+		} finally {
+			reader.removeLogListener(syncListener);
+		}
+	}
+
+	public void testLoggerContextLevelChange() throws Exception {
+		reader.removeLogListener(listener);
+		final List<LogEntry> entries = new ArrayList<LogEntry>();
+		LogListener syncListener = new SynchronousLogListener() {
+			public void logged(LogEntry entry) {
+				if ("test.level".equals(entry.getLoggerName())) {
+					entries.add(entry);
+				}
+			}
+		};
+		reader.addLogListener(syncListener);
+		try {
+			Logger logger = log.getLogger("test.level");
+			Map<String, LogLevel> levels = new HashMap<String, LogLevel>(rootLoggerContext.getLogLevels());
+			levels.put("test.level", LogLevel.WARN);
+			rootLoggerContext.setLogLevels(levels);
+
+			logger.debug("debug {}", "one");
+			logger.warn("warn {} {}", "one", "two");
+			assertEquals("Wrong number of entries.", 1, entries.size());
+			assertEquals("Wrong message.", "warn one two", entries.get(0).getMessage());
+
+			levels.put("test.level", LogLevel.DEBUG);
+			rootLoggerContext.setLogLevels(levels);
+			logger.debug("debug {}", "two");
+			logger.trace("trace {}", "one");
+			assertEquals("Wrong number of entries.", 2, entries.size());
+			assertEquals("Wrong message.", "debug two", entries.get(1).getMessage());
+		} finally {
+			reader.removeLogListener(syncListener);
+		}
+	}
+
+	public void testLoggerWithoutListeners() throws Exception {
+		// a log service of its own which has no listeners yet; the default level is WARN
+		ExtendedLogReaderServiceFactory readerFactory = new ExtendedLogReaderServiceFactory(0, LogLevel.TRACE);
+		ExtendedLogReaderServiceImpl ownReader = readerFactory.getService(bundle, null);
+		Logger logger = new ExtendedLogServiceFactory(readerFactory).getService(bundle, null).getLogger("test.nolisteners"); //$NON-NLS-1$
+		logger.warn("dropped {}", "one"); //$NON-NLS-1$ //$NON-NLS-2$
+
+		final List<LogEntry> entries = new ArrayList<LogEntry>();
+		LogListener syncListener = new SynchronousLogListener() {
+			public void logged(LogEntry entry) {
+				entries.add(entry);
+			}
+		};
+		ownReader.addLogListener(syncListener);
+		logger.warn("warn {}", "one"); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("Wrong number of entries.", 1, entries.size()); //$NON-NLS-1$
+		assertEquals("Wrong message.", "warn one", entries.get(0).getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+
+		ownReader.removeLogListener(syncListener);
+		logger.warn("dropped {}", "two"); //$NON-NLS-1$ //$NON-NLS-2$
+		ownReader.addLogListener(syncListener, new LogFilter() {
+			public boolean isLoggable(Bundle b, String loggerName, int logLevel) {
+				return true;
+			}
+		});
+		logger.warn("warn {}", "two"); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("Wrong number of entries.", 2, entries.size()); //$NON-NLS-1$
+		assertEquals("Wrong message.", "warn two", entries.get(1).getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	public void testLoggerWithHistoryOnly() throws Exception {
+		// entries are kept in the history even without listeners
+		ExtendedLogReaderServiceFactory readerFactory = new ExtendedLogReaderServiceFactory(10, LogLevel.TRACE);
+		ExtendedLogReaderServiceImpl ownReader = readerFactory.getService(bundle, null);
+		Logger logger = new ExtendedLogServiceFactory(readerFactory).getService(bundle, null).getLogger("test.history"); //$NON-NLS-1$
+		logger.warn("warn {}", "one"); //$NON-NLS-1$ //$NON-NLS-2$
+		Enumeration<LogEntry> history = ownReader.getLog();
+		assertTrue("No entry in the history.", history.hasMoreElements()); //$NON-NLS-1$
+		assertEquals("Wrong message.", "warn one", history.nextElement().getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+	}
 }
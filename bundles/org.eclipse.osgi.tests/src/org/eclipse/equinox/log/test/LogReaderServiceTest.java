@@ -15,6 +15,7 @@ import org.eclipse.osgi.container.Module;
 import org.eclipse.osgi.container.ModuleContainerAdaptor.ContainerEvent;
 import org.eclipse.osgi.internal.framework.EquinoxConfiguration;
 import org.eclipse.osgi.launch.Equinox;
+import org.eclipse.osgi.service.debug.LogStatistics;
 import org.eclipse.osgi.tests.OSGiTestsActivator;
 import org.eclipse.osgi.tests.bundles.AbstractBundleTests;
 import org.osgi.framework.*;
@@ -259,6 +260,188 @@ public class LogReaderServiceTest extends AbstractBundleTests {
 		}
 	}
 
+	public void testLogHistoryConcurrentWrapAround() throws Exception {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName());
+		Map<String, Object> configuration = new HashMap<String, Object>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, config.getAbsolutePath());
+		configuration.put(EquinoxConfiguration.PROP_LOG_HISTORY_MAX, "10");
+		Equinox equinox = new Equinox(configuration);
+		equinox.start();
+
+		try {
+			final LogService testLog = equinox.getBundleContext().getService(equinox.getBundleContext().getServiceReference(LogService.class));
+			LogReaderService testReader = equinox.getBundleContext().getService(equinox.getBundleContext().getServiceReference(LogReaderService.class));
+			final int numThreads = 4;
+			final int numEntries = 5000;
+			final CountDownLatch start = new CountDownLatch(1);
+			ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+			List<Future<?>> results = new ArrayList<Future<?>>();
+			for (int t = 0; t < numThreads; t++) {
+				final int thread = t;
+				results.add(executor.submit(new Callable<Void>() {
+					public Void call() throws Exception {
+						start.await();
+						for (int i = 0; i < numEntries; i++) {
+							testLog.log(LogService.LOG_WARNING, thread + ":" + i);
+						}
+						return null;
+					}
+				}));
+			}
+			start.countDown();
+			try {
+				for (Future<?> result : results) {
+					result.get(30, TimeUnit.SECONDS);
+				}
+			} finally {
+				executor.shutdown();
+			}
+
+			// every slot must hold one of the most recent entries; a stale entry from
+			// a slow thread would be skipped and leave the history short
+			int[] lastIndexes = new int[numThreads];
+			Arrays.fill(lastIndexes, Integer.MAX_VALUE);
+			int count = 0;
+			for (Enumeration logEntries = testReader.getLog(); logEntries.hasMoreElements(); count++) {
+				String message = ((LogEntry) logEntries.nextElement()).getMessage();
+				int separator = message.indexOf(':');
+				int thread = Integer.parseInt(message.substring(0, separator));
+				int index = Integer.parseInt(message.substring(separator + 1));
+				// most recent entry first
+				assertTrue("Wrong order: " + message, index < lastIndexes[thread]);
+				lastIndexes[thread] = index;
+			}
+			assertEquals("Wrong number of logs.", 10, count);
+		} finally {
+			try {
+				equinox.stop();
+			} catch (BundleException e) {
+				// ignore
+			}
+		}
+	}
+
+	public void testBoundedListenerQueue() throws Exception {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName());
+		Map<String, Object> configuration = new HashMap<String, Object>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, config.getAbsolutePath());
+		configuration.put(EquinoxConfiguration.PROP_LOG_LISTENER_QUEUE_SIZE, "10");
+		configuration.put(EquinoxConfiguration.PROP_LOG_LISTENER_QUEUE_OVERFLOW, "drop-oldest");
+		Equinox equinox = new Equinox(configuration);
+		equinox.start();
+
+		try {
+			LogService testLog = equinox.getBundleContext().getService(equinox.getBundleContext().getServiceReference(LogService.class));
+			LogReaderService testReader = equinox.getBundleContext().getService(equinox.getBundleContext().getServiceReference(LogReaderService.class));
+			final CountDownLatch blocked = new CountDownLatch(1);
+			final List<String> messages = new CopyOnWriteArrayList<String>();
+			testReader.addLogListener(new LogListener() {
+				public void logged(LogEntry entry) {
+					try {
+						blocked.await(10, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					messages.add(entry.getMessage());
+				}
+			});
+			// log more than the listener can queue while it is blocked
+			for (int i = 0; i < 100; i++) {
+				testLog.log(LogService.LOG_WARNING, String.valueOf(i));
+			}
+			blocked.countDown();
+			long waitUntil = System.currentTimeMillis() + 10000;
+			while (!messages.contains("99") && System.currentTimeMillis() < waitUntil) {
+				Thread.sleep(50);
+			}
+			// the oldest entries are dropped; the most recent entries are delivered in order
+			assertTrue("No entries dropped: " + messages, messages.size() < 100);
+			assertEquals("Wrong last entry.", "99", messages.get(messages.size() - 1));
+			for (int i = 1; i < messages.size(); i++) {
+				assertTrue("Wrong order: " + messages, Integer.parseInt(messages.get(i - 1)) < Integer.parseInt(messages.get(i)));
+			}
+			LogStatistics statistics = equinox.getBundleContext().getService(equinox.getBundleContext().getServiceReference(LogStatistics.class));
+			assertEquals("Wrong dropped count.", 100 - messages.size(), statistics.getListenerDroppedCount());
+		} finally {
+			try {
+				equinox.stop();
+			} catch (BundleException e) {
+				// ignore
+			}
+		}
+	}
+
+	public void testRemoveQueuedListener() throws Exception {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName());
+		Map<String, Object> configuration = new HashMap<String, Object>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, config.getAbsolutePath());
+		configuration.put(EquinoxConfiguration.PROP_LOG_LISTENER_QUEUE_SIZE, "10");
+		configuration.put(EquinoxConfiguration.PROP_LOG_LISTENER_QUEUE_OVERFLOW, "drop");
+		Equinox equinox = new Equinox(configuration);
+		equinox.start();
+
+		try {
+			LogService testLog = equinox.getBundleContext().getService(equinox.getBundleContext().getServiceReference(LogService.class));
+			LogReaderService testReader = equinox.getBundleContext().getService(equinox.getBundleContext().getServiceReference(LogReaderService.class));
+			final CountDownLatch blocked = new CountDownLatch(1);
+			final List<String> messages = new CopyOnWriteArrayList<String>();
+			final List<Thread> threads = new CopyOnWriteArrayList<Thread>();
+			LogListener listener = new LogListener() {
+				public void logged(LogEntry entry) {
+					threads.add(Thread.currentThread());
+					try {
+						blocked.await(10, TimeUnit.SECONDS);
+						messages.add(entry.getMessage());
+					} catch (InterruptedException e) {
+						// closing the queue must not interrupt the listener
+						messages.add("interrupted"); //$NON-NLS-1$
+					}
+				}
+			};
+			testReader.addLogListener(listener);
+			for (int i = 0; i < 5; i++) {
+				testLog.log(LogService.LOG_WARNING, String.valueOf(i));
+			}
+			// the queued entries are still delivered after the listener is removed
+			testReader.removeLogListener(listener);
+			blocked.countDown();
+			long waitUntil = System.currentTimeMillis() + 10000;
+			while (messages.size() < 5 && System.currentTimeMillis() < waitUntil) {
+				Thread.sleep(50);
+			}
+			assertEquals("Wrong entries.", Arrays.asList("0", "1", "2", "3", "4"), messages);
+			// the delivery thread stops
+			threads.get(0).join(10000);
+			assertFalse("The delivery thread is still alive.", threads.get(0).isAlive());
+
+			// the delivery thread also stops when it waits for entries
+			final List<Thread> idleThreads = new CopyOnWriteArrayList<Thread>();
+			LogListener idleListener = new LogListener() {
+				public void logged(LogEntry entry) {
+					idleThreads.add(Thread.currentThread());
+				}
+			};
+			testReader.addLogListener(idleListener);
+			testLog.log(LogService.LOG_WARNING, "idle"); //$NON-NLS-1$
+			waitUntil = System.currentTimeMillis() + 10000;
+			while (idleThreads.isEmpty() && System.currentTimeMillis() < waitUntil) {
+				Thread.sleep(50);
+			}
+			assertEquals("Wrong number of entries.", 1, idleThreads.size());
+			testReader.removeLogListener(idleListener);
+			idleThreads.get(0).join(10000);
+			assertFalse("The idle delivery thread is still alive.", idleThreads.get(0).isAlive());
+			LogStatistics statistics = equinox.getBundleContext().getService(equinox.getBundleContext().getServiceReference(LogStatistics.class));
+			assertEquals("Wrong dropped count.", 0, statistics.getListenerDroppedCount());
+		} finally {
+			try {
+				equinox.stop();
+			} catch (BundleException e) {
+				// ignore
+			}
+		}
+	}
+
 	private int countLogEntries(Enumeration logEntries, int startingMessage) {
 		int count = 0;
 		while (logEntries.hasMoreElements()) {
@@ -31,6 +31,7 @@ public class BundleTests {
 		suite.addTest(ClassLoadingBundleTests.suite());
 		suite.addTest(NativeCodeBundleTests.suite());
 		suite.addTest(PlatformAdminBundleTests.suite());
+		suite.addTest(ListenerStatisticsTests.suite());
 		return suite;
 	}
 }
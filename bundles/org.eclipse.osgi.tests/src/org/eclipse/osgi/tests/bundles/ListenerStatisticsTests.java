@@ -0,0 +1,253 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.tests.bundles;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import org.eclipse.osgi.internal.debug.Debug;
+import org.eclipse.osgi.internal.framework.EquinoxConfiguration;
+import org.eclipse.osgi.launch.Equinox;
+import org.eclipse.osgi.service.debug.ListenerStatistics;
+import org.eclipse.osgi.tests.OSGiTestsActivator;
+import org.osgi.framework.*;
+import org.osgi.framework.wiring.FrameworkWiring;
+
+public class ListenerStatisticsTests extends AbstractBundleTests {
+	public static Test suite() {
+		return new TestSuite(ListenerStatisticsTests.class);
+	}
+
+	public void testCallAndRejectionCounts() throws Exception {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName());
+		Equinox equinox = startFramework(config, null);
+		try {
+			BundleContext systemContext = equinox.getBundleContext();
+			ListenerStatistics statistics = systemContext.getService(systemContext.getServiceReference(ListenerStatistics.class));
+
+			SynchronousBundleListener syncListener = new SynchronousBundleListener() {
+				public void bundleChanged(BundleEvent event) {
+					// nothing
+				}
+			};
+			BundleListener asyncListener = new BundleListener() {
+				public void bundleChanged(BundleEvent event) {
+					// nothing
+				}
+			};
+			ServiceListener serviceListener = new ServiceListener() {
+				public void serviceChanged(ServiceEvent event) {
+					// nothing
+				}
+			};
+			systemContext.addBundleListener(syncListener);
+			systemContext.addBundleListener(asyncListener);
+			systemContext.addServiceListener(serviceListener, "(test=match)"); //$NON-NLS-1$
+
+			systemContext.installBundle("reference:file:///" + SystemBundleTests.createBundle(config, getName(), false, false).getAbsolutePath()); //$NON-NLS-1$
+
+			Dictionary<String, Object> props = new Hashtable<String, Object>();
+			props.put("test", "match"); //$NON-NLS-1$ //$NON-NLS-2$
+			systemContext.registerService(Object.class, new Object(), props);
+			props.put("test", "other"); //$NON-NLS-1$ //$NON-NLS-2$
+			systemContext.registerService(Object.class, new Object(), props);
+			systemContext.registerService(Object.class, new Object(), props);
+
+			ListenerStatistics.Entry syncEntry = getEntry(statistics, syncListener);
+			assertNotNull("No statistics for the listener.", syncEntry); //$NON-NLS-1$
+			assertEquals("Wrong type.", SynchronousBundleListener.class.getName(), syncEntry.getType()); //$NON-NLS-1$
+			assertEquals("Wrong bundle.", systemContext.getBundle(), syncEntry.getBundle()); //$NON-NLS-1$
+			assertEquals("Wrong call count.", 1, syncEntry.getCallCount()); //$NON-NLS-1$
+			assertEquals("Wrong rejection count.", 0, syncEntry.getFilterRejectionCount()); //$NON-NLS-1$
+			assertTrue("Wrong max time.", syncEntry.getMaxTime() <= syncEntry.getTotalTime()); //$NON-NLS-1$
+
+			ListenerStatistics.Entry asyncEntry = waitForEntry(statistics, asyncListener);
+			assertNotNull("No statistics for the listener.", asyncEntry); //$NON-NLS-1$
+			assertEquals("Wrong type.", BundleListener.class.getName(), asyncEntry.getType()); //$NON-NLS-1$
+			assertEquals("Wrong call count.", 1, asyncEntry.getCallCount()); //$NON-NLS-1$
+
+			ListenerStatistics.Entry serviceEntry = getEntry(statistics, serviceListener);
+			assertNotNull("No statistics for the listener.", serviceEntry); //$NON-NLS-1$
+			assertEquals("Wrong type.", ServiceListener.class.getName(), serviceEntry.getType()); //$NON-NLS-1$
+			assertEquals("Wrong call count.", 1, serviceEntry.getCallCount()); //$NON-NLS-1$
+			assertEquals("Wrong rejection count.", 2, serviceEntry.getFilterRejectionCount()); //$NON-NLS-1$
+
+			statistics.reset();
+			assertNull("The statistics were not reset.", getEntry(statistics, syncListener)); //$NON-NLS-1$
+		} finally {
+			stopFramework(equinox);
+		}
+	}
+
+	public void testRemovedListener() throws Exception {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName());
+		Equinox equinox = startFramework(config, null);
+		try {
+			BundleContext systemContext = equinox.getBundleContext();
+			ListenerStatistics statistics = systemContext.getService(systemContext.getServiceReference(ListenerStatistics.class));
+
+			// the statistics of a listener are removed with the listener
+			FrameworkListener frameworkListener = new FrameworkListener() {
+				public void frameworkEvent(FrameworkEvent event) {
+					// nothing
+				}
+			};
+			systemContext.addFrameworkListener(frameworkListener);
+			equinox.adapt(FrameworkWiring.class).refreshBundles(null);
+			assertNotNull("No statistics for the listener.", waitForEntry(statistics, frameworkListener)); //$NON-NLS-1$
+			systemContext.removeFrameworkListener(frameworkListener);
+			assertNull("The statistics of a removed listener were kept.", getEntry(statistics, frameworkListener)); //$NON-NLS-1$
+
+			// the statistics of a listener are removed when its bundle stops
+			Bundle bundle = systemContext.installBundle("reference:file:///" + SystemBundleTests.createBundle(config, getName(), false, false).getAbsolutePath()); //$NON-NLS-1$
+			bundle.start();
+			SynchronousBundleListener bundleListener = new SynchronousBundleListener() {
+				public void bundleChanged(BundleEvent event) {
+					// nothing
+				}
+			};
+			bundle.getBundleContext().addBundleListener(bundleListener);
+			systemContext.installBundle("reference:file:///" + SystemBundleTests.createBundle(config, getName() + ".b", false, false).getAbsolutePath()); //$NON-NLS-1$ //$NON-NLS-2$
+			assertNotNull("No statistics for the listener.", getEntry(statistics, bundleListener)); //$NON-NLS-1$
+			bundle.stop();
+			assertNull("The statistics of a stopped bundle were kept.", getEntry(statistics, bundleListener)); //$NON-NLS-1$
+		} finally {
+			stopFramework(equinox);
+		}
+	}
+
+	public void testListenerRemovedWhileDelivering() throws Exception {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName());
+		Equinox equinox = startFramework(config, null);
+		try {
+			BundleContext systemContext = equinox.getBundleContext();
+			ListenerStatistics statistics = systemContext.getService(systemContext.getServiceReference(ListenerStatistics.class));
+
+			final CountDownLatch delivering = new CountDownLatch(1);
+			final CountDownLatch removed = new CountDownLatch(1);
+			BundleListener removedListener = new BundleListener() {
+				public void bundleChanged(BundleEvent event) {
+					delivering.countDown();
+					try {
+						removed.await(10, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			};
+			final CountDownLatch laterDelivered = new CountDownLatch(2);
+			BundleListener laterListener = new BundleListener() {
+				public void bundleChanged(BundleEvent event) {
+					laterDelivered.countDown();
+				}
+			};
+			systemContext.addBundleListener(removedListener);
+			systemContext.addBundleListener(laterListener);
+
+			systemContext.installBundle("reference:file:///" + SystemBundleTests.createBundle(config, getName(), false, false).getAbsolutePath()); //$NON-NLS-1$
+			assertTrue("The event was not delivered.", delivering.await(10, TimeUnit.SECONDS)); //$NON-NLS-1$
+			systemContext.removeBundleListener(removedListener);
+			removed.countDown();
+
+			// the async events are delivered in order; once the later event arrives the removed listener has returned
+			systemContext.installBundle("reference:file:///" + SystemBundleTests.createBundle(config, getName() + ".b", false, false).getAbsolutePath()); //$NON-NLS-1$ //$NON-NLS-2$
+			assertTrue("The later event was not delivered.", laterDelivered.await(10, TimeUnit.SECONDS)); //$NON-NLS-1$
+			assertNull("The statistics of a removed listener were recreated.", getEntry(statistics, removedListener)); //$NON-NLS-1$
+			assertNotNull("No statistics for the listener.", getEntry(statistics, laterListener)); //$NON-NLS-1$
+		} finally {
+			stopFramework(equinox);
+		}
+	}
+
+	public void testDump() throws Exception {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName());
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		PrintStream originalOut = Debug.out;
+		Debug.out = new PrintStream(bytes, true);
+		Equinox equinox = startFramework(config, "100"); //$NON-NLS-1$
+		try {
+			BundleContext systemContext = equinox.getBundleContext();
+			SynchronousBundleListener listener = new SynchronousBundleListener() {
+				public void bundleChanged(BundleEvent event) {
+					// be the slowest listener so the dump includes it
+					try {
+						Thread.sleep(100);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+
+				public String toString() {
+					return "testDumpListener"; //$NON-NLS-1$
+				}
+			};
+			systemContext.addBundleListener(listener);
+			systemContext.installBundle("reference:file:///" + SystemBundleTests.createBundle(config, getName(), false, false).getAbsolutePath()); //$NON-NLS-1$
+
+			long waitUntil = System.currentTimeMillis() + 10000;
+			String output = bytes.toString();
+			while (!output.contains("testDumpListener") && System.currentTimeMillis() < waitUntil) { //$NON-NLS-1$
+				Thread.sleep(50);
+				output = bytes.toString();
+			}
+			assertTrue("Wrong dump: " + output, output.contains("Listener statistics for the ")); //$NON-NLS-1$ //$NON-NLS-2$
+			assertTrue("Wrong dump: " + output, output.contains(SynchronousBundleListener.class.getName() + '[' + systemContext.getBundle() + "](testDumpListener): calls=1")); //$NON-NLS-1$ //$NON-NLS-2$
+		} finally {
+			stopFramework(equinox);
+			Debug.out = originalOut;
+		}
+	}
+
+	private Equinox startFramework(File config, String dumpInterval) throws BundleException {
+		Map<String, Object> configuration = new HashMap<String, Object>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, config.getAbsolutePath());
+		configuration.put(EquinoxConfiguration.PROP_EVENT_LISTENER_STATISTICS, "true"); //$NON-NLS-1$
+		if (dumpInterval != null) {
+			configuration.put(EquinoxConfiguration.PROP_EVENT_LISTENER_STATISTICS_DUMP_INTERVAL, dumpInterval);
+		}
+		Equinox equinox = new Equinox(configuration);
+		equinox.start();
+		return equinox;
+	}
+
+	private void stopFramework(Equinox equinox) throws BundleException {
+		equinox.stop();
+		try {
+			equinox.waitForStop(10000);
+		} catch (InterruptedException e) {
+			fail("Unexpected interrupted exception", e); //$NON-NLS-1$
+		}
+	}
+
+	private ListenerStatistics.Entry waitForEntry(ListenerStatistics statistics, Object listener) throws InterruptedException {
+		// asynchronous events are recorded after the listener returns
+		long waitUntil = System.currentTimeMillis() + 10000;
+		ListenerStatistics.Entry entry = getEntry(statistics, listener);
+		while (entry == null && System.currentTimeMillis() < waitUntil) {
+			Thread.sleep(50);
+			entry = getEntry(statistics, listener);
+		}
+		return entry;
+	}
+
+	private ListenerStatistics.Entry getEntry(ListenerStatistics statistics, Object listener) {
+		for (ListenerStatistics.Entry entry : statistics.getEntries()) {
+			// the description of a service listener is followed by its filter
+			if (entry.getListener().startsWith(listener.toString())) {
+				return entry;
+			}
+		}
+		return null;
+	}
+}
@@ -2745,6 +2745,46 @@ public class SystemBundleTests extends AbstractBundleTests {
 		assertTrue("Wrong osgi EE: expected: " + expectedEEName + " but was: " + osgiEE, osgiEE.endsWith(expectedEEName));
 	}
 
+	public void testBundleEventHookRegistration() throws Exception {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName());
+		Map<String, Object> configuration = new HashMap<String, Object>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, config.getAbsolutePath());
+		Equinox equinox = new Equinox(configuration);
+		equinox.start();
+		try {
+			BundleContext systemContext = equinox.getBundleContext();
+			final AtomicInteger hookCalls = new AtomicInteger();
+			org.osgi.framework.hooks.bundle.EventHook hook = new org.osgi.framework.hooks.bundle.EventHook() {
+				public void event(BundleEvent event, Collection<BundleContext> contexts) {
+					hookCalls.incrementAndGet();
+				}
+			};
+			ServiceRegistration<org.osgi.framework.hooks.bundle.EventHook> hookReg1 = systemContext.registerService(org.osgi.framework.hooks.bundle.EventHook.class, hook, null);
+			ServiceRegistration<org.osgi.framework.hooks.bundle.EventHook> hookReg2 = systemContext.registerService(org.osgi.framework.hooks.bundle.EventHook.class, hook, null);
+
+			systemContext.installBundle("reference:file:///" + createBundle(config, getName() + "1", false, false).getAbsolutePath()); //$NON-NLS-1$ //$NON-NLS-2$
+			assertEquals("Wrong number of hook calls.", 2, hookCalls.get()); //$NON-NLS-1$
+
+			// the remaining hook is still called
+			hookReg1.unregister();
+			systemContext.installBundle("reference:file:///" + createBundle(config, getName() + "2", false, false).getAbsolutePath()); //$NON-NLS-1$ //$NON-NLS-2$
+			assertEquals("Wrong number of hook calls.", 3, hookCalls.get()); //$NON-NLS-1$
+
+			// no hook is called once all hooks are unregistered
+			hookReg2.unregister();
+			systemContext.installBundle("reference:file:///" + createBundle(config, getName() + "3", false, false).getAbsolutePath()); //$NON-NLS-1$ //$NON-NLS-2$
+			assertEquals("Wrong number of hook calls.", 3, hookCalls.get()); //$NON-NLS-1$
+
+			// a hook registered again is called
+			systemContext.registerService(org.osgi.framework.hooks.bundle.EventHook.class, hook, null);
+			systemContext.installBundle("reference:file:///" + createBundle(config, getName() + "4", false, false).getAbsolutePath()); //$NON-NLS-1$ //$NON-NLS-2$
+			assertEquals("Wrong number of hook calls.", 4, hookCalls.get()); //$NON-NLS-1$
+		} finally {
+			equinox.stop();
+			equinox.waitForStop(10000);
+		}
+	}
+
 	private static File[] createBundles(File outputDir, int bundleCount) throws IOException {
 		outputDir.mkdirs();
 
@@ -10,10 +10,19 @@
  *******************************************************************************/
 package org.eclipse.osgi.tests.bundles;
 
+import java.io.*;
 import java.net.URL;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import junit.framework.Test;
 import junit.framework.TestSuite;
-import org.osgi.framework.Bundle;
+import org.eclipse.osgi.container.Module;
+import org.eclipse.osgi.container.ModuleContainer;
+import org.eclipse.osgi.launch.Equinox;
+import org.eclipse.osgi.tests.OSGiTestsActivator;
+import org.osgi.framework.*;
+import org.osgi.framework.wiring.FrameworkWiring;
 
 public class URLHandlerTests extends AbstractBundleTests {
 	public static Test suite() {
@@ -31,4 +40,107 @@ public class URLHandlerTests extends AbstractBundleTests {
 		testURL.openConnection().connect();
 	}
 
+	public void testReopenEntryURL() throws Exception {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName());
+		config.mkdirs();
+		Equinox equinox = startFramework(config);
+		try {
+			Bundle bundle = equinox.getBundleContext().installBundle("reference:file:///" + createResourceBundle(config, "a", "1").getAbsolutePath()); //$NON-NLS-1$ //$NON-NLS-2$
+			ModuleContainer container = bundle.adapt(Module.class).getContainer();
+			// a URL created from its external form is opened by the shared handler which caches the entry
+			URL entryURL = new URL(null, bundle.getEntry("resource.txt").toExternalForm(), new org.eclipse.osgi.storage.url.bundleentry.Handler(container, null)); //$NON-NLS-1$
+			assertEquals("Wrong content.", "1", readURL(entryURL)); //$NON-NLS-1$ //$NON-NLS-2$
+			assertEquals("Wrong content.", "1", readURL(entryURL)); //$NON-NLS-1$ //$NON-NLS-2$
+
+			bundle.update(new FileInputStream(createResourceBundle(config, "a", "2"))); //$NON-NLS-1$ //$NON-NLS-2$
+			assertEquals("Wrong content after update.", "2", readURL(entryURL)); //$NON-NLS-1$ //$NON-NLS-2$
+
+			// the content of a bundle installed by reference stays available after uninstall
+			Bundle other = equinox.getBundleContext().installBundle("reference:file:///" + createResourceBundle(config, "other", "other").getAbsolutePath()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			URL otherURL = new URL(null, other.getEntry("resource.txt").toExternalForm(), new org.eclipse.osgi.storage.url.bundleentry.Handler(container, null)); //$NON-NLS-1$
+			assertEquals("Wrong content.", "other", readURL(otherURL)); //$NON-NLS-1$ //$NON-NLS-2$
+			other.uninstall();
+			try {
+				readURL(otherURL);
+				fail("Opened the URL of an uninstalled bundle."); //$NON-NLS-1$
+			} catch (IOException e) {
+				// expected
+			}
+		} finally {
+			stopFramework(equinox);
+		}
+	}
+
+	public void testReopenResourceURL() throws Exception {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName());
+		config.mkdirs();
+		Equinox equinox = startFramework(config);
+		try {
+			BundleContext systemContext = equinox.getBundleContext();
+			FrameworkWiring frameworkWiring = equinox.adapt(FrameworkWiring.class);
+			Bundle host = systemContext.installBundle("reference:file:///" + createResourceBundle(config, "host", "host").getAbsolutePath()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			assertTrue("The host did not resolve.", frameworkWiring.resolveBundles(Collections.singleton(host))); //$NON-NLS-1$
+			ModuleContainer container = host.adapt(Module.class).getContainer();
+			// the second class path entry of the host is the class path of the fragment once it is attached
+			URL resourceURL = new URL(null, "bundleresource://" + host.getBundleId() + ":1/resource.txt", new org.eclipse.osgi.storage.url.bundleresource.Handler(container, null)); //$NON-NLS-1$ //$NON-NLS-2$
+			assertEquals("Wrong content.", "host", readURL(resourceURL)); //$NON-NLS-1$ //$NON-NLS-2$
+
+			// a fragment attaches to the resolved host without a new wiring
+			Map<String, String> headers = new HashMap<String, String>();
+			headers.put(Constants.BUNDLE_MANIFESTVERSION, "2"); //$NON-NLS-1$
+			headers.put(Constants.BUNDLE_SYMBOLICNAME, getName() + ".fragment"); //$NON-NLS-1$
+			headers.put(Constants.FRAGMENT_HOST, host.getSymbolicName());
+			Bundle fragment = systemContext.installBundle("reference:file:///" + SystemBundleTests.createBundle(config, "fragment1", headers, Collections.singletonMap("resource.txt", "fragment1")).getAbsolutePath()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			assertTrue("The fragment did not resolve.", frameworkWiring.resolveBundles(Collections.singleton(fragment))); //$NON-NLS-1$
+			assertEquals("Wrong content after attaching the fragment.", "fragment1", readURL(resourceURL)); //$NON-NLS-1$ //$NON-NLS-2$
+
+			// refreshing the updated fragment refreshes the host
+			fragment.update(new FileInputStream(SystemBundleTests.createBundle(config, "fragment2", headers, Collections.singletonMap("resource.txt", "fragment2")))); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			final CountDownLatch refreshed = new CountDownLatch(1);
+			frameworkWiring.refreshBundles(Collections.singleton(fragment), new FrameworkListener() {
+				public void frameworkEvent(FrameworkEvent event) {
+					refreshed.countDown();
+				}
+			});
+			assertTrue("The bundles were not refreshed.", refreshed.await(10, TimeUnit.SECONDS)); //$NON-NLS-1$
+			assertTrue("The bundles did not resolve.", frameworkWiring.resolveBundles(Arrays.asList(host, fragment))); //$NON-NLS-1$
+			assertEquals("Wrong content after refresh.", "fragment2", readURL(resourceURL)); //$NON-NLS-1$ //$NON-NLS-2$
+		} finally {
+			stopFramework(equinox);
+		}
+	}
+
+	private File createResourceBundle(File config, String name, String content) throws IOException {
+		Map<String, String> headers = new HashMap<String, String>();
+		headers.put(Constants.BUNDLE_MANIFESTVERSION, "2"); //$NON-NLS-1$
+		headers.put(Constants.BUNDLE_SYMBOLICNAME, getName() + '.' + name);
+		return SystemBundleTests.createBundle(config, name + '_' + content, headers, Collections.singletonMap("resource.txt", content)); //$NON-NLS-1$
+	}
+
+	private String readURL(URL url) throws IOException {
+		InputStream in = url.openStream();
+		try {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(in));
+			return reader.readLine();
+		} finally {
+			in.close();
+		}
+	}
+
+	private Equinox startFramework(File config) throws BundleException {
+		Map<String, Object> configuration = new HashMap<String, Object>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, config.getAbsolutePath());
+		Equinox equinox = new Equinox(configuration);
+		equinox.start();
+		return equinox;
+	}
+
+	private void stopFramework(Equinox equinox) throws BundleException {
+		equinox.stop();
+		try {
+			equinox.waitForStop(10000);
+		} catch (InterruptedException e) {
+			fail("Unexpected interrupted exception", e); //$NON-NLS-1$
+		}
+	}
 }
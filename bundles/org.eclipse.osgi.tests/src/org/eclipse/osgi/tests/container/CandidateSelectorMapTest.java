@@ -0,0 +1,274 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.tests.container;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.felix.resolver.util.CandidateSelector;
+import org.apache.felix.resolver.util.CandidateSelectorMap;
+import org.junit.Test;
+import org.osgi.resource.*;
+
+public class CandidateSelectorMapTest {
+	private final AtomicBoolean unmodifiable = new AtomicBoolean(true);
+	private final List<TestCapability> capabilities = new ArrayList<TestCapability>();
+	private final List<TestRequirement> requirements = new ArrayList<TestRequirement>();
+
+	@Test
+	public void testCopy() {
+		// large enough for the changes to stay in the overlays
+		CandidateSelectorMap original = createMap(16);
+		CandidateSelectorMap copy = original.copy();
+		assertContent(original, 0, 0, 0);
+		assertContent(copy, 0, 0, 0);
+
+		copy.getModifiable(req(0)).removeCurrentCandidate();
+		assertContent(original, 0, 0, 0);
+		assertContent(copy, 1, 0, 0);
+
+		original.getModifiable(req(1)).removeCurrentCandidate();
+		original.getModifiable(req(1)).removeCurrentCandidate();
+		assertContent(original, 0, 2, 0);
+		assertContent(copy, 1, 0, 0);
+
+		// a copy of a copy takes over the changes but stays isolated
+		CandidateSelectorMap copyOfCopy = copy.copy();
+		assertContent(copyOfCopy, 1, 0, 0);
+		copyOfCopy.getModifiable(req(0)).removeCurrentCandidate();
+		copy.getModifiable(req(2)).removeCurrentCandidate();
+		assertContent(original, 0, 2, 0);
+		assertContent(copy, 1, 0, 1);
+		assertContent(copyOfCopy, 2, 0, 0);
+	}
+
+	@Test
+	public void testOverlay() {
+		CandidateSelectorMap original = createMap(2);
+		CandidateSelectorMap copy = original.copy();
+
+		// requirements added to a copy are not seen by the original
+		copy.put(req(2), selector(2));
+		assertContent(original, 0, 0, -1);
+		assertContent(copy, 0, 0, 2);
+
+		// and the other way around
+		original.put(req(3), selector(1));
+		original.put(req(0), selector(2));
+		assertContent(original, 2, 0, -1, 1);
+		assertContent(copy, 0, 0, 2, -1);
+
+		// replacing an added requirement keeps it in the overlay
+		copy.put(req(2), selector(1));
+		assertContent(copy, 0, 0, 1, -1);
+		assertContent(original, 2, 0, -1, 1);
+	}
+
+	@Test
+	public void testRemove() {
+		CandidateSelectorMap original = createMap(3);
+		CandidateSelectorMap copy = original.copy();
+
+		// removing a shared requirement hides it from the copy only
+		assertEquals("Wrong removed candidates.", Arrays.asList(cap(0), cap(1), cap(2)), copy.remove(req(0)).getRemainingCandidates());
+		assertNull("Unexpected candidates.", copy.get(req(0)));
+		assertNull("Unexpected candidates.", copy.getModifiable(req(0)));
+		assertNull("Unexpected candidates.", copy.remove(req(0)));
+		assertContent(copy, -1, 0, 0);
+		assertContent(original, 0, 0, 0);
+
+		// a removed requirement can be added again
+		copy.put(req(0), selector(2));
+		assertContent(copy, 2, 0, 0);
+
+		// removing a requirement only known to the copy
+		copy.put(req(3), selector(1));
+		copy.remove(req(3));
+		assertContent(copy, 2, 0, 0, -1);
+
+		// removals are kept by copies of the copy
+		copy.remove(req(1));
+		CandidateSelectorMap copyOfCopy = copy.copy();
+		assertContent(copyOfCopy, 2, -1, 0);
+		original.remove(req(2));
+		assertContent(original, 0, 0, -1);
+		assertContent(copy, 2, -1, 0);
+		assertContent(copyOfCopy, 2, -1, 0);
+	}
+
+	@Test
+	public void testFlattenWhileParentChanges() {
+		int size = 16;
+		CandidateSelectorMap parent = createMap(size);
+		CandidateSelectorMap child = parent.copy();
+		int[] parentExpected = new int[size];
+		int[] childExpected = new int[size];
+
+		// change enough requirements of the child for its next copy to start a new base
+		for (int i = 0; i < size / 2; i++) {
+			child.getModifiable(req(i)).removeCurrentCandidate();
+			childExpected[i] = 1;
+		}
+		child.remove(req(size - 1));
+		childExpected[size - 1] = -1;
+		CandidateSelectorMap grandChild = child.copy();
+		int[] grandChildExpected = childExpected.clone();
+
+		// change the parent while the copies are in use
+		for (int i = 0; i < size; i += 2) {
+			parent.getModifiable(req(i)).removeCurrentCandidate();
+			parent.getModifiable(req(i)).removeCurrentCandidate();
+			parentExpected[i] = 2;
+		}
+		parent.remove(req(1));
+		parentExpected[1] = -1;
+		assertContent(parent, parentExpected);
+		assertContent(child, childExpected);
+		assertContent(grandChild, grandChildExpected);
+
+		// flattening the parent does not affect the copies
+		assertFastContent(parent, parentExpected);
+		parent.getModifiable(req(3)).removeCurrentCandidate();
+		parentExpected[3] = 1;
+		assertContent(child, childExpected);
+		assertContent(grandChild, grandChildExpected);
+
+		// flattening the copies does not affect the parent or each other
+		grandChild.getModifiable(req(size / 2)).removeCurrentCandidate();
+		grandChildExpected[size / 2] = 1;
+		assertFastContent(grandChild, grandChildExpected);
+		child.getModifiable(req(0)).removeCurrentCandidate();
+		childExpected[0] = 2;
+		assertFastContent(child, childExpected);
+		assertFastContent(parent, parentExpected);
+		assertFastContent(grandChild, grandChildExpected);
+	}
+
+	private CandidateSelectorMap createMap(int size) {
+		CandidateSelectorMap map = new CandidateSelectorMap();
+		for (int i = 0; i < size; i++) {
+			map.put(req(i), selector(0));
+		}
+		return map;
+	}
+
+	// each requirement has the same three candidates; expected holds the number
+	// of removed candidates of each requirement or -1 if it is not in the map
+	private void assertContent(CandidateSelectorMap map, int... expected) {
+		for (int i = 0; i < expected.length; i++) {
+			CandidateSelector selector = map.get(req(i));
+			if (expected[i] < 0) {
+				assertNull("Unexpected candidates: " + i, selector);
+			} else {
+				assertEquals("Wrong candidates: " + i, candidates(expected[i]), selector.getRemainingCandidates());
+			}
+		}
+	}
+
+	private void assertFastContent(CandidateSelectorMap map, int... expected) {
+		Map<Requirement, List<Capability>> actual = new HashMap<Requirement, List<Capability>>();
+		for (Map.Entry<Requirement, CandidateSelector> entry : map.fast()) {
+			actual.put(entry.getKey(), entry.getValue().getRemainingCandidates());
+		}
+		Map<Requirement, List<Capability>> expectedMap = new HashMap<Requirement, List<Capability>>();
+		for (int i = 0; i < expected.length; i++) {
+			if (expected[i] >= 0) {
+				expectedMap.put(req(i), candidates(expected[i]));
+			}
+		}
+		assertEquals("Wrong entries.", expectedMap, actual);
+		assertContent(map, expected);
+	}
+
+	private CandidateSelector selector(int removed) {
+		return new CandidateSelector(candidates(removed), unmodifiable);
+	}
+
+	private List<Capability> candidates(int removed) {
+		List<Capability> result = new ArrayList<Capability>();
+		for (int i = removed; i < 3; i++) {
+			result.add(cap(i));
+		}
+		return result;
+	}
+
+	private TestRequirement req(int index) {
+		while (requirements.size() <= index) {
+			requirements.add(new TestRequirement(requirements.size()));
+		}
+		return requirements.get(index);
+	}
+
+	private TestCapability cap(int index) {
+		while (capabilities.size() <= index) {
+			capabilities.add(new TestCapability(capabilities.size()));
+		}
+		return capabilities.get(index);
+	}
+
+	static class TestRequirement implements Requirement {
+		private final int index;
+
+		TestRequirement(int index) {
+			this.index = index;
+		}
+
+		public String getNamespace() {
+			return "test"; //$NON-NLS-1$
+		}
+
+		public Map<String, String> getDirectives() {
+			return Collections.emptyMap();
+		}
+
+		public Map<String, Object> getAttributes() {
+			return Collections.emptyMap();
+		}
+
+		public Resource getResource() {
+			return null;
+		}
+
+		public String toString() {
+			return "req" + index; //$NON-NLS-1$
+		}
+	}
+
+	static class TestCapability implements Capability {
+		private final int index;
+
+		TestCapability(int index) {
+			this.index = index;
+		}
+
+		public String getNamespace() {
+			return "test"; //$NON-NLS-1$
+		}
+
+		public Map<String, String> getDirectives() {
+			return Collections.emptyMap();
+		}
+
+		public Map<String, Object> getAttributes() {
+			return Collections.emptyMap();
+		}
+
+		public Resource getResource() {
+			return null;
+		}
+
+		public String toString() {
+			return "cap" + index; //$NON-NLS-1$
+		}
+	}
+}
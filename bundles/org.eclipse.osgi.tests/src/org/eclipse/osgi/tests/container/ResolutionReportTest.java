@@ -19,6 +19,7 @@ import java.util.*;
 import org.eclipse.osgi.container.Module;
 import org.eclipse.osgi.container.ModuleContainer;
 import org.eclipse.osgi.report.resolution.ResolutionReport;
+import org.eclipse.osgi.report.resolution.ResolutionStatistics;
 import org.eclipse.osgi.tests.container.dummys.*;
 import org.junit.Test;
 import org.osgi.framework.Constants;
@@ -198,6 +199,38 @@ public class ResolutionReportTest extends AbstractTest {
 		assertResolutionReportEntryDataMissingCapability(entry.getData(), "does.not.exist", null);
 	}
 
+	@Test
+	public void testResolutionStatistics() throws Exception {
+		DummyResolverHook hook = new DummyResolverHook();
+		DummyContainerAdaptor adaptor = createDummyAdaptor(hook);
+		ModuleContainer container = adaptor.getContainer();
+		Module resolutionReportE = installDummyModule("resolution.report.e.MF", "resolution.report.e", container);
+		Module resolutionReportF = installDummyModule("resolution.report.f.MF", "resolution.report.f", container);
+		Module resolutionReportG = installDummyModule("resolution.report.g.MF", "resolution.report.g", container);
+		assertResolutionSucceeds(container, Arrays.asList(resolutionReportG, resolutionReportE, resolutionReportF));
+		ResolutionReport report = hook.getResolutionReports().get(0);
+		assertTrue("Resolution report does not have statistics", report instanceof ResolutionStatistics);
+		ResolutionStatistics statistics = (ResolutionStatistics) report;
+
+		assertTrue("No candidate population time", statistics.getPhaseTime(ResolutionStatistics.Phase.CANDIDATE_POPULATION) > 0);
+		assertTrue("No uses checking time", statistics.getPhaseTime(ResolutionStatistics.Phase.USES_CHECKING) > 0);
+		assertTrue("No permutations checked", statistics.getPermutationCount() > 0);
+
+		Requirement importE = resolutionReportG.getCurrentRevision().getRequirements(PackageNamespace.PACKAGE_NAMESPACE).get(0);
+		Map<Requirement, Integer> topRequirements = statistics.getTopRequirements();
+		assertEquals("Wrong candidate count", Integer.valueOf(1), topRequirements.get(importE));
+		assertEquals("Wrong top candidate count", Integer.valueOf(1), topRequirements.values().iterator().next());
+
+		List<ResolutionStatistics.BatchEvent> batchEvents = statistics.getBatchEvents();
+		assertTrue("No batch events", !batchEvents.isEmpty());
+		int revisionCount = 0;
+		for (ResolutionStatistics.BatchEvent batchEvent : batchEvents) {
+			assertEquals("Wrong batch event type", ResolutionStatistics.BatchEvent.Type.RESOLVED, batchEvent.getType());
+			revisionCount += batchEvent.getRevisionCount();
+		}
+		assertEquals("Wrong number of revisions in batches", 3, revisionCount);
+	}
+
 	private void clearResolutionReports(DummyResolverHook hook) {
 		hook.getResolutionReports().clear();
 	}
@@ -1826,6 +1826,184 @@ public class TestModuleContainer extends AbstractTest {
 		System.gc();
 	}
 
+	@Test
+	public void testUsesPermutationBatch() throws BundleException {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		Map<String, String> configuration = new HashMap<String, String>();
+		configuration.put(EquinoxConfiguration.PROP_RESOLVER_PERMUTATION_BATCH_SIZE, "4");
+		DummyContainerAdaptor adaptor = new DummyContainerAdaptor(new DummyCollisionHook(false), configuration);
+		adaptor.setResolverExecutor(executor);
+		try {
+			ModuleContainer container = adaptor.getContainer();
+			for (int i = 1; i <= 10; i++) {
+				for (Map<String, String> manifest : getUsesTimeoutManifests("test" + i)) {
+					installDummyModule(manifest, manifest.get(Constants.BUNDLE_SYMBOLICNAME), container);
+				}
+			}
+			ResolutionReport report = container.resolve(container.getModules(), true);
+			Assert.assertNull("Found resolution errors.", report.getResolutionException());
+			for (Module module : container.getModules()) {
+				Assert.assertEquals("Wrong state of module: " + module, State.RESOLVED, module.getState());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testUsesPermutationBatchResult() throws BundleException {
+		List<Map<String, String>> manifests = new ArrayList<Map<String, String>>();
+		for (int i = 1; i <= 5; i++) {
+			manifests.addAll(getUsesTimeoutManifests("test" + i));
+			manifests.addAll(getSubstitutionUsesManifests("sub" + i));
+		}
+		// checking permutations in batches must not change which permutation is used
+		Map<String, List<String>> expected = resolveWithPermutationBatchSize(manifests, 1);
+		for (int batchSize = 2; batchSize <= 16; batchSize *= 2) {
+			assertEquals("Wrong wires with batch size " + batchSize, expected, resolveWithPermutationBatchSize(manifests, batchSize));
+		}
+	}
+
+	private Map<String, List<String>> resolveWithPermutationBatchSize(List<Map<String, String>> manifests, int batchSize) throws BundleException {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		Map<String, String> configuration = new HashMap<String, String>();
+		configuration.put(EquinoxConfiguration.PROP_RESOLVER_PERMUTATION_BATCH_SIZE, Integer.toString(batchSize));
+		DummyContainerAdaptor adaptor = new DummyContainerAdaptor(new DummyCollisionHook(false), configuration);
+		adaptor.setResolverExecutor(executor);
+		try {
+			ModuleContainer container = adaptor.getContainer();
+			for (Map<String, String> manifest : manifests) {
+				installDummyModule(manifest, manifest.get(Constants.BUNDLE_SYMBOLICNAME), container);
+			}
+			container.resolve(container.getModules(), false);
+			Map<String, List<String>> result = new TreeMap<String, List<String>>();
+			for (Module module : container.getModules()) {
+				List<String> wires = new ArrayList<String>();
+				ModuleWiring wiring = module.getCurrentRevision().getWiring();
+				if (wiring != null) {
+					for (ModuleWire wire : wiring.getRequiredModuleWires(null)) {
+						wires.add(wire.getRequirement() + " -> " + wire.getCapability() + " " + wire.getProvider());
+					}
+				}
+				result.put(module.getLocation(), wires);
+			}
+			return result;
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private List<Map<String, String>> getSubstitutionUsesManifests(String prefix) {
+		List<Map<String, String>> result = new ArrayList<Map<String, String>>();
+		result.add(getPackageManifest(prefix + ".b0", prefix + ".p1; version=1.2; uses:=" + prefix + ".p3", prefix + ".p0; version=\"[1.1,1.2)\", " + prefix + ".p2; version=\"[1.0,1.2)\""));
+		result.add(getPackageManifest(prefix + ".b1", prefix + ".p3; version=1.2", prefix + ".p3, " + prefix + ".p1; version=\"[1.0,1.2)\"; resolution:=optional"));
+		result.add(getPackageManifest(prefix + ".b2", null, prefix + ".p1; version=\"[1.2,1.3)\"; resolution:=optional"));
+		result.add(getPackageManifest(prefix + ".b3", prefix + ".p3; version=1.1", prefix + ".p0; version=\"[1.2,1.4)\"; resolution:=optional, " + prefix + ".p2; version=\"[1.0,1.1)\"; resolution:=optional"));
+		result.add(getPackageManifest(prefix + ".b4", prefix + ".p0; version=1.2; uses:=\"" + prefix + ".p3," + prefix + ".p1\"", prefix + ".p3; version=\"[1.1,1.3)\"; resolution:=optional"));
+		result.add(getPackageManifest(prefix + ".b6", prefix + ".p2; version=1.2", prefix + ".p2"));
+		result.add(getPackageManifest(prefix + ".b7", null, prefix + ".p0; version=\"[1.0,1.1)\"; resolution:=optional, " + prefix + ".p3; version=\"[1.0,1.1)\"; resolution:=optional"));
+		result.add(getPackageManifest(prefix + ".b8", prefix + ".p0; version=1.1", prefix + ".p0, " + prefix + ".p2; version=\"[1.1,1.2)\", " + prefix + ".p1; version=\"[1.0,1.1)\""));
+		result.add(getPackageManifest(prefix + ".b9", prefix + ".p2; version=1.2; uses:=" + prefix + ".p3", prefix + ".p2"));
+		result.add(getPackageManifest(prefix + ".b10", prefix + ".p0; version=1.1", prefix + ".p0"));
+		result.add(getPackageManifest(prefix + ".b12", prefix + ".p3; version=1.0; uses:=" + prefix + ".p1", prefix + ".p3"));
+		result.add(getPackageManifest(prefix + ".b13", prefix + ".p2; version=1.0; uses:=\"" + prefix + ".p3," + prefix + ".p1\"", prefix + ".p1; version=\"[1.0,1.1)\"; resolution:=optional"));
+		result.add(getPackageManifest(prefix + ".b14", null, prefix + ".p1; version=\"[1.1,1.3)\", " + prefix + ".p0; version=\"[1.0,1.2)\"; resolution:=optional"));
+		result.add(getPackageManifest(prefix + ".b15", prefix + ".p1; version=1.2", null));
+		result.add(getPackageManifest(prefix + ".b16", prefix + ".p0; version=1.2; uses:=" + prefix + ".p1", prefix + ".p0, " + prefix + ".p3; version=\"[1.2,1.4)\""));
+		result.add(getPackageManifest(prefix + ".b17", null, prefix + ".p1; version=\"[1.0,1.1)\""));
+		return result;
+	}
+
+	private static Map<String, String> getPackageManifest(String symbolicName, String exportPackage, String importPackage) {
+		Map<String, String> manifest = new HashMap<String, String>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, symbolicName);
+		if (exportPackage != null) {
+			manifest.put(Constants.EXPORT_PACKAGE, exportPackage);
+		}
+		if (importPackage != null) {
+			manifest.put(Constants.IMPORT_PACKAGE, importPackage);
+		}
+		return manifest;
+	}
+
+	@Test
+	public void testReadWhileWriteLocked() throws Exception {
+		DummyContainerAdaptor adaptor = createDummyAdaptor();
+		final ModuleContainer container = adaptor.getContainer();
+		final Module systemBundle = installDummyModule("system.bundle.MF", Constants.SYSTEM_BUNDLE_LOCATION, container);
+		container.resolve(Arrays.asList(systemBundle), true);
+		// the first reads after a write create the snapshots used by the other reads
+		assertEquals("Wrong number of modules.", 1, container.getModules().size());
+		assertNotNull("Missing wiring.", systemBundle.getCurrentRevision().getWiring());
+
+		DummyModuleDatabase database = adaptor.getDatabase();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		database.writeLock();
+		try {
+			// reads from other threads must not wait for the write lock
+			Future<Boolean> read = executor.submit(new Callable<Boolean>() {
+				@Override
+				public Boolean call() {
+					return container.getModule(0) == systemBundle && container.getModule(Constants.SYSTEM_BUNDLE_LOCATION) == systemBundle && container.getModules().size() == 1 && systemBundle.getCurrentRevision().getWiring() != null;
+				}
+			});
+			assertTrue("Wrong read result.", read.get(5, TimeUnit.SECONDS));
+		} finally {
+			database.writeUnlock();
+			executor.shutdown();
+		}
+
+		Module b1 = installDummyModule("b1_v1.MF", "b1", container);
+		assertEquals("Wrong module.", b1, container.getModule("b1"));
+		assertEquals("Wrong number of modules.", 2, container.getModules().size());
+		assertNull("Unexpected wiring.", b1.getCurrentRevision().getWiring());
+		container.resolve(Arrays.asList(b1), true);
+		assertNotNull("Missing wiring.", b1.getCurrentRevision().getWiring());
+		container.uninstall(b1);
+		assertNull("Unexpected module.", container.getModule("b1"));
+		assertEquals("Wrong number of modules.", 1, container.getModules().size());
+	}
+
+	@Test
+	public void testSettingsWritesKeepSnapshot() throws Exception {
+		DummyContainerAdaptor adaptor = createDummyAdaptor();
+		final ModuleContainer container = adaptor.getContainer();
+		final Module systemBundle = installDummyModule("system.bundle.MF", Constants.SYSTEM_BUNDLE_LOCATION, container);
+		container.resolve(Arrays.asList(systemBundle), true);
+		systemBundle.start();
+
+		container.getFrameworkStartLevel().setInitialBundleStartLevel(2);
+		final Module c4 = installDummyModule("c4_v1.MF", "c4_v1", container);
+		container.resolve(Arrays.asList(c4), true);
+		// the first reads after installing and resolving create the snapshots
+		assertEquals("Wrong number of modules.", 2, container.getModules().size());
+		assertNotNull("Missing wiring.", c4.getCurrentRevision().getWiring());
+
+		// writes which do not change the modules or wirings
+		container.getFrameworkStartLevel().setInitialBundleStartLevel(3);
+		c4.setStartLevel(1);
+		c4.start();
+		assertEquals("Wrong startlevel.", 1, c4.getStartLevel());
+
+		DummyModuleDatabase database = adaptor.getDatabase();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		database.writeLock();
+		try {
+			// a discarded snapshot could only be rebuilt after the write lock is released
+			Future<Boolean> read = executor.submit(new Callable<Boolean>() {
+				@Override
+				public Boolean call() {
+					return container.getModules().size() == 2 && container.getModule("c4_v1") == c4 && c4.getCurrentRevision().getWiring() != null;
+				}
+			});
+			assertTrue("Wrong read result.", read.get(5, TimeUnit.SECONDS));
+		} finally {
+			database.writeUnlock();
+			executor.shutdown();
+		}
+	}
+
 	private List<Map<String, String>> getUsesTimeoutManifests(String prefix) {
 		List<Map<String, String>> result = new ArrayList<Map<String, String>>();
 		// x1 bundle
@@ -11,8 +11,10 @@
 package org.eclipse.osgi.tests.eventmgr;
 
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import junit.framework.*;
-import org.eclipse.osgi.framework.eventmgr.CopyOnWriteIdentityMap;
+import org.eclipse.osgi.framework.eventmgr.*;
 
 public class EventManagerTests extends TestCase {
 	public static Test suite() {
@@ -421,4 +423,58 @@ public class EventManagerTests extends TestCase {
 		assertNull("value not null", el2.get(l3)); //$NON-NLS-1$
 
 	}
+
+	public void testAsyncLanes() throws InterruptedException {
+		final CountDownLatch blocked = new CountDownLatch(1);
+		final Object slow = new Object();
+		final Object fast1 = new Object();
+		final Object fast2 = new Object();
+		final Map<Object, List<Integer>> received = new HashMap<Object, List<Integer>>();
+		received.put(slow, Collections.synchronizedList(new ArrayList<Integer>()));
+		received.put(fast1, Collections.synchronizedList(new ArrayList<Integer>()));
+		received.put(fast2, Collections.synchronizedList(new ArrayList<Integer>()));
+		EventDispatcher<Object, Object, Integer> dispatcher = new EventDispatcher<Object, Object, Integer>() {
+			public void dispatchEvent(Object eventListener, Object listenerObject, int eventAction, Integer eventObject) {
+				if (eventListener == slow) {
+					try {
+						blocked.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				received.get(eventListener).add(eventObject);
+			}
+		};
+		CopyOnWriteIdentityMap<Object, Object> listeners = new CopyOnWriteIdentityMap<Object, Object>();
+		listeners.put(slow, slow);
+		listeners.put(fast1, fast1);
+		listeners.put(fast2, fast2);
+
+		EventManager manager = new EventManager("testAsyncLanes", null, 2); //$NON-NLS-1$
+		try {
+			int count = 100;
+			for (int i = 0; i < count; i++) {
+				ListenerQueue<Object, Object, Integer> queue = new ListenerQueue<Object, Object, Integer>(manager);
+				queue.queueListeners(listeners.entrySet(), dispatcher);
+				queue.dispatchEventAsynchronous(0, Integer.valueOf(i));
+			}
+			// the blocked listener must not prevent the delivery to the other listeners
+			assertFalse("flushed while blocked", manager.flush(1, TimeUnit.SECONDS)); //$NON-NLS-1$
+			assertTrue("slow listener received events", received.get(slow).isEmpty()); //$NON-NLS-1$
+			assertEquals("wrong number of events", count, received.get(fast1).size()); //$NON-NLS-1$
+			assertEquals("wrong number of events", count, received.get(fast2).size()); //$NON-NLS-1$
+
+			blocked.countDown();
+			assertTrue("not flushed", manager.flush(5, TimeUnit.SECONDS)); //$NON-NLS-1$
+			for (List<Integer> events : received.values()) {
+				assertEquals("wrong number of events", count, events.size()); //$NON-NLS-1$
+				for (int i = 0; i < count; i++) {
+					assertEquals("wrong event order", Integer.valueOf(i), events.get(i)); //$NON-NLS-1$
+				}
+			}
+		} finally {
+			blocked.countDown();
+			manager.close();
+		}
+	}
 }
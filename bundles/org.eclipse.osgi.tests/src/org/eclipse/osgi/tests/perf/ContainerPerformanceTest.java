@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.tests.perf;
+
+import java.util.*;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import org.eclipse.core.tests.harness.CoreTest;
+import org.eclipse.core.tests.harness.PerformanceTestRunner;
+import org.eclipse.osgi.container.*;
+import org.eclipse.osgi.container.builders.OSGiManifestBuilderFactory;
+import org.eclipse.osgi.tests.container.dummys.DummyCollisionHook;
+import org.eclipse.osgi.tests.container.dummys.DummyContainerAdaptor;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.Constants;
+
+/**
+ * Measures the time of the {@link ModuleContainer} resolve operations
+ * against repositories generated by {@link SyntheticRepository}.
+ */
+public class ContainerPerformanceTest extends CoreTest {
+	private static final int STEPS = 5;
+
+	public static Test suite() {
+		return new TestSuite(ContainerPerformanceTest.class);
+	}
+
+	public ContainerPerformanceTest(String name) {
+		super(name);
+	}
+
+	private SyntheticRepository createRepository(int bundleCount) {
+		// uses a constant seed to prevent variation on results
+		return new SyntheticRepository(0).setBundleCount(bundleCount).setVersionCount(2).setVersionRangeWidth(2).setImportFanOut(5).setUsesDepth(3).setFragmentEvery(10).setSingletonEvery(20);
+	}
+
+	private ModuleContainer createContainer(List<Map<String, String>> manifests) throws BundleException {
+		DummyContainerAdaptor adaptor = new DummyContainerAdaptor(new DummyCollisionHook(false), Collections.<String, String> emptyMap());
+		ModuleContainer container = adaptor.getContainer();
+		Map<String, String> systemManifest = new HashMap<String, String>();
+		systemManifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		systemManifest.put(Constants.BUNDLE_SYMBOLICNAME, Constants.SYSTEM_BUNDLE_SYMBOLICNAME);
+		Module system = container.install(null, Constants.SYSTEM_BUNDLE_LOCATION, OSGiManifestBuilderFactory.createBuilder(systemManifest), null);
+		container.resolve(Collections.singleton(system), true);
+		for (Map<String, String> manifest : manifests) {
+			String location = manifest.get(Constants.BUNDLE_SYMBOLICNAME) + '_' + manifest.get(Constants.BUNDLE_VERSION);
+			container.install(system, location, OSGiManifestBuilderFactory.createBuilder(manifest), null);
+		}
+		return container;
+	}
+
+	private List<ModuleContainer> createContainers(List<Map<String, String>> manifests, int count, boolean resolve) throws BundleException {
+		List<ModuleContainer> containers = new ArrayList<ModuleContainer>(count);
+		for (int i = 0; i < count; i++) {
+			ModuleContainer container = createContainer(manifests);
+			if (resolve) {
+				container.resolve(container.getModules(), false);
+			}
+			containers.add(container);
+		}
+		return containers;
+	}
+
+	private void doResolve(int bundleCount, int repetitions) throws BundleException {
+		final Iterator<ModuleContainer> containers = createContainers(createRepository(bundleCount).generate(), STEPS * repetitions, false).iterator();
+		new PerformanceTestRunner() {
+			protected void test() {
+				ModuleContainer container = containers.next();
+				container.resolve(container.getModules(), false);
+			}
+		}.run(this, STEPS, repetitions);
+	}
+
+	private void doRefresh(int bundleCount, int repetitions) throws BundleException {
+		final ModuleContainer container = createContainers(createRepository(bundleCount).generate(), 1, true).get(0);
+		new PerformanceTestRunner() {
+			protected void test() {
+				container.refresh(container.getModules());
+			}
+		}.run(this, STEPS, repetitions);
+	}
+
+	private void doResolveDynamic(int bundleCount, int repetitions) throws BundleException {
+		SyntheticRepository repository = createRepository(bundleCount).setDynamicImporter(true);
+		final List<String> packageNames = repository.getPackageNames();
+		final Iterator<ModuleContainer> containers = createContainers(repository.generate(), STEPS * repetitions, true).iterator();
+		new PerformanceTestRunner() {
+			protected void test() {
+				ModuleContainer container = containers.next();
+				ModuleRevision importer = getRevision(container, SyntheticRepository.DYNAMIC_IMPORTER);
+				for (String packageName : packageNames) {
+					container.resolveDynamic(packageName, importer);
+				}
+			}
+		}.run(this, STEPS, repetitions);
+	}
+
+	ModuleRevision getRevision(ModuleContainer container, String symbolicName) {
+		for (Module module : container.getModules()) {
+			ModuleRevision revision = module.getCurrentRevision();
+			if (symbolicName.equals(revision.getSymbolicName())) {
+				return revision;
+			}
+		}
+		throw new IllegalArgumentException(symbolicName);
+	}
+
+	public void testResolve00500() throws BundleException {
+		doResolve(500, 4);
+	}
+
+	public void testResolve02000() throws BundleException {
+		doResolve(2000, 1);
+	}
+
+	public void testRefresh00500() throws BundleException {
+		doRefresh(500, 4);
+	}
+
+	public void testRefresh02000() throws BundleException {
+		doRefresh(2000, 1);
+	}
+
+	public void testResolveDynamic00500() throws BundleException {
+		doResolveDynamic(500, 1);
+	}
+}
@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.tests.perf;
+
+import java.util.*;
+import org.osgi.framework.Constants;
+
+/**
+ * Generates the manifests of a synthetic repository of bundles for resolver
+ * performance tests.  The generated graph is determined by the seed and the
+ * configured shape so that results can be compared between runs.
+ */
+public class SyntheticRepository {
+	public static final String PREFIX = "synthetic";
+	public static final String DYNAMIC_IMPORTER = PREFIX + ".dynamic";
+
+	private final Random random;
+	private int bundleCount = 500;
+	private int versionCount = 1;
+	private int exportsPerBundle = 3;
+	private int importFanOut = 5;
+	private int usesDepth = 3;
+	private int versionRangeWidth = 1;
+	private int fragmentEvery = 0;
+	private int singletonEvery = 0;
+	private boolean dynamicImporter = false;
+
+	public SyntheticRepository(long seed) {
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * The number of distinct bundle symbolic names to generate.
+	 */
+	public SyntheticRepository setBundleCount(int bundleCount) {
+		this.bundleCount = bundleCount;
+		return this;
+	}
+
+	/**
+	 * The number of versions generated for each bundle symbolic name.
+	 */
+	public SyntheticRepository setVersionCount(int versionCount) {
+		this.versionCount = versionCount;
+		return this;
+	}
+
+	/**
+	 * The number of packages exported by each bundle.
+	 */
+	public SyntheticRepository setExportsPerBundle(int exportsPerBundle) {
+		this.exportsPerBundle = exportsPerBundle;
+		return this;
+	}
+
+	/**
+	 * The number of packages each bundle imports from randomly selected lower bundles.
+	 */
+	public SyntheticRepository setImportFanOut(int importFanOut) {
+		this.importFanOut = importFanOut;
+		return this;
+	}
+
+	/**
+	 * The length of the uses chains between consecutive bundles; zero disables uses directives.
+	 */
+	public SyntheticRepository setUsesDepth(int usesDepth) {
+		this.usesDepth = usesDepth;
+		return this;
+	}
+
+	/**
+	 * The number of package versions matched by each import version range.
+	 */
+	public SyntheticRepository setVersionRangeWidth(int versionRangeWidth) {
+		this.versionRangeWidth = versionRangeWidth;
+		return this;
+	}
+
+	/**
+	 * Generates a fragment for every n-th bundle; zero disables fragments.
+	 */
+	public SyntheticRepository setFragmentEvery(int fragmentEvery) {
+		this.fragmentEvery = fragmentEvery;
+		return this;
+	}
+
+	/**
+	 * Marks every n-th bundle as a singleton; zero disables singletons.
+	 */
+	public SyntheticRepository setSingletonEvery(int singletonEvery) {
+		this.singletonEvery = singletonEvery;
+		return this;
+	}
+
+	/**
+	 * Generates an additional bundle that dynamically imports all the synthetic packages.
+	 */
+	public SyntheticRepository setDynamicImporter(boolean dynamicImporter) {
+		this.dynamicImporter = dynamicImporter;
+		return this;
+	}
+
+	public static String getPackageName(int bundle, int pkg) {
+		return PREFIX + ".p" + bundle + '.' + pkg;
+	}
+
+	/**
+	 * Returns the names of the packages exported by the generated bundles.
+	 */
+	public List<String> getPackageNames() {
+		List<String> result = new ArrayList<String>(bundleCount * exportsPerBundle);
+		for (int i = 0; i < bundleCount; i++) {
+			for (int j = 0; j < exportsPerBundle; j++) {
+				result.add(getPackageName(i, j));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Generates the bundle manifests, including any fragments and the dynamic importer.
+	 */
+	public List<Map<String, String>> generate() {
+		List<Map<String, String>> result = new ArrayList<Map<String, String>>();
+		for (int i = 0; i < bundleCount; i++) {
+			String imports = getImports(i);
+			String uses = getUses(i);
+			for (int v = 1; v <= versionCount; v++) {
+				Map<String, String> manifest = new HashMap<String, String>();
+				manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+				String bsn = PREFIX + ".b" + i;
+				manifest.put(Constants.BUNDLE_SYMBOLICNAME, singletonEvery > 0 && i % singletonEvery == 0 ? bsn + "; singleton:=true" : bsn);
+				manifest.put(Constants.BUNDLE_VERSION, v + ".0.0");
+				if (exportsPerBundle > 0) {
+					StringBuilder exports = new StringBuilder();
+					for (int j = 0; j < exportsPerBundle; j++) {
+						if (j > 0) {
+							exports.append(", ");
+						}
+						exports.append(getPackageName(i, j)).append("; version=").append(v).append(".0");
+						if (uses != null) {
+							exports.append("; uses:=\"").append(uses).append('"');
+						}
+					}
+					manifest.put(Constants.EXPORT_PACKAGE, exports.toString());
+				}
+				if (imports != null) {
+					manifest.put(Constants.IMPORT_PACKAGE, imports);
+				}
+				result.add(manifest);
+
+				if (fragmentEvery > 0 && i % fragmentEvery == 0) {
+					Map<String, String> fragment = new HashMap<String, String>();
+					fragment.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+					fragment.put(Constants.BUNDLE_SYMBOLICNAME, bsn + ".frag");
+					fragment.put(Constants.BUNDLE_VERSION, v + ".0.0");
+					fragment.put(Constants.FRAGMENT_HOST, bsn + "; bundle-version=\"[" + v + ".0.0," + v + ".0.0]\"");
+					fragment.put(Constants.EXPORT_PACKAGE, PREFIX + ".frag" + i + "; version=" + v + ".0");
+					if (imports != null) {
+						fragment.put(Constants.IMPORT_PACKAGE, imports);
+					}
+					result.add(fragment);
+				}
+			}
+		}
+		if (dynamicImporter) {
+			Map<String, String> manifest = new HashMap<String, String>();
+			manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+			manifest.put(Constants.BUNDLE_SYMBOLICNAME, DYNAMIC_IMPORTER);
+			manifest.put(Constants.DYNAMICIMPORT_PACKAGE, PREFIX + ".*");
+			result.add(manifest);
+		}
+		return result;
+	}
+
+	private String getImports(int bundle) {
+		if (bundle == 0) {
+			return null;
+		}
+		Set<String> imported = new LinkedHashSet<String>();
+		// the uses chain imports the first package of the previous bundle
+		if (usesDepth > 0 && bundle % (usesDepth + 1) != 0 && exportsPerBundle > 0) {
+			imported.add(getPackageName(bundle - 1, 0));
+		}
+		for (int k = 0; k < importFanOut && exportsPerBundle > 0; k++) {
+			imported.add(getPackageName(random.nextInt(bundle), random.nextInt(exportsPerBundle)));
+		}
+		if (imported.isEmpty()) {
+			return null;
+		}
+		StringBuilder imports = new StringBuilder();
+		for (String pkg : imported) {
+			if (imports.length() > 0) {
+				imports.append(", ");
+			}
+			imports.append(pkg);
+			if (versionRangeWidth > 0) {
+				int low = 1 + random.nextInt(versionCount);
+				imports.append("; version=\"[").append(low).append(".0,").append(low + versionRangeWidth).append(".0)\"");
+			}
+		}
+		return imports.toString();
+	}
+
+	private String getUses(int bundle) {
+		if (usesDepth <= 0 || bundle == 0 || bundle % (usesDepth + 1) == 0 || exportsPerBundle == 0) {
+			return null;
+		}
+		return getPackageName(bundle - 1, 0);
+	}
+}
@@ -10,16 +10,19 @@
  *******************************************************************************/
 package org.eclipse.osgi.tests.security;
 
-import java.io.File;
+import java.io.*;
 import java.security.SignatureException;
 import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
+import java.util.*;
+import java.util.zip.*;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 import org.eclipse.core.tests.session.ConfigurationSessionTestSuite;
+import org.eclipse.osgi.launch.Equinox;
 import org.eclipse.osgi.signedcontent.*;
-import org.osgi.framework.Bundle;
-import org.osgi.framework.BundleException;
+import org.eclipse.osgi.tests.OSGiTestsActivator;
+import org.osgi.framework.*;
 
 public class SignedBundleTest extends BaseSecurityTest {
 
@@ -966,4 +969,360 @@ public class SignedBundleTest extends BaseSecurityTest {
 			}
 		}
 	}
+
+	private static final String SIGNED_CLASS = "org/eclipse/equinox/security/junit/SignedClass.class"; //$NON-NLS-1$
+	private static final String ANOTHER_SIGNED_CLASS = "org/eclipse/equinox/security/junit/AnotherSignedClass.class"; //$NON-NLS-1$
+
+	public void testVerifiedEntriesModifiedJar() throws Exception {
+		File storage = getStorage();
+		File jar = createStoredJar(getTestJarPath("signed"), new File(storage, "signed.jar"));
+		String location = "reference:" + jar.toURI();
+		Equinox equinox = startFramework(storage);
+		try {
+			Bundle testBundle = equinox.getBundleContext().installBundle(location);
+			SignedContentEntry[] entries = getSignedContent(equinox, testBundle).getSignedEntries();
+			for (int i = 0; i < entries.length; i++)
+				entries[i].verify();
+		} finally {
+			stopFramework(equinox);
+		}
+
+		long lastModified = jar.lastModified();
+		corruptEntry(jar, SIGNED_CLASS);
+		// the length is unchanged; the modification time tells the content changed
+		jar.setLastModified(lastModified + 10000);
+
+		equinox = startFramework(storage);
+		try {
+			Bundle testBundle = equinox.getBundleContext().getBundle(location);
+			assertCorruptEntry(testBundle, SIGNED_CLASS);
+			assertVerify(getSignedContent(equinox, testBundle), SIGNED_CLASS);
+		} finally {
+			stopFramework(equinox);
+		}
+	}
+
+	public void testVerifiedEntriesDirectory() throws Exception {
+		File storage = getStorage();
+		File dir = new File(storage, "signed"); //$NON-NLS-1$
+		extractJar(getTestJarPath("signed"), dir);
+		String location = "reference:" + dir.toURI();
+		Equinox equinox = startFramework(storage);
+		try {
+			Bundle testBundle = equinox.getBundleContext().installBundle(location);
+			assertTrue("Should be signed", getSignedContent(equinox, testBundle).isSigned());
+			readEntry(testBundle, SIGNED_CLASS);
+		} finally {
+			stopFramework(equinox);
+		}
+
+		// modify an entry without changing the directory itself
+		long lastModified = dir.lastModified();
+		corruptEntry(new File(dir, SIGNED_CLASS), SIGNED_CLASS);
+		dir.setLastModified(lastModified);
+
+		equinox = startFramework(storage);
+		try {
+			Bundle testBundle = equinox.getBundleContext().getBundle(location);
+			assertCorruptEntry(testBundle, SIGNED_CLASS);
+			assertVerify(getSignedContent(equinox, testBundle), SIGNED_CLASS);
+		} finally {
+			stopFramework(equinox);
+		}
+	}
+
+	public void testVerifyVerifiedEntry() throws Exception {
+		File storage = getStorage();
+		File jar = createStoredJar(getTestJarPath("signed"), new File(storage, "signed.jar"));
+		String location = "reference:" + jar.toURI();
+		Equinox equinox = startFramework(storage);
+		try {
+			Bundle testBundle = equinox.getBundleContext().installBundle(location);
+			readEntry(testBundle, SIGNED_CLASS);
+		} finally {
+			stopFramework(equinox);
+		}
+		// entries verified after the bundle was installed are persisted also
+		equinox = startFramework(storage);
+		try {
+			readEntry(equinox.getBundleContext().getBundle(location), ANOTHER_SIGNED_CLASS);
+		} finally {
+			stopFramework(equinox);
+		}
+
+		// modify the entries without changing the length or modification time of the jar
+		long lastModified = jar.lastModified();
+		corruptEntry(jar, SIGNED_CLASS);
+		corruptEntry(jar, ANOTHER_SIGNED_CLASS);
+		jar.setLastModified(lastModified);
+
+		equinox = startFramework(storage);
+		try {
+			Bundle testBundle = equinox.getBundleContext().getBundle(location);
+			// reading the entries trusts the persisted verification
+			readEntry(testBundle, SIGNED_CLASS);
+			readEntry(testBundle, ANOTHER_SIGNED_CLASS);
+			// an explicit verify digests the entries again
+			SignedContent signedContent = getSignedContent(equinox, testBundle);
+			assertVerify(signedContent, SIGNED_CLASS, ANOTHER_SIGNED_CLASS);
+			assertVerify(signedContent, SIGNED_CLASS, ANOTHER_SIGNED_CLASS);
+		} finally {
+			stopFramework(equinox);
+		}
+	}
+
+	public void testParallelVerification() throws Exception {
+		File storage = getStorage();
+		// the second signer fails to verify
+		File badSigner = createModifiedJar(getTestJarPath("multiply_signed"), new File(storage, "bad_signer.jar"), "META-INF/CA1_LEAF.SF"); //$NON-NLS-1$ //$NON-NLS-2$
+		File corruptEntries = createModifiedJar(getTestJarPath("multiply_signed"), new File(storage, "corrupt_entries.jar"), SIGNED_CLASS, ANOTHER_SIGNED_CLASS); //$NON-NLS-1$ //$NON-NLS-2$
+
+		String serialSigner;
+		String serialEntries;
+		Equinox equinox = startFramework(storage, "1"); //$NON-NLS-1$
+		try {
+			serialSigner = getVerification(equinox, badSigner);
+			serialEntries = getVerification(equinox, corruptEntries);
+		} finally {
+			stopFramework(equinox);
+		}
+		assertTrue("Expected a signer failure: " + serialSigner, serialSigner.startsWith("failed: ")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertTrue("Expected corrupt entries: " + serialEntries, serialEntries.contains(SIGNED_CLASS) && serialEntries.contains(ANOTHER_SIGNED_CLASS)); //$NON-NLS-1$
+
+		equinox = startFramework(storage, "4"); //$NON-NLS-1$
+		try {
+			assertEquals("Wrong signer failure.", serialSigner, getVerification(equinox, badSigner)); //$NON-NLS-1$
+			assertEquals("Wrong entry failures.", serialEntries, getVerification(equinox, corruptEntries)); //$NON-NLS-1$
+		} finally {
+			stopFramework(equinox);
+		}
+	}
+
+	// describes the failure to get the signed content or the failures to verify its entries
+	private String getVerification(Equinox equinox, File jar) throws Exception {
+		BundleContext context = equinox.getBundleContext();
+		ServiceReference<SignedContentFactory> ref = context.getServiceReference(SignedContentFactory.class);
+		assertNotNull("No SignedContentFactory service", ref); //$NON-NLS-1$
+		SignedContent signedContent;
+		try {
+			signedContent = context.getService(ref).getSignedContent(jar);
+		} catch (Exception e) {
+			return "failed: " + describe(e); //$NON-NLS-1$
+		} finally {
+			context.ungetService(ref);
+		}
+		Map<String, String> failures = new TreeMap<String, String>();
+		SignedContentEntry[] entries = signedContent.getSignedEntries();
+		for (int i = 0; i < entries.length; i++) {
+			try {
+				entries[i].verify();
+			} catch (Exception e) {
+				failures.put(entries[i].getName(), describe(e));
+			}
+		}
+		return "entries: " + failures; //$NON-NLS-1$
+	}
+
+	private static String describe(Throwable t) {
+		StringBuilder result = new StringBuilder();
+		for (; t != null; t = t.getCause())
+			result.append(t.getClass().getName()).append('(').append(t.getMessage()).append(") "); //$NON-NLS-1$
+		return result.toString();
+	}
+
+	// copies the jar flipping a byte in the middle of the content of the given entries
+	private File createModifiedJar(String jarPath, File result, String... paths) throws IOException {
+		ZipFile source = new ZipFile(getEntryFile(jarPath));
+		try {
+			ZipOutputStream out = new ZipOutputStream(new FileOutputStream(result));
+			try {
+				for (Enumeration<? extends ZipEntry> entries = source.entries(); entries.hasMoreElements();) {
+					ZipEntry entry = entries.nextElement();
+					byte[] content = getBytes(source.getInputStream(entry));
+					if (Arrays.asList(paths).contains(entry.getName()))
+						content[content.length / 2] ^= 0xff;
+					out.putNextEntry(new ZipEntry(entry.getName()));
+					out.write(content);
+					out.closeEntry();
+				}
+			} finally {
+				out.close();
+			}
+		} finally {
+			source.close();
+		}
+		return result;
+	}
+
+	private File getStorage() {
+		File storage = OSGiTestsActivator.getContext().getDataFile(getName());
+		rm(storage);
+		storage.mkdirs();
+		return storage;
+	}
+
+	private Equinox startFramework(File storage) throws BundleException {
+		return startFramework(storage, null);
+	}
+
+	private Equinox startFramework(File storage, String verifyThreads) throws BundleException {
+		Map<String, Object> configuration = new HashMap<String, Object>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, new File(storage, "configuration").getAbsolutePath()); //$NON-NLS-1$
+		configuration.put("osgi.signedcontent.support", "runtime"); //$NON-NLS-1$ //$NON-NLS-2$
+		if (verifyThreads != null)
+			configuration.put("equinox.signedcontent.verify.threads", verifyThreads); //$NON-NLS-1$
+		Equinox equinox = new Equinox(configuration);
+		equinox.start();
+		return equinox;
+	}
+
+	private void stopFramework(Equinox equinox) throws Exception {
+		equinox.stop();
+		equinox.waitForStop(10000);
+	}
+
+	private SignedContent getSignedContent(Equinox equinox, Bundle bundle) throws Exception {
+		BundleContext context = equinox.getBundleContext();
+		ServiceReference<SignedContentFactory> ref = context.getServiceReference(SignedContentFactory.class);
+		assertNotNull("No SignedContentFactory service", ref);
+		try {
+			return context.getService(ref).getSignedContent(bundle);
+		} finally {
+			context.ungetService(ref);
+		}
+	}
+
+	private void assertVerify(SignedContent signedContent, String... corruptEntries) throws IOException {
+		List<String> corrupt = Arrays.asList(corruptEntries);
+		SignedContentEntry[] entries = signedContent.getSignedEntries();
+		assertNotNull("Entries is null", entries);
+		for (int i = 0; i < entries.length; i++) {
+			try {
+				entries[i].verify();
+				if (corrupt.contains(entries[i].getName()))
+					fail("Expected a corruption for: " + entries[i].getName());
+			} catch (InvalidContentException e) {
+				if (!corrupt.contains(entries[i].getName()))
+					fail("Unexpected corruption in: " + entries[i].getName(), e);
+			}
+		}
+	}
+
+	private void assertCorruptEntry(Bundle bundle, String path) {
+		try {
+			readEntry(bundle, path);
+			fail("Expected a corruption for: " + path);
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	private void readEntry(Bundle bundle, String path) throws IOException {
+		InputStream in = bundle.getEntry(path).openStream();
+		try {
+			byte[] buffer = new byte[1024];
+			while (in.read(buffer) != -1) {
+				// just read the content
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	// the signature only covers the entry content, the entries are stored
+	// so that an entry can be modified without changing the jar length
+	private File createStoredJar(String jarPath, File result) throws IOException {
+		ZipFile source = new ZipFile(getEntryFile(jarPath));
+		try {
+			ZipOutputStream out = new ZipOutputStream(new FileOutputStream(result));
+			try {
+				for (Enumeration<? extends ZipEntry> entries = source.entries(); entries.hasMoreElements();) {
+					ZipEntry entry = entries.nextElement();
+					byte[] content = getBytes(source.getInputStream(entry));
+					ZipEntry stored = new ZipEntry(entry.getName());
+					stored.setMethod(ZipEntry.STORED);
+					stored.setSize(content.length);
+					CRC32 crc = new CRC32();
+					crc.update(content);
+					stored.setCrc(crc.getValue());
+					out.putNextEntry(stored);
+					out.write(content);
+					out.closeEntry();
+				}
+			} finally {
+				out.close();
+			}
+		} finally {
+			source.close();
+		}
+		return result;
+	}
+
+	private void extractJar(String jarPath, File dir) throws IOException {
+		ZipFile source = new ZipFile(getEntryFile(jarPath));
+		try {
+			for (Enumeration<? extends ZipEntry> entries = source.entries(); entries.hasMoreElements();) {
+				ZipEntry entry = entries.nextElement();
+				File file = new File(dir, entry.getName());
+				if (entry.isDirectory()) {
+					file.mkdirs();
+					continue;
+				}
+				file.getParentFile().mkdirs();
+				readFile(source.getInputStream(entry), file);
+			}
+		} finally {
+			source.close();
+		}
+	}
+
+	// flips a byte in the middle of the entry content without changing the file length
+	private void corruptEntry(File file, String path) throws IOException {
+		byte[] content = getSignedEntryContent(path);
+		byte[] bytes = getBytes(new FileInputStream(file));
+		int offset = -1;
+		for (int i = 0; i <= bytes.length - content.length && offset < 0; i++) {
+			if (Arrays.equals(content, Arrays.copyOfRange(bytes, i, i + content.length)))
+				offset = i;
+		}
+		assertTrue("Could not find the content of " + path + " in " + file, offset >= 0);
+		RandomAccessFile raf = new RandomAccessFile(file, "rw"); //$NON-NLS-1$
+		try {
+			raf.seek(offset + content.length / 2);
+			raf.write(bytes[offset + content.length / 2] ^ 0xff);
+		} finally {
+			raf.close();
+		}
+	}
+
+	private byte[] getSignedEntryContent(String path) throws IOException {
+		ZipFile source = new ZipFile(getEntryFile(getTestJarPath("signed")));
+		try {
+			return getBytes(source.getInputStream(source.getEntry(path)));
+		} finally {
+			source.close();
+		}
+	}
+
+	private static byte[] getBytes(InputStream in) throws IOException {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1024];
+			for (int read = in.read(buffer); read != -1; read = in.read(buffer))
+				out.write(buffer, 0, read);
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	private static void rm(File file) {
+		if (file.isDirectory()) {
+			File[] list = file.listFiles();
+			if (list != null)
+				for (int i = 0; i < list.length; i++)
+					rm(list[i]);
+		}
+		file.delete();
+	}
 }
@@ -11,14 +11,18 @@
 package org.eclipse.osgi.tests.securityadmin;
 
 import ext.framework.b.TestCondition;
-import java.io.File;
-import java.io.FilePermission;
+import java.io.*;
 import java.net.SocketPermission;
 import java.security.*;
 import java.util.*;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
 import junit.framework.Test;
 import junit.framework.TestSuite;
+import org.eclipse.osgi.internal.debug.Debug;
+import org.eclipse.osgi.internal.framework.EquinoxConfiguration;
 import org.eclipse.osgi.launch.Equinox;
+import org.eclipse.osgi.service.debug.SecurityStatistics;
 import org.eclipse.osgi.tests.OSGiTestsActivator;
 import org.eclipse.osgi.tests.bundles.AbstractBundleTests;
 import org.osgi.framework.*;
@@ -36,10 +40,12 @@ public class SecurityAdminUnitTests extends AbstractBundleTests {
 			new PermissionInfo("java.io.FilePermission", "<<ALL FILES>>", "write") //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 	};
 
+	private static final PermissionInfo[] ALLPERMISSION_INFOS = new PermissionInfo[] {new PermissionInfo("java.security.AllPermission", null, null)}; //$NON-NLS-1$
 	private static final PermissionInfo[] RUNTIME_INFOS = new PermissionInfo[] {new PermissionInfo("java.lang.RuntimePermission", "exitVM", null)}; //$NON-NLS-1$ //$NON-NLS-2$
 
 	private static final ConditionInfo[] ALLLOCATION_CONDS = new ConditionInfo[] {new ConditionInfo("org.osgi.service.condpermadmin.BundleLocationCondition", new String[] {"*"})}; //$NON-NLS-1$ //$NON-NLS-2$
 	private static final ConditionInfo POST_MUT_SAT = new ConditionInfo("ext.framework.b.TestCondition", new String[] {"POST_MUT_SAT", "true", "true", "true"}); //$NON-NLS-1$//$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+	private static final ConditionInfo MUT_SAT = new ConditionInfo("ext.framework.b.TestCondition", new String[] {"MUT_SAT", "true", "false", "true"}); //$NON-NLS-1$//$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
 	private static final ConditionInfo POST_MUT_UNSAT = new ConditionInfo("ext.framework.b.TestCondition", new String[] {"POST_MUT_UNSAT", "true", "true", "false"}); //$NON-NLS-1$//$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
 
 	private static final ConditionInfo SIGNER_CONDITION1 = new ConditionInfo("org.osgi.service.condpermadmin.BundleSignerCondition", new String[] {"*;cn=test1,c=US"}); //$NON-NLS-1$//$NON-NLS-2$
@@ -446,6 +452,76 @@ public class SecurityAdminUnitTests extends AbstractBundleTests {
 		testSMPermission(pds, new AllPermission(), true);
 	}
 
+	public void testMutableConditions01() {
+		installConditionBundle();
+		TestCondition.clearConditions();
+		Bundle test = installTestBundle(TEST_BUNDLE);
+		ProtectionDomain pd = test.adapt(ProtectionDomain.class);
+		ProtectionDomain[] pds = new ProtectionDomain[] {pd};
+
+		ConditionalPermissionUpdate update = cpa.newConditionalPermissionUpdate();
+		List rows = update.getConditionalPermissionInfos();
+		rows.add(cpa.newConditionalPermissionInfo(null, new ConditionInfo[] {MUT_SAT}, READONLY_INFOS, ConditionalPermissionInfo.ALLOW));
+		rows.add(cpa.newConditionalPermissionInfo(null, ALLLOCATION_CONDS, READONLY_INFOS, ConditionalPermissionInfo.DENY));
+		assertTrue("failed to commit", update.commit()); //$NON-NLS-1$
+
+		// repeated checks must see the changes of a mutable condition
+		testSMPermission(pds, new FilePermission("test", "read"), true); //$NON-NLS-1$ //$NON-NLS-2$
+		TestCondition tc = TestCondition.getTestCondition("MUT_SAT_" + test.getBundleId()); //$NON-NLS-1$
+		assertNotNull("tc", tc); //$NON-NLS-1$
+		tc.setSatisfied(false);
+		testSMPermission(pds, new FilePermission("test", "read"), false); //$NON-NLS-1$ //$NON-NLS-2$
+		tc.setSatisfied(true);
+		testSMPermission(pds, new FilePermission("test", "read"), true); //$NON-NLS-1$ //$NON-NLS-2$
+
+		// once immutable the decision no longer changes
+		tc.setMutable(false);
+		testSMPermission(pds, new FilePermission("test", "read"), true); //$NON-NLS-1$ //$NON-NLS-2$
+		tc.setSatisfied(false);
+		testSMPermission(pds, new FilePermission("test", "read"), true); //$NON-NLS-1$ //$NON-NLS-2$
+
+		// a new table discards the decisions of the previous table
+		update = cpa.newConditionalPermissionUpdate();
+		rows = update.getConditionalPermissionInfos();
+		rows.remove(0);
+		assertTrue("failed to commit", update.commit()); //$NON-NLS-1$
+		testSMPermission(pds, new FilePermission("test", "read"), false); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	public void testAllPermission01() {
+		Bundle test = installTestBundle(TEST_BUNDLE);
+		AccessControlContext acc = test.adapt(AccessControlContext.class);
+
+		ConditionalPermissionUpdate update = cpa.newConditionalPermissionUpdate();
+		List rows = update.getConditionalPermissionInfos();
+		rows.add(cpa.newConditionalPermissionInfo(null, ALLLOCATION_CONDS, ALLPERMISSION_INFOS, ConditionalPermissionInfo.ALLOW));
+		assertTrue("failed to commit", update.commit()); //$NON-NLS-1$
+		testPermission(acc, new FilePermission("test", "write"), true); //$NON-NLS-1$ //$NON-NLS-2$
+		testPermission(acc, new AllPermission(), true);
+
+		// a deny row before the row granting all permissions must still be honored
+		update = cpa.newConditionalPermissionUpdate();
+		rows = update.getConditionalPermissionInfos();
+		rows.add(0, cpa.newConditionalPermissionInfo(null, ALLLOCATION_CONDS, READWRITE_INFOS, ConditionalPermissionInfo.DENY));
+		assertTrue("failed to commit", update.commit()); //$NON-NLS-1$
+		testPermission(acc, new FilePermission("test", "write"), false); //$NON-NLS-1$ //$NON-NLS-2$
+		testPermission(acc, new RuntimePermission("exitVM"), true); //$NON-NLS-1$
+		testPermission(acc, new AllPermission(), true);
+
+		update = cpa.newConditionalPermissionUpdate();
+		rows = update.getConditionalPermissionInfos();
+		rows.remove(0);
+		assertTrue("failed to commit", update.commit()); //$NON-NLS-1$
+		testPermission(acc, new FilePermission("test", "write"), true); //$NON-NLS-1$ //$NON-NLS-2$
+
+		// permissions set by location take precedence
+		pa.setPermissions(test.getLocation(), READONLY_INFOS);
+		testPermission(acc, new FilePermission("test", "write"), false); //$NON-NLS-1$ //$NON-NLS-2$
+		testPermission(acc, new FilePermission("test", "read"), true); //$NON-NLS-1$ //$NON-NLS-2$
+		pa.setPermissions(test.getLocation(), null);
+		testPermission(acc, new FilePermission("test", "write"), true); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
 	public void testPostponedConditions01() {
 		installConditionBundle();
 		TestCondition.clearConditions();
@@ -985,6 +1061,118 @@ public class SecurityAdminUnitTests extends AbstractBundleTests {
 		testPermission(acc, new AllPermission(), false);
 	}
 
+	public void testSecurityStatistics() throws Exception {
+		// restart with the statistics enabled
+		equinox.stop();
+		equinox.waitForStop(10000);
+		File config = OSGiTestsActivator.getContext().getDataFile(getName());
+		Map<String, Object> configuration = new HashMap<String, Object>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, config.getAbsolutePath());
+		configuration.put(Constants.FRAMEWORK_SECURITY, Constants.FRAMEWORK_SECURITY_OSGI);
+		configuration.put(EquinoxConfiguration.PROP_SECURITY_STATISTICS, "true"); //$NON-NLS-1$
+		configuration.put(EquinoxConfiguration.PROP_SECURITY_STATISTICS_DUMP_INTERVAL, "100"); //$NON-NLS-1$
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		PrintStream originalOut = Debug.out;
+		Debug.out = new PrintStream(bytes, true);
+		try {
+			equinox = new Equinox(configuration);
+			equinox.init();
+			cpa = equinox.getBundleContext().getService(equinox.getBundleContext().getServiceReference(ConditionalPermissionAdmin.class));
+			SecurityStatistics statistics = equinox.getBundleContext().getService(equinox.getBundleContext().getServiceReference(SecurityStatistics.class));
+
+			ConditionalPermissionUpdate update = cpa.newConditionalPermissionUpdate();
+			List rows = update.getConditionalPermissionInfos();
+			rows.add(cpa.newConditionalPermissionInfo("socket", getLocationConditions("xxx", false), SOCKET_INFOS, ConditionalPermissionInfo.ALLOW)); //$NON-NLS-1$ //$NON-NLS-2$
+			rows.add(cpa.newConditionalPermissionInfo("read", ALLLOCATION_CONDS, READONLY_INFOS, ConditionalPermissionInfo.ALLOW)); //$NON-NLS-1$
+			assertTrue("failed to commit", update.commit()); //$NON-NLS-1$
+
+			Bundle test = installTestBundle(TEST_BUNDLE);
+			AccessControlContext acc = test.adapt(AccessControlContext.class);
+			testPermission(acc, new FilePermission("test", "read"), true); //$NON-NLS-1$ //$NON-NLS-2$
+			testPermission(acc, new FilePermission("test", "write"), false); //$NON-NLS-1$ //$NON-NLS-2$
+			assertEquals("Wrong check count.", 2, statistics.getCheckCount()); //$NON-NLS-1$
+			assertEquals("Wrong postponed check count.", 0, statistics.getPostponedCheckCount()); //$NON-NLS-1$
+
+			SecurityStatistics.Entry read = getStatisticsEntry(statistics, "read"); //$NON-NLS-1$
+			assertNotNull("No statistics for the row.", read); //$NON-NLS-1$
+			assertEquals("Wrong encoded row.", cpa.getConditionalPermissionInfo("read").getEncoded(), read.getEncoded()); //$NON-NLS-1$ //$NON-NLS-2$
+			assertEquals("Wrong evaluation count.", 2, read.getEvaluationCount()); //$NON-NLS-1$
+			assertEquals("Wrong decision count.", 1, read.getDecisionCount()); //$NON-NLS-1$
+			assertEquals("Wrong postponed count.", 0, read.getPostponedCount()); //$NON-NLS-1$
+
+			// the same check again is answered by the cached decisions
+			testPermission(acc, new FilePermission("test", "read"), true); //$NON-NLS-1$ //$NON-NLS-2$
+			assertEquals("Wrong check count.", 3, statistics.getCheckCount()); //$NON-NLS-1$
+			assertEquals("Wrong cache hit count.", 1, statistics.getCacheHitCount()); //$NON-NLS-1$
+			assertEquals("Wrong evaluation count.", 2, read.getEvaluationCount()); //$NON-NLS-1$
+
+			// the rows with the largest total time are printed to the debug trace
+			long waitUntil = System.currentTimeMillis() + 10000;
+			String output = bytes.toString();
+			while (!output.contains("rows with the largest total time") && System.currentTimeMillis() < waitUntil) { //$NON-NLS-1$
+				Thread.sleep(50);
+				output = bytes.toString();
+			}
+			assertTrue("Wrong dump: " + output, output.contains("Security statistics: checks=")); //$NON-NLS-1$ //$NON-NLS-2$
+			assertTrue("Wrong dump: " + output, output.contains("  read: evaluations=")); //$NON-NLS-1$ //$NON-NLS-2$
+
+			// the statistics of a removed row are discarded
+			update = cpa.newConditionalPermissionUpdate();
+			rows = update.getConditionalPermissionInfos();
+			rows.remove(0);
+			assertTrue("failed to commit", update.commit()); //$NON-NLS-1$
+			assertNull("The statistics of a removed row were kept.", getStatisticsEntry(statistics, "socket")); //$NON-NLS-1$ //$NON-NLS-2$
+			assertNotNull("No statistics for the row.", getStatisticsEntry(statistics, "read")); //$NON-NLS-1$ //$NON-NLS-2$
+
+			statistics.reset();
+			assertEquals("Wrong check count.", 0, statistics.getCheckCount()); //$NON-NLS-1$
+			assertTrue("The statistics were not reset.", statistics.getEntries().isEmpty()); //$NON-NLS-1$
+		} finally {
+			Debug.out = originalOut;
+		}
+	}
+
+	public void testTargetBundleDecisions() throws Exception {
+		PermissionInfo[] targetInfos = new PermissionInfo[] {new PermissionInfo(AdminPermission.class.getName(), "(name=target.a)", AdminPermission.METADATA), new PermissionInfo(PackagePermission.class.getName(), "(name=target.a)", PackagePermission.IMPORT)}; //$NON-NLS-1$ //$NON-NLS-2$
+		ConditionalPermissionUpdate update = cpa.newConditionalPermissionUpdate();
+		List rows = update.getConditionalPermissionInfos();
+		rows.add(cpa.newConditionalPermissionInfo("target", ALLLOCATION_CONDS, targetInfos, ConditionalPermissionInfo.ALLOW)); //$NON-NLS-1$
+		assertTrue("failed to commit", update.commit()); //$NON-NLS-1$
+
+		Bundle test = installTestBundle(TEST_BUNDLE);
+		AccessControlContext acc = test.adapt(AccessControlContext.class);
+		File config = OSGiTestsActivator.getContext().getDataFile(getName());
+		config.mkdirs();
+		Bundle target = equinox.getBundleContext().installBundle(getName(), new FileInputStream(createTargetBundle(config, "target.a"))); //$NON-NLS-1$
+		testPermission(acc, new AdminPermission(target, AdminPermission.METADATA), true);
+		testPermission(acc, new PackagePermission("target.pkg", target, PackagePermission.IMPORT), true); //$NON-NLS-1$
+
+		// the decisions depend on the current attributes of the target bundle
+		target.update(new FileInputStream(createTargetBundle(config, "target.b"))); //$NON-NLS-1$
+		testPermission(acc, new AdminPermission(target, AdminPermission.METADATA), false);
+		testPermission(acc, new PackagePermission("target.pkg", target, PackagePermission.IMPORT), false); //$NON-NLS-1$
+	}
+
+	private File createTargetBundle(File dir, String symbolicName) throws IOException {
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().putValue("Manifest-Version", "1.0"); //$NON-NLS-1$ //$NON-NLS-2$
+		manifest.getMainAttributes().putValue(Constants.BUNDLE_MANIFESTVERSION, "2"); //$NON-NLS-1$
+		manifest.getMainAttributes().putValue(Constants.BUNDLE_SYMBOLICNAME, symbolicName);
+		File file = new File(dir, symbolicName + ".jar"); //$NON-NLS-1$
+		JarOutputStream jos = new JarOutputStream(new FileOutputStream(file), manifest);
+		jos.close();
+		return file;
+	}
+
+	private SecurityStatistics.Entry getStatisticsEntry(SecurityStatistics statistics, String name) {
+		for (SecurityStatistics.Entry entry : statistics.getEntries()) {
+			if (name.equals(entry.getName())) {
+				return entry;
+			}
+		}
+		return null;
+	}
+
 	private void checkInfos(ConditionalPermissionInfo testInfo1, ConditionalPermissionInfo testInfo2) {
 		assertTrue("Infos are not equal: " + testInfo1.getEncoded() + " " + testInfo2.getEncoded(), testInfo1.equals(testInfo2)); //$NON-NLS-1$ //$NON-NLS-2$
 		assertEquals("Info hash code is not equal", testInfo1.hashCode(), testInfo2.hashCode()); //$NON-NLS-1$
@@ -10,11 +10,15 @@
  *******************************************************************************/
 package org.eclipse.osgi.tests.securityadmin;
 
-import java.io.File;
+import java.io.*;
+import java.net.URL;
 import java.security.*;
 import java.util.*;
+import java.util.jar.*;
 import junit.framework.Test;
 import junit.framework.TestSuite;
+import org.eclipse.osgi.container.Module;
+import org.eclipse.osgi.container.ModuleContainer;
 import org.eclipse.osgi.launch.Equinox;
 import org.eclipse.osgi.tests.OSGiTestsActivator;
 import org.eclipse.osgi.tests.bundles.AbstractBundleTests;
@@ -745,4 +749,77 @@ public class SecurityManagerTests extends AbstractBundleTests {
 		assertEquals("Wrong state for SystemBundle", Bundle.RESOLVED, equinox.getState()); //$NON-NLS-1$
 		assertNull("SecurityManager is not null", System.getSecurityManager()); //$NON-NLS-1$
 	}
+
+	public void testBundleURLAuthorization() throws Exception {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName());
+		config.mkdirs();
+		Map<String, Object> configuration = new HashMap<String, Object>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, config.getAbsolutePath());
+		configuration.put(Constants.FRAMEWORK_SECURITY, Constants.FRAMEWORK_SECURITY_OSGI);
+		Equinox equinox = new Equinox(configuration);
+		try {
+			equinox.start();
+		} catch (BundleException e) {
+			fail("Failed to start the framework", e); //$NON-NLS-1$
+		}
+
+		BundleContext systemContext = equinox.getBundleContext();
+		Bundle bundle = systemContext.installBundle("reference:file:///" + createResourceBundle(config).getAbsolutePath()); //$NON-NLS-1$
+		ModuleContainer container = bundle.adapt(Module.class).getContainer();
+		// a URL which was not parsed by the bundle URL handler has the resource permission checked each time it is opened
+		URL entry = bundle.getEntry("resource.txt"); //$NON-NLS-1$
+		final URL uncheckedURL = new URL(entry.getProtocol(), entry.getHost(), entry.getPort(), entry.getFile(), new org.eclipse.osgi.storage.url.bundleentry.Handler(container, null));
+		assertEquals("Wrong content.", "resource", readURL(uncheckedURL)); //$NON-NLS-1$ //$NON-NLS-2$
+		AccessControlContext noPermissions = new AccessControlContext(new ProtectionDomain[] {new ProtectionDomain(null, null)});
+		for (int i = 0; i < 2; i++) {
+			try {
+				AccessController.doPrivileged(new PrivilegedExceptionAction<Object>() {
+					public Object run() throws IOException {
+						return uncheckedURL.openConnection();
+					}
+				}, noPermissions);
+				fail("Opened the URL without the resource permission."); //$NON-NLS-1$
+			} catch (AccessControlException e) {
+				assertTrue("Wrong permission checked: " + e.getPermission(), e.getPermission() instanceof AdminPermission); //$NON-NLS-1$
+			}
+		}
+		assertEquals("Wrong content.", "resource", readURL(uncheckedURL)); //$NON-NLS-1$ //$NON-NLS-2$
+
+		// put the framework back to the RESOLVED state
+		try {
+			equinox.stop();
+		} catch (BundleException e) {
+			fail("Unexpected error stopping framework", e); //$NON-NLS-1$
+		}
+		try {
+			equinox.waitForStop(10000);
+		} catch (InterruptedException e) {
+			fail("Unexpected interrupted exception", e); //$NON-NLS-1$
+		}
+		assertEquals("Wrong state for SystemBundle", Bundle.RESOLVED, equinox.getState()); //$NON-NLS-1$
+		assertNull("SecurityManager is not null", System.getSecurityManager()); //$NON-NLS-1$
+	}
+
+	private File createResourceBundle(File dir) throws IOException {
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().putValue("Manifest-Version", "1.0"); //$NON-NLS-1$ //$NON-NLS-2$
+		manifest.getMainAttributes().putValue(Constants.BUNDLE_MANIFESTVERSION, "2"); //$NON-NLS-1$
+		manifest.getMainAttributes().putValue(Constants.BUNDLE_SYMBOLICNAME, getName());
+		File file = new File(dir, getName() + ".jar"); //$NON-NLS-1$
+		JarOutputStream jos = new JarOutputStream(new FileOutputStream(file), manifest);
+		jos.putNextEntry(new JarEntry("resource.txt")); //$NON-NLS-1$
+		jos.write("resource".getBytes()); //$NON-NLS-1$
+		jos.closeEntry();
+		jos.close();
+		return file;
+	}
+
+	private String readURL(URL url) throws IOException {
+		InputStream in = url.openStream();
+		try {
+			return new BufferedReader(new InputStreamReader(in)).readLine();
+		} finally {
+			in.close();
+		}
+	}
 }
@@ -10,16 +10,17 @@
  *******************************************************************************/
 package org.eclipse.osgi.tests.serviceregistry;
 
-import java.util.Dictionary;
-import java.util.Hashtable;
+import java.util.*;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import junit.framework.Test;
 import junit.framework.TestSuite;
+import org.eclipse.osgi.internal.framework.EquinoxConfiguration;
 import org.eclipse.osgi.tests.OSGiTestsActivator;
 import org.eclipse.osgi.tests.bundles.AbstractBundleTests;
 import org.eclipse.osgi.tests.util.MapDictionary;
 import org.osgi.framework.*;
+import org.osgi.util.tracker.ServiceTracker;
 
 public class ServiceRegistryTests extends AbstractBundleTests {
 	public static Test suite() {
@@ -557,6 +558,198 @@ public class ServiceRegistryTests extends AbstractBundleTests {
 		}
 	}
 
+	public void testModifiedCoalesceWindow() throws Exception {
+		final String testMethodName = getName();
+		final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+		ServiceListener testListener = new ServiceListener() {
+			public void serviceChanged(ServiceEvent event) {
+				events.add(event.getType() + ":" + event.getServiceReference().getProperty("counter")); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		};
+		OSGiTestsActivator.getContext().addServiceListener(testListener, "(" + testMethodName + "=true)"); //$NON-NLS-1$ //$NON-NLS-2$
+		ServiceRegistration<Runnable> reg = null;
+		try {
+			Hashtable<String, Object> props = new Hashtable<String, Object>();
+			props.put(testMethodName, Boolean.TRUE);
+			props.put(EquinoxConfiguration.PROP_SERVICE_MODIFIED_COALESCE_WINDOW, Long.valueOf(2000));
+			reg = OSGiTestsActivator.getContext().registerService(Runnable.class, new Runnable() {
+				public void run() {
+					// nothing
+				}
+			}, props);
+
+			// the first modification opens the window and is delivered synchronously
+			props.put("counter", Integer.valueOf(1)); //$NON-NLS-1$
+			reg.setProperties(props);
+			assertEquals("Wrong events.", Arrays.asList(ServiceEvent.REGISTERED + ":null", ServiceEvent.MODIFIED + ":1"), new ArrayList<String>(events)); //$NON-NLS-1$ //$NON-NLS-2$
+
+			// modifications within the window are coalesced
+			for (int i = 2; i <= 4; i++) {
+				props.put("counter", Integer.valueOf(i)); //$NON-NLS-1$
+				reg.setProperties(props);
+			}
+			assertEquals("Wrong number of events.", 2, events.size());
+
+			waitForEvents(events, 3);
+			assertEquals("Wrong coalesced event.", ServiceEvent.MODIFIED + ":4", events.get(2)); //$NON-NLS-1$
+
+			// a modification after the window ends is delivered synchronously again
+			props.put("counter", Integer.valueOf(5)); //$NON-NLS-1$
+			reg.setProperties(props);
+			assertEquals("Wrong number of events.", 4, events.size());
+			assertEquals("Wrong event.", ServiceEvent.MODIFIED + ":5", events.get(3)); //$NON-NLS-1$
+		} finally {
+			OSGiTestsActivator.getContext().removeServiceListener(testListener);
+			if (reg != null)
+				reg.unregister();
+		}
+	}
+
+	public void testModifiedCoalesceEndMatch() throws Exception {
+		final String testMethodName = getName();
+		final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+		ServiceListener testListener = new ServiceListener() {
+			public void serviceChanged(ServiceEvent event) {
+				events.add(event.getType() + ":" + event.getServiceReference().getProperty("counter")); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		};
+		Filter filter = OSGiTestsActivator.getContext().createFilter("(&(" + testMethodName + "=*)(match=true))"); //$NON-NLS-1$ //$NON-NLS-2$
+		OSGiTestsActivator.getContext().addServiceListener(testListener, filter.toString());
+		ServiceTracker<Runnable, Runnable> tracker = new ServiceTracker<Runnable, Runnable>(OSGiTestsActivator.getContext(), filter, null);
+		tracker.open();
+		ServiceRegistration<Runnable> reg = null;
+		try {
+			Hashtable<String, Object> props = new Hashtable<String, Object>();
+			props.put(testMethodName, Boolean.TRUE);
+			props.put("match", Boolean.TRUE); //$NON-NLS-1$
+			props.put(EquinoxConfiguration.PROP_SERVICE_MODIFIED_COALESCE_WINDOW, Long.valueOf(2000));
+			reg = OSGiTestsActivator.getContext().registerService(Runnable.class, new Runnable() {
+				public void run() {
+					// nothing
+				}
+			}, props);
+			assertNotNull("Service not tracked.", tracker.getServiceReference());
+
+			// open the window
+			props.put("counter", Integer.valueOf(1)); //$NON-NLS-1$
+			reg.setProperties(props);
+
+			// stop to match within the window; the end match is delivered synchronously
+			props.put("counter", Integer.valueOf(2)); //$NON-NLS-1$
+			props.put("match", Boolean.FALSE); //$NON-NLS-1$
+			reg.setProperties(props);
+			assertEquals("Wrong events.", Arrays.asList(ServiceEvent.REGISTERED + ":null", ServiceEvent.MODIFIED + ":1", ServiceEvent.MODIFIED_ENDMATCH + ":2"), new ArrayList<String>(events)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			assertNull("Service still tracked.", tracker.getServiceReference());
+
+			// start to match again within the window
+			props.put("counter", Integer.valueOf(3)); //$NON-NLS-1$
+			props.put("match", Boolean.TRUE); //$NON-NLS-1$
+			reg.setProperties(props);
+			assertEquals("Wrong number of events.", 4, events.size());
+			assertEquals("Wrong event.", ServiceEvent.MODIFIED + ":3", events.get(3)); //$NON-NLS-1$
+			assertNotNull("Service not tracked.", tracker.getServiceReference());
+
+			// keep matching; coalesced until the window ends
+			props.put("counter", Integer.valueOf(4)); //$NON-NLS-1$
+			reg.setProperties(props);
+			assertEquals("Wrong number of events.", 4, events.size());
+
+			waitForEvents(events, 5);
+			assertEquals("Wrong coalesced event.", ServiceEvent.MODIFIED + ":4", events.get(4)); //$NON-NLS-1$
+			assertNotNull("Service not tracked.", tracker.getServiceReference());
+		} finally {
+			tracker.close();
+			OSGiTestsActivator.getContext().removeServiceListener(testListener);
+			if (reg != null)
+				reg.unregister();
+		}
+	}
+
+	public void testModifiedCoalesceFlushBeforeUnregistering() throws Exception {
+		final String testMethodName = getName();
+		final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+		ServiceListener testListener = new ServiceListener() {
+			public void serviceChanged(ServiceEvent event) {
+				events.add(event.getType() + ":" + event.getServiceReference().getProperty("counter")); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		};
+		OSGiTestsActivator.getContext().addServiceListener(testListener, "(" + testMethodName + "=true)"); //$NON-NLS-1$ //$NON-NLS-2$
+		ServiceRegistration<Runnable> reg = null;
+		try {
+			Hashtable<String, Object> props = new Hashtable<String, Object>();
+			props.put(testMethodName, Boolean.TRUE);
+			props.put(EquinoxConfiguration.PROP_SERVICE_MODIFIED_COALESCE_WINDOW, Long.valueOf(60000));
+			reg = OSGiTestsActivator.getContext().registerService(Runnable.class, new Runnable() {
+				public void run() {
+					// nothing
+				}
+			}, props);
+			props.put("counter", Integer.valueOf(1)); //$NON-NLS-1$
+			reg.setProperties(props);
+			props.put("counter", Integer.valueOf(2)); //$NON-NLS-1$
+			reg.setProperties(props);
+			assertEquals("Wrong number of events.", 2, events.size());
+
+			// the pending event is delivered before the service goes away
+			reg.unregister();
+			reg = null;
+			assertEquals("Wrong events.", Arrays.asList(ServiceEvent.REGISTERED + ":null", ServiceEvent.MODIFIED + ":1", ServiceEvent.MODIFIED + ":2", ServiceEvent.UNREGISTERING + ":2"), new ArrayList<String>(events)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		} finally {
+			OSGiTestsActivator.getContext().removeServiceListener(testListener);
+			if (reg != null)
+				reg.unregister();
+		}
+	}
+
+	public void testModifiedCoalesceWindowRemoved() throws Exception {
+		final String testMethodName = getName();
+		final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+		ServiceListener testListener = new ServiceListener() {
+			public void serviceChanged(ServiceEvent event) {
+				events.add(event.getType() + ":" + event.getServiceReference().getProperty("counter")); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		};
+		OSGiTestsActivator.getContext().addServiceListener(testListener, "(" + testMethodName + "=true)"); //$NON-NLS-1$ //$NON-NLS-2$
+		ServiceRegistration<Runnable> reg = null;
+		try {
+			Hashtable<String, Object> props = new Hashtable<String, Object>();
+			props.put(testMethodName, Boolean.TRUE);
+			props.put(EquinoxConfiguration.PROP_SERVICE_MODIFIED_COALESCE_WINDOW, Long.valueOf(500));
+			reg = OSGiTestsActivator.getContext().registerService(Runnable.class, new Runnable() {
+				public void run() {
+					// nothing
+				}
+			}, props);
+			props.put("counter", Integer.valueOf(1)); //$NON-NLS-1$
+			reg.setProperties(props);
+			props.put("counter", Integer.valueOf(2)); //$NON-NLS-1$
+			reg.setProperties(props);
+			assertEquals("Wrong number of events.", 2, events.size());
+
+			// removing the window delivers the modification synchronously and drops the pending event
+			props.put("counter", Integer.valueOf(3)); //$NON-NLS-1$
+			props.remove(EquinoxConfiguration.PROP_SERVICE_MODIFIED_COALESCE_WINDOW);
+			reg.setProperties(props);
+			assertEquals("Wrong number of events.", 3, events.size());
+
+			// wait past the end of the window
+			Thread.sleep(1000);
+			assertEquals("Wrong events.", Arrays.asList(ServiceEvent.REGISTERED + ":null", ServiceEvent.MODIFIED + ":1", ServiceEvent.MODIFIED + ":3"), new ArrayList<String>(events)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		} finally {
+			OSGiTestsActivator.getContext().removeServiceListener(testListener);
+			if (reg != null)
+				reg.unregister();
+		}
+	}
+
+	private void waitForEvents(List<String> events, int expected) throws InterruptedException {
+		long waitUntil = System.currentTimeMillis() + 10000;
+		while (events.size() < expected && System.currentTimeMillis() < waitUntil) {
+			Thread.sleep(50);
+		}
+		assertEquals("Wrong number of events: " + events, expected, events.size());
+	}
+
 	private void clearResults(boolean[] results) {
 		for (int i = 0; i < results.length; i++)
 			results[i] = false;
@@ -25,6 +25,7 @@ public class AllTests extends TestSuite {
 		addTest(new TestSuite(ObjectPoolTestCase.class));
 		addTest(new TestSuite(ManifestElementTestCase.class));
 		addTest(new TestSuite(NLSTestCase.class));
+		addTest(new TestSuite(StorageUtilTestCase.class));
 		addBidiTests();
 		addLatinTests();
 	}
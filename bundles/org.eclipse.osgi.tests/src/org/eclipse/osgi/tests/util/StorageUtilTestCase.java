@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.osgi.tests.util;
+
+import java.io.*;
+import java.util.Arrays;
+import junit.framework.TestCase;
+import org.eclipse.osgi.storage.StorageUtil;
+
+public class StorageUtilTestCase extends TestCase {
+	private static final int BUF_SIZE = 8 * 1024;
+
+	public void testKnownLength() throws IOException {
+		byte[] content = createContent(100);
+		assertTrue("Wrong bytes.", Arrays.equals(content, StorageUtil.getBytes(new ByteArrayInputStream(content), content.length, BUF_SIZE))); //$NON-NLS-1$
+
+		// a stream shorter than its length returns the bytes available
+		byte[] shorter = StorageUtil.getBytes(new ByteArrayInputStream(content), content.length + 10, BUF_SIZE);
+		assertTrue("Wrong bytes.", Arrays.equals(content, shorter)); //$NON-NLS-1$
+	}
+
+	public void testUnknownLength() throws IOException {
+		// smaller than, equal to and larger than the read buffer
+		int[] sizes = new int[] {0, 1, BUF_SIZE - 1, BUF_SIZE, BUF_SIZE + 1, 3 * BUF_SIZE + 7, 10};
+		byte[] previous = null;
+		for (int size : sizes) {
+			byte[] content = createContent(size);
+			byte[] result = StorageUtil.getBytes(new ByteArrayInputStream(content), -1, BUF_SIZE);
+			assertTrue("Wrong bytes for size " + size, Arrays.equals(content, result)); //$NON-NLS-1$
+			// the reused read buffer must not be handed out
+			assertNotSame("The read buffer was returned.", previous, result); //$NON-NLS-1$
+			if (previous != null) {
+				assertTrue("A previous result was changed.", Arrays.equals(createContent(previous.length), previous)); //$NON-NLS-1$
+			}
+			previous = result;
+		}
+	}
+
+	public void testNestedUnknownLength() throws IOException {
+		final byte[] outerContent = createContent(BUF_SIZE + 3);
+		final byte[] innerContent = new byte[BUF_SIZE / 2];
+		Arrays.fill(innerContent, (byte) -1);
+		final byte[][] innerResult = new byte[1][];
+		// make sure the thread has a read buffer to reuse
+		StorageUtil.getBytes(new ByteArrayInputStream(createContent(10)), -1, BUF_SIZE);
+		// reading the outer stream reads another entry on the same thread after some bytes were read
+		InputStream outer = new ByteArrayInputStream(outerContent) {
+			public synchronized int read(byte[] b, int off, int len) {
+				if (off > 0 && innerResult[0] == null) {
+					try {
+						innerResult[0] = StorageUtil.getBytes(new ByteArrayInputStream(innerContent), -1, BUF_SIZE);
+					} catch (IOException e) {
+						throw new RuntimeException(e);
+					}
+				}
+				return super.read(b, off, Math.min(len, 100));
+			}
+		};
+		byte[] outerResult = StorageUtil.getBytes(outer, -1, BUF_SIZE);
+		assertTrue("Wrong inner bytes.", Arrays.equals(innerContent, innerResult[0])); //$NON-NLS-1$
+		assertTrue("Wrong outer bytes.", Arrays.equals(outerContent, outerResult)); //$NON-NLS-1$
+	}
+
+	public void testAllocatedBytes() throws Exception {
+		final long[] allocated = new long[5];
+		final Exception[] failure = new Exception[1];
+		// use a new thread so the read buffer and the counter start empty
+		Thread reader = new Thread(new Runnable() {
+			public void run() {
+				try {
+					// allocations are only counted after the thread asked for them
+					StorageUtil.getBytes(new ByteArrayInputStream(createContent(10)), -1, BUF_SIZE);
+					allocated[0] = StorageUtil.getAllocatedBytes();
+
+					StorageUtil.getBytes(new ByteArrayInputStream(createContent(10)), 10, BUF_SIZE);
+					allocated[1] = StorageUtil.getAllocatedBytes();
+
+					// the read buffer of the first read is reused
+					StorageUtil.getBytes(new ByteArrayInputStream(createContent(20)), -1, BUF_SIZE);
+					allocated[2] = StorageUtil.getAllocatedBytes();
+
+					// the read buffer grows to twice its size and is kept
+					StorageUtil.getBytes(new ByteArrayInputStream(createContent(BUF_SIZE + 1)), -1, BUF_SIZE);
+					allocated[3] = StorageUtil.getAllocatedBytes();
+					StorageUtil.getBytes(new ByteArrayInputStream(createContent(BUF_SIZE + 1)), -1, BUF_SIZE);
+					allocated[4] = StorageUtil.getAllocatedBytes();
+				} catch (Exception e) {
+					failure[0] = e;
+				}
+			}
+		}, getName());
+		reader.start();
+		reader.join(10000);
+		if (failure[0] != null) {
+			throw failure[0];
+		}
+		assertEquals("Counted before asked.", 0, allocated[0]); //$NON-NLS-1$
+		assertEquals("Wrong known length allocation.", 10, allocated[1]); //$NON-NLS-1$
+		assertEquals("Wrong reused buffer allocation.", 30, allocated[2]); //$NON-NLS-1$
+		assertEquals("Wrong grown buffer allocation.", 30 + 2 * BUF_SIZE + BUF_SIZE + 1, allocated[3]); //$NON-NLS-1$
+		assertEquals("Wrong reused grown buffer allocation.", 30 + 2 * BUF_SIZE + 2 * (BUF_SIZE + 1), allocated[4]); //$NON-NLS-1$
+	}
+
+	static byte[] createContent(int size) {
+		byte[] content = new byte[size];
+		for (int i = 0; i < size; i++) {
+			content[i] = (byte) (i % 251);
+		}
+		return content;
+	}
+}
@@ -12,6 +12,7 @@ package org.eclipse.osgi.container;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
@@ -42,7 +43,14 @@ import org.osgi.service.resolver.Resolver;
  * Implementations must be thread safe.  The database allows for concurrent
  * read operations and all read operations are protected by the
  * {@link #readLock() read} lock.  All write operations are
- * protected by the {@link #writeLock() write} lock.  The read and write
+ * protected by the {@link #writeLock() write} lock.  The most frequent read
+ * operations for modules and wirings are served without acquiring the read lock.
+ * Modules are looked up by location and id in concurrent maps.  Wirings and
+ * the modules sorted by id are served from immutable snapshots.  While a write
+ * operation is in progress other threads continue to read the previous snapshots;
+ * a snapshot is discarded when the write lock is released after a write operation
+ * changed the modules or wirings, and is rebuilt by the next read.
+ * The read and write
  * locks are reentrant and follow the semantics of the
  * {@link ReentrantReadWriteLock}.  Just like the {@code ReentrantReadWriteLock}
  * the lock on a database can not be upgraded from a read to a write.  Doing so will result in an
@@ -65,12 +73,14 @@ public class ModuleDatabase {
 	final ModuleContainerAdaptor adaptor;
 
 	/**
-	 * A map of modules by location.
+	 * A map of modules by location.  Modified only while holding the write lock
+	 * but read without a lock.
 	 */
 	private final Map<String, Module> modulesByLocations;
 
 	/**
-	 * A map of modules by id.
+	 * A map of modules by id.  Modified only while holding the write lock
+	 * but read without a lock.
 	 */
 	private final Map<Long, Module> modulesById;
 
@@ -119,6 +129,28 @@ public class ModuleDatabase {
 	 */
 	private final ReentrantReadWriteLock monitor = new ReentrantReadWriteLock(true);
 
+	/**
+	 * The snapshot of the modules sorted by id for lock free read operations,
+	 * or {@code null} if modules have been installed or uninstalled since the last snapshot.
+	 */
+	private volatile List<Module> modulesSnapshot;
+
+	/**
+	 * The snapshot of the wirings for lock free read operations,
+	 * or {@code null} if the wirings have been modified since the last snapshot.
+	 */
+	private volatile Map<ModuleRevision, ModuleWiring> wiringsSnapshot;
+
+	/**
+	 * Set by write operations which install or uninstall modules.  Guarded by the write lock.
+	 */
+	private boolean modulesChanged;
+
+	/**
+	 * Set by write operations which modify the wirings.  Guarded by the write lock.
+	 */
+	private boolean wiringsChanged;
+
 	static enum Sort {
 		BY_DEPENDENCY, BY_START_LEVEL, BY_ID;
 		/**
@@ -140,8 +172,8 @@ public class ModuleDatabase {
 	 */
 	public ModuleDatabase(ModuleContainerAdaptor adaptor) {
 		this.adaptor = adaptor;
-		this.modulesByLocations = new HashMap<>();
-		this.modulesById = new HashMap<>();
+		this.modulesByLocations = new ConcurrentHashMap<>();
+		this.modulesById = new ConcurrentHashMap<>();
 		this.wirings = new HashMap<>();
 		// Start at id 1 because 0 is reserved for the system bundle
 		this.nextId = new AtomicLong(1);
@@ -153,38 +185,72 @@ public class ModuleDatabase {
 		this.capabilities = new Capabilities();
 	}
 
+	/**
+	 * Returns the current snapshot of the modules sorted by id, creating
+	 * a new one if modules have been installed or uninstalled since the last snapshot.
+	 * @return the current snapshot of the modules
+	 */
+	private List<Module> getModulesSnapshot() {
+		List<Module> current = modulesSnapshot;
+		if (current != null) {
+			return current;
+		}
+		readLock();
+		try {
+			// publishing while holding the read lock makes sure no write is in progress;
+			// callers holding the write lock read the live maps instead
+			List<Module> sorted = new ArrayList<>(modulesByLocations.values());
+			sortModules(sorted, Sort.BY_ID);
+			current = Collections.unmodifiableList(sorted);
+			modulesSnapshot = current;
+			return current;
+		} finally {
+			readUnlock();
+		}
+	}
+
+	/**
+	 * Returns the current snapshot of the wirings, creating
+	 * a new one if the wirings have been modified since the last snapshot.
+	 * @return the current snapshot of the wirings
+	 */
+	private Map<ModuleRevision, ModuleWiring> getWiringsSnapshot() {
+		Map<ModuleRevision, ModuleWiring> current = wiringsSnapshot;
+		if (current != null) {
+			return current;
+		}
+		readLock();
+		try {
+			current = new HashMap<>(wirings);
+			wiringsSnapshot = current;
+			return current;
+		} finally {
+			readUnlock();
+		}
+	}
+
 	/**
 	 * Returns the module at the given location or null if no module exists
 	 * at the given location.
 	 * <p>
-	 * A read operation protected by the {@link #readLock() read} lock.
+	 * A read operation which does not acquire the {@link #readLock() read} lock.
 	 * @param location the location of the module.
 	 * @return the module at the given location or null.
 	 */
 	final Module getModule(String location) {
-		readLock();
-		try {
-			return modulesByLocations.get(location);
-		} finally {
-			readUnlock();
-		}
+		return location == null ? null : modulesByLocations.get(location);
 	}
 
 	/**
 	 * Returns the module at the given id or null if no module exists
 	 * at the given location.
 	 * <p>
-	 * A read operation protected by the {@link #readLock() read} lock.
+	 * A read operation which does not acquire the {@link #readLock() read} lock.
 	 * @param id the id of the module.
 	 * @return the module at the given id or null.
 	 */
 	final Module getModule(long id) {
-		readLock();
-		try {
-			return modulesById.get(id);
-		} finally {
-			readUnlock();
-		}
+		return modulesById.get(id);
 	}
 
 	/**
@@ -252,6 +318,7 @@ public class ModuleDatabase {
 		builder.addRevision(module, revisionInfo);
 		modulesByLocations.put(location, module);
 		modulesById.put(id, module);
+		modulesChanged = true;
 		if (settings != null)
 			moduleSettings.put(id, settings);
 		ModuleRevision newRevision = module.getCurrentRevision();
@@ -276,6 +343,7 @@ public class ModuleDatabase {
 			// remove the location
 			modulesByLocations.remove(module.getLocation());
 			modulesById.remove(module.getId());
+			modulesChanged = true;
 			moduleSettings.remove(module.getId());
 			// remove the revisions by name
 			List<ModuleRevision> revisions = uninstalling.getModuleRevisions();
@@ -377,6 +445,7 @@ public class ModuleDatabase {
 					pendingRemoval.getRevisions().removeRevision(pendingRemoval);
 					removeCapabilities(pendingRemoval);
 					wirings.remove(pendingRemoval);
+					wiringsChanged = true;
 				}
 				// remove any wires from unresolved wirings that got removed
 				for (Map.Entry<ModuleWiring, Collection<ModuleWire>> entry : toRemoveWireLists.entrySet()) {
@@ -421,17 +490,15 @@ public class ModuleDatabase {
 	 * Returns the current wiring for the specified revision or
 	 * null of no wiring exists for the revision.
 	 * <p>
-	 * A read operation protected by the {@link #readLock() read} lock.
+	 * A read operation served from a snapshot without acquiring the {@link #readLock() read} lock.
 	 * @param revision the revision to get the wiring for
 	 * @return the current wiring for the specified revision.
 	 */
 	final ModuleWiring getWiring(ModuleRevision revision) {
-		readLock();
-		try {
+		if (monitor.isWriteLockedByCurrentThread()) {
 			return wirings.get(revision);
-		} finally {
-			readUnlock();
 		}
+		return getWiringsSnapshot().get(revision);
 	}
 
 	/**
@@ -495,6 +562,7 @@ public class ModuleDatabase {
 		try {
 			wirings.clear();
 			wirings.putAll(newWiring);
+			wiringsChanged = true;
 			incrementTimestamps(true);
 		} finally {
 			writeUnlock();
@@ -513,6 +581,7 @@ public class ModuleDatabase {
 		writeLock();
 		try {
 			wirings.putAll(deltaWiring);
+			wiringsChanged = true;
 			incrementTimestamps(true);
 		} finally {
 			writeUnlock();
@@ -522,7 +591,7 @@ public class ModuleDatabase {
 	/**
 	 * Returns a snapshot of all modules ordered by module ID.
 	 * <p>
-	 * A read operation protected by the {@link #readLock() read} lock.
+	 * A read operation served from a snapshot without acquiring the {@link #readLock() read} lock.
 	 * @return a snapshot of all modules.
 	 */
 	final List<Module> getModules() {
@@ -535,6 +604,11 @@ public class ModuleDatabase {
 	 * @return a snapshot of all modules ordered according to the sort options
 	 */
 	final List<Module> getSortedModules(Sort... sortOptions) {
+		if ((sortOptions == null || sortOptions.length == 0 || Sort.BY_ID.isContained(sortOptions)) && !monitor.isWriteLockedByCurrentThread()) {
+			// the snapshot is already sorted by id
+			return new ArrayList<>(getModulesSnapshot());
+		}
+		// other sort options must hold the read lock to read consistent wirings
 		readLock();
 		try {
 			List<Module> modules = new ArrayList<>(modulesByLocations.values());
@@ -773,6 +847,18 @@ public class ModuleDatabase {
 	 * @see WriteLock#unlock()
 	 */
 	public final void writeUnlock() {
+		// other threads keep reading the previous snapshots until the write is done;
+		// writes which do not change the modules or wirings keep the snapshots
+		if (monitor.isWriteLockedByCurrentThread()) {
+			if (modulesChanged) {
+				modulesSnapshot = null;
+				modulesChanged = false;
+			}
+			if (wiringsChanged) {
+				wiringsSnapshot = null;
+				wiringsChanged = false;
+			}
+		}
 		monitor.writeLock().unlock();
 	}
 
@@ -11,9 +11,11 @@
 package org.eclipse.osgi.container;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import org.eclipse.osgi.internal.framework.FilterImpl;
 import org.eclipse.osgi.internal.messages.Msg;
 import org.eclipse.osgi.report.resolution.ResolutionReport;
+import org.eclipse.osgi.report.resolution.ResolutionStatistics;
 import org.osgi.framework.Constants;
 import org.osgi.framework.InvalidSyntaxException;
 import org.osgi.framework.namespace.*;
@@ -25,10 +27,17 @@ import org.osgi.service.resolver.ResolutionException;
  * A resolution report implementation used by the container for resolution operations.
  * @since 3.10
  */
-class ModuleResolutionReport implements ResolutionReport {
+class ModuleResolutionReport implements ResolutionReport, ResolutionStatistics {
+	private static final int TOP_REQUIREMENTS = 10;
 
 	static class Builder {
 		private final Map<Resource, List<Entry>> resourceToEntries = new HashMap<>();
+		private final long[] phaseTimes = new long[Phase.values().length];
+		private long permutationCount = 0;
+		private final Requirement[] topRequirements = new Requirement[TOP_REQUIREMENTS];
+		private final int[] topCounts = new int[TOP_REQUIREMENTS];
+		private int topSize = 0;
+		private final List<BatchEvent> batchEvents = new ArrayList<>();
 
 		public void addEntry(Resource resource, Entry.Type type, Object data) {
 			List<Entry> entries = resourceToEntries.get(resource);
@@ -39,8 +48,86 @@ class ModuleResolutionReport implements ResolutionReport {
 			entries.add(new EntryImpl(type, data));
 		}
 
+		public void addPhaseTime(Phase phase, long time) {
+			phaseTimes[phase.ordinal()] += time;
+		}
+
+		public void addPermutationCount(long count) {
+			permutationCount += count;
+		}
+
+		public void addCandidateCount(Requirement requirement, int count) {
+			if (topSize == TOP_REQUIREMENTS && count <= topCounts[topSize - 1]) {
+				return;
+			}
+			// the same requirement may be passed again by a later batch
+			int index = -1;
+			for (int i = 0; i < topSize; i++) {
+				if (topRequirements[i] == requirement) {
+					if (count <= topCounts[i]) {
+						return;
+					}
+					index = i;
+					break;
+				}
+			}
+			if (index < 0) {
+				// append or replace the smallest
+				if (topSize < TOP_REQUIREMENTS) {
+					topSize++;
+				}
+				index = topSize - 1;
+			}
+			for (; index > 0 && topCounts[index - 1] < count; index--) {
+				topRequirements[index] = topRequirements[index - 1];
+				topCounts[index] = topCounts[index - 1];
+			}
+			topRequirements[index] = requirement;
+			topCounts[index] = count;
+		}
+
+		public void addBatchEvent(BatchEvent.Type type, int revisionCount, long time) {
+			batchEvents.add(new BatchEventImpl(type, revisionCount, time));
+		}
+
 		public ModuleResolutionReport build(Map<Resource, List<Wire>> resolutionResult, ResolutionException cause) {
-			return new ModuleResolutionReport(resolutionResult, resourceToEntries, cause);
+			Map<Requirement, Integer> top = new LinkedHashMap<>();
+			for (int i = 0; i < topSize; i++) {
+				top.put(topRequirements[i], topCounts[i]);
+			}
+			return new ModuleResolutionReport(resolutionResult, resourceToEntries, cause, phaseTimes.clone(), permutationCount, top, new ArrayList<>(batchEvents));
+		}
+	}
+
+	static class BatchEventImpl implements BatchEvent {
+		private final Type type;
+		private final int revisionCount;
+		private final long time;
+
+		BatchEventImpl(Type type, int revisionCount, long time) {
+			this.type = type;
+			this.revisionCount = revisionCount;
+			this.time = time;
+		}
+
+		@Override
+		public Type getType() {
+			return type;
+		}
+
+		@Override
+		public int getRevisionCount() {
+			return revisionCount;
+		}
+
+		@Override
+		public long getTime() {
+			return time;
+		}
+
+		@Override
+		public String toString() {
+			return type + " revisions=" + revisionCount + " time=" + TimeUnit.NANOSECONDS.toMillis(time) + "ms"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 		}
 	}
 
@@ -67,11 +154,23 @@ class ModuleResolutionReport implements ResolutionReport {
 	private final Map<Resource, List<Entry>> entries;
 	private final ResolutionException resolutionException;
 	private final Map<Resource, List<Wire>> resolutionResult;
+	private final long[] phaseTimes;
+	private final long permutationCount;
+	private final Map<Requirement, Integer> topRequirements;
+	private final List<BatchEvent> batchEvents;
 
 	ModuleResolutionReport(Map<Resource, List<Wire>> resolutionResult, Map<Resource, List<Entry>> entries, ResolutionException cause) {
+		this(resolutionResult, entries, cause, new long[Phase.values().length], 0, Collections.<Requirement, Integer> emptyMap(), Collections.<BatchEvent> emptyList());
+	}
+
+	ModuleResolutionReport(Map<Resource, List<Wire>> resolutionResult, Map<Resource, List<Entry>> entries, ResolutionException cause, long[] phaseTimes, long permutationCount, Map<Requirement, Integer> topRequirements, List<BatchEvent> batchEvents) {
 		this.entries = entries == null ? Collections.<Resource, List<Entry>> emptyMap() : Collections.unmodifiableMap(new HashMap<>(entries));
 		this.resolutionResult = resolutionResult == null ? Collections.<Resource, List<Wire>> emptyMap() : Collections.unmodifiableMap(resolutionResult);
 		this.resolutionException = cause;
+		this.phaseTimes = phaseTimes;
+		this.permutationCount = permutationCount;
+		this.topRequirements = Collections.unmodifiableMap(topRequirements);
+		this.batchEvents = Collections.unmodifiableList(batchEvents);
 	}
 
 	@Override
@@ -88,6 +187,41 @@ class ModuleResolutionReport implements ResolutionReport {
 		return resolutionResult;
 	}
 
+	@Override
+	public long getPhaseTime(Phase phase) {
+		return phaseTimes[phase.ordinal()];
+	}
+
+	@Override
+	public long getPermutationCount() {
+		return permutationCount;
+	}
+
+	@Override
+	public Map<Requirement, Integer> getTopRequirements() {
+		return topRequirements;
+	}
+
+	@Override
+	public List<BatchEvent> getBatchEvents() {
+		return batchEvents;
+	}
+
+	String getStatisticsMessage() {
+		StringBuilder result = new StringBuilder();
+		for (Phase phase : Phase.values()) {
+			result.append(phase).append(": ").append(TimeUnit.NANOSECONDS.toMillis(getPhaseTime(phase))).append("ms").append('\n'); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		result.append("Permutations: ").append(permutationCount).append('\n'); //$NON-NLS-1$
+		for (Map.Entry<Requirement, Integer> topRequirement : topRequirements.entrySet()) {
+			result.append("Candidates: ").append(topRequirement.getValue()).append(' ').append(topRequirement.getKey()).append(" of ").append(topRequirement.getKey().getResource()).append('\n'); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		for (BatchEvent batchEvent : batchEvents) {
+			result.append("Batch: ").append(batchEvent).append('\n'); //$NON-NLS-1$
+		}
+		return result.toString();
+	}
+
 	private static String getResolutionReport0(String prepend, ModuleRevision revision, Map<Resource, List<ResolutionReport.Entry>> reportEntries, Set<BundleRevision> visited) {
 		if (prepend == null) {
 			prepend = ""; //$NON-NLS-1$
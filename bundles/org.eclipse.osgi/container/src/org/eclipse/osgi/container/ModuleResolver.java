@@ -25,6 +25,8 @@ import org.eclipse.osgi.internal.messages.Msg;
 import org.eclipse.osgi.report.resolution.ResolutionReport;
 import org.eclipse.osgi.report.resolution.ResolutionReport.Entry;
 import org.eclipse.osgi.report.resolution.ResolutionReport.Entry.Type;
+import org.eclipse.osgi.report.resolution.ResolutionStatistics.BatchEvent;
+import org.eclipse.osgi.report.resolution.ResolutionStatistics.Phase;
 import org.eclipse.osgi.service.debug.DebugOptions;
 import org.osgi.framework.BundleException;
 import org.osgi.framework.Version;
@@ -62,6 +64,7 @@ final class ModuleResolver {
 	private static final int DEFAULT_BATCH_TIMEOUT = (int) TimeUnit.MINUTES.toMillis(2);
 	final int resolverRevisionBatchSize;
 	final int resolverBatchTimeout;
+	final int resolverPermutationBatchSize;
 
 	void setDebugOptions() {
 		DebugOptions options = adaptor.getDebugOptions();
@@ -98,6 +101,9 @@ final class ModuleResolver {
 		this.resolverRevisionBatchSize = parseInteger(batchSizeConfig, DEFAULT_BATCH_SIZE, 1);
 		String batchTimeoutConfig = this.adaptor.getProperty(EquinoxConfiguration.PROP_RESOLVER_BATCH_TIMEOUT);
 		this.resolverBatchTimeout = parseInteger(batchTimeoutConfig, DEFAULT_BATCH_TIMEOUT, BATCH_MIN_TIMEOUT);
+		// by default permutations are checked one at a time to keep the resolution result independent of the thread count
+		String permutationBatchSizeConfig = this.adaptor.getProperty(EquinoxConfiguration.PROP_RESOLVER_PERMUTATION_BATCH_SIZE);
+		this.resolverPermutationBatchSize = parseInteger(permutationBatchSizeConfig, 1, 1);
 
 	}
 
@@ -501,6 +507,28 @@ final class ModuleResolver {
 				}
 			}
 
+			@Override
+			public void logPhaseTime(int phase, long nanos) {
+				switch (phase) {
+					case PHASE_POPULATE :
+						reportBuilder.addPhaseTime(Phase.CANDIDATE_POPULATION, nanos);
+						break;
+					case PHASE_PREPARE :
+						reportBuilder.addPhaseTime(Phase.FRAGMENT_ATTACHMENT, nanos);
+						break;
+					case PHASE_CHECK :
+						reportBuilder.addPhaseTime(Phase.USES_CHECKING, nanos);
+						break;
+					default :
+						break;
+				}
+			}
+
+			@Override
+			public void logPermutationsChecked(int count) {
+				reportBuilder.addPermutationCount(count);
+			}
+
 			Map<Resource, ResolutionException> getUsesConstraintViolations() {
 				return errors == null ? Collections.<Resource, ResolutionException> emptyMap() : errors;
 			}
@@ -611,6 +639,7 @@ final class ModuleResolver {
 			}
 			List<ModuleCapability> candidates = moduleDatabase.findCapabilities(lookupReq);
 			List<Capability> result = filterProviders(origReq, candidates);
+			reportBuilder.addCandidateCount(origReq, result.size());
 			if (DEBUG_PROVIDERS) {
 				StringBuilder builder = new StringBuilder("RESOLVER: Capabilities being returned to the resolver"); //$NON-NLS-1$
 				int i = 0;
@@ -969,6 +998,7 @@ final class ModuleResolver {
 								Debug.println(report.getResolutionReportMessage(resource));
 							}
 						}
+						Debug.println("RESOLVER: Resolution statistics" + SEPARATOR + report.getStatisticsMessage()); //$NON-NLS-1$
 					}
 					if (hook instanceof ResolutionReport.Listener)
 						((ResolutionReport.Listener) hook).handleResolutionReport(report);
@@ -1008,6 +1038,7 @@ final class ModuleResolver {
 			long startTime = System.currentTimeMillis();
 			long initialFreeMemory = Runtime.getRuntime().freeMemory();
 			long maxUsedMemory = 0;
+			long batchStartTime = System.nanoTime();
 
 			// make a copy so we do not modify the input
 			revisions = new LinkedList<>(revisions);
@@ -1026,19 +1057,23 @@ final class ModuleResolver {
 								Debug.println("    Resolving root bundle: " + root); //$NON-NLS-1$
 							}
 						}
+						batchStartTime = System.nanoTime();
 						resolveRevisions(toResolve, isMandatory, logger, result);
+						reportBuilder.addBatchEvent(BatchEvent.Type.RESOLVED, toResolve.size(), System.nanoTime() - batchStartTime);
 						toResolve.clear();
 					}
 					maxUsedMemory = Math.max(maxUsedMemory, Runtime.getRuntime().freeMemory() - initialFreeMemory);
 				}
 			} catch (ResolutionException resolutionException) {
 				if (resolutionException.getCause() instanceof CancellationException) {
+					reportBuilder.addBatchEvent(BatchEvent.Type.TIMED_OUT, toResolve.size(), System.nanoTime() - batchStartTime);
 					// revert back to single bundle resolves
 					resolveRevisionsIndividually(isMandatory, logger, result, toResolve, revisions);
 				} else {
 					throw resolutionException;
 				}
 			} catch (OutOfMemoryError memoryError) {
+				reportBuilder.addBatchEvent(BatchEvent.Type.OUT_OF_MEMORY, toResolve.size(), System.nanoTime() - batchStartTime);
 				// revert back to single bundle resolves
 				resolveRevisionsIndividually(isMandatory, logger, result, toResolve, revisions);
 			}
@@ -1072,7 +1107,7 @@ final class ModuleResolver {
 			Map<Resource, List<Wire>> interimResults = null;
 			try {
 				transitivelyResolveFailures.addAll(revisions);
-				interimResults = new ResolverImpl(logger, this).resolve(this);
+				interimResults = new ResolverImpl(logger, this, resolverPermutationBatchSize).resolve(this);
 				applyInterimResultToWiringCopy(interimResults);
 				if (DEBUG_ROOTS) {
 					Debug.println("Resolver: resolved " + interimResults.size() + " bundles."); //$NON-NLS-1$ //$NON-NLS-2$
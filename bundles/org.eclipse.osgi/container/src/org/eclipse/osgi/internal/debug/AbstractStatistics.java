@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.internal.debug;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * The common base of the framework statistics services.  Orders the entries
+ * by their total time and periodically prints the slowest entries to the
+ * debug trace.
+ * @param <E> the type of the statistics entries
+ */
+public abstract class AbstractStatistics<E> {
+	/** The number of entries included in the periodic dump to the debug trace */
+	public static final int DUMP_SIZE = 10;
+
+	private final Comparator<E> byTotalTime = new Comparator<E>() {
+		public int compare(E e1, E e2) {
+			long t1 = getTotalTime(e1);
+			long t2 = getTotalTime(e2);
+			return t1 < t2 ? 1 : (t1 == t2 ? 0 : -1);
+		}
+	};
+
+	private ScheduledFuture<?> dumpTask;
+
+	/**
+	 * Returns the statistics entries ordered by the total time.
+	 * @return the statistics entries
+	 */
+	public abstract List<E> getEntries();
+
+	/**
+	 * Returns the total time of an entry in nanoseconds.
+	 * @param entry the entry
+	 * @return the total time of the entry
+	 */
+	protected abstract long getTotalTime(E entry);
+
+	/**
+	 * Returns the first line of a dump.
+	 * @param dumpedCount the number of entries included in the dump
+	 * @param totalCount the number of entries
+	 * @return the first line of the dump
+	 */
+	protected abstract String getDumpHeader(int dumpedCount, int totalCount);
+
+	/**
+	 * Copies entries into a list ordered by the total time from the largest
+	 * to the smallest.
+	 * @param entries the entries
+	 * @return the ordered list of entries
+	 */
+	protected List<E> sortByTotalTime(Collection<? extends E> entries) {
+		List<E> result = new ArrayList<E>(entries);
+		Collections.sort(result, byTotalTime);
+		return result;
+	}
+
+	/**
+	 * Starts printing the statistics of the slowest entries to the debug trace.
+	 * @param executor the executor to print the statistics with
+	 * @param interval the interval between two dumps in milliseconds
+	 */
+	public synchronized void startDump(ScheduledExecutorService executor, long interval) {
+		if (dumpTask != null || interval <= 0) {
+			return;
+		}
+		dumpTask = executor.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				dump();
+			}
+		}, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	public synchronized void stopDump() {
+		if (dumpTask != null) {
+			dumpTask.cancel(false);
+			dumpTask = null;
+		}
+	}
+
+	/**
+	 * Prints the statistics of the slowest entries to the debug trace.
+	 */
+	public void dump() {
+		List<E> current = getEntries();
+		int dumpedCount = Math.min(DUMP_SIZE, current.size());
+		Debug.println(getDumpHeader(dumpedCount, current.size()));
+		for (E entry : current.subList(0, dumpedCount)) {
+			Debug.println("  " + entry); //$NON-NLS-1$
+		}
+	}
+}
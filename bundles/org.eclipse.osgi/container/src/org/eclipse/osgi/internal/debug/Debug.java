@@ -39,6 +39,10 @@ public class Debug implements DebugOptionsListener {
 	 * Loader Debug option key.
 	 */
 	public static final String OPTION_DEBUG_LOADER = ECLIPSE_OSGI + "/debug/loader"; //$NON-NLS-1$
+	/**
+	 * Loader allocation Debug option key.
+	 */
+	public static final String OPTION_DEBUG_LOADER_ALLOCATION = ECLIPSE_OSGI + "/debug/loader/allocation"; //$NON-NLS-1$
 	/**
 	 * Storage Debug option key.
 	 */
@@ -111,6 +115,10 @@ public class Debug implements DebugOptionsListener {
 	 * Loader debug flag.
 	 */
 	public boolean DEBUG_LOADER = false; // "debug.loader"
+	/**
+	 * Loader allocation debug flag.
+	 */
+	public boolean DEBUG_LOADER_ALLOCATION = false; // "debug.loader/allocation"
 	/**
 	 * Storage debug flag.
 	 */
@@ -177,6 +185,7 @@ public class Debug implements DebugOptionsListener {
 		DEBUG_GENERAL = dbgOptions.getBooleanOption(OPTION_DEBUG_GENERAL, false);
 		DEBUG_BUNDLE_TIME = dbgOptions.getBooleanOption(OPTION_DEBUG_BUNDLE_TIME, false) || dbgOptions.getBooleanOption("org.eclipse.core.runtime/timing/startup", false); //$NON-NLS-1$
 		DEBUG_LOADER = dbgOptions.getBooleanOption(OPTION_DEBUG_LOADER, false);
+		DEBUG_LOADER_ALLOCATION = dbgOptions.getBooleanOption(OPTION_DEBUG_LOADER_ALLOCATION, false);
 		DEBUG_STORAGE = dbgOptions.getBooleanOption(OPTION_DEBUG_STORAGE, false);
 		DEBUG_EVENTS = dbgOptions.getBooleanOption(OPTION_DEBUG_EVENTS, false);
 		DEBUG_SERVICES = dbgOptions.getBooleanOption(OPTION_DEBUG_SERVICES, false);
@@ -63,6 +63,9 @@ public class BundleContextImpl implements BundleContext, EventDispatcher<Object,
 	/** private object for locking */
 	private final Object contextLock = new Object();
 
+	/** the listener statistics; null if the statistics are not collected */
+	private final ListenerStatisticsImpl listenerStatistics;
+
 	/**
 	 * Construct a BundleContext which wrappers the framework for a
 	 * bundle
@@ -73,6 +76,7 @@ public class BundleContextImpl implements BundleContext, EventDispatcher<Object,
 		this.bundle = bundle;
 		this.container = container;
 		this.debug = container.getConfiguration().getDebug();
+		this.listenerStatistics = container.getEventPublisher().getListenerStatistics();
 		valid = true;
 		synchronized (contextLock) {
 			servicesInUse = null;
@@ -882,6 +886,14 @@ public class BundleContextImpl implements BundleContext, EventDispatcher<Object,
 		}
 	}
 
+	private void recordDelivery(Object listener, String type, int action, long time) {
+		listenerStatistics.getEntry(listener, bundle, type).delivered(time);
+		if (!container.getEventPublisher().isListenerAdded(listener, this, action)) {
+			// removed while delivering the event; do not keep the statistics
+			listenerStatistics.remove(listener);
+		}
+	}
+
 	/**
 	 * Bottom level event dispatcher for the BundleContext.
 	 *
@@ -905,7 +917,15 @@ public class BundleContextImpl implements BundleContext, EventDispatcher<Object,
 							Debug.println("dispatchBundleEvent[" + bundle + "](" + listenerName + ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 						}
 
-						listener.bundleChanged((BundleEvent) object);
+						long start = listenerStatistics == null ? 0 : System.nanoTime();
+						try {
+							listener.bundleChanged((BundleEvent) object);
+						} finally {
+							if (listenerStatistics != null) {
+								String type = action == EquinoxEventPublisher.BUNDLEEVENTSYNC ? SynchronousBundleListener.class.getName() : BundleListener.class.getName();
+								recordDelivery(listener, type, action, System.nanoTime() - start);
+							}
+						}
 						break;
 					}
 
@@ -929,7 +949,14 @@ public class BundleContextImpl implements BundleContext, EventDispatcher<Object,
 							Debug.println("dispatchFrameworkEvent[" + bundle + "](" + listenerName + ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 						}
 
-						listener.frameworkEvent((FrameworkEvent) object);
+						long start = listenerStatistics == null ? 0 : System.nanoTime();
+						try {
+							listener.frameworkEvent((FrameworkEvent) object);
+						} finally {
+							if (listenerStatistics != null) {
+								recordDelivery(listener, FrameworkListener.class.getName(), action, System.nanoTime() - start);
+							}
+						}
 						break;
 					}
 					default : {
@@ -28,6 +28,7 @@ import java.net.*;
 import java.security.CodeSource;
 import java.security.ProtectionDomain;
 import java.util.*;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.eclipse.core.runtime.internal.adaptor.ConsoleManager;
 import org.eclipse.osgi.internal.debug.Debug;
@@ -111,6 +112,7 @@ public class EquinoxConfiguration implements EnvironmentInfo {
 
 	public final boolean CLASS_CERTIFICATE;
 	public final boolean PARALLEL_CAPABLE;
+	public final boolean VIRTUAL_THREADS;
 
 	// JVM os.arch property name
 	public static final String PROP_JVM_OS_ARCH = "os.arch"; //$NON-NLS-1$
@@ -198,10 +200,33 @@ public class EquinoxConfiguration implements EnvironmentInfo {
 	public static final String PROP_MODULE_AUTO_START_ON_RESOLVE = "osgi.module.auto.start.on.resolve"; //$NON-NLS-1$
 	public static final String PROP_ALLOW_RESTRICTED_PROVIDES = "osgi.equinox.allow.restricted.provides"; //$NON-NLS-1$
 	public static final String PROP_LOG_HISTORY_MAX = "equinox.log.history.max"; //$NON-NLS-1$
+	public static final String PROP_LOG_LISTENER_QUEUE_SIZE = "equinox.log.listener.queue.size"; //$NON-NLS-1$
+	public static final String PROP_LOG_LISTENER_QUEUE_OVERFLOW = "equinox.log.listener.queue.overflow"; //$NON-NLS-1$
+	public static final String PROP_LOG_WRITER_QUEUE_SIZE = "equinox.log.writer.queue.size"; //$NON-NLS-1$
+	public static final String PROP_LOG_FORMAT = "equinox.log.format"; //$NON-NLS-1$
 
 	public static final String PROP_RESOLVER_THREAD_COUNT = "equinox.resolver.thead.count"; //$NON-NLS-1$
 	public static final String PROP_RESOLVER_REVISION_BATCH_SIZE = "equinox.resolver.revision.batch.size"; //$NON-NLS-1$
 	public static final String PROP_RESOLVER_BATCH_TIMEOUT = "equinox.resolver.batch.timeout"; //$NON-NLS-1$
+	public static final String PROP_RESOLVER_PERMUTATION_BATCH_SIZE = "equinox.resolver.permutation.batch.size"; //$NON-NLS-1$
+
+	public static final String PROP_EVENT_ASYNC_THREAD_COUNT = "equinox.event.async.thread.count"; //$NON-NLS-1$
+	public static final String PROP_EVENT_LISTENER_STATISTICS = "equinox.event.listener.statistics"; //$NON-NLS-1$
+	public static final String PROP_EVENT_LISTENER_STATISTICS_DUMP_INTERVAL = "equinox.event.listener.statistics.dump.interval"; //$NON-NLS-1$
+	public static final String PROP_SECURITY_STATISTICS = "equinox.security.statistics"; //$NON-NLS-1$
+	public static final String PROP_SECURITY_STATISTICS_DUMP_INTERVAL = "equinox.security.statistics.dump.interval"; //$NON-NLS-1$
+	/**
+	 * The window in milliseconds in which MODIFIED service events of a registration are
+	 * coalesced.  Also used as service property to set the window of a single registration.
+	 * <p>
+	 * This deviates from the specification, which requires a MODIFIED event to be sent
+	 * synchronously for each call to setProperties.  Within the window, listeners which
+	 * keep matching the service properties see the new properties before they get the
+	 * single MODIFIED event sent when the window ends.  Listeners which start or stop to
+	 * match the properties still get their MODIFIED or MODIFIED_ENDMATCH events
+	 * synchronously, so service trackers keep tracking the right services.
+	 */
+	public static final String PROP_SERVICE_MODIFIED_COALESCE_WINDOW = "equinox.service.modified.coalesce.window"; //$NON-NLS-1$
 
 	public static final String PROP_SYSTEM_PROVIDE_HEADER = "equinox.system.provide.header"; //$NON-NLS-1$
 	public static final String SYSTEM_PROVIDE_HEADER_ORIGINAL = "original"; //$NON-NLS-1$
@@ -213,6 +238,7 @@ public class EquinoxConfiguration implements EnvironmentInfo {
 	public static final String PROP_INIT_UUID = "equinox.init.uuid"; //$NON-NLS-1$
 
 	public static final String PROP_ACTIVE_THREAD_TYPE = "osgi.framework.activeThreadType"; //$NON-NLS-1$
+	public static final String PROP_VIRTUAL_THREADS = "equinox.threads.virtual"; //$NON-NLS-1$
 	public static final String ACTIVE_THREAD_TYPE_NORMAL = "normal"; //$NON-NLS-1$
 
 	public static final class ConfigValues {
@@ -574,6 +600,7 @@ public class EquinoxConfiguration implements EnvironmentInfo {
 
 		CLASS_CERTIFICATE = Boolean.valueOf(getConfiguration(PROP_CLASS_CERTIFICATE_SUPPORT, "true")).booleanValue(); //$NON-NLS-1$
 		PARALLEL_CAPABLE = CLASS_LOADER_TYPE_PARALLEL.equals(getConfiguration(PROP_CLASS_LOADER_TYPE));
+		VIRTUAL_THREADS = "true".equals(getConfiguration(PROP_VIRTUAL_THREADS)); //$NON-NLS-1$
 
 		// A specified osgi.dev property but unspecified osgi.checkConfiguration
 		// property implies osgi.checkConfiguration = true.
@@ -584,6 +611,16 @@ public class EquinoxConfiguration implements EnvironmentInfo {
 		}
 	}
 
+	/**
+	 * Returns a factory of virtual threads if virtual threads are enabled
+	 * with {@link #PROP_VIRTUAL_THREADS} and supported by the VM.
+	 * @param prefix the prefix of the thread names
+	 * @return the factory or <code>null</code> if platform threads must be used
+	 */
+	public ThreadFactory getVirtualThreadFactory(String prefix) {
+		return VIRTUAL_THREADS ? VirtualThreads.createFactory(prefix) : null;
+	}
+
 	private URL getConfigIni(EquinoxLocations locations, boolean parent) {
 		if (Boolean.TRUE.toString().equals(getConfiguration(EquinoxConfiguration.PROP_IGNORE_USER_CONFIGURATION)))
 			return null;
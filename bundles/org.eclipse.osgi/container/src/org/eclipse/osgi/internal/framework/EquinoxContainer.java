@@ -161,7 +161,7 @@ public class EquinoxContainer implements ThreadFactory, Runnable {
 		synchronized (this.monitor) {
 			serviceRegistry = new ServiceRegistry(this);
 			initializeContextFinder();
-			executor = Executors.newScheduledThreadPool(1, this);
+			executor = Executors.newScheduledThreadPool(1, getActiveThreadFactory());
 			// be sure to initialize the executor threads
 			executor.execute(this);
 			storageSaver = new StorageSaver(this);
@@ -220,7 +220,7 @@ public class EquinoxContainer implements ThreadFactory, Runnable {
 		}
 	}
 
-	ScheduledExecutorService getScheduledExecutor() {
+	public ScheduledExecutorService getScheduledExecutor() {
 		synchronized (this.monitor) {
 			return executor;
 		}
@@ -283,6 +283,16 @@ public class EquinoxContainer implements ThreadFactory, Runnable {
 		}
 	}
 
+	private ThreadFactory getActiveThreadFactory() {
+		String type = equinoxConfig.getConfiguration(EquinoxConfiguration.PROP_ACTIVE_THREAD_TYPE, EquinoxConfiguration.ACTIVE_THREAD_TYPE_NORMAL);
+		if (EquinoxConfiguration.ACTIVE_THREAD_TYPE_NORMAL.equals(type)) {
+			// a normal active thread keeps the VM alive; virtual threads are always daemon threads
+			return this;
+		}
+		ThreadFactory virtualThreadFactory = equinoxConfig.getVirtualThreadFactory("Active Thread: " + toString() + " - "); //$NON-NLS-1$ //$NON-NLS-2$
+		return virtualThreadFactory != null ? virtualThreadFactory : this;
+	}
+
 	@Override
 	public Thread newThread(Runnable r) {
 		String type = equinoxConfig.getConfiguration(EquinoxConfiguration.PROP_ACTIVE_THREAD_TYPE, EquinoxConfiguration.ACTIVE_THREAD_TYPE_NORMAL);
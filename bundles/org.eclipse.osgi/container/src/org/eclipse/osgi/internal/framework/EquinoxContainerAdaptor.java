@@ -63,7 +63,7 @@ public class EquinoxContainerAdaptor extends ModuleContainerAdaptor {
 		this.lazyExecutorCreator = createLazyExecutorCreator(container.getConfiguration());
 	}
 
-	private Callable<Executor> createLazyExecutorCreator(EquinoxConfiguration config) {
+	private Callable<Executor> createLazyExecutorCreator(final EquinoxConfiguration config) {
 		String threadCntProp = config.getConfiguration(EquinoxConfiguration.PROP_RESOLVER_THREAD_COUNT);
 		int threadCntTmp;
 		try {
@@ -90,8 +90,10 @@ public class EquinoxContainerAdaptor extends ModuleContainerAdaptor {
 				int idleTimeout = 10;
 				// use sync queue to force thread creation
 				BlockingQueue<Runnable> queue = new SynchronousQueue<>();
+				// use virtual threads if enabled; they are named with the prefix and a number
+				ThreadFactory virtualThreadFactory = config.getVirtualThreadFactory("Resolver thread - " + EquinoxContainerAdaptor.this.toString() + " - "); //$NON-NLS-1$ //$NON-NLS-2$
 				// try to name the threads with useful name
-				ThreadFactory threadFactory = new ThreadFactory() {
+				ThreadFactory threadFactory = virtualThreadFactory != null ? virtualThreadFactory : new ThreadFactory() {
 					@Override
 					public Thread newThread(Runnable r) {
 						Thread t = new Thread(r, "Resolver thread - " + EquinoxContainerAdaptor.this.toString()); //$NON-NLS-1$
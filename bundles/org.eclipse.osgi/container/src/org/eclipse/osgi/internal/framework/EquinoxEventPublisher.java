@@ -13,7 +13,6 @@ package org.eclipse.osgi.internal.framework;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.*;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import org.eclipse.osgi.framework.eventmgr.*;
 import org.eclipse.osgi.internal.debug.Debug;
@@ -33,6 +32,8 @@ public class EquinoxEventPublisher {
 	static final int FRAMEWORKEVENT = 4;
 
 	private final EquinoxContainer container;
+	/** the listener statistics; null if the statistics are not collected */
+	private final ListenerStatisticsImpl listenerStatistics;
 
 	private Object monitor = new Object();
 	private EventManager eventManager;
@@ -53,13 +54,43 @@ public class EquinoxEventPublisher {
 	// Map of BundleContexts for bundle's FrameworkListeners.
 	private final Map<BundleContextImpl, CopyOnWriteIdentityMap<FrameworkListener, FrameworkListener>> allFrameworkListeners = new HashMap<>();
 
+	/*
+	 * Snapshots of the listener maps above.  A snapshot is replaced while holding
+	 * the lock of its map each time the listeners change so that publishing an event
+	 * does not have to copy the listeners.
+	 */
+	private volatile ContextListeners<BundleListener>[] bundleListenersSnapshot = snapshot(allBundleListeners);
+	private volatile ContextListeners<SynchronousBundleListener>[] syncBundleListenersSnapshot = snapshot(allSyncBundleListeners);
+	private volatile ContextListeners<FrameworkListener>[] frameworkListenersSnapshot = snapshot(allFrameworkListeners);
+
 	public EquinoxEventPublisher(EquinoxContainer container) {
 		this.container = container;
+		boolean collectStatistics = "true".equals(container.getConfiguration().getConfiguration(EquinoxConfiguration.PROP_EVENT_LISTENER_STATISTICS)); //$NON-NLS-1$
+		this.listenerStatistics = collectStatistics ? new ListenerStatisticsImpl() : null;
+	}
+
+	/**
+	 * Returns the statistics of the listeners.
+	 * @return the listener statistics or null if the statistics are not collected
+	 */
+	public ListenerStatisticsImpl getListenerStatistics() {
+		return listenerStatistics;
 	}
 
 	void init() {
 		// create our event manager on init()
-		resetEventManager(new EventManager("Framework Event Dispatcher: " + toString())); //$NON-NLS-1$
+		String threadName = "Framework Event Dispatcher: " + toString(); //$NON-NLS-1$
+		resetEventManager(new EventManager(threadName, null, getAsyncThreadCount(), container.getConfiguration().getVirtualThreadFactory(threadName)));
+	}
+
+	private int getAsyncThreadCount() {
+		String threadCntProp = container.getConfiguration().getConfiguration(EquinoxConfiguration.PROP_EVENT_ASYNC_THREAD_COUNT);
+		try {
+			// one thread delivers all the events in order
+			return threadCntProp == null ? 1 : Math.max(Integer.parseInt(threadCntProp), 1);
+		} catch (NumberFormatException e) {
+			return 1;
+		}
 	}
 
 	void close() {
@@ -68,9 +99,21 @@ public class EquinoxEventPublisher {
 		// close and clear out the event manager
 		resetEventManager(null);
 		// make sure we clear out all the remaining listeners
-		allBundleListeners.clear();
-		allSyncBundleListeners.clear();
-		allFrameworkListeners.clear();
+		synchronized (allBundleListeners) {
+			allBundleListeners.clear();
+			bundleListenersSnapshot = snapshot(allBundleListeners);
+		}
+		synchronized (allSyncBundleListeners) {
+			allSyncBundleListeners.clear();
+			syncBundleListenersSnapshot = snapshot(allSyncBundleListeners);
+		}
+		synchronized (allFrameworkListeners) {
+			allFrameworkListeners.clear();
+			frameworkListenersSnapshot = snapshot(allFrameworkListeners);
+		}
+		if (listenerStatistics != null) {
+			listenerStatistics.reset();
+		}
 	}
 
 	private void resetEventManager(EventManager newEventManager) {
@@ -137,45 +180,65 @@ public class EquinoxEventPublisher {
 		 * BEFORE we dispatch the event.
 		 */
 		/* Collect snapshot of SynchronousBundleListeners */
-		/* Build the listener snapshot */
-		Map<BundleContextImpl, Set<Map.Entry<SynchronousBundleListener, SynchronousBundleListener>>> listenersSync;
+		ContextListeners<SynchronousBundleListener>[] listenersSync = syncBundleListenersSnapshot;
+		/* Collect snapshot of BundleListeners; only if the event is NOT STARTING or STOPPING or LAZY_ACTIVATION */
+		ContextListeners<BundleListener>[] listenersAsync = null;
+		if ((event.getType() & (BundleEvent.STARTING | BundleEvent.STOPPING | BundleEvent.LAZY_ACTIVATION)) == 0) {
+			listenersAsync = bundleListenersSnapshot;
+		}
+
+		ServiceRegistry serviceRegistry = container.getServiceRegistry();
+		if (serviceRegistry != null && serviceRegistry.hasHooks(eventHookName)) {
+			// the hooks may shrink the listeners; dispatch to a copy of the snapshots
+			publishBundleEventToHooks(event, listenersSync, listenersAsync);
+			return;
+		}
+
+		/* Dispatch the event to the snapshot for sync listeners */
+		if (listenersSync.length > 0) {
+			ListenerQueue<SynchronousBundleListener, SynchronousBundleListener, BundleEvent> queue = newListenerQueue();
+			for (ContextListeners<SynchronousBundleListener> contextListeners : listenersSync) {
+				queue.queueListeners(contextListeners.listeners, contextListeners.<BundleEvent> getDispatcher());
+			}
+			queue.dispatchEventSynchronous(BUNDLEEVENTSYNC, event);
+		}
+
+		/* Dispatch the event to the snapshot for async listeners */
+		if ((listenersAsync != null) && listenersAsync.length > 0) {
+			ListenerQueue<BundleListener, BundleListener, BundleEvent> queue = newListenerQueue();
+			for (ContextListeners<BundleListener> contextListeners : listenersAsync) {
+				queue.queueListeners(contextListeners.listeners, contextListeners.<BundleEvent> getDispatcher());
+			}
+			queue.dispatchEventAsynchronous(BUNDLEEVENT, event);
+		}
+	}
+
+	private void publishBundleEventToHooks(BundleEvent event, ContextListeners<SynchronousBundleListener>[] snapshotSync, ContextListeners<BundleListener>[] snapshotAsync) {
+		/* Build the listener maps from the snapshots */
 		BundleContextImpl systemContext = null;
+		Map<BundleContextImpl, Set<Map.Entry<SynchronousBundleListener, SynchronousBundleListener>>> listenersSync = new HashMap<>(snapshotSync.length);
 		Set<Map.Entry<SynchronousBundleListener, SynchronousBundleListener>> systemBundleListenersSync = null;
-		synchronized (allSyncBundleListeners) {
-			listenersSync = new HashMap<>(allSyncBundleListeners.size());
-			for (Map.Entry<BundleContextImpl, CopyOnWriteIdentityMap<SynchronousBundleListener, SynchronousBundleListener>> entry : allSyncBundleListeners.entrySet()) {
-				CopyOnWriteIdentityMap<SynchronousBundleListener, SynchronousBundleListener> listeners = entry.getValue();
-				if (!listeners.isEmpty()) {
-					Set<Map.Entry<SynchronousBundleListener, SynchronousBundleListener>> listenerEntries = listeners.entrySet();
-					if (entry.getKey().getBundleImpl().getBundleId() == 0) {
-						systemContext = entry.getKey();
-						// record the snapshot; no need to create another copy
-						// because the hooks are not exposed to this set
-						systemBundleListenersSync = listenerEntries;
-					}
-					listenersSync.put(entry.getKey(), listeners.entrySet());
-				}
+		for (ContextListeners<SynchronousBundleListener> contextListeners : snapshotSync) {
+			if (contextListeners.context.getBundleImpl().getBundleId() == 0) {
+				systemContext = contextListeners.context;
+				// record the snapshot; no need to create another copy
+				// because the hooks are not exposed to this set
+				systemBundleListenersSync = contextListeners.listeners;
 			}
+			listenersSync.put(contextListeners.context, contextListeners.listeners);
 		}
-		/* Collect snapshot of BundleListeners; only if the event is NOT STARTING or STOPPING or LAZY_ACTIVATION */
 		Map<BundleContextImpl, Set<Map.Entry<BundleListener, BundleListener>>> listenersAsync = null;
 		Set<Map.Entry<BundleListener, BundleListener>> systemBundleListenersAsync = null;
-		if ((event.getType() & (BundleEvent.STARTING | BundleEvent.STOPPING | BundleEvent.LAZY_ACTIVATION)) == 0) {
-			synchronized (allBundleListeners) {
-				listenersAsync = new HashMap<>(allBundleListeners.size());
-				for (Map.Entry<BundleContextImpl, CopyOnWriteIdentityMap<BundleListener, BundleListener>> entry : allBundleListeners.entrySet()) {
-					CopyOnWriteIdentityMap<BundleListener, BundleListener> listeners = entry.getValue();
-					if (!listeners.isEmpty()) {
-						Set<Map.Entry<BundleListener, BundleListener>> listenerEntries = listeners.entrySet();
-						if (entry.getKey().getBundleImpl().getBundleId() == 0) {
-							systemContext = entry.getKey();
-							// record the snapshot; no need to create another copy
-							// because the hooks are not exposed to this set
-							systemBundleListenersAsync = listenerEntries;
-						}
-						listenersAsync.put(entry.getKey(), listenerEntries);
-					}
+		if (snapshotAsync != null) {
+			listenersAsync = new HashMap<>(snapshotAsync.length);
+			for (ContextListeners<BundleListener> contextListeners : snapshotAsync) {
+				if (contextListeners.context.getBundleImpl().getBundleId() == 0) {
+					systemContext = contextListeners.context;
+					// record the snapshot; no need to create another copy
+					// because the hooks are not exposed to this set
+					systemBundleListenersAsync = contextListeners.listeners;
 				}
+				listenersAsync.put(contextListeners.context, contextListeners.listeners);
 			}
 		}
 
@@ -290,17 +353,8 @@ public class EquinoxEventPublisher {
 		if (!isEventManagerSet()) {
 			return;
 		}
-		// Build the listener snapshot
-		Map<BundleContextImpl, Set<Map.Entry<FrameworkListener, FrameworkListener>>> listenerSnapshot;
-		synchronized (allFrameworkListeners) {
-			listenerSnapshot = new HashMap<>(allFrameworkListeners.size());
-			for (Map.Entry<BundleContextImpl, CopyOnWriteIdentityMap<FrameworkListener, FrameworkListener>> entry : allFrameworkListeners.entrySet()) {
-				CopyOnWriteIdentityMap<FrameworkListener, FrameworkListener> listeners = entry.getValue();
-				if (!listeners.isEmpty()) {
-					listenerSnapshot.put(entry.getKey(), listeners.entrySet());
-				}
-			}
-		}
+		// Get the listener snapshot
+		ContextListeners<FrameworkListener>[] listenerSnapshot = frameworkListenersSnapshot;
 		// If framework event hook were defined they would be called here
 
 		// deliver the event to the snapshot
@@ -322,11 +376,8 @@ public class EquinoxEventPublisher {
 			}
 		}
 
-		for (Map.Entry<BundleContextImpl, Set<Map.Entry<FrameworkListener, FrameworkListener>>> entry : listenerSnapshot.entrySet()) {
-			@SuppressWarnings({"rawtypes", "unchecked"})
-			EventDispatcher<FrameworkListener, FrameworkListener, FrameworkEvent> dispatcher = (EventDispatcher) entry.getKey();
-			Set<Map.Entry<FrameworkListener, FrameworkListener>> listeners = entry.getValue();
-			queue.queueListeners(listeners, dispatcher);
+		for (ContextListeners<FrameworkListener> contextListeners : listenerSnapshot) {
+			queue.queueListeners(contextListeners.listeners, contextListeners.<FrameworkEvent> getDispatcher());
 		}
 
 		queue.dispatchEventAsynchronous(FRAMEWORKEVENT, event);
@@ -357,6 +408,7 @@ public class EquinoxEventPublisher {
 					allSyncBundleListeners.put(context, listeners);
 				}
 				listeners.put((SynchronousBundleListener) listener, (SynchronousBundleListener) listener);
+				syncBundleListenersSnapshot = snapshot(allSyncBundleListeners);
 			}
 		} else {
 			synchronized (allBundleListeners) {
@@ -366,6 +418,7 @@ public class EquinoxEventPublisher {
 					allBundleListeners.put(context, listeners);
 				}
 				listeners.put(listener, listener);
+				bundleListenersSnapshot = snapshot(allBundleListeners);
 			}
 		}
 	}
@@ -375,16 +428,19 @@ public class EquinoxEventPublisher {
 			container.checkAdminPermission(context.getBundle(), AdminPermission.LISTENER);
 			synchronized (allSyncBundleListeners) {
 				CopyOnWriteIdentityMap<SynchronousBundleListener, SynchronousBundleListener> listeners = allSyncBundleListeners.get(context);
-				if (listeners != null)
-					listeners.remove(listener);
+				if (listeners != null && listeners.remove(listener) != null)
+					syncBundleListenersSnapshot = snapshot(allSyncBundleListeners);
 			}
 		} else {
 			synchronized (allBundleListeners) {
 				CopyOnWriteIdentityMap<BundleListener, BundleListener> listeners = allBundleListeners.get(context);
-				if (listeners != null)
-					listeners.remove(listener);
+				if (listeners != null && listeners.remove(listener) != null)
+					bundleListenersSnapshot = snapshot(allBundleListeners);
 			}
 		}
+		if (listenerStatistics != null) {
+			listenerStatistics.remove(listener);
+		}
 	}
 
 	void addFrameworkListener(FrameworkListener listener, BundleContextImpl context) {
@@ -395,14 +451,18 @@ public class EquinoxEventPublisher {
 				allFrameworkListeners.put(context, listeners);
 			}
 			listeners.put(listener, listener);
+			frameworkListenersSnapshot = snapshot(allFrameworkListeners);
 		}
 	}
 
 	void removeFrameworkListener(FrameworkListener listener, BundleContextImpl context) {
 		synchronized (allFrameworkListeners) {
 			CopyOnWriteIdentityMap<FrameworkListener, FrameworkListener> listeners = allFrameworkListeners.get(context);
-			if (listeners != null)
-				listeners.remove(listener);
+			if (listeners != null && listeners.remove(listener) != null)
+				frameworkListenersSnapshot = snapshot(allFrameworkListeners);
+		}
+		if (listenerStatistics != null) {
+			listenerStatistics.remove(listener);
 		}
 	}
 
@@ -410,39 +470,125 @@ public class EquinoxEventPublisher {
 		// leave any left over listeners until the framework STOPPED event
 		if (context.getBundleImpl().getBundleId() != 0) {
 			synchronized (allBundleListeners) {
-				allBundleListeners.remove(context);
+				CopyOnWriteIdentityMap<BundleListener, BundleListener> removed = allBundleListeners.remove(context);
+				if (removed != null) {
+					bundleListenersSnapshot = snapshot(allBundleListeners);
+					removeStatistics(removed);
+				}
 			}
 			synchronized (allSyncBundleListeners) {
-				allSyncBundleListeners.remove(context);
+				CopyOnWriteIdentityMap<SynchronousBundleListener, SynchronousBundleListener> removed = allSyncBundleListeners.remove(context);
+				if (removed != null) {
+					syncBundleListenersSnapshot = snapshot(allSyncBundleListeners);
+					removeStatistics(removed);
+				}
 			}
 		}
 		synchronized (allFrameworkListeners) {
-			allFrameworkListeners.remove(context);
+			CopyOnWriteIdentityMap<FrameworkListener, FrameworkListener> removed = allFrameworkListeners.remove(context);
+			if (removed != null) {
+				frameworkListenersSnapshot = snapshot(allFrameworkListeners);
+				removeStatistics(removed);
+			}
 		}
 	}
 
-	void flushFrameworkEvents() {
-		EventDispatcher<Object, Object, CountDownLatch> dispatcher = new EventDispatcher<Object, Object, CountDownLatch>() {
-			@Override
-			public void dispatchEvent(Object eventListener, Object listenerObject, int eventAction, CountDownLatch flushedSignal) {
-				// Signal that we have flushed all events
-				flushedSignal.countDown();
+	/**
+	 * Returns if a bundle or framework listener is still added to a BundleContext.
+	 * The listeners are removed from the snapshots before their statistics are
+	 * removed, so statistics recorded for a listener which is no longer in the
+	 * snapshots must be removed by the caller.
+	 * @param listener the listener
+	 * @param context the BundleContext the listener was added to
+	 * @param action the event type the listener was called for
+	 * @return true if the listener is still added to the BundleContext
+	 */
+	boolean isListenerAdded(Object listener, BundleContextImpl context, int action) {
+		ContextListeners<?>[] listenerSnapshot;
+		switch (action) {
+			case BUNDLEEVENTSYNC :
+				listenerSnapshot = syncBundleListenersSnapshot;
+				break;
+			case BUNDLEEVENT :
+				listenerSnapshot = bundleListenersSnapshot;
+				break;
+			default :
+				listenerSnapshot = frameworkListenersSnapshot;
+				break;
+		}
+		for (ContextListeners<?> contextListeners : listenerSnapshot) {
+			if (contextListeners.context == context) {
+				for (Map.Entry<?, ?> entry : contextListeners.listeners) {
+					if (entry.getKey() == listener) {
+						return true;
+					}
+				}
+				return false;
+			}
+		}
+		return false;
+	}
+
+	private void removeStatistics(Map<?, ?> removedListeners) {
+		if (listenerStatistics != null) {
+			for (Object listener : removedListeners.keySet()) {
+				listenerStatistics.remove(listener);
 			}
-		};
+		}
+	}
 
-		ListenerQueue<Object, Object, CountDownLatch> queue = newListenerQueue();
-		queue.queueListeners(Collections.<Object, Object> singletonMap(dispatcher, dispatcher).entrySet(), dispatcher);
+	/**
+	 * Creates a snapshot of the non-empty listeners of each BundleContext.
+	 * The caller must hold the lock of the listener map.
+	 * @param allListeners the listeners by BundleContext
+	 * @return the snapshot of the listeners
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static <L> ContextListeners<L>[] snapshot(Map<BundleContextImpl, CopyOnWriteIdentityMap<L, L>> allListeners) {
+		List<ContextListeners<L>> result = new ArrayList<>(allListeners.size());
+		for (Map.Entry<BundleContextImpl, CopyOnWriteIdentityMap<L, L>> entry : allListeners.entrySet()) {
+			CopyOnWriteIdentityMap<L, L> listeners = entry.getValue();
+			if (!listeners.isEmpty()) {
+				result.add(new ContextListeners<>(entry.getKey(), listeners.entrySet()));
+			}
+		}
+		return result.toArray(new ContextListeners[result.size()]);
+	}
 
-		// fire event with the flushedSignal latch
-		CountDownLatch flushedSignal = new CountDownLatch(1);
-		queue.dispatchEventAsynchronous(0, flushedSignal);
+	/**
+	 * The listeners of a BundleContext in a listener snapshot.
+	 */
+	private static final class ContextListeners<L> {
+		final BundleContextImpl context;
+		final Set<Map.Entry<L, L>> listeners;
+
+		ContextListeners(BundleContextImpl context, Set<Map.Entry<L, L>> listeners) {
+			this.context = context;
+			this.listeners = listeners;
+		}
 
+		@SuppressWarnings({"rawtypes", "unchecked"})
+		<E> EventDispatcher<L, L, E> getDispatcher() {
+			return (EventDispatcher) context;
+		}
+	}
+
+	void flushFrameworkEvents() {
+		EventManager currentEventManager;
+		synchronized (this.monitor) {
+			currentEventManager = eventManager;
+		}
+		if (currentEventManager == null) {
+			return;
+		}
 		try {
-			// Wait for the flush signal; timeout after 30 seconds
-			flushedSignal.await(30, TimeUnit.SECONDS);
+			// Wait for the queued events to be delivered; timeout after 30 seconds
+			currentEventManager.flush(30, TimeUnit.SECONDS);
 		} catch (InterruptedException e) {
 			// ignore but reset the interrupted flag
 			Thread.currentThread().interrupt();
+		} catch (IllegalStateException e) {
+			// the event manager has been closed
 		}
 	}
 }
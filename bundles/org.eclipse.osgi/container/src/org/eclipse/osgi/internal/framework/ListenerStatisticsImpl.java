@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.internal.framework;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.osgi.internal.debug.AbstractStatistics;
+import org.eclipse.osgi.service.debug.ListenerStatistics;
+import org.osgi.framework.Bundle;
+
+/**
+ * Collects the statistics of the listeners by listener object.  The statistics
+ * of a listener are discarded when the listener is removed.
+ */
+public class ListenerStatisticsImpl extends AbstractStatistics<ListenerStatistics.Entry> implements ListenerStatistics {
+	private final ConcurrentMap<Object, EntryImpl> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the statistics of a listener, creating them if needed.
+	 * @param listener the listener the events are delivered to
+	 * @param bundle the bundle which added the listener
+	 * @param type the name of the listener type
+	 * @return the statistics of the listener
+	 */
+	public EntryImpl getEntry(Object listener, Bundle bundle, String type) {
+		EntryImpl entry = entries.get(listener);
+		if (entry == null) {
+			entry = new EntryImpl(listener, bundle, type);
+			EntryImpl existing = entries.putIfAbsent(listener, entry);
+			if (existing != null) {
+				entry = existing;
+			}
+		}
+		return entry;
+	}
+
+	public void remove(Object listener) {
+		entries.remove(listener);
+	}
+
+	public List<Entry> getEntries() {
+		return sortByTotalTime(entries.values());
+	}
+
+	public void reset() {
+		entries.clear();
+	}
+
+	protected long getTotalTime(Entry entry) {
+		return entry.getTotalTime();
+	}
+
+	protected String getDumpHeader(int dumpedCount, int totalCount) {
+		return "Listener statistics for the " + dumpedCount + " of " + totalCount + " listeners with the largest total time:"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	/**
+	 * The statistics of a single listener.
+	 */
+	public static class EntryImpl implements Entry {
+		private final Object listener;
+		private final Bundle bundle;
+		private final String type;
+		private final AtomicLong callCount = new AtomicLong();
+		private final AtomicLong totalTime = new AtomicLong();
+		private final AtomicLong maxTime = new AtomicLong();
+		private final AtomicLong filterRejectionCount = new AtomicLong();
+
+		EntryImpl(Object listener, Bundle bundle, String type) {
+			this.listener = listener;
+			this.bundle = bundle;
+			this.type = type;
+		}
+
+		/**
+		 * Records the delivery of an event to the listener.
+		 * @param time the time the listener spent handling the event in nanoseconds
+		 */
+		public void delivered(long time) {
+			callCount.incrementAndGet();
+			totalTime.addAndGet(time);
+			long max;
+			while (time > (max = maxTime.get())) {
+				if (maxTime.compareAndSet(max, time)) {
+					break;
+				}
+			}
+		}
+
+		/**
+		 * Records an event which did not match the filter of the listener.
+		 */
+		public void rejected() {
+			filterRejectionCount.incrementAndGet();
+		}
+
+		public Bundle getBundle() {
+			return bundle;
+		}
+
+		public String getType() {
+			return type;
+		}
+
+		public String getListener() {
+			return listener.toString();
+		}
+
+		public long getCallCount() {
+			return callCount.get();
+		}
+
+		public long getTotalTime() {
+			return totalTime.get();
+		}
+
+		public long getMaxTime() {
+			return maxTime.get();
+		}
+
+		public long getFilterRejectionCount() {
+			return filterRejectionCount.get();
+		}
+
+		public String toString() {
+			return type + '[' + bundle + "](" + getListener() + "): calls=" + getCallCount() + ", total=" + TimeUnit.NANOSECONDS.toMicros(getTotalTime()) + "us, max=" + TimeUnit.NANOSECONDS.toMicros(getMaxTime()) + "us, rejected=" + getFilterRejectionCount(); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+		}
+	}
+}
@@ -19,10 +19,13 @@ import org.eclipse.osgi.internal.debug.FrameworkDebugOptions;
 import org.eclipse.osgi.internal.location.EquinoxLocations;
 import org.eclipse.osgi.internal.permadmin.EquinoxSecurityManager;
 import org.eclipse.osgi.internal.permadmin.SecurityAdmin;
+import org.eclipse.osgi.internal.permadmin.SecurityStatisticsImpl;
 import org.eclipse.osgi.internal.url.EquinoxFactoryManager;
 import org.eclipse.osgi.service.datalocation.Location;
 import org.eclipse.osgi.service.debug.DebugOptions;
 import org.eclipse.osgi.service.debug.DebugOptionsListener;
+import org.eclipse.osgi.service.debug.ListenerStatistics;
+import org.eclipse.osgi.service.debug.SecurityStatistics;
 import org.eclipse.osgi.service.environment.EnvironmentInfo;
 import org.eclipse.osgi.service.localization.BundleLocalization;
 import org.eclipse.osgi.service.urlconversion.URLConverter;
@@ -107,6 +110,27 @@ public class SystemBundleActivator implements BundleActivator {
 		props.put(DebugOptions.LISTENER_SYMBOLICNAME, EquinoxContainer.NAME);
 		register(bc, DebugOptionsListener.class, bundle.getEquinoxContainer().getConfiguration().getDebug(), props);
 		register(bc, DebugOptionsListener.class, bundle.getModule().getContainer(), props);
+
+		ListenerStatisticsImpl listenerStatistics = bundle.getEquinoxContainer().getEventPublisher().getListenerStatistics();
+		if (listenerStatistics != null) {
+			register(bc, ListenerStatistics.class, listenerStatistics, null);
+			listenerStatistics.startDump(bundle.getEquinoxContainer().getScheduledExecutor(), getDumpInterval(configuration, EquinoxConfiguration.PROP_EVENT_LISTENER_STATISTICS_DUMP_INTERVAL));
+		}
+
+		SecurityStatisticsImpl securityStatistics = sa.getStatistics();
+		if (securityStatistics != null) {
+			register(bc, SecurityStatistics.class, securityStatistics, null);
+			securityStatistics.startDump(bundle.getEquinoxContainer().getScheduledExecutor(), getDumpInterval(configuration, EquinoxConfiguration.PROP_SECURITY_STATISTICS_DUMP_INTERVAL));
+		}
+	}
+
+	private long getDumpInterval(EquinoxConfiguration configuration, String intervalProperty) {
+		String interval = configuration.getConfiguration(intervalProperty);
+		try {
+			return interval == null ? 0 : Long.parseLong(interval);
+		} catch (NumberFormatException e) {
+			return 0;
+		}
 	}
 
 	private void installSecurityManager(EquinoxConfiguration configuration) throws BundleException {
@@ -191,6 +215,15 @@ public class SystemBundleActivator implements BundleActivator {
 
 		urlFactoryManager.uninstallHandlerFactories();
 
+		ListenerStatisticsImpl listenerStatistics = bundle.getEquinoxContainer().getEventPublisher().getListenerStatistics();
+		if (listenerStatistics != null) {
+			listenerStatistics.stopDump();
+		}
+		SecurityStatisticsImpl securityStatistics = bundle.getEquinoxContainer().getStorage().getSecurityAdmin().getStatistics();
+		if (securityStatistics != null) {
+			securityStatistics.stopDump();
+		}
+
 		// unregister services
 		for (ServiceRegistration<?> registration : registrations)
 			registration.unregister();
@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.internal.framework;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates factories of virtual threads.  The virtual thread API is looked up
+ * reflectively so the framework still runs on VMs which do not have it.
+ */
+public final class VirtualThreads {
+	private VirtualThreads() {
+		// no instances
+	}
+
+	/**
+	 * Returns a factory of virtual threads.  The threads are named with the
+	 * prefix followed by a number.  Virtual threads are always daemon threads.
+	 * @param prefix the prefix of the thread names
+	 * @return the factory or <code>null</code> if the VM does not support virtual threads
+	 */
+	public static ThreadFactory createFactory(String prefix) {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null); //$NON-NLS-1$
+			// the builder implementation is not accessible; use the public interface
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder"); //$NON-NLS-1$
+			builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, Long.valueOf(0)); //$NON-NLS-1$
+			return (ThreadFactory) builderClass.getMethod("factory").invoke(builder); //$NON-NLS-1$
+		} catch (Exception e) {
+			// not supported; or a preview feature which is not enabled
+			return null;
+		} catch (LinkageError e) {
+			return null;
+		}
+	}
+}
@@ -29,6 +29,7 @@ import org.eclipse.osgi.internal.weaving.WeavingHookConfigurator;
 import org.eclipse.osgi.storage.BundleInfo.Generation;
 import org.eclipse.osgi.storage.NativeCodeFinder;
 import org.eclipse.osgi.storage.Storage;
+import org.eclipse.osgi.storage.StorageUtil;
 import org.eclipse.osgi.storage.bundlefile.BundleEntry;
 import org.eclipse.osgi.storage.bundlefile.BundleFile;
 import org.eclipse.osgi.util.NLS;
@@ -562,6 +563,7 @@ public class ClasspathManager {
 			return null;
 
 		byte[] classbytes;
+		long allocated = debug.DEBUG_LOADER_ALLOCATION ? StorageUtil.getAllocatedBytes() : 0;
 		try {
 			classbytes = entry.getBytes();
 		} catch (IOException e) {
@@ -569,6 +571,10 @@ public class ClasspathManager {
 				Debug.println("  IOException reading " + filename + " from " + classpathEntry.getBundleFile()); //$NON-NLS-1$ //$NON-NLS-2$
 			throw (LinkageError) new LinkageError("Error reading class bytes: " + name).initCause(e); //$NON-NLS-1$
 		}
+		if (debug.DEBUG_LOADER_ALLOCATION) {
+			long total = StorageUtil.getAllocatedBytes();
+			Debug.println("ModuleClassLoader[" + classloader.getBundleLoader() + "] allocated " + (total - allocated) + " bytes to read " + classbytes.length + " bytes of " + name + " (" + total + " bytes on thread " + Thread.currentThread().getName() + ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+		}
 		if (debug.DEBUG_LOADER) {
 			Debug.println("  read " + classbytes.length + " bytes from " + classpathEntry.getBundleFile() + "!/" + filename); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 			Debug.println("  defining class " + name); //$NON-NLS-1$
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.osgi.internal.log;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Converts a log file written in the compact log format back to the text
+ * format of the framework log.  Can be run from the command line with the
+ * log files to decode as arguments; the text is written to standard out.
+ * @see CompactLogOutput
+ */
+public final class CompactLogDecoder {
+	private final DataInputStream in;
+	private final Map<Integer, String> strings = new HashMap<>();
+
+	public CompactLogDecoder(InputStream in) {
+		this.in = new DataInputStream(new BufferedInputStream(in));
+	}
+
+	/**
+	 * Decodes the compact log and writes it in the text format.
+	 * @param out the writer for the text
+	 * @throws IOException if the log cannot be read or is not a compact log
+	 */
+	public void decode(Writer out) throws IOException {
+		readHeader(in);
+		int type;
+		while ((type = in.read()) >= 0) {
+			switch (type) {
+				case CompactLogOutput.TEXT :
+					out.write(readString(in));
+					break;
+				case CompactLogOutput.STRING :
+					int id = readInt(in);
+					strings.put(id, readString(in));
+					break;
+				case CompactLogOutput.ENTRY :
+					writeEntry(out);
+					break;
+				default :
+					if (type != CompactLogOutput.MAGIC[0])
+						throw new IOException("Unknown record type: " + type); //$NON-NLS-1$
+					// another log appended to this one; its ids start over
+					for (int i = 1; i < CompactLogOutput.MAGIC.length; i++) {
+						if (in.read() != CompactLogOutput.MAGIC[i])
+							throw new IOException("Unknown record type: " + type); //$NON-NLS-1$
+					}
+					readVersion(in);
+					strings.clear();
+			}
+		}
+		out.flush();
+	}
+
+	private void writeEntry(Writer out) throws IOException {
+		int depth = readInt(in);
+		long time = in.readLong();
+		String tag = readRef();
+		int severity = readInt(in);
+		int bundleCode = readInt(in);
+		String message = readRef();
+		int stackCode = readInt(in);
+		String stack = readRef();
+
+		StringBuilder sb = new StringBuilder();
+		if (depth == 0) {
+			sb.append(EquinoxLogWriter.LINE_SEPARATOR).append(EquinoxLogWriter.ENTRY);
+		} else {
+			sb.append(EquinoxLogWriter.SUBENTRY).append(' ').append(depth);
+		}
+		sb.append(' ').append(tag == null ? "" : tag); //$NON-NLS-1$
+		sb.append(' ').append(severity);
+		sb.append(' ').append(bundleCode);
+		sb.append(' ').append(EquinoxLogWriter.getDate(new Date(time)));
+		sb.append(EquinoxLogWriter.LINE_SEPARATOR);
+		sb.append(EquinoxLogWriter.MESSAGE).append(' ').append(message == null ? "" : message); //$NON-NLS-1$
+		sb.append(EquinoxLogWriter.LINE_SEPARATOR);
+		if (stack != null) {
+			sb.append(EquinoxLogWriter.STACK).append(' ').append(stackCode);
+			sb.append(EquinoxLogWriter.LINE_SEPARATOR);
+			sb.append(stack);
+		}
+		out.write(sb.toString());
+	}
+
+	private String readRef() throws IOException {
+		int ref = readInt(in);
+		if (ref == CompactLogOutput.NULL_REF)
+			return null;
+		if (ref == CompactLogOutput.INLINE_REF)
+			return readString(in);
+		String value = strings.get(ref);
+		if (value == null)
+			throw new IOException("Undefined string: " + ref); //$NON-NLS-1$
+		return value;
+	}
+
+	/**
+	 * Reads the header of a compact log.
+	 * @param in the compact log
+	 * @return the name of the logger which wrote the log
+	 * @throws IOException if the log is not a compact log
+	 */
+	static String readHeader(DataInputStream in) throws IOException {
+		for (int i = 0; i < CompactLogOutput.MAGIC.length; i++) {
+			if (in.read() != CompactLogOutput.MAGIC[i])
+				throw new IOException("Not a compact log"); //$NON-NLS-1$
+		}
+		return readVersion(in);
+	}
+
+	private static String readVersion(DataInputStream in) throws IOException {
+		int version = in.read();
+		if (version != CompactLogOutput.VERSION)
+			throw new IOException("Unsupported compact log version: " + version); //$NON-NLS-1$
+		return readString(in);
+	}
+
+	private static int readInt(DataInputStream in) throws IOException {
+		int value = 0;
+		for (int shift = 0;; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return value;
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[readInt(in)];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Decodes the compact log files given as arguments to standard out.
+	 * @param args the compact log files
+	 * @throws IOException if a log file cannot be decoded
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			System.err.println("Usage: CompactLogDecoder <log file>..."); //$NON-NLS-1$
+			return;
+		}
+		Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+		for (String arg : args) {
+			InputStream in = new FileInputStream(arg);
+			try {
+				new CompactLogDecoder(in).decode(out);
+			} finally {
+				in.close();
+			}
+		}
+		out.flush();
+	}
+}
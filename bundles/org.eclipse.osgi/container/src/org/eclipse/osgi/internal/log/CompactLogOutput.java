@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.osgi.internal.log;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.eclipse.osgi.framework.log.FrameworkLogEntry;
+
+/**
+ * Writes log entries in the compact log format.  A compact log starts with a
+ * header followed by a sequence of records.  Entry tags and stack traces are
+ * interned; the first time such a string is used a string record assigns an
+ * id to it and later entries only refer to the id.  The ids are only valid
+ * for the rest of the file they are defined in.
+ * <p>
+ * Integers are written as unsigned variable length integers, seven bits per byte
+ * with the high bit set on all but the last byte.  Strings are written as the
+ * number of bytes followed by the UTF-8 bytes.  The format is:
+ * <pre>
+ * header:  'E' 'Q' 'L' 'C' version(byte) loggerName(string)
+ * text:    TEXT text(string)
+ * string:  STRING id(int) value(string)
+ * entry:   ENTRY depth(int) time(long) tag(ref) severity(int) bundleCode(int)
+ *          message(ref) stackCode(int) stack(ref)
+ * ref:     NULL_REF | INLINE_REF value(string) | id(int)
+ * </pre>
+ * @see CompactLogDecoder
+ */
+class CompactLogOutput implements Closeable {
+	static final byte[] MAGIC = {'E', 'Q', 'L', 'C'};
+	static final int VERSION = 1;
+
+	/** A record with text written as is, for example the session header */
+	static final int TEXT = 1;
+	/** A record defining an interned string */
+	static final int STRING = 2;
+	/** A record for a log entry or sub-entry */
+	static final int ENTRY = 3;
+
+	static final int NULL_REF = 0;
+	static final int INLINE_REF = 1;
+	static final int FIRST_ID = 2;
+
+	/** The maximum number of strings interned in a single log file */
+	static final int MAX_STRINGS = 4096;
+
+	private final DataOutputStream out;
+	private final Map<String, Integer> strings;
+
+	/**
+	 * Creates an output for a log file.
+	 * @param out the stream to write to
+	 * @param strings the strings already interned in the log file
+	 * @param newFile true if the file is empty; the header is written and the interned strings are discarded
+	 * @param loggerName the name of the logger writing the log file
+	 * @throws IOException if any error occurs writing the header
+	 */
+	CompactLogOutput(OutputStream out, Map<String, Integer> strings, boolean newFile, String loggerName) throws IOException {
+		this.out = new DataOutputStream(out);
+		this.strings = strings;
+		if (newFile) {
+			strings.clear();
+			this.out.write(MAGIC);
+			this.out.write(VERSION);
+			writeString(loggerName);
+		}
+	}
+
+	void writeText(String text) throws IOException {
+		out.write(TEXT);
+		writeString(text);
+	}
+
+	void writeEntry(int depth, FrameworkLogEntry entry, long time, String stack) throws IOException {
+		// define the new strings before the entry refers to them
+		int tagRef = intern(entry.getEntry());
+		int stackRef = intern(stack);
+		out.write(ENTRY);
+		writeInt(depth);
+		out.writeLong(time);
+		writeRef(tagRef, entry.getEntry());
+		writeInt(entry.getSeverity());
+		writeInt(entry.getBundleCode());
+		writeRef(entry.getMessage() == null ? NULL_REF : INLINE_REF, entry.getMessage());
+		writeInt(entry.getStackCode());
+		writeRef(stackRef, stack);
+	}
+
+	private int intern(String value) throws IOException {
+		if (value == null)
+			return NULL_REF;
+		Integer id = strings.get(value);
+		if (id != null)
+			return id;
+		if (strings.size() >= MAX_STRINGS)
+			return INLINE_REF;
+		id = FIRST_ID + strings.size();
+		strings.put(value, id);
+		out.write(STRING);
+		writeInt(id);
+		writeString(value);
+		return id;
+	}
+
+	private void writeRef(int ref, String value) throws IOException {
+		writeInt(ref);
+		if (ref == INLINE_REF)
+			writeString(value);
+	}
+
+	private void writeInt(int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	private void writeString(String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	void flush() throws IOException {
+		out.flush();
+	}
+
+	public void close() throws IOException {
+		out.close();
+	}
+
+	/**
+	 * Appends the records of a compact log to another compact log.
+	 * @param in the compact log to copy
+	 * @param out the compact log to append to
+	 * @param skipHeader true if the header of the copied log must not be written
+	 * @throws IOException if any error occurs copying
+	 */
+	static void copy(InputStream in, OutputStream out, boolean skipHeader) throws IOException {
+		if (skipHeader) {
+			CompactLogDecoder.readHeader(new DataInputStream(in));
+		}
+		byte[] buffer = new byte[8192];
+		int count;
+		while ((count = in.read(buffer)) > 0) {
+			out.write(buffer, 0, count);
+		}
+	}
+}
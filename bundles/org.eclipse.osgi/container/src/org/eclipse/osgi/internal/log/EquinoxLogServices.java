@@ -15,10 +15,12 @@ import java.io.File;
 import java.io.Writer;
 import java.util.Dictionary;
 import java.util.Hashtable;
+import java.util.concurrent.ThreadFactory;
 import org.eclipse.core.runtime.adaptor.EclipseStarter;
 import org.eclipse.osgi.framework.log.FrameworkLog;
 import org.eclipse.osgi.framework.log.FrameworkLogEntry;
 import org.eclipse.osgi.internal.framework.EquinoxConfiguration;
+import org.eclipse.osgi.service.debug.LogStatistics;
 import org.eclipse.osgi.service.datalocation.Location;
 import org.eclipse.osgi.storage.StorageUtil;
 import org.osgi.framework.*;
@@ -94,7 +96,19 @@ public class EquinoxLogServices {
 			//ignore and use LogLevel.WARN
 		}
 
-		logServiceManager = new LogServiceManager(logHistoryMax, defaultLevel, logWriter, perfWriter);
+		String listenerQueueSizeProp = environmentInfo.getConfiguration(EquinoxConfiguration.PROP_LOG_LISTENER_QUEUE_SIZE);
+		int listenerQueueSize = 0;
+		if (listenerQueueSizeProp != null) {
+			try {
+				listenerQueueSize = Integer.parseInt(listenerQueueSizeProp);
+			} catch (NumberFormatException e) {
+				// ignore and use 0
+			}
+		}
+		LogListenerQueue.OverflowPolicy overflowPolicy = LogListenerQueue.OverflowPolicy.parse(environmentInfo.getConfiguration(EquinoxConfiguration.PROP_LOG_LISTENER_QUEUE_OVERFLOW), LogListenerQueue.OverflowPolicy.BLOCK);
+
+		ThreadFactory listenerThreadFactory = environmentInfo.getVirtualThreadFactory("Log Listener - "); //$NON-NLS-1$
+		logServiceManager = new LogServiceManager(logHistoryMax, defaultLevel, listenerQueueSize, overflowPolicy, listenerThreadFactory, logWriter, perfWriter);
 		eclipseLogFactory = new EquinoxLogFactory(logWriter, logServiceManager);
 		rootFrameworkLog = eclipseLogFactory.createFrameworkLog(null, logWriter);
 
@@ -104,6 +118,7 @@ public class EquinoxLogServices {
 
 	private ServiceRegistration<?> frameworkLogReg;
 	private ServiceRegistration<?> perfLogReg;
+	private ServiceRegistration<?> logStatisticsReg;
 
 	/**
 	 * @throws BundleException  
@@ -112,6 +127,7 @@ public class EquinoxLogServices {
 		logServiceManager.start(context);
 		frameworkLogReg = StorageUtil.register(FrameworkLog.class.getName(), eclipseLogFactory, context);
 		perfLogReg = registerPerformanceLog(context);
+		logStatisticsReg = StorageUtil.register(LogStatistics.class.getName(), createLogStatistics(), context);
 	}
 
 	/**
@@ -120,7 +136,10 @@ public class EquinoxLogServices {
 	public void stop(BundleContext context) throws BundleException {
 		frameworkLogReg.unregister();
 		perfLogReg.unregister();
+		logStatisticsReg.unregister();
 		logServiceManager.stop(context);
+		logWriter.flushQueue();
+		perfWriter.flushQueue();
 	}
 
 	public FrameworkLog getFrameworkLog() {
@@ -141,6 +160,22 @@ public class EquinoxLogServices {
 		return context.registerService(serviceName, service, serviceProperties);
 	}
 
+	private LogStatistics createLogStatistics() {
+		return new LogStatistics() {
+			public int getWriterQueueDepth() {
+				return logWriter.getQueueDepth();
+			}
+
+			public long getWriterDroppedCount() {
+				return logWriter.getDroppedCount();
+			}
+
+			public long getListenerDroppedCount() {
+				return logServiceManager.getListenerDroppedCount();
+			}
+		};
+	}
+
 	private FrameworkLog createPerformanceLog(Bundle systemBundle) {
 		return eclipseLogFactory.createFrameworkLog(systemBundle, perfWriter);
 	}
@@ -14,10 +14,14 @@ import java.io.*;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.eclipse.core.runtime.adaptor.EclipseStarter;
 import org.eclipse.equinox.log.*;
 import org.eclipse.osgi.framework.log.FrameworkLogEntry;
 import org.eclipse.osgi.internal.framework.EquinoxConfiguration;
+import org.eclipse.osgi.internal.framework.EquinoxContainer;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleException;
 import org.osgi.service.log.*;
@@ -27,18 +31,18 @@ import org.osgi.service.log.admin.LoggerContext;
 class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 	private static final String PASSWORD = "-password"; //$NON-NLS-1$	
 	/** The session tag */
-	private static final String SESSION = "!SESSION"; //$NON-NLS-1$
+	static final String SESSION = "!SESSION"; //$NON-NLS-1$
 	/** The entry tag */
-	private static final String ENTRY = "!ENTRY"; //$NON-NLS-1$
+	static final String ENTRY = "!ENTRY"; //$NON-NLS-1$
 	/** The sub-entry tag */
-	private static final String SUBENTRY = "!SUBENTRY"; //$NON-NLS-1$
+	static final String SUBENTRY = "!SUBENTRY"; //$NON-NLS-1$
 	/** The message tag */
-	private static final String MESSAGE = "!MESSAGE"; //$NON-NLS-1$
+	static final String MESSAGE = "!MESSAGE"; //$NON-NLS-1$
 	/** The stacktrace tag */
-	private static final String STACK = "!STACK"; //$NON-NLS-1$
+	static final String STACK = "!STACK"; //$NON-NLS-1$
 
 	/** The line separator used in the log output */
-	private static final String LINE_SEPARATOR;
+	static final String LINE_SEPARATOR;
 
 	static {
 		String s = System.getProperty("line.separator"); //$NON-NLS-1$
@@ -64,6 +68,18 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 	/** The extension markup to use for backup log files*/
 	private static final String BACKUP_MARK = ".bak_"; //$NON-NLS-1$
 
+	/** The buffer size used for log files written by the writer thread */
+	private static final int ASYNC_BUFFER_SIZE = 64 * 1024;
+	/** The maximum number of entries written by the writer thread before flushing */
+	private static final int MAX_BATCH = 256;
+	/** The time the writer thread waits for entries before it stops */
+	private static final long WRITER_IDLE_TIME = 5000;
+	/** The time to wait for queued entries to be written when flushing the queue */
+	private static final long FLUSH_TIMEOUT = 10000;
+
+	/** The value of the log format property for the compact log format */
+	private static final String COMPACT_FORMAT = "compact"; //$NON-NLS-1$
+
 	/** The system property used to specify command line args should be omitted from the log */
 	private static final String PROP_LOG_INCLUDE_COMMAND_LINE = "eclipse.log.include.commandline"; //$NON-NLS-1$
 	/** Indicates if the console messages should be printed to the console (System.out) */
@@ -80,6 +96,20 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 	 */
 	private Writer writer;
 
+	/** Indicates if log files are written in the compact log format */
+	private final boolean compactFormat;
+	/**
+	 * The compact output to log messages to.  This value is only set while
+	 * a log file in the compact format is open.
+	 */
+	private CompactLogOutput compactOutput;
+	/** The text waiting to be written to the compact output */
+	private final StringBuilder compactText = new StringBuilder();
+	/** The strings interned in the current compact log file */
+	private final Map<String, Integer> compactStrings = new HashMap<>();
+	/** Indicates if text is only written to the console */
+	private boolean consoleOnly = false;
+
 	private final String loggerName;
 	private final boolean enabled;
 	private final EquinoxConfiguration environmentInfo;
@@ -93,6 +123,20 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 
 	private LoggerAdmin loggerAdmin = null;
 
+	/**
+	 * The entries waiting to be written by the writer thread.  This value is null
+	 * if entries are written by the logging threads.
+	 */
+	private final ArrayBlockingQueue<PendingEntry> queue;
+	private final AtomicLong queuedCount = new AtomicLong();
+	private final AtomicLong droppedCount = new AtomicLong();
+	/** The number of queued entries written; guarded by this writer */
+	private long writtenCount = 0;
+	/** The number of dropped entries reported in the log; guarded by this writer */
+	private long reportedDropCount = 0;
+	private final Object writerThreadMonitor = new Object();
+	private volatile Thread writerThread;
+
 	/**
 	 * Constructs an EclipseLog which uses the specified File to log messages to
 	 * @param outFile a file to log messages to
@@ -103,6 +147,8 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 		this.loggerName = loggerName;
 		this.enabled = enabled;
 		this.environmentInfo = environmentInfo;
+		this.queue = createQueue(environmentInfo);
+		this.compactFormat = COMPACT_FORMAT.equals(environmentInfo.getConfiguration(EquinoxConfiguration.PROP_LOG_FORMAT));
 		readLogProperties();
 	}
 
@@ -119,6 +165,23 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 		this.loggerName = loggerName;
 		this.enabled = enabled;
 		this.environmentInfo = environmentInfo;
+		this.queue = createQueue(environmentInfo);
+		this.compactFormat = COMPACT_FORMAT.equals(environmentInfo.getConfiguration(EquinoxConfiguration.PROP_LOG_FORMAT));
+	}
+
+	private static ArrayBlockingQueue<PendingEntry> createQueue(EquinoxConfiguration environmentInfo) {
+		String queueSizeProp = environmentInfo.getConfiguration(EquinoxConfiguration.PROP_LOG_WRITER_QUEUE_SIZE);
+		if (queueSizeProp != null) {
+			try {
+				int queueSize = Integer.parseInt(queueSizeProp);
+				if (queueSize > 0) {
+					return new ArrayBlockingQueue<>(queueSize);
+				}
+			} catch (NumberFormatException e) {
+				// use synchronous writes
+			}
+		}
+		return null;
 	}
 
 	private Throwable getRoot(Throwable t) {
@@ -224,12 +287,14 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 	}
 
 	public void close() {
+		flushQueue();
 		try {
 			if (writer != null) {
 				Writer tmpWriter = writer;
 				writer = null;
 				tmpWriter.close();
 			}
+			closeCompactOutput();
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -240,10 +305,16 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 	 * to log messages to.
 	 */
 	private void openFile() {
-		if (writer == null) {
+		if (writer == null && compactOutput == null) {
 			if (outFile != null) {
 				try {
-					writer = logForStream(ExtendedLogServiceFactory.secureAction.getFileOutputStream(outFile, true));
+					OutputStream output = ExtendedLogServiceFactory.secureAction.getFileOutputStream(outFile, true);
+					if (compactFormat) {
+						boolean newFile = ExtendedLogServiceFactory.secureAction.length(outFile) == 0;
+						compactOutput = new CompactLogOutput(new BufferedOutputStream(output, queue == null ? 8192 : ASYNC_BUFFER_SIZE), compactStrings, newFile, loggerName);
+					} else {
+						writer = queue == null ? logForStream(output) : new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), ASYNC_BUFFER_SIZE);
+					}
 				} catch (IOException e) {
 					writer = logForErrorStream();
 				}
@@ -267,32 +338,111 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 				}
 				writer = null;
 			}
+			try {
+				closeCompactOutput();
+			} catch (IOException e) {
+				// we cannot log here; just print the stacktrace.
+				e.printStackTrace();
+			}
 		}
 	}
 
-	private synchronized void log(FrameworkLogEntry logEntry) {
+	private void closeCompactOutput() throws IOException {
+		if (compactOutput != null) {
+			CompactLogOutput tmpOutput = compactOutput;
+			compactOutput = null;
+			compactText.setLength(0);
+			tmpOutput.close();
+		}
+	}
+
+	/**
+	 * Flushes the text written to the log.
+	 * @throws IOException if any error occurs writing to the log
+	 */
+	private void flushOutput() throws IOException {
+		if (compactOutput != null) {
+			flushCompactText();
+			compactOutput.flush();
+		} else {
+			writer.flush();
+		}
+	}
+
+	private void flushCompactText() throws IOException {
+		if (compactText.length() > 0) {
+			compactOutput.writeText(compactText.toString());
+			compactText.setLength(0);
+		}
+	}
+
+	private void log(FrameworkLogEntry logEntry) {
 		if (logEntry == null)
 			return;
 		if (!isLoggable(logEntry.getSeverity()))
 			return;
+		if (queue == null) {
+			write(logEntry, System.currentTimeMillis());
+			return;
+		}
+		if (!queue.offer(new PendingEntry(logEntry, System.currentTimeMillis()))) {
+			droppedCount.incrementAndGet();
+			return;
+		}
+		queuedCount.incrementAndGet();
+		if (writerThread == null) {
+			startWriterThread();
+		}
+	}
+
+	/**
+	 * Writes an entry logged by a logging thread to the log.  The log file is rotated,
+	 * if necessary, before the entry is written.
+	 * @param logEntry the entry to write
+	 * @param time the time the entry was logged
+	 */
+	private synchronized void write(FrameworkLogEntry logEntry, long time) {
 		try {
-			checkLogFileSize();
-			openFile();
-			if (newSession) {
-				writeSession();
-				newSession = false;
-			}
-			writeLog(0, logEntry);
-			writer.flush();
+			startWrite();
+			writeLog(0, logEntry, time);
+			flushOutput();
 		} catch (Exception e) {
-			// any exceptions during logging should be caught 
-			System.err.println("An exception occurred while writing to the platform log:");//$NON-NLS-1$
-			e.printStackTrace(System.err);
-			System.err.println("Logging to the console instead.");//$NON-NLS-1$
 			//we failed to write, so dump log entry to console instead
 			try {
-				writer = logForErrorStream();
-				writeLog(0, logEntry);
+				logToErrorStream(e);
+				writeLog(0, logEntry, time);
+				writer.flush();
+			} catch (Exception e2) {
+				System.err.println("An exception occurred while logging to the console:");//$NON-NLS-1$
+				e2.printStackTrace(System.err);
+			}
+		} finally {
+			closeFile();
+		}
+	}
+
+	/**
+	 * Writes the entries queued by the logging threads to the log.  The log file is
+	 * rotated, if necessary, before the entries are written.
+	 * @param entries the entries to write
+	 */
+	private synchronized void write(List<PendingEntry> entries) {
+		int written = 0;
+		try {
+			startWrite();
+			writeDropped();
+			for (PendingEntry entry : entries) {
+				writeLog(0, entry.entry, entry.time);
+				written++;
+			}
+			flushOutput();
+		} catch (Exception e) {
+			//we failed to write, so dump log entries to console instead
+			try {
+				logToErrorStream(e);
+				for (PendingEntry entry : entries.subList(written, entries.size())) {
+					writeLog(0, entry.entry, entry.time);
+				}
 				writer.flush();
 			} catch (Exception e2) {
 				System.err.println("An exception occurred while logging to the console:");//$NON-NLS-1$
@@ -303,6 +453,134 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 		}
 	}
 
+	/**
+	 * Rotates the log file, if necessary, and opens it for writing.
+	 * @throws IOException if any error occurs writing to the log
+	 */
+	private void startWrite() throws IOException {
+		checkLogFileSize();
+		openFile();
+		if (newSession) {
+			writeSession();
+			newSession = false;
+		}
+	}
+
+	/**
+	 * Reports a failure to write to the log and switches to the console.
+	 * @param e the failure
+	 */
+	private void logToErrorStream(Exception e) {
+		// any exceptions during logging should be caught 
+		System.err.println("An exception occurred while writing to the platform log:");//$NON-NLS-1$
+		e.printStackTrace(System.err);
+		System.err.println("Logging to the console instead.");//$NON-NLS-1$
+		try {
+			closeCompactOutput();
+		} catch (IOException e1) {
+			// already reported the failure to write
+		}
+		writer = logForErrorStream();
+	}
+
+	/**
+	 * Writes a warning entry if log entries were dropped because the queue was full
+	 * since the last time dropped entries were reported.
+	 * @throws IOException if any error occurs writing to the log
+	 */
+	private void writeDropped() throws IOException {
+		long dropped = droppedCount.get();
+		if (dropped == reportedDropCount)
+			return;
+		String message = (dropped - reportedDropCount) + " log entries were dropped because the log writer queue was full."; //$NON-NLS-1$
+		reportedDropCount = dropped;
+		writeLog(0, new FrameworkLogEntry(EquinoxContainer.NAME, FrameworkLogEntry.WARNING, 0, message, 0, null, null), System.currentTimeMillis());
+	}
+
+	private void startWriterThread() {
+		synchronized (writerThreadMonitor) {
+			if (writerThread != null)
+				return;
+			Thread thread = new Thread("Equinox Log Writer: " + loggerName) { //$NON-NLS-1$
+				public void run() {
+					writeQueue();
+				}
+			};
+			thread.setDaemon(true);
+			thread.start();
+			writerThread = thread;
+		}
+	}
+
+	void writeQueue() {
+		List<PendingEntry> batch = new ArrayList<>(MAX_BATCH);
+		while (true) {
+			PendingEntry first;
+			try {
+				first = queue.poll(WRITER_IDLE_TIME, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				// ignore -- we control the stack here and do not need to propagate it.
+				first = null;
+			}
+			if (first == null) {
+				synchronized (writerThreadMonitor) {
+					writerThread = null;
+				}
+				// an entry may have been queued while the thread was stopping
+				if (!queue.isEmpty())
+					startWriterThread();
+				return;
+			}
+			batch.add(first);
+			queue.drainTo(batch, MAX_BATCH - 1);
+			synchronized (this) {
+				write(batch);
+				writtenCount += batch.size();
+				notifyAll();
+			}
+			batch.clear();
+		}
+	}
+
+	/**
+	 * Waits for the entries queued before this call to be written to the log.
+	 * Does nothing if entries are written by the logging threads.
+	 */
+	void flushQueue() {
+		if (queue == null)
+			return;
+		long target = queuedCount.get();
+		long end = System.currentTimeMillis() + FLUSH_TIMEOUT;
+		synchronized (this) {
+			long remaining = FLUSH_TIMEOUT;
+			while (writtenCount < target && remaining > 0) {
+				try {
+					wait(remaining);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				remaining = end - System.currentTimeMillis();
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of entries waiting to be written by the writer thread.
+	 * @return the number of queued entries
+	 */
+	int getQueueDepth() {
+		return queue == null ? 0 : queue.size();
+	}
+
+	/**
+	 * Returns the number of entries which were not written because the queue was full.
+	 * @return the number of dropped entries
+	 */
+	long getDroppedCount() {
+		return droppedCount.get();
+	}
+
 	public synchronized void setWriter(Writer newWriter, boolean append) {
 		setOutput(null, newWriter, append);
 	}
@@ -343,6 +621,13 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 				}
 				this.writer = null;
 			}
+			try {
+				closeCompactOutput();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			// the strings interned in the old file are unknown in the new file
+			compactStrings.clear();
 			// Append old outFile to newWriter. We only attempt to do this
 			// if the current Writer is backed by a File and this is not
 			// a new session.
@@ -351,11 +636,18 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 			this.writer = newWriter;
 			boolean copyFailed = false;
 			if (append && oldOutFile != null && oldOutFile.isFile()) {
-				Reader fileIn = null;
+				InputStream fileIn = null;
 				try {
-					openFile();
-					fileIn = new InputStreamReader(ExtendedLogServiceFactory.secureAction.getFileInputStream(oldOutFile), "UTF-8"); //$NON-NLS-1$
-					copyReader(fileIn, this.writer);
+					fileIn = ExtendedLogServiceFactory.secureAction.getFileInputStream(oldOutFile);
+					if (compactFormat && newOutFile != null) {
+						copyCompact(fileIn, newOutFile);
+					} else {
+						openFile();
+						if (compactFormat)
+							new CompactLogDecoder(fileIn).decode(this.writer);
+						else
+							copyReader(new InputStreamReader(fileIn, "UTF-8"), this.writer); //$NON-NLS-1$
+					}
 				} catch (IOException e) {
 					copyFailed = true;
 					e.printStackTrace();
@@ -376,6 +668,16 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 		}
 	}
 
+	private void copyCompact(InputStream in, File newOutFile) throws IOException {
+		boolean newFile = !newOutFile.isFile() || ExtendedLogServiceFactory.secureAction.length(newOutFile) == 0;
+		OutputStream out = ExtendedLogServiceFactory.secureAction.getFileOutputStream(newOutFile, true);
+		try {
+			CompactLogOutput.copy(in, out, !newFile);
+		} finally {
+			out.close();
+		}
+	}
+
 	private void copyReader(Reader reader, Writer aWriter) throws IOException {
 		char buffer[] = new char[1024];
 		int count;
@@ -389,10 +691,10 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 	 * @param date the Date to format
 	 * @return a date string.
 	 */
-	private String getDate(Date date) {
+	static String getDate(Date date) {
 		Calendar c = Calendar.getInstance();
 		c.setTime(date);
-		StringBuffer sb = new StringBuffer();
+		StringBuilder sb = new StringBuilder(23);
 		appendPaddedInt(c.get(Calendar.YEAR), 4, sb).append('-');
 		appendPaddedInt(c.get(Calendar.MONTH) + 1, 2, sb).append('-');
 		appendPaddedInt(c.get(Calendar.DAY_OF_MONTH), 2, sb).append(' ');
@@ -403,7 +705,7 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 		return sb.toString();
 	}
 
-	private StringBuffer appendPaddedInt(int value, int pad, StringBuffer buffer) {
+	private static StringBuilder appendPaddedInt(int value, int pad, StringBuilder buffer) {
 		pad = pad - 1;
 		if (pad == 0)
 			return buffer.append(Integer.toString(value));
@@ -462,17 +764,41 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 	 * a sub-entry.
 	 * @param depth the depth of th entry
 	 * @param entry the entry to log
+	 * @param time the time the entry was logged
 	 * @throws IOException if any error occurs writing to the log
 	 */
-	private void writeLog(int depth, FrameworkLogEntry entry) throws IOException {
-		writeEntry(depth, entry);
+	private void writeLog(int depth, FrameworkLogEntry entry, long time) throws IOException {
+		if (compactOutput != null && !consoleOnly) {
+			flushCompactText();
+			writeCompactLog(depth, entry, time);
+			if (consoleLog) {
+				consoleOnly = true;
+				try {
+					writeLog(depth, entry, time);
+				} finally {
+					consoleOnly = false;
+				}
+			}
+			return;
+		}
+		writeEntry(depth, entry, time);
 		writeMessage(entry);
 		writeStack(entry);
 
 		FrameworkLogEntry[] children = entry.getChildren();
 		if (children != null) {
 			for (int i = 0; i < children.length; i++) {
-				writeLog(depth + 1, children[i]);
+				writeLog(depth + 1, children[i], time);
+			}
+		}
+	}
+
+	private void writeCompactLog(int depth, FrameworkLogEntry entry, long time) throws IOException {
+		compactOutput.writeEntry(depth, entry, time, getStackTrace(entry.getThrowable()));
+		FrameworkLogEntry[] children = entry.getChildren();
+		if (children != null) {
+			for (int i = 0; i < children.length; i++) {
+				writeCompactLog(depth + 1, children[i], time);
 			}
 		}
 	}
@@ -483,9 +809,10 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 	 * a sub-entry.
 	 * @param depth the depth of th entry
 	 * @param entry the entry to write the header for
+	 * @param time the time the entry was logged
 	 * @throws IOException if any error occurs writing to the log
 	 */
-	private void writeEntry(int depth, FrameworkLogEntry entry) throws IOException {
+	private void writeEntry(int depth, FrameworkLogEntry entry, long time) throws IOException {
 		if (depth == 0) {
 			writeln(); // write a blank line before all !ENTRY tags bug #64406
 			write(ENTRY);
@@ -501,7 +828,7 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 		writeSpace();
 		write(Integer.toString(entry.getBundleCode()));
 		writeSpace();
-		write(getDate(new Date()));
+		write(getDate(new Date(time)));
 		writeln();
 	}
 
@@ -540,7 +867,13 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 	 */
 	private void write(String message) throws IOException {
 		if (message != null) {
-			writer.write(message);
+			if (consoleOnly) {
+				// the message is already in the compact output
+			} else if (compactOutput != null) {
+				compactText.append(message);
+			} else {
+				writer.write(message);
+			}
 			if (consoleLog)
 				System.out.print(message);
 		}
@@ -622,7 +955,7 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 					writeln();
 					writeln("This is a continuation of log file " + backupFile.getAbsolutePath());//$NON-NLS-1$
 					writeln("Created Time: " + getDate(new Date(System.currentTimeMillis()))); //$NON-NLS-1$
-					writer.flush();
+					flushOutput();
 				} catch (IOException ioe) {
 					ioe.printStackTrace(System.err);
 				}
@@ -763,4 +1096,17 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 	public String getLoggerName() {
 		return loggerName;
 	}
+
+	/**
+	 * A log entry together with the time it was logged.
+	 */
+	private static final class PendingEntry {
+		final FrameworkLogEntry entry;
+		final long time;
+
+		PendingEntry(FrameworkLogEntry entry, long time) {
+			this.entry = entry;
+			this.time = time;
+		}
+	}
 }
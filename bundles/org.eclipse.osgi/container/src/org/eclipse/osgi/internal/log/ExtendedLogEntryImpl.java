@@ -9,6 +9,7 @@ package org.eclipse.osgi.internal.log;
 
 import java.util.Map;
 import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import org.eclipse.equinox.log.ExtendedLogEntry;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.ServiceReference;
@@ -17,7 +18,7 @@ import org.osgi.service.log.LogLevel;
 
 public class ExtendedLogEntryImpl implements ExtendedLogEntry, LogEntry {
 
-	private static long nextSequenceNumber = 1L;
+	private static final AtomicLong nextSequenceNumber = new AtomicLong(1L);
 	private static long nextThreadId = 1L;
 	private static final Map<Thread, Long> threadIds = createThreadIdMap();
 
@@ -68,10 +69,14 @@ public class ExtendedLogEntryImpl implements ExtendedLogEntry, LogEntry {
 		Thread currentThread = Thread.currentThread();
 		this.threadName = currentThread.getName();
 
-		synchronized (ExtendedLogEntryImpl.class) {
-			this.threadId = getId(currentThread);
-			this.sequenceNumber = nextSequenceNumber++;
+		if (threadIds == null) {
+			this.threadId = currentThread.getId();
+		} else {
+			synchronized (ExtendedLogEntryImpl.class) {
+				this.threadId = getId(currentThread);
+			}
 		}
+		this.sequenceNumber = nextSequenceNumber.getAndIncrement();
 
 		this.stackTraceElement = stackTraceElement;
 	}
@@ -11,6 +11,8 @@ import java.io.PrintStream;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.*;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
 import org.eclipse.equinox.log.LogFilter;
 import org.eclipse.equinox.log.SynchronousLogListener;
 import org.eclipse.osgi.framework.util.ArrayMap;
@@ -51,10 +53,20 @@ public class ExtendedLogReaderServiceFactory implements ServiceFactory<ExtendedL
 	private final BasicReadWriteLock listenersLock = new BasicReadWriteLock();
 	private ArrayMap<LogListener, Object[]> listeners = new ArrayMap<>(5);
 	private LogFilter[] filters = null;
+	/*
+	 * false while no log filter and no log history can accept an entry; recalculated
+	 * with the filters.  The decisions of the filters themselves may change at any
+	 * time so the answer does not depend on the level of the entry.
+	 */
+	private volatile boolean entriesAccepted;
 	private final ThreadLocal<int[]> nestedCallCount = new ThreadLocal<>();
-	private final LinkedList<LogEntry> history;
-	private final int maxHistory;
+	private final LogHistory history;
 	private final LogLevel defaultLevel;
+	private final int listenerQueueSize;
+	private final LogListenerQueue.OverflowPolicy overflowPolicy;
+	private final ThreadFactory threadFactory;
+	/** The number of entries dropped by the queues of removed listeners */
+	private final AtomicLong removedDroppedCount = new AtomicLong();
 
 	static boolean safeIsLoggable(LogFilter filter, Bundle bundle, String name, int level) {
 		try {
@@ -99,13 +111,29 @@ public class ExtendedLogReaderServiceFactory implements ServiceFactory<ExtendedL
 	}
 
 	public ExtendedLogReaderServiceFactory(int maxHistory, LogLevel defaultLevel) {
+		this(maxHistory, defaultLevel, 0, LogListenerQueue.OverflowPolicy.BLOCK, null);
+	}
+
+	/**
+	 * @param maxHistory the number of log entries kept in the log history
+	 * @param defaultLevel the default log level
+	 * @param listenerQueueSize the capacity of the queue of each asynchronous listener;
+	 * zero or less keeps the unbounded queues which deliver on short lived threads
+	 * @param overflowPolicy what to do with a log entry when a listener queue is full
+	 * @param threadFactory the factory of the threads delivering to asynchronous listeners;
+	 * <code>null</code> for platform threads
+	 */
+	public ExtendedLogReaderServiceFactory(int maxHistory, LogLevel defaultLevel, int listenerQueueSize, LogListenerQueue.OverflowPolicy overflowPolicy, ThreadFactory threadFactory) {
 		this.defaultLevel = defaultLevel;
-		this.maxHistory = maxHistory;
+		this.listenerQueueSize = listenerQueueSize;
+		this.overflowPolicy = overflowPolicy;
+		this.threadFactory = threadFactory;
 		if (maxHistory > 0) {
-			history = new LinkedList<>();
+			history = new LogHistory(maxHistory);
 		} else {
 			history = null;
 		}
+		entriesAccepted = history != null;
 	}
 
 	public LogLevel getDefaultLogLevel() {
@@ -160,6 +188,29 @@ public class ExtendedLogReaderServiceFactory implements ServiceFactory<ExtendedL
 		return false;
 	}
 
+	/**
+	 * Returns false if no log entry can be accepted because there is neither a
+	 * log history nor a log filter.  Costs a single volatile read so that loggers
+	 * can drop entries before anything else is checked.
+	 * @return false if no log entry can be accepted
+	 */
+	boolean isAnyEntryAccepted() {
+		return entriesAccepted;
+	}
+
+	/**
+	 * Returns true if an entry logged by a logger is kept in the log history or
+	 * accepted by a log filter.  The log filters are asked each time since their
+	 * decisions may change at any time.
+	 * @param bundle the bundle of the logger
+	 * @param name the name of the logger
+	 * @param level the level of the entry
+	 * @return true if an entry of the level is needed
+	 */
+	boolean isEntryNeeded(Bundle bundle, String name, int level) {
+		return history != null || isLoggable(bundle, name, level);
+	}
+
 	private int incrementNestedCount() {
 		int[] count = getCount();
 		count[0] = count[0] + 1;
@@ -214,9 +265,11 @@ public class ExtendedLogReaderServiceFactory implements ServiceFactory<ExtendedL
 				LogFilter filter = (LogFilter) listenerObjects[0];
 				if (safeIsLoggable(filter, bundle, name, level)) {
 					LogListener listener = listenersCopy.getKey(i);
-					SerializedTaskQueue taskQueue = (SerializedTaskQueue) listenerObjects[1];
-					if (taskQueue != null) {
-						taskQueue.put(new LogTask(logEntry, listener));
+					Object taskQueue = listenerObjects[1];
+					if (taskQueue instanceof LogListenerQueue) {
+						((LogListenerQueue) taskQueue).put(logEntry);
+					} else if (taskQueue != null) {
+						((SerializedTaskQueue) taskQueue).put(new LogTask(logEntry, listener));
 					} else {
 						// log synchronously
 						safeLogged(listener, logEntry);
@@ -230,12 +283,7 @@ public class ExtendedLogReaderServiceFactory implements ServiceFactory<ExtendedL
 
 	private void storeEntry(LogEntry logEntry) {
 		if (history != null) {
-			synchronized (history) {
-				if (history.size() == maxHistory) {
-					history.removeLast();
-				}
-				history.addFirst(logEntry);
-			}
+			history.add(logEntry);
 		}
 	}
 
@@ -246,7 +294,10 @@ public class ExtendedLogReaderServiceFactory implements ServiceFactory<ExtendedL
 			Object[] listenerObjects = listenersCopy.get(listener);
 			if (listenerObjects == null) {
 				// Only create a task queue for non-SynchronousLogListeners
-				SerializedTaskQueue taskQueue = (listener instanceof SynchronousLogListener) ? null : new SerializedTaskQueue(listener.toString());
+				Object taskQueue = null;
+				if (!(listener instanceof SynchronousLogListener)) {
+					taskQueue = listenerQueueSize > 0 ? new LogListenerQueue(listener, listenerQueueSize, overflowPolicy, threadFactory) : new SerializedTaskQueue(listener.toString(), threadFactory);
+				}
 				listenerObjects = new Object[] {filter, taskQueue};
 			} else if (filter != listenerObjects[0]) {
 				// update the filter
@@ -268,22 +319,27 @@ public class ExtendedLogReaderServiceFactory implements ServiceFactory<ExtendedL
 			LogFilter filter = (LogFilter) listenerObjects[0];
 			if (filter == NULL_LOGGER_FILTER) {
 				filters = ALWAYS_LOG;
+				entriesAccepted = true;
 				return;
 			}
 			filtersList.add(filter);
 		}
 
-		if (filtersList.isEmpty())
-			filters = null;
-
 		filters = filtersList.toArray(new LogFilter[filtersList.size()]);
+		entriesAccepted = history != null || !filtersList.isEmpty();
 	}
 
 	void removeLogListener(LogListener listener) {
 		listenersLock.writeLock();
 		try {
 			ArrayMap<LogListener, Object[]> listenersCopy = new ArrayMap<>(listeners.getKeys(), listeners.getValues());
+			Object[] listenerObjects = listenersCopy.get(listener);
 			listenersCopy.remove(listener);
+			if (listenerObjects != null && listenerObjects[1] instanceof LogListenerQueue) {
+				LogListenerQueue queue = (LogListenerQueue) listenerObjects[1];
+				queue.close();
+				removedDroppedCount.addAndGet(queue.getDroppedCount());
+			}
 			recalculateFilters(listenersCopy);
 			listeners = listenersCopy;
 		} finally {
@@ -291,13 +347,35 @@ public class ExtendedLogReaderServiceFactory implements ServiceFactory<ExtendedL
 		}
 	}
 
+	/**
+	 * Returns the number of log entries which were not delivered to asynchronous
+	 * listeners because the queue of the listener was full.
+	 * @return the number of dropped log entries
+	 */
+	long getListenerDroppedCount() {
+		ArrayMap<LogListener, Object[]> listenersCopy;
+		listenersLock.readLock();
+		try {
+			listenersCopy = listeners;
+		} finally {
+			listenersLock.readUnlock();
+		}
+		long result = removedDroppedCount.get();
+		int size = listenersCopy.size();
+		for (int i = 0; i < size; i++) {
+			Object taskQueue = listenersCopy.getValue(i)[1];
+			if (taskQueue instanceof LogListenerQueue) {
+				result += ((LogListenerQueue) taskQueue).getDroppedCount();
+			}
+		}
+		return result;
+	}
+
 	Enumeration<LogEntry> getLog() {
 		if (history == null) {
 			return EMPTY_ENUMERATION;
 		}
-		synchronized (history) {
-			return Collections.enumeration(new ArrayList<>(history));
-		}
+		return Collections.enumeration(history.getEntries());
 	}
 
 }
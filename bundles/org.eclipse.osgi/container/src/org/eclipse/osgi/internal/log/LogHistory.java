@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.osgi.internal.log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.osgi.service.log.LogEntry;
+
+/**
+ * A fixed capacity history of log entries.  Once the capacity is reached
+ * the oldest entry is overwritten.  A slot is only replaced by an entry
+ * with a higher position, so an entry added late by a slow thread never
+ * overwrites a newer entry.  Adding an entry never blocks and taking a
+ * snapshot of the history never blocks the threads that are logging.
+ */
+class LogHistory {
+	/**
+	 * A log entry together with its position in the history.  The position
+	 * allows a snapshot to detect an entry which was overwritten by a newer one.
+	 */
+	private static final class Slot {
+		final long position;
+		final LogEntry entry;
+
+		Slot(long position, LogEntry entry) {
+			this.position = position;
+			this.entry = entry;
+		}
+	}
+
+	private final AtomicReferenceArray<Slot> slots;
+	private final AtomicLong nextPosition = new AtomicLong();
+	private final int capacity;
+
+	LogHistory(int capacity) {
+		this.capacity = capacity;
+		this.slots = new AtomicReferenceArray<>(capacity);
+	}
+
+	void add(LogEntry entry) {
+		long position = nextPosition.getAndIncrement();
+		int index = (int) (position % capacity);
+		Slot slot = new Slot(position, entry);
+		// a slow thread must not overwrite a newer entry added by a thread which wrapped around
+		Slot current;
+		do {
+			current = slots.get(index);
+			if (current != null && current.position > position) {
+				return;
+			}
+		} while (!slots.compareAndSet(index, current, slot));
+	}
+
+	/**
+	 * Returns the entries of the history, the most recent entry first.  Entries
+	 * which are still being added by other threads may be missing.
+	 * @return the entries of the history
+	 */
+	List<LogEntry> getEntries() {
+		long end = nextPosition.get();
+		long start = Math.max(0, end - capacity);
+		List<LogEntry> result = new ArrayList<>((int) (end - start));
+		for (long position = end - 1; position >= start; position--) {
+			Slot slot = slots.get((int) (position % capacity));
+			if (slot != null && slot.position == position) {
+				result.add(slot.entry);
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.osgi.internal.log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.osgi.service.log.LogEntry;
+import org.osgi.service.log.LogListener;
+
+/**
+ * LogListenerQueue delivers log entries asynchronously to a single listener.
+ * The entries are held in a bounded queue and delivered in batches by one
+ * thread which lives until the queue is closed.  The overflow policy decides
+ * what happens when the listener cannot keep up with the logging threads.
+ */
+public class LogListenerQueue {
+	/**
+	 * What to do with a log entry when the queue is full.
+	 */
+	public enum OverflowPolicy {
+		/** wait until the listener has taken entries from the queue */
+		BLOCK,
+		/** discard the oldest queued entry to make room for the new entry */
+		DROP_OLDEST,
+		/** discard the new entry */
+		DROP;
+
+		/**
+		 * Returns the policy for a configuration value like <code>drop-oldest</code>.
+		 * @param value the configuration value
+		 * @param defaultPolicy the policy used if the value is not a known policy
+		 * @return the policy
+		 */
+		public static OverflowPolicy parse(String value, OverflowPolicy defaultPolicy) {
+			if (value == null) {
+				return defaultPolicy;
+			}
+			try {
+				return valueOf(value.trim().toUpperCase().replace('-', '_'));
+			} catch (IllegalArgumentException e) {
+				return defaultPolicy;
+			}
+		}
+	}
+
+	private static final int MAX_BATCH = 64;
+	/** How long a logging thread blocked by a full queue waits before it checks if the queue was closed */
+	private static final long CLOSE_CHECK_INTERVAL = 1000;
+
+	private final ArrayBlockingQueue<LogEntry> entries;
+	private final OverflowPolicy overflowPolicy;
+	private final LogListener listener;
+	private final AtomicLong dropped = new AtomicLong();
+	private final ThreadFactory threadFactory;
+	private final Object threadMonitor = new Object();
+	private volatile Thread thread;
+	private volatile boolean closed;
+	// guarded by threadMonitor; true while the delivery thread waits for entries
+	private boolean waiting;
+
+	/**
+	 * @param listener the listener to deliver the entries to
+	 * @param capacity the maximum number of queued entries
+	 * @param overflowPolicy what to do with an entry when the queue is full
+	 * @param threadFactory the factory of the delivery thread; <code>null</code> for a platform thread
+	 */
+	public LogListenerQueue(LogListener listener, int capacity, OverflowPolicy overflowPolicy, ThreadFactory threadFactory) {
+		this.listener = listener;
+		this.entries = new ArrayBlockingQueue<>(capacity);
+		this.overflowPolicy = overflowPolicy;
+		this.threadFactory = threadFactory;
+	}
+
+	public void put(LogEntry entry) {
+		if (closed) {
+			return;
+		}
+		Thread consumer = thread;
+		if (consumer == null) {
+			consumer = startThread();
+		}
+		if (entries.offer(entry)) {
+			return;
+		}
+		switch (overflowPolicy) {
+			case BLOCK :
+				if (Thread.currentThread() == consumer) {
+					// the listener is logging; waiting for itself would never end
+					dropped.incrementAndGet();
+					return;
+				}
+				try {
+					// the consumer stops once the queue is closed
+					while (!entries.offer(entry, CLOSE_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+						if (closed) {
+							dropped.incrementAndGet();
+							return;
+						}
+					}
+				} catch (InterruptedException e) {
+					dropped.incrementAndGet();
+					Thread.currentThread().interrupt();
+				}
+				return;
+			case DROP_OLDEST :
+				while (!entries.offer(entry)) {
+					if (entries.poll() != null) {
+						dropped.incrementAndGet();
+					}
+				}
+				return;
+			default :
+				dropped.incrementAndGet();
+				return;
+		}
+	}
+
+	/**
+	 * Returns the number of log entries which were not delivered because the queue was full.
+	 * @return the number of dropped log entries
+	 */
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	/**
+	 * Stops the queue from accepting entries.  The queued entries are still delivered.
+	 */
+	public void close() {
+		synchronized (threadMonitor) {
+			closed = true;
+			if (waiting) {
+				// only interrupt the wait for entries, never the listener
+				thread.interrupt();
+			}
+		}
+	}
+
+	private Thread startThread() {
+		synchronized (threadMonitor) {
+			if (thread == null) {
+				Runnable runner = new Runnable() {
+					public void run() {
+						deliver();
+					}
+				};
+				Thread consumer;
+				if (threadFactory == null) {
+					consumer = new Thread(runner, listener.toString());
+					consumer.setDaemon(true);
+				} else {
+					consumer = threadFactory.newThread(runner);
+					consumer.setName(listener.toString());
+				}
+				consumer.start();
+				thread = consumer;
+			}
+			return thread;
+		}
+	}
+
+	void deliver() {
+		List<LogEntry> batch = new ArrayList<>(MAX_BATCH);
+		while (true) {
+			synchronized (threadMonitor) {
+				if (closed && entries.isEmpty()) {
+					return;
+				}
+				waiting = true;
+			}
+			try {
+				batch.add(entries.take());
+			} catch (InterruptedException e) {
+				// interrupted by close
+			} finally {
+				synchronized (threadMonitor) {
+					waiting = false;
+					// clear an interrupt of close which arrived after the entry was taken
+					Thread.interrupted();
+				}
+			}
+			entries.drainTo(batch, MAX_BATCH - batch.size());
+			for (LogEntry entry : batch) {
+				ExtendedLogReaderServiceFactory.safeLogged(listener, entry);
+			}
+			batch.clear();
+		}
+	}
+}
@@ -12,6 +12,7 @@ import java.io.InputStream;
 import java.net.URL;
 import java.security.cert.X509Certificate;
 import java.util.*;
+import java.util.concurrent.ThreadFactory;
 import org.eclipse.equinox.log.*;
 import org.eclipse.osgi.internal.framework.EquinoxContainer;
 import org.osgi.framework.*;
@@ -36,7 +37,11 @@ public class LogServiceManager implements BundleListener, FrameworkListener, Ser
 	private ConfigAdminListener configAdminListener;
 
 	public LogServiceManager(int maxHistory, LogLevel defaultLevel, LogListener... systemListeners) {
-		logReaderServiceFactory = new ExtendedLogReaderServiceFactory(maxHistory, defaultLevel);
+		this(maxHistory, defaultLevel, 0, LogListenerQueue.OverflowPolicy.BLOCK, null, systemListeners);
+	}
+
+	public LogServiceManager(int maxHistory, LogLevel defaultLevel, int listenerQueueSize, LogListenerQueue.OverflowPolicy overflowPolicy, ThreadFactory threadFactory, LogListener... systemListeners) {
+		logReaderServiceFactory = new ExtendedLogReaderServiceFactory(maxHistory, defaultLevel, listenerQueueSize, overflowPolicy, threadFactory);
 		logServiceFactory = new ExtendedLogServiceFactory(logReaderServiceFactory);
 		systemBundleLog = logServiceFactory.getLogService(new MockSystemBundle());
 		for (LogListener logListener : systemListeners) {
@@ -93,6 +98,10 @@ public class LogServiceManager implements BundleListener, FrameworkListener, Ser
 		return logServiceFactory.getLoggerAdmin();
 	}
 
+	long getListenerDroppedCount() {
+		return logReaderServiceFactory.getListenerDroppedCount();
+	}
+
 	/**
 	 * BundleListener.bundleChanged method.
 	 *
@@ -22,7 +22,7 @@ public class LoggerImpl implements Logger {
 	protected final ExtendedLogServiceImpl logServiceImpl;
 	protected final String name;
 
-	private LogLevel enabledLevel = LogLevel.TRACE;
+	private volatile LogLevel enabledLevel = LogLevel.TRACE;
 
 	public LoggerImpl(ExtendedLogServiceImpl logServiceImpl, String name, LoggerContext loggerContext) {
 		this.logServiceImpl = logServiceImpl;
@@ -72,11 +72,27 @@ public class LoggerImpl implements Logger {
 		if (logLevelEnum == null) {
 			logLevelEnum = getLogLevel(level);
 		}
-		if (enabledLevel.implies(logLevelEnum)) {
+		if (isLevelLoggable(entryBundle, logLevelEnum, level)) {
 			logServiceImpl.getFactory().log(entryBundle, name, getLocation(), context, logLevelEnum, level, message, exception);
 		}
 	}
 
+	/**
+	 * Returns true if an entry of the level is logged by this logger.  Without log
+	 * listeners and log history an entry is dropped after a single volatile read.
+	 * Otherwise the enabled level of the logger context is checked next; the log
+	 * filters are only asked for enabled levels so that no location is captured and
+	 * no message is formatted for entries which no listener accepts.
+	 */
+	private boolean isLevelLoggable(LogLevel level) {
+		return isLevelLoggable(logServiceImpl.getBundle(), level, level.ordinal());
+	}
+
+	private boolean isLevelLoggable(Bundle entryBundle, LogLevel logLevelEnum, int level) {
+		ExtendedLogReaderServiceFactory logReaderServiceFactory = logServiceImpl.getFactory().logReaderServiceFactory;
+		return logReaderServiceFactory.isAnyEntryAccepted() && enabledLevel.implies(logLevelEnum) && logReaderServiceFactory.isEntryNeeded(entryBundle, name, level);
+	}
+
 	@SuppressWarnings("deprecation")
 	private LogLevel getLogLevel(int level) {
 		switch (level) {
@@ -105,12 +121,16 @@ public class LoggerImpl implements Logger {
 
 	@Override
 	public void trace(String format, Object arg) {
-		trace(format, new Object[] {arg});
+		if (isLevelLoggable(LogLevel.TRACE)) {
+			log(LogLevel.TRACE, format, new Object[] {arg});
+		}
 	}
 
 	@Override
 	public void trace(String format, Object arg1, Object arg2) {
-		trace(format, new Object[] {arg1, arg2});
+		if (isLevelLoggable(LogLevel.TRACE)) {
+			log(LogLevel.TRACE, format, new Object[] {arg1, arg2});
+		}
 	}
 
 	@Override
@@ -130,12 +150,16 @@ public class LoggerImpl implements Logger {
 
 	@Override
 	public void debug(String format, Object arg) {
-		debug(format, new Object[] {arg});
+		if (isLevelLoggable(LogLevel.DEBUG)) {
+			log(LogLevel.DEBUG, format, new Object[] {arg});
+		}
 	}
 
 	@Override
 	public void debug(String format, Object arg1, Object arg2) {
-		debug(format, new Object[] {arg1, arg2});
+		if (isLevelLoggable(LogLevel.DEBUG)) {
+			log(LogLevel.DEBUG, format, new Object[] {arg1, arg2});
+		}
 	}
 
 	@Override
@@ -155,12 +179,16 @@ public class LoggerImpl implements Logger {
 
 	@Override
 	public void info(String format, Object arg) {
-		info(format, new Object[] {arg});
+		if (isLevelLoggable(LogLevel.INFO)) {
+			log(LogLevel.INFO, format, new Object[] {arg});
+		}
 	}
 
 	@Override
 	public void info(String format, Object arg1, Object arg2) {
-		info(format, new Object[] {arg1, arg2});
+		if (isLevelLoggable(LogLevel.INFO)) {
+			log(LogLevel.INFO, format, new Object[] {arg1, arg2});
+		}
 	}
 
 	@Override
@@ -180,12 +208,16 @@ public class LoggerImpl implements Logger {
 
 	@Override
 	public void warn(String format, Object arg) {
-		warn(format, new Object[] {arg});
+		if (isLevelLoggable(LogLevel.WARN)) {
+			log(LogLevel.WARN, format, new Object[] {arg});
+		}
 	}
 
 	@Override
 	public void warn(String format, Object arg1, Object arg2) {
-		warn(format, new Object[] {arg1, arg2});
+		if (isLevelLoggable(LogLevel.WARN)) {
+			log(LogLevel.WARN, format, new Object[] {arg1, arg2});
+		}
 	}
 
 	@Override
@@ -205,12 +237,16 @@ public class LoggerImpl implements Logger {
 
 	@Override
 	public void error(String format, Object arg) {
-		error(format, new Object[] {arg});
+		if (isLevelLoggable(LogLevel.ERROR)) {
+			log(LogLevel.ERROR, format, new Object[] {arg});
+		}
 	}
 
 	@Override
 	public void error(String format, Object arg1, Object arg2) {
-		error(format, new Object[] {arg1, arg2});
+		if (isLevelLoggable(LogLevel.ERROR)) {
+			log(LogLevel.ERROR, format, new Object[] {arg1, arg2});
+		}
 	}
 
 	@Override
@@ -225,12 +261,16 @@ public class LoggerImpl implements Logger {
 
 	@Override
 	public void audit(String format, Object arg) {
-		audit(format, new Object[] {arg});
+		if (isLevelLoggable(LogLevel.AUDIT)) {
+			log(LogLevel.AUDIT, format, new Object[] {arg});
+		}
 	}
 
 	@Override
 	public void audit(String format, Object arg1, Object arg2) {
-		audit(format, new Object[] {arg1, arg2});
+		if (isLevelLoggable(LogLevel.AUDIT)) {
+			log(LogLevel.AUDIT, format, new Object[] {arg1, arg2});
+		}
 	}
 
 	@Override
@@ -241,7 +281,7 @@ public class LoggerImpl implements Logger {
 	private static final Pattern pattern = Pattern.compile("(\\\\?)(\\\\?)(\\{\\})"); //$NON-NLS-1$
 
 	private void log(LogLevel level, String format, Object... arguments) {
-		if (!enabledLevel.implies(level)) {
+		if (!isLevelLoggable(level)) {
 			return;
 		}
 		StackTraceElement location = getLocation();
@@ -8,6 +8,7 @@
 package org.eclipse.osgi.internal.log;
 
 import java.util.LinkedList;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * SerializedTaskQueue is a utility class that will allow asynchronous but serialized execution of tasks
@@ -18,15 +19,25 @@ public class SerializedTaskQueue {
 	private final LinkedList<Runnable> tasks = new LinkedList<>();
 	private Thread thread;
 	private final String queueName;
+	private final ThreadFactory threadFactory;
 
 	public SerializedTaskQueue(String queueName) {
+		this(queueName, null);
+	}
+
+	/**
+	 * @param queueName the name of the thread running the tasks
+	 * @param threadFactory the factory of the thread running the tasks; <code>null</code> for a platform thread
+	 */
+	public SerializedTaskQueue(String queueName, ThreadFactory threadFactory) {
 		this.queueName = queueName;
+		this.threadFactory = threadFactory;
 	}
 
 	public synchronized void put(Runnable newTask) {
 		tasks.add(newTask);
 		if (thread == null) {
-			thread = new Thread(queueName) {
+			Runnable runner = new Runnable() {
 				public void run() {
 					Runnable task = nextTask(MAX_WAIT);
 					while (task != null) {
@@ -35,6 +46,12 @@ public class SerializedTaskQueue {
 					}
 				}
 			};
+			if (threadFactory == null) {
+				thread = new Thread(runner, queueName);
+			} else {
+				thread = threadFactory.newThread(runner);
+				thread.setName(queueName);
+			}
 			thread.start();
 		} else
 			notify();
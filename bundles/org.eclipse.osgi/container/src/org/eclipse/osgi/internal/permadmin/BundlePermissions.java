@@ -13,8 +13,9 @@ package org.eclipse.osgi.internal.permadmin;
 import java.security.*;
 import java.util.Enumeration;
 import java.util.NoSuchElementException;
-import org.osgi.framework.Bundle;
-import org.osgi.framework.PackagePermission;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.osgi.framework.*;
 
 public final class BundlePermissions extends PermissionCollection {
 	private static final long serialVersionUID = -5443618108312606612L;
@@ -35,6 +36,10 @@ public final class BundlePermissions extends PermissionCollection {
 	private final PermissionInfoCollection impliedPermissions;
 	private final PermissionInfoCollection restrictedPermissions;
 	private final Permissions wovenPermissions;
+	/* the decisions of the conditional permission table for this bundle */
+	private transient volatile DecisionCache decisionCache;
+	/* the security admin generation shifted left by one; the lowest bit is set if all permissions are granted */
+	private transient volatile long allPermissionState = -1;
 
 	public BundlePermissions(Bundle bundle, SecurityAdmin securityAdmin, PermissionInfoCollection impliedPermissions, PermissionInfoCollection restrictedPermissions) {
 		this.bundle = bundle;
@@ -73,6 +78,10 @@ public final class BundlePermissions extends PermissionCollection {
 	}
 
 	public boolean implies(Permission permission) {
+		// fully trusted bundles need no further checks
+		if (hasAllPermission())
+			return true;
+
 		// first check implied permissions
 		if ((impliedPermissions != null) && impliedPermissions.implies(permission))
 			return true;
@@ -92,10 +101,130 @@ public final class BundlePermissions extends PermissionCollection {
 		return bundle;
 	}
 
+	/**
+	 * Returns true if all permissions are granted to this bundle.  The answer
+	 * is kept until the security admin generation changes.
+	 * @return true if all permissions are granted to this bundle
+	 */
+	boolean hasAllPermission() {
+		long generation = securityAdmin.getGeneration();
+		long state = allPermissionState;
+		if ((state >> 1) == generation)
+			return (state & 1) != 0;
+		boolean all = computeAllPermission();
+		allPermissionState = (generation << 1) | (all ? 1 : 0);
+		return all;
+	}
+
+	private boolean computeAllPermission() {
+		Permission allPermission = new AllPermission();
+		if ((impliedPermissions != null) && impliedPermissions.implies(allPermission))
+			return true;
+		if ((restrictedPermissions != null) && !restrictedPermissions.implies(allPermission))
+			return false;
+		return securityAdmin.grantsAllPermission(this);
+	}
+
 	public void clearPermissionCache() {
 		if (impliedPermissions != null)
 			impliedPermissions.clearPermissionCache();
 		if (restrictedPermissions != null)
 			restrictedPermissions.clearPermissionCache();
+		decisionCache = null;
+		allPermissionState = -1;
+	}
+
+	/**
+	 * Returns true if the decision for a permission only depends on the permission
+	 * and the bundle.  A service permission created for a service reference is
+	 * implied based on the current properties of the service, which may change.
+	 * Admin, package and capability permissions created for a target bundle are
+	 * implied based on the current attributes of the target bundle, which may
+	 * change when the target bundle is updated.
+	 * @param permission the permission to check
+	 * @return true if the decision for the permission can be cached
+	 */
+	static boolean isCacheable(Permission permission) {
+		if (permission instanceof ServicePermission)
+			return !permission.getName().startsWith("(service.id="); //$NON-NLS-1$
+		if (permission instanceof AdminPermission)
+			return !permission.getName().startsWith("(id="); //$NON-NLS-1$
+		// the target bundle is only visible through equals
+		if (permission instanceof PackagePermission)
+			return permission.equals(new PackagePermission(permission.getName(), permission.getActions()));
+		if (permission instanceof CapabilityPermission)
+			return permission.equals(new CapabilityPermission(permission.getName(), permission.getActions()));
+		return true;
+	}
+
+	/**
+	 * Returns the decision the conditional permission table made for a permission.
+	 * @param table the current conditional permission table
+	 * @param permission the permission to check
+	 * @return the decision or <code>null</code> if there is no decision cached for the table
+	 */
+	Integer getCachedDecision(SecurityTable table, Permission permission) {
+		DecisionCache current = decisionCache;
+		if (current == null || current.table != table)
+			return null;
+		return current.decisions.get(new PermissionKey(permission));
+	}
+
+	/**
+	 * Caches the decision the conditional permission table made for a permission.
+	 * Decisions made with a previous table are discarded.
+	 * @param table the conditional permission table which made the decision
+	 * @param permission the permission checked
+	 * @param decision the decision; must not depend on mutable or postponed conditions
+	 */
+	void cacheDecision(SecurityTable table, Permission permission, int decision) {
+		DecisionCache current = decisionCache;
+		if (current == null || current.table != table || current.decisions.size() >= DecisionCache.MAX_DECISIONS) {
+			// the table was updated or too many permissions were checked; start over
+			current = new DecisionCache(table);
+			decisionCache = current;
+		}
+		current.decisions.put(new PermissionKey(permission), Integer.valueOf(decision));
+	}
+
+	/**
+	 * The decisions made by a conditional permission table.
+	 */
+	private static final class DecisionCache {
+		static final int MAX_DECISIONS = 1024;
+		final SecurityTable table;
+		final ConcurrentMap<PermissionKey, Integer> decisions = new ConcurrentHashMap<>();
+
+		DecisionCache(SecurityTable table) {
+			this.table = table;
+		}
+	}
+
+	/**
+	 * Identifies a permission by its class and the equality of the permission.  Permissions
+	 * compare their name and actions, and also the bundle a package or admin permission
+	 * is checked for.
+	 */
+	private static final class PermissionKey {
+		private final Permission permission;
+		private final int hashCode;
+
+		PermissionKey(Permission permission) {
+			this.permission = permission;
+			this.hashCode = 31 * permission.getClass().hashCode() + permission.hashCode();
+		}
+
+		public boolean equals(Object obj) {
+			if (obj == this)
+				return true;
+			if (!(obj instanceof PermissionKey))
+				return false;
+			Permission other = ((PermissionKey) obj).permission;
+			return permission.getClass() == other.getClass() && permission.equals(other);
+		}
+
+		public int hashCode() {
+			return hashCode;
+		}
 	}
 }
@@ -134,7 +134,11 @@ public class EquinoxSecurityManager extends SecurityManager {
 							grant = true;
 						break;
 					}
+					SecurityStatisticsImpl statistics = domainDecisions[i].getStatistics();
+					long start = statistics == null ? 0 : System.nanoTime();
 					int decision = getPostponedDecision(domainDecisions[i], conditionDictionaries, cc);
+					if (statistics != null)
+						domainDecisions[i].postponedEvaluated(statistics, System.nanoTime() - start);
 					if ((decision & SecurityTable.ABSTAIN) != 0)
 						continue;
 					if ((decision & SecurityTable.GRANTED) != 0)
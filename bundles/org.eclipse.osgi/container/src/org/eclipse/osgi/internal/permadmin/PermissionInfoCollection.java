@@ -14,6 +14,8 @@ import java.io.File;
 import java.lang.reflect.Constructor;
 import java.security.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.osgi.service.permissionadmin.PermissionInfo;
 
 public final class PermissionInfoCollection extends PermissionCollection {
@@ -24,8 +26,7 @@ public final class PermissionInfoCollection extends PermissionCollection {
 	static private final Class<?> noArgClassArray[] = new Class[] {};
 	static private final Class<?>[][] permClassArrayArgs = new Class[][] {noArgClassArray, oneStringClassArray, twoStringClassArray};
 
-	/* @GuardedBy(cachedPermisssionCollections) */
-	private final Map<Class<? extends Permission>, PermissionCollection> cachedPermissionCollections = new HashMap<>();
+	private final ConcurrentMap<Class<? extends Permission>, PermissionCollection> cachedPermissionCollections = new ConcurrentHashMap<>();
 	private final boolean hasAllPermission;
 	private final PermissionInfo[] permInfos;
 
@@ -52,11 +53,8 @@ public final class PermissionInfoCollection extends PermissionCollection {
 		if (hasAllPermission)
 			return true;
 		final Class<? extends Permission> permClass = perm.getClass();
-		PermissionCollection collection;
-		synchronized (cachedPermissionCollections) {
-			collection = cachedPermissionCollections.get(permClass);
-		}
-		// must populate the collection outside of the lock to prevent class loader deadlock
+		PermissionCollection collection = cachedPermissionCollections.get(permClass);
+		// must populate the collection outside of any lock to prevent class loader deadlock
 		if (collection == null) {
 			collection = perm.newPermissionCollection();
 			if (collection == null) {
@@ -79,23 +77,71 @@ public final class PermissionInfoCollection extends PermissionCollection {
 				}
 				throw new SecurityException("Exception creating permissions: " + permClass + ": " + e.getMessage(), e); //$NON-NLS-1$ //$NON-NLS-2$
 			}
-			synchronized (cachedPermissionCollections) {
-				// check to see if another thread beat this thread at adding the collection
-				PermissionCollection exists = cachedPermissionCollections.get(permClass);
-				if (exists != null)
-					collection = exists;
-				else
-					cachedPermissionCollections.put(permClass, collection);
-			}
+			// check to see if another thread beat this thread at adding the collection
+			PermissionCollection exists = cachedPermissionCollections.putIfAbsent(permClass, collection);
+			if (exists != null)
+				collection = exists;
 		}
 		return collection.implies(perm);
 	}
 
+	/**
+	 * Builds the permission collections for the permission types visible to the framework
+	 * so that permission checks do not need to create them.  The collections of types
+	 * which cannot be loaded or created by the framework are still built by the first
+	 * check of a permission of the type.  Only called when the security admin installs
+	 * new permissions; collections cleared afterwards are built again by permission checks.
+	 * <p>
+	 * This method must not be called while holding a lock to prevent class loader deadlock.
+	 */
+	void buildPermissionCollections() {
+		if (hasAllPermission)
+			return;
+		AccessController.doPrivileged(new PrivilegedAction<Object>() {
+			@Override
+			public Object run() {
+				ClassLoader loader = PermissionInfoCollection.class.getClassLoader();
+				Set<String> types = new HashSet<>();
+				for (int i = 0; i < permInfos.length; i++) {
+					if (!types.add(permInfos[i].getType()))
+						continue;
+					try {
+						Class<? extends Permission> permClass = Class.forName(permInfos[i].getType(), false, loader).asSubclass(Permission.class);
+						if (cachedPermissionCollections.containsKey(permClass))
+							continue;
+						List<Permission> permissions = new ArrayList<>();
+						addPermissions(permissions, permClass);
+						if (permissions.isEmpty())
+							continue;
+						PermissionCollection collection = permissions.get(0).newPermissionCollection();
+						if (collection == null)
+							collection = new PermissionsHash();
+						for (Permission permission : permissions)
+							collection.add(permission);
+						cachedPermissionCollections.putIfAbsent(permClass, collection);
+					} catch (Exception e) {
+						// leave the type to the first check of a permission of the type
+					} catch (LinkageError e) {
+						// leave the type to the first check of a permission of the type
+					}
+				}
+				return null;
+			}
+		});
+	}
+
 	PermissionInfo[] getPermissionInfos() {
 		return permInfos;
 	}
 
 	void addPermissions(PermissionCollection collection, Class<? extends Permission> permClass) throws Exception {
+		List<Permission> permissions = new ArrayList<>();
+		addPermissions(permissions, permClass);
+		for (Permission permission : permissions)
+			collection.add(permission);
+	}
+
+	private void addPermissions(List<Permission> permissions, Class<? extends Permission> permClass) throws Exception {
 		String permClassName = permClass.getName();
 		Constructor<? extends Permission> constructor = null;
 		int numArgs = -1;
@@ -131,14 +177,13 @@ public final class PermissionInfoCollection extends PermissionCollection {
 						}
 					}
 				}
-				collection.add(constructor.newInstance((Object[]) args));
+				permissions.add(constructor.newInstance((Object[]) args));
 			}
 		}
 	}
 
 	void clearPermissionCache() {
-		synchronized (cachedPermissionCollections) {
-			cachedPermissionCollections.clear();
-		}
+		// the collections are built again by the next check of a permission of each type
+		cachedPermissionCollections.clear();
 	}
 }
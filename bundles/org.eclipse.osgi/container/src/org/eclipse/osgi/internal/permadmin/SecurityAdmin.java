@@ -46,6 +46,8 @@ public final class SecurityAdmin implements PermissionAdmin, ConditionalPermissi
 	private PermissionInfoCollection permAdminDefaults;
 	/* @GuardedBy(lock) */
 	private long timeStamp = 0;
+	/* incremented under the lock whenever the permissions of bundles may change */
+	private volatile int generation = 0;
 	/* @GuardedBy(lock) */
 	private long nextID = System.currentTimeMillis();
 	/* @GuardedBy(lock) */
@@ -54,17 +56,21 @@ public final class SecurityAdmin implements PermissionAdmin, ConditionalPermissi
 	//private final EquinoxContainer container;
 	private final PermissionInfo[] impliedPermissionInfos;
 	private final EquinoxSecurityManager supportedSecurityManager;
+	/* null unless statistics are collected */
+	private final SecurityStatisticsImpl statistics;
 
 	private SecurityAdmin(EquinoxSecurityManager supportedSecurityManager, PermissionInfo[] impliedPermissionInfos, PermissionInfoCollection permAdminDefaults) {
 		this.supportedSecurityManager = supportedSecurityManager;
 		this.impliedPermissionInfos = impliedPermissionInfos;
 		this.permAdminDefaults = permAdminDefaults;
 		this.permissionStorage = null;
+		this.statistics = null;
 	}
 
-	public SecurityAdmin(EquinoxSecurityManager supportedSecurityManager, PermissionData permissionStorage) {
+	public SecurityAdmin(EquinoxSecurityManager supportedSecurityManager, PermissionData permissionStorage, SecurityStatisticsImpl statistics) {
 		this.supportedSecurityManager = supportedSecurityManager;
 		this.permissionStorage = permissionStorage;
+		this.statistics = statistics;
 		this.impliedPermissionInfos = SecurityAdmin.getPermissionInfos(getClass().getResource(OSGI_BASE_IMPLIED_PERMISSIONS));
 		String[] encodedDefaultInfos = permissionStorage.getPermissionData(null);
 		PermissionInfo[] defaultInfos = getPermissionInfos(encodedDefaultInfos);
@@ -95,6 +101,12 @@ public final class SecurityAdmin implements PermissionAdmin, ConditionalPermissi
 			}
 			condAdminTable = new SecurityTable(this, rows);
 		}
+		if (permAdminDefaults != null)
+			permAdminDefaults.buildPermissionCollections();
+		PermissionInfoCollection[] permAdminCollections = permAdminTable.getCollections();
+		for (int i = 0; i < permAdminCollections.length; i++)
+			permAdminCollections[i].buildPermissionCollections();
+		condAdminTable.buildPermissionCollections();
 	}
 
 	private static PermissionInfo[] getPermissionInfos(String[] encodedInfos) {
@@ -135,6 +147,49 @@ public final class SecurityAdmin implements PermissionAdmin, ConditionalPermissi
 		return false;
 	}
 
+	/**
+	 * Returns true if a bundle is granted all permissions until the permissions change.
+	 * The bundle is granted all permissions if {@link #checkPermission(Permission, BundlePermissions)}
+	 * would grant any permission to the bundle without depending on mutable or postponed conditions.
+	 * @param bundlePermissions the permissions of the bundle
+	 * @return true if all permissions are granted to the bundle
+	 * @see #getGeneration()
+	 */
+	boolean grantsAllPermission(BundlePermissions bundlePermissions) {
+		PermissionInfoCollection locationCollection;
+		SecurityTable curCondAdminTable;
+		PermissionInfoCollection curPermAdminDefaults;
+		synchronized (lock) {
+			Bundle bundle = bundlePermissions.getBundle();
+			locationCollection = bundle instanceof EquinoxBundle ? permAdminTable.getCollection(((EquinoxBundle) bundle).getModule().getLocation()) : null;
+			curCondAdminTable = condAdminTable;
+			curPermAdminDefaults = permAdminDefaults;
+		}
+		Permission allPermission = new AllPermission();
+		if (locationCollection != null)
+			return locationCollection.implies(allPermission);
+		if (curCondAdminTable.isEmpty())
+			return curPermAdminDefaults != null ? curPermAdminDefaults.implies(allPermission) : DEFAULT_DEFAULT.implies(allPermission);
+		return curCondAdminTable.grantsAllPermission(bundlePermissions, allPermission);
+	}
+
+	/**
+	 * Returns the generation of the permissions.  The generation changes whenever
+	 * the permissions granted to bundles may change.
+	 * @return the generation of the permissions
+	 */
+	int getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Returns the statistics of the conditional permission table.
+	 * @return the statistics or <code>null</code> if statistics are not collected
+	 */
+	public SecurityStatisticsImpl getStatistics() {
+		return statistics;
+	}
+
 	public PermissionInfo[] getDefaultPermissions() {
 		synchronized (lock) {
 			if (permAdminDefaults == null)
@@ -158,13 +213,17 @@ public final class SecurityAdmin implements PermissionAdmin, ConditionalPermissi
 
 	public void setDefaultPermissions(PermissionInfo[] permissions) {
 		checkAllPermission();
+		PermissionInfoCollection newDefaults;
 		synchronized (lock) {
 			if (permissions == null)
-				permAdminDefaults = null;
+				permAdminDefaults = newDefaults = null;
 			else
-				permAdminDefaults = new PermissionInfoCollection(permissions);
+				permAdminDefaults = newDefaults = new PermissionInfoCollection(permissions);
+			generation++;
 			permissionStorage.setPermissionData(null, getEncodedPermissionInfos(permissions));
 		}
+		if (newDefaults != null)
+			newDefaults.buildPermissionCollections();
 	}
 
 	private static void checkAllPermission() {
@@ -184,10 +243,15 @@ public final class SecurityAdmin implements PermissionAdmin, ConditionalPermissi
 
 	public void setPermissions(String location, PermissionInfo[] permissions) {
 		checkAllPermission();
+		PermissionInfoCollection newCollection;
 		synchronized (lock) {
 			permAdminTable.setPermissions(location, permissions);
+			newCollection = permAdminTable.getCollection(location);
+			generation++;
 			permissionStorage.setPermissionData(location, getEncodedPermissionInfos(permissions));
 		}
+		if (newCollection != null)
+			newCollection.buildPermissionCollections();
 	}
 
 	void delete(SecurityRow securityRow, boolean firstTry) {
@@ -310,6 +374,7 @@ public final class SecurityAdmin implements PermissionAdmin, ConditionalPermissi
 
 	boolean commit(List<ConditionalPermissionInfo> rows, long updateStamp) {
 		checkAllPermission();
+		SecurityTable newTable;
 		synchronized (lock) {
 			if (updateStamp != timeStamp)
 				return false;
@@ -328,11 +393,16 @@ public final class SecurityAdmin implements PermissionAdmin, ConditionalPermissi
 				names.add(name);
 				newRows[i] = new SecurityRow(this, name, infoBaseRow.getConditionInfos(), infoBaseRow.getPermissionInfos(), infoBaseRow.getAccessDecision());
 			}
-			condAdminTable = new SecurityTable(this, newRows);
+			condAdminTable = newTable = new SecurityTable(this, newRows);
+			generation++;
 			permissionStorage.saveConditionalPermissionInfos(condAdminTable.getEncodedRows());
 			timeStamp += 1;
-			return true;
 		}
+		// build the permissions of the new table outside of the lock
+		newTable.buildPermissionCollections();
+		if (statistics != null)
+			statistics.tableChanged(newTable.getRows());
+		return true;
 	}
 
 	/* GuardedBy(lock) */
@@ -400,6 +470,7 @@ public final class SecurityAdmin implements PermissionAdmin, ConditionalPermissi
 		synchronized (lock) {
 			permAdminCollections = permAdminTable.getCollections();
 			condAdminRows = condAdminTable.getRows();
+			generation++;
 		}
 		for (int i = 0; i < permAdminCollections.length; i++)
 			permAdminCollections[i].clearPermissionCache();
@@ -342,6 +342,38 @@ public final class SecurityRow implements ConditionalPermissionInfo {
 		return evaluatePermission(permission);
 	}
 
+	/**
+	 * Returns true if the decision of this row for a bundle can no longer change.
+	 * That is the case once the row has no conditions left to check for the bundle.
+	 * @param bundlePermissions the permissions of the bundle
+	 * @return true if the decision of this row for the bundle is immutable
+	 */
+	boolean hasImmutableDecision(BundlePermissions bundlePermissions) {
+		if (bundleConditions == null)
+			return true;
+		synchronized (bundleConditions) {
+			Condition[] conditions = bundleConditions.get(bundlePermissions);
+			return conditions == SATISFIED_LIST || conditions == ABSTAIN_LIST;
+		}
+	}
+
+	/**
+	 * Returns true if the conditions of this row can never be satisfied for a bundle.
+	 * @param bundlePermissions the permissions of the bundle
+	 * @return true if this row always abstains for the bundle
+	 */
+	boolean neverApplies(BundlePermissions bundlePermissions) {
+		if (bundleConditions == null)
+			return false;
+		synchronized (bundleConditions) {
+			return bundleConditions.get(bundlePermissions) == ABSTAIN_LIST;
+		}
+	}
+
+	boolean isDeny() {
+		return deny;
+	}
+
 	private boolean isPostponed(Condition condition) {
 		// postponed checks can only happen if we are using a supported security manager
 		return condition.isPostponed() && securityAdmin.getSupportedSecurityManager() != null;
@@ -431,6 +463,14 @@ public final class SecurityRow implements ConditionalPermissionInfo {
 			this.bundlePermissions = bundlePermissions;
 		}
 
+		SecurityStatisticsImpl getStatistics() {
+			return row == null || row.securityAdmin == null ? null : row.securityAdmin.getStatistics();
+		}
+
+		void postponedEvaluated(SecurityStatisticsImpl statistics, long time) {
+			statistics.postponedEvaluated(row, time);
+		}
+
 		void handleImmutable(Condition condition, boolean isSatisfied, boolean mutable) {
 			if (mutable || !condition.isPostponed())
 				return; // do nothing
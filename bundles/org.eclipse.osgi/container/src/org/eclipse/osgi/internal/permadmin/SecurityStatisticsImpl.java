@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.internal.permadmin;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.osgi.internal.debug.AbstractStatistics;
+import org.eclipse.osgi.service.debug.SecurityStatistics;
+
+/**
+ * Collects the statistics of the conditional permission table by row name.  The
+ * statistics of a row are kept when the table is updated with a row of the same
+ * name and discarded when the row is removed from the table.
+ */
+public class SecurityStatisticsImpl extends AbstractStatistics<SecurityStatistics.Entry> implements SecurityStatistics {
+	private final ConcurrentMap<String, EntryImpl> entries = new ConcurrentHashMap<>();
+	private final AtomicLong checkCount = new AtomicLong();
+	private final AtomicLong cacheHitCount = new AtomicLong();
+	private final AtomicLong postponedCheckCount = new AtomicLong();
+
+	/**
+	 * Records a permission check which consulted the table.
+	 * @param cacheHit true if the check was answered by the cached decisions of the bundle
+	 */
+	void checked(boolean cacheHit) {
+		checkCount.incrementAndGet();
+		if (cacheHit)
+			cacheHitCount.incrementAndGet();
+	}
+
+	/**
+	 * Records a permission check which had to be postponed.
+	 */
+	void postponed() {
+		postponedCheckCount.incrementAndGet();
+	}
+
+	/**
+	 * Records the evaluation of a row.
+	 * @param row the evaluated row
+	 * @param decision the decision of the row
+	 * @param time the time spent evaluating the row in nanoseconds
+	 */
+	void evaluated(SecurityRow row, int decision, long time) {
+		EntryImpl entry = entries.get(row.getName());
+		if (entry == null) {
+			entry = new EntryImpl(row.getName());
+			EntryImpl existing = entries.putIfAbsent(row.getName(), entry);
+			if (existing != null)
+				entry = existing;
+		}
+		entry.evaluated(row, decision, time);
+	}
+
+	/**
+	 * Records the evaluation of the postponed conditions of a row.
+	 * @param row the row the postponed conditions belong to
+	 * @param time the time spent evaluating the conditions in nanoseconds
+	 */
+	void postponedEvaluated(SecurityRow row, long time) {
+		EntryImpl entry = entries.get(row.getName());
+		if (entry != null)
+			entry.postponedEvaluated(time);
+	}
+
+	/**
+	 * Discards the statistics of the rows which are no longer in the table.
+	 * @param rows the rows of the new table
+	 */
+	void tableChanged(SecurityRow[] rows) {
+		Set<String> names = new HashSet<>();
+		for (int i = 0; i < rows.length; i++)
+			names.add(rows[i].getName());
+		entries.keySet().retainAll(names);
+	}
+
+	public List<Entry> getEntries() {
+		return sortByTotalTime(entries.values());
+	}
+
+	public long getCheckCount() {
+		return checkCount.get();
+	}
+
+	public long getCacheHitCount() {
+		return cacheHitCount.get();
+	}
+
+	public long getPostponedCheckCount() {
+		return postponedCheckCount.get();
+	}
+
+	public void reset() {
+		entries.clear();
+		checkCount.set(0);
+		cacheHitCount.set(0);
+		postponedCheckCount.set(0);
+	}
+
+	protected long getTotalTime(Entry entry) {
+		return entry.getTotalTime();
+	}
+
+	protected String getDumpHeader(int dumpedCount, int totalCount) {
+		return "Security statistics: checks=" + getCheckCount() + ", cacheHits=" + getCacheHitCount() + ", postponed=" + getPostponedCheckCount() + "; the " + dumpedCount + " of " + totalCount + " rows with the largest total time:"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+	}
+
+	/**
+	 * The statistics of a single row.
+	 */
+	static class EntryImpl implements Entry {
+		private final String name;
+		private volatile SecurityRow row;
+		private final AtomicLong evaluationCount = new AtomicLong();
+		private final AtomicLong decisionCount = new AtomicLong();
+		private final AtomicLong postponedCount = new AtomicLong();
+		private final AtomicLong totalTime = new AtomicLong();
+
+		EntryImpl(String name) {
+			this.name = name;
+		}
+
+		void evaluated(SecurityRow evaluatedRow, int decision, long time) {
+			if (row != evaluatedRow)
+				row = evaluatedRow;
+			evaluationCount.incrementAndGet();
+			if ((decision & SecurityTable.POSTPONED) != 0)
+				postponedCount.incrementAndGet();
+			else if ((decision & SecurityTable.ABSTAIN) == 0)
+				decisionCount.incrementAndGet();
+			totalTime.addAndGet(time);
+		}
+
+		void postponedEvaluated(long time) {
+			totalTime.addAndGet(time);
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String getEncoded() {
+			SecurityRow current = row;
+			return current == null ? null : current.getEncoded();
+		}
+
+		public long getEvaluationCount() {
+			return evaluationCount.get();
+		}
+
+		public long getDecisionCount() {
+			return decisionCount.get();
+		}
+
+		public long getPostponedCount() {
+			return postponedCount.get();
+		}
+
+		public long getTotalTime() {
+			return totalTime.get();
+		}
+
+		public String toString() {
+			return name + ": evaluations=" + getEvaluationCount() + ", decisions=" + getDecisionCount() + ", postponed=" + getPostponedCount() + ", total=" + TimeUnit.NANOSECONDS.toMicros(getTotalTime()) + "us"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+		}
+	}
+}
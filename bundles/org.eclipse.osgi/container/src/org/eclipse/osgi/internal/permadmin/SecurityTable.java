@@ -39,17 +39,35 @@ public class SecurityTable extends PermissionCollection {
 	int evaluate(BundlePermissions bundlePermissions, Permission permission) {
 		if (isEmpty())
 			return ABSTAIN;
+		SecurityStatisticsImpl statistics = securityAdmin.getStatistics();
+		if (bundlePermissions != null) {
+			Integer cached = bundlePermissions.getCachedDecision(this, permission);
+			if (cached != null) {
+				if (statistics != null)
+					statistics.checked(true);
+				return cached.intValue();
+			}
+		}
+		if (statistics != null)
+			statistics.checked(false);
 		boolean postponed = false;
+		// the decision can be cached if the rows evaluated have immutable decisions for the bundle
+		boolean cacheable = bundlePermissions != null && BundlePermissions.isCacheable(permission);
 		Decision[] results = new Decision[rows.length];
 		int immediateDecisionIdx = -1;
 		// evaluate each row
 		for (int i = 0; i < rows.length; i++) {
+			long start = statistics == null ? 0 : System.nanoTime();
 			try {
 				results[i] = rows[i].evaluate(bundlePermissions, permission);
+				cacheable = cacheable && rows[i].hasImmutableDecision(bundlePermissions);
 			} catch (Throwable t) {
 				// TODO log?
 				results[i] = SecurityRow.DECISION_ABSTAIN;
+				cacheable = false;
 			}
+			if (statistics != null)
+				statistics.evaluated(rows[i], results[i].decision, System.nanoTime() - start);
 			if ((results[i].decision & ABSTAIN) != 0)
 				continue; // ignore this row and continue to next row
 			if ((results[i].decision & POSTPONED) != 0) {
@@ -57,9 +75,12 @@ public class SecurityTable extends PermissionCollection {
 				postponed = true;
 				continue; // continue to next row
 			}
-			if (!postponed)
+			if (!postponed) {
 				// no postpones encountered yet; we can return the decision quickly
+				if (cacheable)
+					bundlePermissions.cacheDecision(this, permission, results[i].decision);
 				return results[i].decision; // return GRANTED or DENIED
+			}
 			// got an immediate answer; but it is after a postponed condition.
 			// no need to process the rest of the rows
 			immediateDecisionIdx = i;
@@ -92,10 +113,42 @@ public class SecurityTable extends PermissionCollection {
 				// This should never happen.  We checked for a supported manager when the row was postponed
 				return ABSTAIN;
 			equinoxManager.addConditionsForDomain(results);
+			if (statistics != null)
+				statistics.postponed();
 		}
+		if (!postponed && cacheable)
+			bundlePermissions.cacheDecision(this, permission, ABSTAIN);
 		return postponed ? POSTPONED : ABSTAIN;
 	}
 
+	/**
+	 * Returns true if this table grants all permissions to a bundle.  That is the case
+	 * if a row grants AllPermission to the bundle and no deny row before it can apply
+	 * to the bundle.  The rows involved must not depend on mutable or postponed conditions.
+	 * @param bundlePermissions the permissions of the bundle
+	 * @param allPermission an AllPermission
+	 * @return true if all permissions are granted to the bundle
+	 */
+	boolean grantsAllPermission(BundlePermissions bundlePermissions, Permission allPermission) {
+		for (int i = 0; i < rows.length; i++) {
+			Decision result;
+			try {
+				result = rows[i].evaluate(bundlePermissions, allPermission);
+			} catch (Throwable t) {
+				return false;
+			}
+			if ((result.decision & POSTPONED) != 0)
+				return false;
+			if ((result.decision & ABSTAIN) == 0)
+				// an allow row granting AllPermission or a deny row denying it
+				return (result.decision & GRANTED) != 0 && rows[i].hasImmutableDecision(bundlePermissions);
+			// an allow row can only grant more; a deny row must never apply to the bundle
+			if (rows[i].isDeny() && !rows[i].neverApplies(bundlePermissions))
+				return false;
+		}
+		return false;
+	}
+
 	SecurityRow getRow(int i) {
 		return rows.length <= i || i < 0 ? null : rows[i];
 	}
@@ -112,6 +165,11 @@ public class SecurityTable extends PermissionCollection {
 		return rows;
 	}
 
+	void buildPermissionCollections() {
+		for (int i = 0; i < rows.length; i++)
+			rows[i].getPermissionInfoCollection().buildPermissionCollections();
+	}
+
 	String[] getEncodedRows() {
 		String[] encoded = new String[rows.length];
 		for (int i = 0; i < rows.length; i++)
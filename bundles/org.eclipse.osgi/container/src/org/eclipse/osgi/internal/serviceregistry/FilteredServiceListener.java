@@ -14,6 +14,7 @@ package org.eclipse.osgi.internal.serviceregistry;
 import org.eclipse.osgi.internal.debug.Debug;
 import org.eclipse.osgi.internal.framework.BundleContextImpl;
 import org.eclipse.osgi.internal.framework.FilterImpl;
+import org.eclipse.osgi.internal.framework.ListenerStatisticsImpl;
 import org.osgi.framework.*;
 import org.osgi.framework.hooks.service.ListenerHook;
 
@@ -36,6 +37,8 @@ class FilteredServiceListener implements ServiceListener, ListenerHook.ListenerI
 	/** indicates whether the listener has been removed */
 	private volatile boolean removed;
 	private final Debug debug;
+	/** the listener statistics; null if the statistics are not collected */
+	private final ListenerStatisticsImpl listenerStatistics;
 
 	/**
 	 * Constructor.
@@ -47,6 +50,7 @@ class FilteredServiceListener implements ServiceListener, ListenerHook.ListenerI
 	 */
 	FilteredServiceListener(final BundleContextImpl context, final ServiceListener listener, final String filterstring) throws InvalidSyntaxException {
 		this.debug = context.getContainer().getConfiguration().getDebug();
+		this.listenerStatistics = context.getContainer().getEventPublisher().getListenerStatistics();
 		this.unfiltered = (listener instanceof UnfilteredServiceListener);
 		if (filterstring == null) {
 			this.filter = null;
@@ -84,6 +88,9 @@ class FilteredServiceListener implements ServiceListener, ListenerHook.ListenerI
 				if (classes[i] == objectClass) // objectClass strings have previously been interned for identity comparison 
 					break objectClassCheck;
 			}
+			if (listenerStatistics != null) {
+				getStatistics().rejected();
+			}
 			return; // no class in this event matches a required part of the filter; we do not need to deliver this event
 		}
 		// TODO could short circuit service.id filters as well since the id is constant for a registration.
@@ -98,6 +105,9 @@ class FilteredServiceListener implements ServiceListener, ListenerHook.ListenerI
 
 		event = filterMatch(event);
 		if (event == null) {
+			if (listenerStatistics != null) {
+				getStatistics().rejected();
+			}
 			return;
 		}
 		if (allservices || ServiceRegistry.isAssignableTo(context, reference)) {
@@ -106,8 +116,26 @@ class FilteredServiceListener implements ServiceListener, ListenerHook.ListenerI
 				Debug.println("dispatchFilteredServiceEvent(" + listenerName + ")"); //$NON-NLS-1$ //$NON-NLS-2$
 			}
 
-			listener.serviceChanged(event);
+			if (listenerStatistics == null) {
+				listener.serviceChanged(event);
+			} else {
+				long start = System.nanoTime();
+				try {
+					listener.serviceChanged(event);
+				} finally {
+					getStatistics().delivered(System.nanoTime() - start);
+				}
+			}
+		}
+	}
+
+	private ListenerStatisticsImpl.EntryImpl getStatistics() {
+		ListenerStatisticsImpl.EntryImpl entry = listenerStatistics.getEntry(this, context.getBundle(), ServiceListener.class.getName());
+		if (removed) {
+			// removed while delivering the event; do not keep the statistics
+			listenerStatistics.remove(this);
 		}
+		return entry;
 	}
 
 	/**
@@ -120,14 +148,20 @@ class FilteredServiceListener implements ServiceListener, ListenerHook.ListenerI
 	private ServiceEvent filterMatch(ServiceEvent delivered) {
 		boolean modified = delivered.getType() == ServiceEvent.MODIFIED;
 		ServiceEvent event = modified ? ((ModifiedServiceEvent) delivered).getModifiedEvent() : delivered;
+		int delivery = modified ? ((ModifiedServiceEvent) delivered).getDelivery() : ModifiedServiceEvent.DELIVER_ALL;
 		if (unfiltered || (filter == null)) {
-			return event;
+			// the match of this listener never changes
+			return delivery == ModifiedServiceEvent.DELIVER_MATCH_CHANGES ? null : event;
 		}
 		ServiceReference<?> reference = event.getServiceReference();
 		if (filter.match(reference)) {
+			if (delivery == ModifiedServiceEvent.DELIVER_MATCH_CHANGES && ((ModifiedServiceEvent) delivered).matchPreviousProperties(filter)) {
+				// still matches; the listener gets the coalesced event later
+				return null;
+			}
 			return event;
 		}
-		if (modified) {
+		if (modified && delivery != ModifiedServiceEvent.DELIVER_MATCHING) {
 			ModifiedServiceEvent modifiedServiceEvent = (ModifiedServiceEvent) delivered;
 			if (modifiedServiceEvent.matchPreviousProperties(filter)) {
 				return modifiedServiceEvent.getModifiedEndMatchEvent();
@@ -191,6 +225,9 @@ class FilteredServiceListener implements ServiceListener, ListenerHook.ListenerI
 	 */
 	void markRemoved() {
 		removed = true;
+		if (listenerStatistics != null) {
+			listenerStatistics.remove(this);
+		}
 	}
 
 	/**
@@ -23,6 +23,14 @@ class ModifiedServiceEvent extends ServiceEvent {
 	private final ServiceEvent modified;
 	private final ServiceEvent modifiedEndMatch;
 	private final Map<String, Object> previousProperties;
+	private final int delivery;
+
+	/** The event is delivered to all listeners which match the current or the previous properties. */
+	static final int DELIVER_ALL = 0;
+	/** The event is only delivered to listeners which start or stop to match the properties. */
+	static final int DELIVER_MATCH_CHANGES = 1;
+	/** The event is only delivered as MODIFIED to listeners which match the current properties. */
+	static final int DELIVER_MATCHING = 2;
 
 	/**
 	 * Create a ServiceEvent containing the service properties prior to modification.
@@ -31,10 +39,33 @@ class ModifiedServiceEvent extends ServiceEvent {
 	 * @param previousProperties Service properties prior to modification.
 	 */
 	ModifiedServiceEvent(ServiceReference<?> reference, Map<String, Object> previousProperties) {
+		this(reference, previousProperties, DELIVER_ALL);
+	}
+
+	/**
+	 * Create a ServiceEvent containing the service properties prior to modification
+	 * which is only delivered to some of the listeners.  This is used to coalesce
+	 * MODIFIED events.
+	 * 
+	 * @param reference Reference to service with modified properties.
+	 * @param previousProperties Service properties prior to modification.
+	 * @param delivery One of {@link #DELIVER_ALL}, {@link #DELIVER_MATCH_CHANGES} or {@link #DELIVER_MATCHING}.
+	 */
+	ModifiedServiceEvent(ServiceReference<?> reference, Map<String, Object> previousProperties, int delivery) {
 		super(ServiceEvent.MODIFIED, reference);
 		this.modified = new ServiceEvent(ServiceEvent.MODIFIED, reference);
 		this.modifiedEndMatch = new ServiceEvent(ServiceEvent.MODIFIED_ENDMATCH, reference);
 		this.previousProperties = previousProperties;
+		this.delivery = delivery;
+	}
+
+	/**
+	 * Return to which listeners this event is delivered.
+	 * 
+	 * @return One of {@link #DELIVER_ALL}, {@link #DELIVER_MATCH_CHANGES} or {@link #DELIVER_MATCHING}.
+	 */
+	int getDelivery() {
+		return delivery;
 	}
 
 	/**
@@ -14,6 +14,7 @@ package org.eclipse.osgi.internal.serviceregistry;
 import java.util.*;
 import org.eclipse.osgi.internal.debug.Debug;
 import org.eclipse.osgi.internal.framework.BundleContextImpl;
+import org.eclipse.osgi.internal.framework.EquinoxConfiguration;
 import org.eclipse.osgi.internal.loader.sources.PackageSource;
 import org.eclipse.osgi.internal.messages.Msg;
 import org.osgi.framework.*;
@@ -81,6 +82,14 @@ public class ServiceRegistrationImpl<S> implements ServiceRegistration<S>, Compa
 	private static final int UNREGISTERING = 0x01;
 	private static final int UNREGISTERED = 0x02;
 
+	/** previous properties of the MODIFIED event waiting for the coalesce window to end; null if none */
+	/* @GuardedBy("registrationLock") */
+	private Map<String, Object> pendingPreviousProperties;
+
+	/** System.nanoTime() at which the current coalesce window ends; 0 if no window is open */
+	/* @GuardedBy("registrationLock") */
+	private long modifiedWindowEnd;
+
 	/**
 	 * Construct a ServiceRegistration and register the service
 	 * in the framework's service registry.
@@ -140,6 +149,14 @@ public class ServiceRegistrationImpl<S> implements ServiceRegistration<S>, Compa
 	 * is synchronously sent.
 	 * </ol>
 	 *
+	 * <p>If a coalesce window is set with the
+	 * {@link EquinoxConfiguration#PROP_SERVICE_MODIFIED_COALESCE_WINDOW} service
+	 * property or framework property, modifications made within the window after
+	 * a MODIFIED event was sent are coalesced.  Listeners which start or stop to
+	 * match the properties still get a MODIFIED or MODIFIED_ENDMATCH event
+	 * synchronously.  Listeners which keep matching the properties get a single
+	 * MODIFIED event when the window ends.
+	 *
 	 * @param props The properties for this service.
 	 *        Changes should not be made to this object after calling this method.
 	 *        To update the service's properties this method should be called again.
@@ -152,6 +169,7 @@ public class ServiceRegistrationImpl<S> implements ServiceRegistration<S>, Compa
 	public void setProperties(Dictionary<String, ?> props) {
 		final ServiceReferenceImpl<S> ref;
 		final Map<String, Object> previousProperties;
+		long delay = 0;
 		synchronized (registry) {
 			synchronized (registrationLock) {
 				if (state != REGISTERED) { /* in the process of unregisterING */
@@ -161,11 +179,61 @@ public class ServiceRegistrationImpl<S> implements ServiceRegistration<S>, Compa
 				ref = reference; /* used to publish event outside sync */
 				previousProperties = this.properties;
 				this.properties = createProperties(props);
+
+				long window = registry.getModifiedCoalesceWindow(this.properties);
+				if (window > 0) {
+					long now = System.nanoTime();
+					if (pendingPreviousProperties != null) {
+						/* the pending event will carry this modification */
+						delay = -1;
+					} else if (modifiedWindowEnd != 0 && now - modifiedWindowEnd < 0) {
+						pendingPreviousProperties = previousProperties;
+						delay = modifiedWindowEnd - now;
+					} else {
+						modifiedWindowEnd = now + window;
+					}
+				} else {
+					/* the synchronous event carries the pending modification */
+					pendingPreviousProperties = null;
+					modifiedWindowEnd = 0;
+				}
 			}
 			registry.modifyServiceRegistration(context, this);
 		}
 		/* must not hold the registrationLock when this event is published */
-		registry.publishServiceEvent(new ModifiedServiceEvent(ref, previousProperties));
+		if (delay == 0) {
+			registry.publishServiceEvent(new ModifiedServiceEvent(ref, previousProperties));
+			return;
+		}
+		if (delay > 0) {
+			registry.schedule(new Runnable() {
+				public void run() {
+					publishPendingModified();
+				}
+			}, delay);
+		}
+		/* listeners whose match changes must not wait for the window to end */
+		registry.publishServiceEvent(new ModifiedServiceEvent(ref, previousProperties, ModifiedServiceEvent.DELIVER_MATCH_CHANGES));
+	}
+
+	/**
+	 * Publishes the MODIFIED event coalesced at the end of the coalesce window.
+	 */
+	void publishPendingModified() {
+		final ServiceReferenceImpl<S> ref;
+		final Map<String, Object> previousProperties;
+		synchronized (registrationLock) {
+			if (state != REGISTERED || pendingPreviousProperties == null) {
+				/* unregister published the pending event */
+				return;
+			}
+			ref = reference;
+			previousProperties = pendingPreviousProperties;
+			pendingPreviousProperties = null;
+			modifiedWindowEnd = 0;
+		}
+		/* must not hold the registrationLock when this event is published */
+		registry.publishServiceEvent(new ModifiedServiceEvent(ref, previousProperties, ModifiedServiceEvent.DELIVER_MATCHING));
 	}
 
 	/**
@@ -200,6 +268,7 @@ public class ServiceRegistrationImpl<S> implements ServiceRegistration<S>, Compa
 	 */
 	public void unregister() {
 		final ServiceReferenceImpl<S> ref;
+		final Map<String, Object> previousProperties;
 		synchronized (registry) {
 			synchronized (registrationLock) {
 				if (state != REGISTERED) { /* in the process of unregisterING */
@@ -215,10 +284,16 @@ public class ServiceRegistrationImpl<S> implements ServiceRegistration<S>, Compa
 
 				state = UNREGISTERING; /* mark unregisterING */
 				ref = reference; /* used to publish event outside sync */
+				previousProperties = pendingPreviousProperties;
+				pendingPreviousProperties = null;
 			}
 		}
 
-		/* must not hold the registrationLock when this event is published */
+		/* must not hold the registrationLock when these events are published */
+		if (previousProperties != null) {
+			/* listeners must see the last modification before the service goes away */
+			registry.publishServiceEvent(new ModifiedServiceEvent(ref, previousProperties, ModifiedServiceEvent.DELIVER_MATCHING));
+		}
 		registry.publishServiceEvent(new ServiceEvent(ServiceEvent.UNREGISTERING, ref));
 
 		int size = 0;
@@ -13,11 +13,14 @@ package org.eclipse.osgi.internal.serviceregistry;
 
 import java.security.*;
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import org.eclipse.osgi.container.Module;
 import org.eclipse.osgi.container.ModuleRevision;
 import org.eclipse.osgi.framework.eventmgr.*;
 import org.eclipse.osgi.internal.debug.Debug;
 import org.eclipse.osgi.internal.framework.BundleContextImpl;
+import org.eclipse.osgi.internal.framework.EquinoxConfiguration;
 import org.eclipse.osgi.internal.framework.EquinoxContainer;
 import org.eclipse.osgi.internal.messages.Msg;
 import org.eclipse.osgi.storage.BundleInfo.Generation;
@@ -56,6 +59,12 @@ public class ServiceRegistry {
 	/* @GuardedBy("this") */
 	private final List<ServiceRegistrationImpl<?>> allPublishedServices;
 
+	/** The class names of the framework hook types with published services.
+	 * The set is replaced, never modified, so it can be read without holding the lock.
+	 */
+	/* @GuardedBy("this") */
+	private volatile Set<String> publishedHookClasses = Collections.emptySet();
+
 	/** Published services by BundleContextImpl.  
 	 * The {@literal List<ServiceRegistrationImpl<?>>}s are NOT sorted 
 	 * and also are sets in that
@@ -82,6 +91,8 @@ public class ServiceRegistry {
 	private final EquinoxContainer container;
 	private final BundleContextImpl systemBundleContext;
 	final Debug debug;
+	/** the default window in milliseconds to coalesce MODIFIED events in; 0 if not coalesced */
+	private final long modifiedCoalesceWindow;
 
 	/**
 	 * Initializes the internal data structures of this ServiceRegistry.
@@ -90,6 +101,7 @@ public class ServiceRegistry {
 	public ServiceRegistry(EquinoxContainer container) {
 		this.container = container;
 		this.debug = container.getConfiguration().getDebug();
+		this.modifiedCoalesceWindow = parseWindow(container.getConfiguration().getConfiguration(EquinoxConfiguration.PROP_SERVICE_MODIFIED_COALESCE_WINDOW), 0);
 		serviceid = 1;
 		publishedServicesByClass = new HashMap<>(initialCapacity);
 		publishedServicesByContext = new HashMap<>(initialCapacity);
@@ -100,6 +112,76 @@ public class ServiceRegistry {
 		systemBundleContext.provisionServicesInUseMap();
 	}
 
+	/**
+	 * Returns the window in which MODIFIED events of a registration are coalesced.
+	 * The window is set by the service property of the registration or by the
+	 * framework configuration.
+	 * @param properties the properties of the registration
+	 * @return the window in nanoseconds; 0 if MODIFIED events are not coalesced
+	 */
+	long getModifiedCoalesceWindow(Map<String, Object> properties) {
+		Object value = properties.get(EquinoxConfiguration.PROP_SERVICE_MODIFIED_COALESCE_WINDOW);
+		long window;
+		if (value instanceof Number) {
+			window = ((Number) value).longValue();
+		} else if (value instanceof String) {
+			window = parseWindow((String) value, modifiedCoalesceWindow);
+		} else {
+			window = modifiedCoalesceWindow;
+		}
+		return window > 0 ? TimeUnit.MILLISECONDS.toNanos(window) : 0;
+	}
+
+	private static long parseWindow(String value, long defaultWindow) {
+		if (value == null) {
+			return defaultWindow;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			return defaultWindow;
+		}
+	}
+
+	/**
+	 * Runs a task after a delay on the asynchronous event thread.  The framework
+	 * executor only hands the task over when the delay ends, so a slow task does not
+	 * delay other work of the framework executor, such as saving the storage.
+	 * The task is run immediately if the framework is shutting down.
+	 * @param task the task to run
+	 * @param delay the delay in nanoseconds
+	 */
+	void schedule(final Runnable task, long delay) {
+		try {
+			container.getScheduledExecutor().schedule(new Runnable() {
+				public void run() {
+					dispatchAsynchronous(task);
+				}
+			}, delay, TimeUnit.NANOSECONDS);
+		} catch (RejectedExecutionException e) {
+			task.run();
+		}
+	}
+
+	void dispatchAsynchronous(Runnable task) {
+		ListenerQueue<Runnable, Runnable, Object> queue;
+		try {
+			queue = container.newListenerQueue();
+		} catch (IllegalArgumentException e) {
+			// the event manager is closed
+			task.run();
+			return;
+		}
+		queue.queueListeners(Collections.singletonMap(task, task).entrySet(), taskDispatcher);
+		queue.dispatchEventAsynchronous(0, null);
+	}
+
+	private static final EventDispatcher<Runnable, Runnable, Object> taskDispatcher = new EventDispatcher<Runnable, Runnable, Object>() {
+		public void dispatchEvent(Runnable eventListener, Runnable listenerObject, int eventAction, Object eventObject) {
+			eventListener.run();
+		}
+	};
+
 	/**
 	 * Registers the specified service object with the specified properties
 	 * under the specified class names into the Framework. A
@@ -910,6 +992,11 @@ public class ServiceRegistry {
 			if (services == null) {
 				services = new ArrayList<>(initialSubCapacity);
 				publishedServicesByClass.put(clazz, services);
+				if (isHookClass(clazz)) {
+					Set<String> hookClasses = new HashSet<>(publishedHookClasses);
+					hookClasses.add(clazz);
+					publishedHookClasses = hookClasses;
+				}
 			}
 
 			// The list is sorted, so we must find the proper location to insert
@@ -975,6 +1062,11 @@ public class ServiceRegistry {
 			services.remove(registration);
 			if (services.isEmpty()) { // remove empty list
 				publishedServicesByClass.remove(clazz);
+				if (isHookClass(clazz)) {
+					Set<String> hookClasses = new HashSet<>(publishedHookClasses);
+					hookClasses.remove(clazz);
+					publishedHookClasses = hookClasses;
+				}
 			}
 		}
 
@@ -1264,6 +1356,22 @@ public class ServiceRegistry {
 		});
 	}
 
+	private static boolean isHookClass(String clazz) {
+		return clazz.startsWith("org.osgi.framework.hooks."); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns true if a hook service of the specified type is registered.
+	 * Does not lock the registry since it is called for every event.
+	 * 
+	 * @param hookClassName The class name of the hook type.  Must be a type
+	 * of the org.osgi.framework.hooks packages.
+	 * @return true if a hook service of the specified type is registered.
+	 */
+	public boolean hasHooks(String hookClassName) {
+		return publishedHookClasses.contains(hookClassName);
+	}
+
 	/**
 	 * Calls all hook services of the type specified by the hook context.
 	 * 
@@ -18,7 +18,6 @@ import java.security.NoSuchAlgorithmException;
 import org.eclipse.osgi.signedcontent.InvalidContentException;
 import org.eclipse.osgi.signedcontent.SignerInfo;
 import org.eclipse.osgi.storage.bundlefile.BundleEntry;
-import org.eclipse.osgi.storage.bundlefile.BundleFile;
 import org.eclipse.osgi.util.NLS;
 
 /**
@@ -30,7 +29,7 @@ class DigestedInputStream extends FilterInputStream {
 	private final MessageDigest digests[];
 	private final byte result[][];
 	private final BundleEntry entry;
-	private final BundleFile bundleFile;
+	private final SignedContentImpl signedContent;
 	private long remaining;
 
 	/**
@@ -38,16 +37,17 @@ class DigestedInputStream extends FilterInputStream {
 	 * calculates the digest. At the end of the stream an exception will be
 	 * thrown if the calculated digest doesn't match the passed digest.
 	 * 
-	 * @param in the stream to use as an input source.
+	 * @param entry the entry to read.
+	 * @param signedContent the signed content of the entry.
 	 * @param signerInfos the signers.
 	 * @param results the expected digest.
 	 * @throws IOException 
 	 * @throws NoSuchAlgorithmException 
 	 */
-	DigestedInputStream(BundleEntry entry, BundleFile bundleFile, SignerInfo[] signerInfos, byte results[][], long size) throws IOException, NoSuchAlgorithmException {
+	DigestedInputStream(BundleEntry entry, SignedContentImpl signedContent, SignerInfo[] signerInfos, byte results[][], long size) throws IOException, NoSuchAlgorithmException {
 		super(entry.getInputStream());
 		this.entry = entry;
-		this.bundleFile = bundleFile;
+		this.signedContent = signedContent;
 		this.remaining = size;
 		this.digests = new MessageDigest[signerInfos.length];
 		for (int i = 0; i < signerInfos.length; i++)
@@ -101,8 +101,9 @@ class DigestedInputStream extends FilterInputStream {
 		for (int i = 0; i < digests.length; i++) {
 			byte rc[] = digests[i].digest();
 			if (!MessageDigest.isEqual(result[i], rc))
-				throw new InvalidContentException(NLS.bind(SignedContentMessages.File_In_Jar_Is_Tampered, entry.getName(), bundleFile.getBaseFile()), null);
+				throw new InvalidContentException(NLS.bind(SignedContentMessages.File_In_Jar_Is_Tampered, entry.getName(), signedContent.content.getBaseFile()), null);
 		}
+		signedContent.setVerified(entry.getName());
 	}
 
 	/**
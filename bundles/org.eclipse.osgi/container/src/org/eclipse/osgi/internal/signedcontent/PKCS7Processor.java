@@ -455,7 +455,11 @@ public class PKCS7Processor implements SignedContentConstants {
 		BERProcessor certsBERS = bp.stepInto();
 
 		do {
-			X509Certificate x509Cert = (X509Certificate) certFact.generateCertificate(new ByteArrayInputStream(certsBERS.buffer, certsBERS.offset, certsBERS.endOffset - certsBERS.offset));
+			X509Certificate x509Cert;
+			// the factory is shared by signature blocks verified in parallel
+			synchronized (certFact) {
+				x509Cert = (X509Certificate) certFact.generateCertificate(new ByteArrayInputStream(certsBERS.buffer, certsBERS.offset, certsBERS.endOffset - certsBERS.offset));
+			}
 
 			if (x509Cert != null) {
 				rtvList.add(x509Cert);
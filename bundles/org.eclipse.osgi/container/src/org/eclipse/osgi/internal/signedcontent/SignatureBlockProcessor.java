@@ -14,6 +14,8 @@ import java.security.*;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 import org.eclipse.osgi.framework.log.FrameworkLogEntry;
 import org.eclipse.osgi.signedcontent.SignerInfo;
 import org.eclipse.osgi.storage.bundlefile.BundleEntry;
@@ -55,10 +57,13 @@ public class SignatureBlockProcessor implements SignedContentConstants {
 			return createUnsignedContent();
 
 		byte manifestBytes[] = readIntoArray(be);
-		// process the signers
-
+		// verify the signature blocks; they are independent so they may be verified in parallel
+		List<SignatureBlock> blocks = new ArrayList<>(signers.size());
 		for (Iterator<String> iSigners = signers.iterator(); iSigners.hasNext();)
-			processSigner(wrappedBundleFile, manifestBytes, iSigners.next());
+			blocks.add(new SignatureBlock(wrappedBundleFile, manifestBytes, iSigners.next()));
+		// process the signers in order; the failure of the first failing signer is thrown
+		for (Future<SignatureBlock> block : signedBundleHook.verify(blocks))
+			processSigner(manifestBytes, SignedBundleHook.getResult(block));
 
 		// done processing now create a SingedContent to return
 		SignerInfo[] allSigners = signerInfos.toArray(new SignerInfo[signerInfos.size()]);
@@ -82,29 +87,9 @@ public class SignatureBlockProcessor implements SignedContentConstants {
 		return result;
 	}
 
-	private void processSigner(BundleFile bf, byte[] manifestBytes, String signer) throws IOException, SignatureException, InvalidKeyException, CertificateException, NoSuchAlgorithmException, NoSuchProviderException {
-		BundleEntry be = bf.getEntry(signer);
-		byte pkcs7Bytes[] = readIntoArray(be);
-		int dotIndex = signer.lastIndexOf('.');
-		be = bf.getEntry(signer.substring(0, dotIndex) + DOT_SF);
-		byte sfBytes[] = readIntoArray(be);
-
-		// Step 1, verify the .SF file is signed by the private key that corresponds to the public key 
-		// in the .RSA/.DSA file
-		String baseFile = bf.getBaseFile() != null ? bf.getBaseFile().toString() : null;
-		PKCS7Processor processor = new PKCS7Processor(pkcs7Bytes, 0, pkcs7Bytes.length, signer, baseFile);
-		// call the Step 1 in the Jar File Verification algorithm
-		processor.verifySFSignature(sfBytes, 0, sfBytes.length);
-		// algorithm used
-		String digAlg = getDigAlgFromSF(sfBytes);
-		if (digAlg == null)
-			throw new SignatureException(NLS.bind(SignedContentMessages.SF_File_Parsing_Error, new String[] {bf.toString()}));
-		// get the digest results
-		// Process the Step 2 in the Jar File Verification algorithm
-		// Get the manifest out of the signature file and make sure
-		// it matches MANIFEST.MF
-		verifyManifestAndSignatureFile(manifestBytes, sfBytes);
-
+	private void processSigner(byte[] manifestBytes, SignatureBlock block) {
+		PKCS7Processor processor = block.processor;
+		String digAlg = block.digAlg;
 		// create a SignerInfo with the processed information
 		SignerInfoImpl signerInfo = new SignerInfoImpl(processor.getCertificates(), null, digAlg);
 		if ((supportFlags & SignedBundleHook.VERIFY_RUNTIME) != 0)
@@ -122,6 +107,50 @@ public class SignatureBlockProcessor implements SignedContentConstants {
 		}
 	}
 
+	/**
+	 * Verifies the signature of one signature block and the digest of the manifest
+	 * listed in its .SF file.
+	 */
+	class SignatureBlock implements Callable<SignatureBlock> {
+		private final BundleFile bf;
+		private final byte[] manifestBytes;
+		private final String signer;
+		PKCS7Processor processor;
+		String digAlg;
+
+		SignatureBlock(BundleFile bf, byte[] manifestBytes, String signer) {
+			this.bf = bf;
+			this.manifestBytes = manifestBytes;
+			this.signer = signer;
+		}
+
+		@Override
+		public SignatureBlock call() throws IOException, SignatureException, InvalidKeyException, CertificateException, NoSuchAlgorithmException, NoSuchProviderException {
+			BundleEntry be = bf.getEntry(signer);
+			byte pkcs7Bytes[] = readIntoArray(be);
+			int dotIndex = signer.lastIndexOf('.');
+			be = bf.getEntry(signer.substring(0, dotIndex) + DOT_SF);
+			byte sfBytes[] = readIntoArray(be);
+
+			// Step 1, verify the .SF file is signed by the private key that corresponds to the public key 
+			// in the .RSA/.DSA file
+			String baseFile = bf.getBaseFile() != null ? bf.getBaseFile().toString() : null;
+			processor = new PKCS7Processor(pkcs7Bytes, 0, pkcs7Bytes.length, signer, baseFile);
+			// call the Step 1 in the Jar File Verification algorithm
+			processor.verifySFSignature(sfBytes, 0, sfBytes.length);
+			// algorithm used
+			digAlg = getDigAlgFromSF(sfBytes);
+			if (digAlg == null)
+				throw new SignatureException(NLS.bind(SignedContentMessages.SF_File_Parsing_Error, new String[] {bf.toString()}));
+			// get the digest results
+			// Process the Step 2 in the Jar File Verification algorithm
+			// Get the manifest out of the signature file and make sure
+			// it matches MANIFEST.MF
+			verifyManifestAndSignatureFile(manifestBytes, sfBytes);
+			return this;
+		}
+	}
+
 	/**
 	 * Verify the digest listed in each entry in the .SF file with corresponding section in the manifest
 	 * @throws SignatureException 
@@ -10,8 +10,7 @@
  *******************************************************************************/
 package org.eclipse.osgi.internal.signedcontent;
 
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
 import java.lang.reflect.Field;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -19,6 +18,7 @@ import java.security.*;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.zip.ZipFile;
 import org.eclipse.osgi.framework.log.FrameworkLogEntry;
 import org.eclipse.osgi.framework.util.SecureAction;
@@ -58,7 +58,13 @@ public class SignedBundleHook implements ActivatorHookFactory, BundleFileWrapper
 	private final static String SIGNED_BUNDLE_SUPPORT = "osgi.support.signature.verify"; //$NON-NLS-1$
 	private final static String SIGNED_CONTENT_SUPPORT = "osgi.signedcontent.support"; //$NON-NLS-1$
 	private final static String OSGI_KEYSTORE = "osgi.framework.keystore"; //$NON-NLS-1$
+	private final static String SIGNED_CONTENT_VERIFY_THREADS = "equinox.signedcontent.verify.threads"; //$NON-NLS-1$
 	private int supportSignedBundles;
+	private int verifyThreads = 1;
+	/* @GuardedBy("this") */
+	private ExecutorService verifyExecutor;
+	/* @GuardedBy("this"); true once the framework stopped, tasks then run in the calling thread */
+	private boolean verifyStopped;
 	TrustEngineListener trustEngineListener;
 	private String trustEngineNameProp;
 	private ServiceRegistration<?> signedContentFactoryReg;
@@ -90,6 +96,9 @@ public class SignedBundleHook implements ActivatorHookFactory, BundleFileWrapper
 
 	void frameworkStart(BundleContext bc) {
 		this.context = bc;
+		synchronized (this) {
+			verifyStopped = false;
+		}
 		if ((supportSignedBundles & VERIFY_TRUST) != 0)
 			// initialize the trust engine listener only if trust is being established with a trust engine
 			trustEngineListener = new TrustEngineListener(context, this);
@@ -146,6 +155,14 @@ public class SignedBundleHook implements ActivatorHookFactory, BundleFileWrapper
 			trustEngineTracker.close();
 			trustEngineTracker = null;
 		}
+		ExecutorService currentExecutor;
+		synchronized (this) {
+			verifyStopped = true;
+			currentExecutor = verifyExecutor;
+			verifyExecutor = null;
+		}
+		if (currentExecutor != null)
+			currentExecutor.shutdown();
 	}
 
 	public BundleFileWrapper wrapBundleFile(BundleFile bundleFile, Generation generation, boolean base) {
@@ -154,11 +171,17 @@ public class SignedBundleHook implements ActivatorHookFactory, BundleFileWrapper
 				StorageHookImpl hook = generation.getStorageHook(SignedStorageHook.class);
 				SignedBundleFile signedBaseFile;
 				if (base && hook != null) {
-					signedBaseFile = new SignedBundleFile(bundleFile, hook.signedContent, supportSignedBundles, this);
-					if (hook.signedContent == null) {
+					if (hook.isVerified(bundleFile.getBaseFile())) {
+						// the content is unchanged since it was verified
+						if (hook.signedContent == null)
+							return null;
+						signedBaseFile = new SignedBundleFile(bundleFile, hook.signedContent, supportSignedBundles, this);
+					} else {
+						signedBaseFile = new SignedBundleFile(bundleFile, null, supportSignedBundles, this);
 						signedBaseFile.initializeSignedContent();
 						SignedContentImpl signedContent = signedBaseFile.getSignedContent();
-						hook.signedContent = signedContent != null && signedContent.isSigned() ? signedContent : null;
+						hook.setVerified(signedContent != null && signedContent.isSigned() ? signedContent : null, bundleFile.getBaseFile());
+						generation.getBundleInfo().getStorage().storageHooksChanged();
 					}
 				} else
 					signedBaseFile = new SignedBundleFile(bundleFile, null, supportSignedBundles, this);
@@ -167,6 +190,9 @@ public class SignedBundleHook implements ActivatorHookFactory, BundleFileWrapper
 				if (signedContent != null && signedContent.isSigned()) {
 					// only use the signed file if there are certs
 					signedContent.setContent(signedBaseFile);
+					if (base && hook != null)
+						// the verified entries are persisted by the storage hook
+						signedContent.setStorage(generation.getBundleInfo().getStorage());
 					return new BundleFileWrapper(signedBaseFile);
 				}
 			}
@@ -193,6 +219,14 @@ public class SignedBundleHook implements ActivatorHookFactory, BundleFileWrapper
 				supportSignedBundles |= VERIFY_ALL;
 		}
 		trustEngineNameProp = hookRegistry.getConfiguration().getConfiguration(SignedContentConstants.TRUST_ENGINE);
+		String verifyThreadsProp = hookRegistry.getConfiguration().getConfiguration(SIGNED_CONTENT_VERIFY_THREADS);
+		try {
+			verifyThreads = verifyThreadsProp == null ? -1 : Integer.parseInt(verifyThreadsProp);
+		} catch (NumberFormatException e) {
+			verifyThreads = -1;
+		}
+		if (verifyThreads <= 0)
+			verifyThreads = Runtime.getRuntime().availableProcessors();
 
 		if ((supportSignedBundles & VERIFY_CERTIFICATE) != 0) {
 			hookRegistry.addStorageHookFactory(new SignedStorageHook());
@@ -227,7 +261,7 @@ public class SignedBundleHook implements ActivatorHookFactory, BundleFileWrapper
 		} catch (NoSuchProviderException e) {
 			throw (NoSuchProviderException) new NoSuchProviderException(NLS.bind(SignedContentMessages.Factory_SignedContent_Error, content)).initCause(e);
 		}
-		return new SignedContentFile(result.getSignedContent());
+		return new SignedContentFile(result.getSignedContent(), this);
 	}
 
 	public SignedContent getSignedContent(Bundle bundle) throws IOException, InvalidKeyException, SignatureException, CertificateException, NoSuchAlgorithmException, NoSuchProviderException, IllegalArgumentException {
@@ -262,6 +296,125 @@ public class SignedBundleHook implements ActivatorHookFactory, BundleFileWrapper
 		}
 	}
 
+	/**
+	 * Runs the verification tasks and returns their results in the order of the tasks.
+	 * The tasks run in parallel on the verification pool if there is more than one task
+	 * and more than one verification thread is configured; otherwise, or once the
+	 * framework is stopped, they run in the calling thread.  All tasks are run even if some of them fail.
+	 * @param tasks the verification tasks
+	 * @return the completed results of the tasks
+	 */
+	<T> List<Future<T>> verify(List<? extends Callable<T>> tasks) {
+		ExecutorService executor = tasks.size() > 1 && verifyThreads > 1 ? getVerifyExecutor() : null;
+		if (executor != null) {
+			List<Callable<T>> pooledTasks = new ArrayList<>(tasks.size());
+			if (System.getSecurityManager() == null) {
+				pooledTasks.addAll(tasks);
+			} else {
+				// run the tasks with the permissions of the caller
+				final AccessControlContext callerContext = AccessController.getContext();
+				for (final Callable<T> task : tasks) {
+					pooledTasks.add(new Callable<T>() {
+						@Override
+						public T call() throws Exception {
+							try {
+								return AccessController.doPrivileged(new PrivilegedExceptionAction<T>() {
+									@Override
+									public T run() throws Exception {
+										return task.call();
+									}
+								}, callerContext);
+							} catch (PrivilegedActionException e) {
+								throw e.getException();
+							}
+						}
+					});
+				}
+			}
+			try {
+				// a pool shut down in the meantime runs the tasks in the calling thread
+				return executor.invokeAll(pooledTasks);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		List<Future<T>> results = new ArrayList<>(tasks.size());
+		for (Callable<T> task : tasks) {
+			FutureTask<T> result = new FutureTask<>(task);
+			result.run();
+			results.add(result);
+		}
+		return results;
+	}
+
+	/**
+	 * Returns the verification pool, creating it on first use.
+	 * @return the verification pool or <code>null</code> if the framework is stopped
+	 */
+	private synchronized ExecutorService getVerifyExecutor() {
+		if (verifyStopped)
+			return null;
+		if (verifyExecutor == null)
+			verifyExecutor = createVerifyExecutor();
+		return verifyExecutor;
+	}
+
+	private ExecutorService createVerifyExecutor() {
+		// go to zero threads quickly when idle; use sync queue to force thread creation
+		BlockingQueue<Runnable> queue = new SynchronousQueue<>();
+		ThreadFactory threadFactory = new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "Signed content verifier"); //$NON-NLS-1$
+				t.setDaemon(true);
+				return t;
+			}
+		};
+		// run the task in the current thread once the max threads is reached
+		RejectedExecutionHandler rejectHandler = new RejectedExecutionHandler() {
+			@Override
+			public void rejectedExecution(Runnable r, ThreadPoolExecutor exe) {
+				r.run();
+			}
+		};
+		return new ThreadPoolExecutor(0, verifyThreads, 10, TimeUnit.SECONDS, queue, threadFactory, rejectHandler);
+	}
+
+	/**
+	 * Returns the result of a completed verification task, throwing the exception
+	 * the task failed with.
+	 * @param result the completed verification task
+	 * @return the result of the task
+	 */
+	static <T> T getResult(Future<T> result) throws IOException, InvalidKeyException, SignatureException, CertificateException, NoSuchAlgorithmException, NoSuchProviderException {
+		try {
+			return result.get();
+		} catch (InterruptedException e) {
+			// the task is already completed
+			Thread.currentThread().interrupt();
+			throw (IOException) new InterruptedIOException().initCause(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			if (cause instanceof InvalidKeyException)
+				throw (InvalidKeyException) cause;
+			if (cause instanceof SignatureException)
+				throw (SignatureException) cause;
+			if (cause instanceof CertificateException)
+				throw (CertificateException) cause;
+			if (cause instanceof NoSuchAlgorithmException)
+				throw (NoSuchAlgorithmException) cause;
+			if (cause instanceof NoSuchProviderException)
+				throw (NoSuchProviderException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new RuntimeException("Unknown error.", cause); //$NON-NLS-1$
+		}
+	}
+
 	public void log(String msg, int severity, Throwable t) {
 		container.getLogServices().log(EquinoxContainer.NAME, severity, msg, t);
 	}
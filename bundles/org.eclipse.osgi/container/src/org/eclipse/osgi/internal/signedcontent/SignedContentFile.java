@@ -14,6 +14,7 @@ import java.io.IOException;
 import java.security.cert.CertificateExpiredException;
 import java.security.cert.CertificateNotYetValidException;
 import java.util.*;
+import java.util.concurrent.*;
 import org.eclipse.osgi.signedcontent.*;
 
 /*
@@ -24,16 +25,18 @@ import org.eclipse.osgi.signedcontent.*;
 public class SignedContentFile implements SignedContent {
 
 	private final SignedContentImpl signedContent;
+	private final SignedBundleHook signedBundleHook;
 	// a cache of verification exceptions
 	private Map<String, Throwable> entryExceptions = null;
 
-	public SignedContentFile(SignedContentImpl signedContent) {
+	public SignedContentFile(SignedContentImpl signedContent, SignedBundleHook signedBundleHook) {
 		try {
 			signedContent.content.close();
 		} catch (IOException e) {
 			// do nothing
 		}
 		this.signedContent = signedContent;
+		this.signedBundleHook = signedBundleHook;
 	}
 
 	public void checkValidity(SignerInfo signerInfo) throws CertificateExpiredException, CertificateNotYetValidException {
@@ -46,11 +49,19 @@ public class SignedContentFile implements SignedContent {
 			return null;
 		SignedContentEntry[] results = new SignedContentEntry[entries.length];
 		Map<String, Throwable> exceptions = getEntryExceptions(true);
+		// the entries are digested in parallel
+		List<Callable<Void>> verifications = new ArrayList<>(entries.length);
+		for (int i = 0; i < entries.length; i++)
+			verifications.add(new EntryVerification(entries[i]));
+		List<Future<Void>> verified = signedBundleHook.verify(verifications);
 		for (int i = 0; i < entries.length; i++) {
 			try {
-				entries[i].verify();
-			} catch (Throwable t) {
-				exceptions.put(entries[i].getName(), t);
+				verified.get(i).get();
+			} catch (ExecutionException e) {
+				exceptions.put(entries[i].getName(), e.getCause());
+			} catch (InterruptedException e) {
+				// the verification is already completed
+				Thread.currentThread().interrupt();
 			}
 			results[i] = new SignedContentFileEntry(entries[i]);
 		}
@@ -92,6 +103,20 @@ public class SignedContentFile implements SignedContent {
 		return entryExceptions;
 	}
 
+	static class EntryVerification implements Callable<Void> {
+		private final SignedContentEntry entry;
+
+		EntryVerification(SignedContentEntry entry) {
+			this.entry = entry;
+		}
+
+		@Override
+		public Void call() throws IOException, InvalidContentException {
+			entry.verify();
+			return null;
+		}
+	}
+
 	public class SignedContentFileEntry implements SignedContentEntry {
 		private final SignedContentEntry entry;
 
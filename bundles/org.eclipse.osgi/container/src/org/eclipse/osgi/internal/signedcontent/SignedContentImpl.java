@@ -8,12 +8,15 @@
  ******************************************************************************/
 package org.eclipse.osgi.internal.signedcontent;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.*;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
 import org.eclipse.osgi.signedcontent.*;
+import org.eclipse.osgi.storage.Storage;
 import org.eclipse.osgi.storage.bundlefile.BundleEntry;
 import org.eclipse.osgi.storage.bundlefile.BundleFile;
 import org.eclipse.osgi.util.NLS;
@@ -23,16 +26,29 @@ public class SignedContentImpl implements SignedContent {
 	// the content which is signed
 	volatile SignedBundleFile content; // TODO can this be more general?
 	// the content entry md results used for entry content verification
-	// keyed by entry path -> {SignerInfo[] infos, byte[][] results)}
+	// keyed by entry path -> {SignerInfo[] infos, byte[][] results, Integer index)}
 	private final Map<String, Object> contentMDResults;
 	private final SignerInfo[] signerInfos;
 	// map of tsa singers keyed by SignerInfo -> {tsa_SignerInfo, signingTime}
 	private Map<SignerInfo, Object[]> tsaSignerInfos;
 	volatile private boolean checkedValid = false;
+	// a bit for each md result index; set if the content of the entry matched the md results.
+	// Only tracked for archives
+	private final AtomicLongArray verifiedEntries;
+	volatile private boolean trackVerified = false;
+	// the storage which persists the verified entries
+	volatile private Storage storage;
 
 	public SignedContentImpl(SignerInfo[] signerInfos, Map<String, Object> contentMDResults) {
 		this.signerInfos = signerInfos == null ? EMPTY_SIGNERINFO : signerInfos;
 		this.contentMDResults = contentMDResults;
+		int numEntries = 0;
+		if (contentMDResults != null)
+			for (Map.Entry<String, Object> entry : contentMDResults.entrySet()) {
+				Object[] mdResult = (Object[]) entry.getValue();
+				entry.setValue(new Object[] {mdResult[0], mdResult[1], Integer.valueOf(numEntries++)});
+			}
+		this.verifiedEntries = new AtomicLongArray((numEntries + 63) >>> 6);
 	}
 
 	public SignedContentEntry[] getSignedEntries() {
@@ -94,6 +110,9 @@ public class SignedContentImpl implements SignedContent {
 
 	void setContent(SignedBundleFile content) {
 		this.content = content;
+		// the files of a directory may change without changing the directory
+		File baseFile = content == null ? null : content.getBaseFile();
+		this.trackVerified = baseFile != null && !SignedBundleHook.secureAction.isDirectory(baseFile);
 	}
 
 	void setTSASignerInfos(Map<SignerInfo, Object[]> tsaSignerInfos) {
@@ -113,6 +132,70 @@ public class SignedContentImpl implements SignedContent {
 		return contentMDResults;
 	}
 
+	/**
+	 * Records that the content of an entry matched the md results.  The content
+	 * of verified entries is not digested again unless the entry is explicitly verified.
+	 * @param entryName the name of the verified entry
+	 */
+	void setVerified(String entryName) {
+		if (trackVerified && restoreVerified(entryName))
+			storageHooksChanged();
+	}
+
+	boolean restoreVerified(String entryName) {
+		Object[] mdResult = contentMDResults == null ? null : (Object[]) contentMDResults.get(entryName);
+		return mdResult != null && setVerified(mdResult, true);
+	}
+
+	Collection<String> getVerifiedEntries() {
+		if (contentMDResults == null)
+			return Collections.emptyList();
+		List<String> results = new ArrayList<>();
+		for (Map.Entry<String, Object> entry : contentMDResults.entrySet()) {
+			if (isVerified((Object[]) entry.getValue()))
+				results.add(entry.getKey());
+		}
+		return results;
+	}
+
+	private boolean isVerified(Object[] mdResult) {
+		int index = ((Integer) mdResult[2]).intValue();
+		return (verifiedEntries.get(index >>> 6) & (1L << index)) != 0;
+	}
+
+	private boolean setVerified(Object[] mdResult, boolean verified) {
+		int index = ((Integer) mdResult[2]).intValue();
+		long bit = 1L << index;
+		long current;
+		do {
+			current = verifiedEntries.get(index >>> 6);
+			if (((current & bit) != 0) == verified)
+				return false;
+		} while (!verifiedEntries.compareAndSet(index >>> 6, current, current ^ bit));
+		return true;
+	}
+
+	/**
+	 * Forgets that the content of an entry matched the md results so that the content
+	 * is digested again the next time the entry is read.
+	 * @param entryName the name of the entry to verify again
+	 */
+	void clearVerified(String entryName) {
+		Object[] mdResult = contentMDResults == null ? null : (Object[]) contentMDResults.get(entryName);
+		if (mdResult != null && setVerified(mdResult, false))
+			storageHooksChanged();
+	}
+
+	void setStorage(Storage storage) {
+		this.storage = storage;
+	}
+
+	private void storageHooksChanged() {
+		Storage current = storage;
+		if (current != null)
+			current.storageHooksChanged();
+	}
+
 	private boolean containsInfo(SignerInfo signerInfo) {
 		for (int i = 0; i < signerInfos.length; i++)
 			if (signerInfo == signerInfos[i])
@@ -126,8 +209,11 @@ public class SignedContentImpl implements SignedContent {
 		Object[] mdResult = (Object[]) contentMDResults.get(nestedEntry.getName());
 		if (mdResult == null)
 			return null;
+		if (isVerified(mdResult))
+			// the content was already found to match the digests
+			return nestedEntry.getInputStream();
 		try {
-			return new DigestedInputStream(nestedEntry, content, (SignerInfo[]) mdResult[0], (byte[][]) mdResult[1], nestedEntry.getSize());
+			return new DigestedInputStream(nestedEntry, this, (SignerInfo[]) mdResult[0], (byte[][]) mdResult[1], nestedEntry.getSize());
 		} catch (NoSuchAlgorithmException e) {
 			throw new IOException(e);
 		}
@@ -167,6 +253,8 @@ public class SignedContentImpl implements SignedContent {
 			}
 			if (entry == null)
 				throw new InvalidContentException(NLS.bind(SignedContentMessages.file_is_removed_from_jar, entryName, currentContent.getBaseFile().toString()), exception);
+			// an explicit verification always digests the content
+			clearVerified(entryName);
 			entry.getBytes();
 		}
 	}
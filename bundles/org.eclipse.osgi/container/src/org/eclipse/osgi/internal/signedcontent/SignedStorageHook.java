@@ -15,10 +15,11 @@ import org.eclipse.osgi.internal.hookregistry.StorageHookFactory;
 import org.eclipse.osgi.signedcontent.SignedContent;
 import org.eclipse.osgi.signedcontent.SignerInfo;
 import org.eclipse.osgi.storage.BundleInfo.Generation;
+import org.eclipse.osgi.storage.bundlefile.*;
 import org.osgi.framework.BundleException;
 
 public class SignedStorageHook extends StorageHookFactory<List<SignerInfo>, List<SignerInfo>, SignedStorageHook.StorageHookImpl> {
-	private static final int STORAGE_VERSION = 4;
+	private static final int STORAGE_VERSION = 5;
 
 	public int getStorageVersion() {
 		return STORAGE_VERSION;
@@ -41,18 +42,55 @@ public class SignedStorageHook extends StorageHookFactory<List<SignerInfo>, List
 
 	static class StorageHookImpl extends StorageHookFactory.StorageHook<List<SignerInfo>, List<SignerInfo>> {
 		SignedContentImpl signedContent;
+		// the last modified time and length of the content when it was verified
+		private long contentLastModified = -1;
+		private long contentLength = -1;
 
 		public StorageHookImpl(Generation generation) {
 			super(generation, SignedStorageHook.class);
 		}
 
+		/**
+		 * Returns true if the content was verified and has not changed since.  The signed
+		 * content is <code>null</code> if the verified content is not signed.
+		 * @param content the content file
+		 * @return true if the verified state of the content is known
+		 */
+		boolean isVerified(File content) {
+			return contentLastModified != -1 && content != null && contentLastModified == SignedBundleHook.secureAction.lastModified(content) && contentLength == SignedBundleHook.secureAction.length(content);
+		}
+
+		void setVerified(SignedContentImpl verifiedContent, File content) {
+			signedContent = verifiedContent;
+			// the files of a directory may change without changing the directory
+			boolean tracked = content != null && !SignedBundleHook.secureAction.isDirectory(content);
+			contentLastModified = tracked ? SignedBundleHook.secureAction.lastModified(content) : -1;
+			contentLength = tracked ? SignedBundleHook.secureAction.length(content) : -1;
+		}
+
 		@Override
 		public void initialize(Dictionary<String, String> manifest) throws BundleException {
-			// do nothing
+			// the content of a new generation is wrapped before its storage hooks exist;
+			// take over the signed content found so that its verified entries are persisted
+			Generation generation = getGeneration();
+			BundleFile bundleFile = generation.getBundleFile();
+			for (BundleFile current = bundleFile; current instanceof BundleFileWrapperChain; current = ((BundleFileWrapperChain) current).getNext()) {
+				BundleFile wrapped = ((BundleFileWrapperChain) current).getWrapped();
+				if (wrapped instanceof BundleFileWrapper && ((BundleFileWrapper) wrapped).getBundleFile() instanceof SignedBundleFile) {
+					SignedContentImpl found = ((SignedBundleFile) ((BundleFileWrapper) wrapped).getBundleFile()).getSignedContent();
+					if (found != null && found.isSigned()) {
+						setVerified(found, bundleFile.getBaseFile());
+						found.setStorage(generation.getBundleInfo().getStorage());
+					}
+					return;
+				}
+			}
 		}
 
 		@Override
 		public void load(List<SignerInfo> loadContext, DataInputStream is) throws IOException {
+			contentLastModified = is.readLong();
+			contentLength = is.readLong();
 			boolean signed = is.readBoolean();
 			if (!signed)
 				return;
@@ -88,6 +126,9 @@ public class SignedStorageHook extends StorageHookFactory<List<SignerInfo>, List
 				Date signingDate = new Date(is.readLong());
 				result.addTSASignerInfo(signerInfos[i], tsaSigner, signingDate);
 			}
+			int numVerified = is.readInt();
+			for (int i = 0; i < numVerified; i++)
+				result.restoreVerified(is.readUTF());
 			signedContent = result;
 		}
 
@@ -115,6 +156,8 @@ public class SignedStorageHook extends StorageHookFactory<List<SignerInfo>, List
 
 		@Override
 		public void save(List<SignerInfo> saveContext, DataOutputStream os) throws IOException {
+			os.writeLong(contentLastModified);
+			os.writeLong(contentLength);
 			os.writeBoolean(signedContent != null);
 			if (signedContent == null)
 				return;
@@ -150,6 +193,12 @@ public class SignedStorageHook extends StorageHookFactory<List<SignerInfo>, List
 				Date signingTime = signedContent.getSigningTime(signerInfos[i]);
 				os.writeLong(signingTime != null ? signingTime.getTime() : Long.MIN_VALUE);
 			}
+
+			// the entries already verified against the content md results
+			Collection<String> verifiedEntries = contentMDResults == null ? Collections.<String> emptyList() : new ArrayList<>(signedContent.getVerifiedEntries());
+			os.writeInt(verifiedEntries.size());
+			for (String verifiedEntry : verifiedEntries)
+				os.writeUTF(verifiedEntry);
 		}
 
 		private void saveSignerInfo(SignerInfo signerInfo, DataOutputStream os, List<SignerInfo> saveContext) throws IOException {
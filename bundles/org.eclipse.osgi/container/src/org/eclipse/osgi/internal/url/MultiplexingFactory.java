@@ -65,6 +65,9 @@ public abstract class MultiplexingFactory {
 	protected EquinoxContainer container;
 	protected BundleContext context;
 	private List<Object> factories; // list of multiplexed factories
+	// the factory authorized for the classes of a class loader; cleared when the multiplexed factories change
+	private final Map<ClassLoader, Object> authorizedFactories = new WeakHashMap<>();
+	private static final Object NO_AUTHORITY = new Object();
 
 	// used to get access to the protected SecurityManager#getClassContext method
 	static class InternalSecurityManager extends SecurityManager {
@@ -154,21 +157,9 @@ public abstract class MultiplexingFactory {
 			Class<?> clazz = classStack[i];
 			if (clazz == InternalSecurityManager.class || clazz == MultiplexingFactory.class || ignoredClasses.contains(clazz))
 				continue;
-			if (hasAuthority(clazz))
-				return this;
-			if (current == null)
-				continue;
-			for (Object factory : current) {
-				try {
-					Method hasAuthorityMethod = factory.getClass().getMethod("hasAuthority", new Class[] {Class.class}); //$NON-NLS-1$
-					if (((Boolean) hasAuthorityMethod.invoke(factory, new Object[] {clazz})).booleanValue()) {
-						return factory;
-					}
-				} catch (Exception e) {
-					container.getLogServices().log(MultiplexingFactory.class.getName(), FrameworkLogEntry.ERROR, "findAuthorizedURLStreamHandler-loop", e); //$NON-NLS-1$
-					throw new RuntimeException(e.getMessage(), e);
-				}
-			}
+			Object factory = getAuthorizedFactory(clazz, current);
+			if (factory != null)
+				return factory;
 		}
 		// Instead of returning null here, this factory is returned;
 		// This means the root factory may provide protocol handlers for call stacks
@@ -176,6 +167,50 @@ public abstract class MultiplexingFactory {
 		return this;
 	}
 
+	/**
+	 * Returns the factory which has authority over a class.  The authority of a factory
+	 * only depends on the class loader of a class, so the answer is cached for the class
+	 * loader until the multiplexed factories change.
+	 * @param clazz the class to find the authorized factory for
+	 * @param current the current multiplexed factories
+	 * @return the authorized factory or <code>null</code> if no factory has authority
+	 */
+	private Object getAuthorizedFactory(Class<?> clazz, List<Object> current) {
+		ClassLoader loader = clazz.getClassLoader();
+		Object factory;
+		synchronized (this) {
+			factory = authorizedFactories.get(loader);
+		}
+		if (factory == null) {
+			factory = computeAuthorizedFactory(clazz, current);
+			synchronized (this) {
+				// do not cache an answer computed for factories which have changed since
+				if (current == factories)
+					authorizedFactories.put(loader, factory);
+			}
+		}
+		return factory == NO_AUTHORITY ? null : factory;
+	}
+
+	private Object computeAuthorizedFactory(Class<?> clazz, List<Object> current) {
+		if (hasAuthority(clazz))
+			return this;
+		if (current == null)
+			return NO_AUTHORITY;
+		for (Object factory : current) {
+			try {
+				Method hasAuthorityMethod = factory.getClass().getMethod("hasAuthority", new Class[] {Class.class}); //$NON-NLS-1$
+				if (((Boolean) hasAuthorityMethod.invoke(factory, new Object[] {clazz})).booleanValue()) {
+					return factory;
+				}
+			} catch (Exception e) {
+				container.getLogServices().log(MultiplexingFactory.class.getName(), FrameworkLogEntry.ERROR, "findAuthorizedURLStreamHandler-loop", e); //$NON-NLS-1$
+				throw new RuntimeException(e.getMessage(), e);
+			}
+		}
+		return NO_AUTHORITY;
+	}
+
 	public boolean hasAuthority(Class<?> clazz) {
 		Bundle b = FrameworkUtil.getBundle(clazz);
 		if (!(b instanceof EquinoxBundle)) {
@@ -184,6 +219,10 @@ public abstract class MultiplexingFactory {
 		return (container.getStorage().getModuleContainer() == ((EquinoxBundle) b).getModule().getContainer());
 	}
 
+	synchronized boolean isMultiplexed(Object factory) {
+		return factories != null && factories.contains(factory);
+	}
+
 	private synchronized List<Object> getFactories() {
 		return factories;
 	}
@@ -194,6 +233,7 @@ public abstract class MultiplexingFactory {
 
 		List<Object> released = new LinkedList<>(factories);
 		factories = null;
+		factoriesChanged();
 		return released;
 	}
 
@@ -201,12 +241,23 @@ public abstract class MultiplexingFactory {
 		List<Object> updated = (factories == null) ? new LinkedList<>() : new LinkedList<>(factories);
 		updated.add(factory);
 		factories = updated;
+		factoriesChanged();
 	}
 
 	private synchronized void removeFactory(Object factory) {
 		List<Object> updated = new LinkedList<>(factories);
 		updated.remove(factory);
 		factories = updated.isEmpty() ? null : updated;
+		factoriesChanged();
+	}
+
+	/**
+	 * Called while holding the lock of this factory when the multiplexed factories change.
+	 * Subclasses which cache anything obtained from the multiplexed factories must
+	 * call this method and discard their caches.
+	 */
+	protected void factoriesChanged() {
+		authorizedFactories.clear();
 	}
 
 	static void setAccessible(AccessibleObject o) {
@@ -41,6 +41,10 @@ public class URLStreamHandlerFactoryImpl extends MultiplexingFactory implements
 
 	private static final List<Class<?>> ignoredClasses = Arrays.asList(new Class<?>[] {MultiplexingURLStreamHandler.class, URLStreamHandlerFactoryImpl.class, URL.class});
 	private Map<String, URLStreamHandler> proxies;
+	// the handlers created by other multiplexed factories; keyed by factory and then by protocol
+	private final Map<Object, Map<String, URLStreamHandler>> authorizedHandlers = new HashMap<>();
+	private URLStreamHandler entryHandler;
+	private URLStreamHandler resourceHandler;
 	private URLStreamHandlerFactory parentFactory;
 	private ThreadLocal<List<String>> creatingProtocols = new ThreadLocal<>();
 
@@ -135,9 +139,18 @@ public class URLStreamHandlerFactoryImpl extends MultiplexingFactory implements
 
 	private URLStreamHandler getFrameworkHandler(String protocol) {
 		if (BundleResourceHandler.OSGI_ENTRY_URL_PROTOCOL.equals(protocol)) {
-			return new org.eclipse.osgi.storage.url.bundleentry.Handler(container.getStorage().getModuleContainer(), null);
+			synchronized (this) {
+				// keep the handler; it caches the bundle entries of the URLs it opens
+				if (entryHandler == null)
+					entryHandler = new org.eclipse.osgi.storage.url.bundleentry.Handler(container.getStorage().getModuleContainer(), null);
+				return entryHandler;
+			}
 		} else if (BundleResourceHandler.OSGI_RESOURCE_URL_PROTOCOL.equals(protocol)) {
-			return new org.eclipse.osgi.storage.url.bundleresource.Handler(container.getStorage().getModuleContainer(), null);
+			synchronized (this) {
+				if (resourceHandler == null)
+					resourceHandler = new org.eclipse.osgi.storage.url.bundleresource.Handler(container.getStorage().getModuleContainer(), null);
+				return resourceHandler;
+			}
 		} else if (PROTOCOL_REFERENCE.equals(protocol)) {
 			return new org.eclipse.osgi.storage.url.reference.Handler(container.getConfiguration().getConfiguration(EquinoxLocations.PROP_INSTALL_AREA));
 		}
@@ -189,15 +202,41 @@ public class URLStreamHandlerFactoryImpl extends MultiplexingFactory implements
 		if (factory == this)
 			return createInternalURLStreamHandler(protocol);
 
+		synchronized (this) {
+			Map<String, URLStreamHandler> handlers = authorizedHandlers.get(factory);
+			URLStreamHandler handler = handlers == null ? null : handlers.get(protocol);
+			if (handler != null)
+				return handler;
+		}
+
 		try {
 			Method createInternalURLStreamHandlerMethod = factory.getClass().getMethod("createInternalURLStreamHandler", new Class[] {String.class}); //$NON-NLS-1$
-			return (URLStreamHandler) createInternalURLStreamHandlerMethod.invoke(factory, new Object[] {protocol});
+			URLStreamHandler handler = (URLStreamHandler) createInternalURLStreamHandlerMethod.invoke(factory, new Object[] {protocol});
+			if (handler != null) {
+				// the handlers of a factory do not change for a protocol once created
+				synchronized (this) {
+					if (isMultiplexed(factory)) {
+						Map<String, URLStreamHandler> handlers = authorizedHandlers.get(factory);
+						if (handlers == null) {
+							handlers = new HashMap<>();
+							authorizedHandlers.put(factory, handlers);
+						}
+						handlers.put(protocol, handler);
+					}
+				}
+			}
+			return handler;
 		} catch (Exception e) {
 			container.getLogServices().log(URLStreamHandlerFactoryImpl.class.getName(), FrameworkLogEntry.ERROR, "findAuthorizedURLStreamHandler-loop", e); //$NON-NLS-1$
 			throw new RuntimeException(e.getMessage(), e);
 		}
 	}
 
+	protected void factoriesChanged() {
+		super.factoriesChanged();
+		authorizedHandlers.clear();
+	}
+
 	public Object getParentFactory() {
 		return parentFactory;
 	}
@@ -33,7 +33,7 @@ import org.osgi.util.tracker.ServiceTrackerCustomizer;
 
 public class URLStreamHandlerProxy extends URLStreamHandler implements ServiceTrackerCustomizer<URLStreamHandlerService, ServiceReference<URLStreamHandlerService>> {
 	// TODO lots of type-based names 
-	protected URLStreamHandlerService realHandlerService;
+	protected volatile URLStreamHandlerService realHandlerService;
 
 	protected URLStreamHandlerSetter urlSetter;
 
@@ -33,6 +33,7 @@ import org.eclipse.osgi.internal.location.LocationHelper;
 import org.eclipse.osgi.internal.log.EquinoxLogServices;
 import org.eclipse.osgi.internal.messages.Msg;
 import org.eclipse.osgi.internal.permadmin.SecurityAdmin;
+import org.eclipse.osgi.internal.permadmin.SecurityStatisticsImpl;
 import org.eclipse.osgi.internal.url.URLStreamHandlerFactoryImpl;
 import org.eclipse.osgi.service.datalocation.Location;
 import org.eclipse.osgi.storage.BundleInfo.Generation;
@@ -78,6 +79,7 @@ public class Storage {
 	private final ModuleContainer moduleContainer;
 	private final Object saveMonitor = new Object();
 	private long lastSavedTimestamp = -1;
+	private volatile boolean storageHooksChanged = false;
 	private final LockSet<Long> idLocks = new LockSet<>();
 	private final MRUBundleFileList mruList;
 	private final FrameworkExtensionInstaller extensionInstaller;
@@ -145,7 +147,8 @@ public class Storage {
 				cleanOSGiStorage(osgiLocation, childRoot);
 			}
 			this.permissionData = loadPermissionData(data);
-			this.securityAdmin = new SecurityAdmin(null, this.permissionData);
+			boolean securityStatistics = Boolean.parseBoolean(equinoxContainer.getConfiguration().getConfiguration(EquinoxConfiguration.PROP_SECURITY_STATISTICS));
+			this.securityAdmin = new SecurityAdmin(null, this.permissionData, securityStatistics ? new SecurityStatisticsImpl() : null);
 			this.adaptor = new EquinoxContainerAdaptor(equinoxContainer, this, generations);
 			this.moduleDatabase = new ModuleDatabase(this.adaptor);
 			this.moduleContainer = new ModuleContainer(this.adaptor, this.moduleDatabase);
@@ -1059,11 +1062,15 @@ public class Storage {
 		ManagedOutputStream mos = null;
 		DataOutputStream out = null;
 		boolean success = false;
+		boolean hooksChanged = false;
 		moduleDatabase.readLock();
 		try {
 			synchronized (this.saveMonitor) {
-				if (lastSavedTimestamp == moduleDatabase.getTimestamp())
+				hooksChanged = storageHooksChanged;
+				if (lastSavedTimestamp == moduleDatabase.getTimestamp() && !hooksChanged)
 					return;
+				// changes made while saving are saved the next time
+				storageHooksChanged = false;
 				childStorageManager = getChildStorageManager();
 				mos = childStorageManager.getOutputStream(FRAMEWORK_INFO);
 				out = new DataOutputStream(new BufferedOutputStream(mos));
@@ -1078,6 +1085,9 @@ public class Storage {
 				if (mos != null) {
 					mos.abort();
 				}
+				if (hooksChanged) {
+					storageHooksChanged = true;
+				}
 			}
 			if (out != null) {
 				try {
@@ -1093,6 +1103,14 @@ public class Storage {
 		}
 	}
 
+	/**
+	 * Marks the data persisted by the storage hooks as changed so that the next
+	 * save writes it even if the module database did not change.
+	 */
+	public void storageHooksChanged() {
+		storageHooksChanged = true;
+	}
+
 	private void savePermissionData(DataOutputStream out) throws IOException {
 		permissionData.savePermissionData(out);
 	}
@@ -185,37 +185,79 @@ public class StorageUtil {
 		return file.toURI().toURL();
 	}
 
+	/**
+	 * The largest read buffer kept for reuse by a thread.
+	 */
+	private static final int MAX_POOLED_BUFFER = 64 * 1024;
+	// the pooled read buffer of each thread; only types of the boot class loader are kept in thread locals
+	private static final ThreadLocal<byte[]> readBuffers = new ThreadLocal<>();
+	// the number of bytes allocated by getBytes on each thread which called getAllocatedBytes
+	private static final ThreadLocal<long[]> allocatedBytes = new ThreadLocal<>();
+	// set once a thread called getAllocatedBytes; avoids the thread local lookup while nobody counts
+	private static volatile boolean countAllocations;
+
+	/**
+	 * Returns the number of bytes allocated by {@link #getBytes(InputStream, int, int)}
+	 * on the current thread.  The allocations of a thread are only counted after
+	 * this method was called on the thread for the first time.
+	 * @return the number of bytes allocated on the current thread
+	 */
+	public static long getAllocatedBytes() {
+		long[] allocated = allocatedBytes.get();
+		if (allocated == null) {
+			allocated = new long[1];
+			allocatedBytes.set(allocated);
+			countAllocations = true;
+		}
+		return allocated[0];
+	}
+
 	public static byte[] getBytes(InputStream in, int length, int BUF_SIZE) throws IOException {
+		long allocated = 0;
 		byte[] classbytes;
 		int bytesread = 0;
 		int readcount;
 		try {
 			if (length > 0) {
+				// the length is known; read directly into an array of the exact size
 				classbytes = new byte[length];
+				allocated += length;
 				for (; bytesread < length; bytesread += readcount) {
 					readcount = in.read(classbytes, bytesread, length - bytesread);
 					if (readcount <= 0) /* if we didn't read anything */
 						break; /* leave the loop */
 				}
+				if (bytesread < length) {
+					byte[] oldbytes = classbytes;
+					classbytes = new byte[bytesread];
+					allocated += bytesread;
+					System.arraycopy(oldbytes, 0, classbytes, 0, bytesread);
+				}
 			} else /* does not know its own length! */ {
-				length = BUF_SIZE;
-				classbytes = new byte[length];
+				// read into the buffer of this thread and copy the bytes read once;
+				// the buffer is taken while in use in case reading causes a nested read
+				byte[] buffer = readBuffers.get();
+				readBuffers.set(null);
+				if (buffer == null) {
+					buffer = new byte[BUF_SIZE];
+					allocated += BUF_SIZE;
+				}
 				readloop: while (true) {
-					for (; bytesread < length; bytesread += readcount) {
-						readcount = in.read(classbytes, bytesread, length - bytesread);
+					for (; bytesread < buffer.length; bytesread += readcount) {
+						readcount = in.read(buffer, bytesread, buffer.length - bytesread);
 						if (readcount <= 0) /* if we didn't read anything */
 							break readloop; /* leave the loop */
 					}
-					byte[] oldbytes = classbytes;
-					length += BUF_SIZE;
-					classbytes = new byte[length];
-					System.arraycopy(oldbytes, 0, classbytes, 0, bytesread);
+					byte[] oldbytes = buffer;
+					buffer = new byte[buffer.length * 2];
+					allocated += buffer.length;
+					System.arraycopy(oldbytes, 0, buffer, 0, bytesread);
 				}
-			}
-			if (classbytes.length > bytesread) {
-				byte[] oldbytes = classbytes;
 				classbytes = new byte[bytesread];
-				System.arraycopy(oldbytes, 0, classbytes, 0, bytesread);
+				allocated += bytesread;
+				System.arraycopy(buffer, 0, classbytes, 0, bytesread);
+				if (buffer.length <= MAX_POOLED_BUFFER)
+					readBuffers.set(buffer);
 			}
 		} finally {
 			try {
@@ -224,6 +266,11 @@ public class StorageUtil {
 				// nothing to do here
 			}
 		}
+		if (countAllocations) {
+			long[] total = allocatedBytes.get();
+			if (total != null)
+				total[0] += allocated;
+		}
 		return classbytes;
 	}
 
@@ -13,8 +13,10 @@ package org.eclipse.osgi.storage.url;
 
 import java.io.IOException;
 import java.net.*;
-import org.eclipse.osgi.container.Module;
-import org.eclipse.osgi.container.ModuleContainer;
+import java.util.Map;
+import java.util.WeakHashMap;
+import org.eclipse.osgi.container.*;
+import org.eclipse.osgi.container.Module.State;
 import org.eclipse.osgi.internal.messages.Msg;
 import org.eclipse.osgi.storage.bundlefile.BundleEntry;
 import org.eclipse.osgi.util.NLS;
@@ -36,6 +38,11 @@ public abstract class BundleResourceHandler extends URLStreamHandler {
 	public static final String BID_FWKID_SEPARATOR = ".fwk"; //$NON-NLS-1$
 	protected final ModuleContainer container;
 	protected BundleEntry bundleEntry;
+	// the number of independently locked parts of the entry cache; must be a power of two
+	private static final int CACHE_STRIPES = 16;
+	// the bundle entries found for URLs opened by a handler which has no bundle entry set;
+	// created on first use because most handlers are created for a single bundle entry
+	private volatile Map<URL, CachedEntry>[] cachedEntries;
 
 	public BundleResourceHandler(ModuleContainer container, BundleEntry bundleEntry) {
 		this.container = container;
@@ -146,6 +153,30 @@ public abstract class BundleResourceHandler extends URLStreamHandler {
 		if (bundleEntry != null) // if the bundleEntry is not null then return quick
 			return (new BundleURLConnection(url, bundleEntry));
 
+		// use the bundle entry found the last time the URL was opened if the bundle has not changed since
+		CachedEntry cached = getCachedEntry(url);
+		Module module = cached == null ? findModule(url) : cached.module;
+		// check to make sure that this URL was created using the
+		// parseURL method.  This ensures the security check was done
+		// at URL construction.
+		if (!url.getAuthority().equals(SECURITY_CHECKED)) {
+			// No admin security check was made better check now.
+			checkAuthorization(module);
+		}
+		if (cached == null) {
+			cached = new CachedEntry(module, getEntryScope(module));
+			cached.entry = findBundleEntry(url, module);
+			if (cached.revision != null) {
+				Map<URL, CachedEntry> stripe = getCacheStripe(url);
+				synchronized (stripe) {
+					stripe.put(url, cached);
+				}
+			}
+		}
+		return (new BundleURLConnection(url, cached.entry));
+	}
+
+	private Module findModule(URL url) throws IOException {
 		String host = url.getHost();
 		if (host == null) {
 			throw new IOException(NLS.bind(Msg.URL_NO_BUNDLE_ID, url.toExternalForm()));
@@ -159,14 +190,38 @@ public abstract class BundleResourceHandler extends URLStreamHandler {
 		Module module = getModule(bundleID);
 		if (module == null)
 			throw new IOException(NLS.bind(Msg.URL_NO_BUNDLE_FOUND, url.toExternalForm()));
-		// check to make sure that this URL was created using the
-		// parseURL method.  This ensures the security check was done
-		// at URL construction.
-		if (!url.getAuthority().equals(SECURITY_CHECKED)) {
-			// No admin security check was made better check now.
-			checkAuthorization(module);
+		return module;
+	}
+
+	private CachedEntry getCachedEntry(URL url) {
+		if (cachedEntries == null) {
+			return null;
+		}
+		Map<URL, CachedEntry> stripe = getCacheStripe(url);
+		CachedEntry cached;
+		synchronized (stripe) {
+			cached = stripe.get(url);
+		}
+		return cached != null && cached.isValid() && cached.scope == getEntryScope(cached.module) ? cached : null;
+	}
+
+	private Map<URL, CachedEntry> getCacheStripe(URL url) {
+		Map<URL, CachedEntry>[] stripes = cachedEntries;
+		if (stripes == null) {
+			synchronized (this) {
+				stripes = cachedEntries;
+				if (stripes == null) {
+					@SuppressWarnings("unchecked")
+					Map<URL, CachedEntry>[] created = new Map[CACHE_STRIPES];
+					for (int i = 0; i < created.length; i++) {
+						created[i] = new WeakHashMap<>();
+					}
+					cachedEntries = stripes = created;
+				}
+			}
 		}
-		return (new BundleURLConnection(url, findBundleEntry(url, module)));
+		int hash = url.hashCode();
+		return stripes[(hash ^ (hash >>> 16)) & (CACHE_STRIPES - 1)];
 	}
 
 	/**
@@ -180,6 +235,17 @@ public abstract class BundleResourceHandler extends URLStreamHandler {
 	 */
 	abstract protected BundleEntry findBundleEntry(URL url, Module module) throws IOException;
 
+	/**
+	 * Returns an object which is replaced whenever the bundle entries found for
+	 * the module may change without a change of its current revision or wiring.
+	 * A bundle entry found for a URL is only reused while the same object is returned.
+	 * @param module the module to find the entries for.
+	 * @return the object or <code>null</code> if only the revision and wiring matter
+	 */
+	protected Object getEntryScope(Module module) {
+		return null;
+	}
+
 	/**
 	 * Converts a bundle URL to a String.
 	 *
@@ -289,4 +355,27 @@ public abstract class BundleResourceHandler extends URLStreamHandler {
 		int dotIndex = host.indexOf('.');
 		return (dotIndex >= 0 && dotIndex < host.length() - 1) ? Long.parseLong(host.substring(0, dotIndex)) : Long.parseLong(host);
 	}
+
+	/**
+	 * A bundle entry found for a URL.  The entry is valid as long as the module
+	 * is installed and its current revision, wiring and entry scope do not change.
+	 */
+	private static final class CachedEntry {
+		final Module module;
+		final Object scope;
+		final ModuleRevision revision;
+		final ModuleWiring wiring;
+		BundleEntry entry;
+
+		CachedEntry(Module module, Object scope) {
+			this.module = module;
+			this.scope = scope;
+			this.revision = module.getCurrentRevision();
+			this.wiring = revision == null ? null : revision.getWiring();
+		}
+
+		boolean isValid() {
+			return module.getState() != State.UNINSTALLED && module.getCurrentRevision() == revision && revision.getWiring() == wiring;
+		}
+	}
 }
@@ -46,4 +46,11 @@ public class Handler extends BundleResourceHandler {
 		return entry;
 	}
 
+	protected Object getEntryScope(Module module) {
+		// fragments may attach to a resolved host without changing its wiring
+		ModuleRevision current = module.getCurrentRevision();
+		ModuleWiring wiring = current == null ? null : current.getWiring();
+		ModuleClassLoader classloader = (ModuleClassLoader) (wiring == null ? null : wiring.getClassLoader());
+		return classloader == null ? null : classloader.getClasspathManager().getFragmentClasspaths();
+	}
 }
@@ -46,6 +46,10 @@ public class Logger
     public static final int LOG_INFO = 3;
     public static final int LOG_DEBUG = 4;
 
+    public static final int PHASE_POPULATE = 0;
+    public static final int PHASE_PREPARE = 1;
+    public static final int PHASE_CHECK = 2;
+
     private int m_logLevel = 1;
 
     public Logger(int i)
@@ -131,4 +135,23 @@ public class Logger
     {
         // do nothing by default
     }
+
+    /**
+     * Called with the time spent in a phase of a resolve operation.  The
+     * phase is one of {@link #PHASE_POPULATE}, {@link #PHASE_PREPARE} or
+     * {@link #PHASE_CHECK}.
+     */
+    public void logPhaseTime(int phase, long nanos)
+    {
+        // do nothing by default
+    }
+
+    /**
+     * Called with the number of candidate permutations checked by a
+     * resolve operation.
+     */
+    public void logPermutationsChecked(int count)
+    {
+        // do nothing by default
+    }
 }
@@ -45,15 +45,30 @@ public class ResolverImpl implements Resolver
 
     private final Executor m_executor;
 
+    private final int m_permutationBatchSize;
+
     enum PermutationType {
         USES,
         IMPORT,
         SUBSTITUTE
     }
 
+    // Receives the permutations produced while checking the consistency
+    // of a candidate permutation.
+    interface PermutationTracker
+    {
+        void addPermutation(PermutationType type, Candidates permutation);
+
+        void permutateIfNeeded(PermutationType type, Requirement req, Candidates permutation);
+
+        boolean checkMultiple(UsedBlames usedBlames, Blame usedBlame, Candidates permutation);
+
+        long getPermutationCount();
+    }
+
     // Note this class is not thread safe.
     // Only use in the context of a single thread.
-    static class ResolveSession implements Runnable
+    static class ResolveSession implements Runnable, PermutationTracker
     {
         // Holds the resolve context for this session
         private final ResolveContext m_resolveContext;
@@ -139,7 +154,7 @@ public class ResolverImpl implements Resolver
             return m_usesCache;
         }
 
-        void permutateIfNeeded(PermutationType type, Requirement req, Candidates permutation) {
+        public void permutateIfNeeded(PermutationType type, Requirement req, Candidates permutation) {
             List<Capability> candidates = permutation.getCandidates(req);
             if ((candidates != null) && (candidates.size() > 1))
             {
@@ -167,7 +182,7 @@ public class ResolverImpl implements Resolver
             // more permutations would really help.
         }
 
-        void addPermutation(PermutationType type, Candidates permutation) {
+        public void addPermutation(PermutationType type, Candidates permutation) {
             if (permutation != null)
             {
                 List<Candidates> typeToAddTo = null;
@@ -225,6 +240,10 @@ public class ResolverImpl implements Resolver
             return next;
         }
 
+        int getCheckedPermutationCount() {
+            return m_processedDeltas.size();
+        }
+
         void clearPermutations() {
             m_usesPermutations.clear();
             m_importPermutations.clear();
@@ -234,7 +253,7 @@ public class ResolverImpl implements Resolver
             m_currentError = null;
         }
 
-        boolean checkMultiple(
+        public boolean checkMultiple(
                 UsedBlames usedBlames,
                 Blame usedBlame,
                 Candidates permutation)
@@ -260,10 +279,57 @@ public class ResolverImpl implements Resolver
             return (candidates != null) && !candidates.isEmpty();
         }
 
-        long getPermutationCount() {
+        public long getPermutationCount() {
             return m_usesPermutations.size() + m_importPermutations.size() + m_substPermutations.size(); 
         }
 
+        Set<Requirement> getSubstituteMutated() {
+            return m_sub_mutated;
+        }
+
+        void setMultipleCardCandidates(Candidates multipleCardCandidates) {
+            m_multipleCardCandidates = multipleCardCandidates;
+        }
+
+        // Returns up to max of the permutations following the one last
+        // returned by getNextPermutation, in the order they are currently
+        // queued, skipping the given ones.
+        List<Candidates> peekNextPermutations(int max, Map<Candidates, ?> skip) {
+            List<Candidates> result = new ArrayList<Candidates>(max);
+            Set<Object> deltas = new HashSet<Object>();
+            for (List<Candidates> permutations : Arrays.asList(m_usesPermutations, m_importPermutations, m_substPermutations)) {
+                for (Candidates permutation : permutations) {
+                    if (result.size() >= max) {
+                        return result;
+                    }
+                    Object delta = permutation.getDelta();
+                    if (!m_processedDeltas.contains(delta) && deltas.add(delta) && !skip.containsKey(permutation)) {
+                        result.add(permutation);
+                    }
+                }
+            }
+            return result;
+        }
+
+        // Applies the permutations recorded by a speculative consistency check
+        // of the permutation last returned by getNextPermutation as if it had
+        // been checked by this session directly.
+        void addPermutations(SpeculativePermutation speculative) {
+            for (RecordedPermutation recorded : speculative.getRecordedPermutations())
+            {
+                if (recorded.m_req == null)
+                {
+                    addPermutation(recorded.m_type, recorded.m_permutation);
+                }
+                else if (recorded.m_type == PermutationType.SUBSTITUTE
+                    ? m_sub_mutated.add(recorded.m_req)
+                    : m_mutated.add(recorded.m_req))
+                {
+                    addPermutation(recorded.m_type, recorded.m_permutation);
+                }
+            }
+        }
+
         Executor getExecutor() {
             return m_executor;
         }
@@ -358,13 +424,27 @@ public class ResolverImpl implements Resolver
         this.m_logger = logger;
         this.m_parallelism = parallelism;
         this.m_executor = null;
+        this.m_permutationBatchSize = 1;
     }
 
     public ResolverImpl(Logger logger, Executor executor)
+    {
+        this(logger, executor, 1);
+    }
+
+    /**
+     * Creates a resolver that checks up to <code>permutationBatchSize</code>
+     * pending candidate permutations in parallel using the given executor.
+     * Permutations are still used in the same order as with sequential
+     * checking, so the resolution result does not depend on the batch size.
+     * A batch size of one checks the permutations strictly sequentially.
+     */
+    public ResolverImpl(Logger logger, Executor executor, int permutationBatchSize)
     {
         this.m_logger = logger;
         this.m_parallelism = -1;
         this.m_executor = executor;
+        this.m_permutationBatchSize = permutationBatchSize < 1 ? 1 : permutationBatchSize;
     }
 
     public Map<Resource, List<Wire>> resolve(ResolveContext rc) throws ResolutionException
@@ -434,7 +514,9 @@ public class ResolverImpl implements Resolver
                 }
 
                 Map<Resource, ResolutionError> faultyResources = new HashMap<Resource, ResolutionError>();
+                long start = System.nanoTime();
                 Candidates allCandidates = findValidCandidates(session, faultyResources);
+                m_logger.logPhaseTime(Logger.PHASE_CHECK, System.nanoTime() - start);
                 session.checkForCancel();
 
                 // If there is a resolve exception, then determine if an
@@ -495,6 +577,7 @@ public class ResolverImpl implements Resolver
             }
             finally
             {
+                m_logger.logPermutationsChecked(session.getCheckedPermutationCount());
                 // Always clear the state.
                 session.clearPermutations();
             }
@@ -507,11 +590,13 @@ public class ResolverImpl implements Resolver
     private void getInitialCandidates(ResolveSession session) {
         // Create object to hold all candidates.
         Candidates initialCandidates;
+        long start = System.nanoTime();
         if (session.isDynamic()) {
             // Create all candidates pre-populated with the single candidate set
             // for the resolving dynamic import of the host.
             initialCandidates = new Candidates(session);
             ResolutionError prepareError = initialCandidates.populateDynamic();
+            m_logger.logPhaseTime(Logger.PHASE_POPULATE, System.nanoTime() - start);
             if (prepareError != null) {
                 session.setCurrentError(prepareError);
                 return;
@@ -540,10 +625,13 @@ public class ResolverImpl implements Resolver
 
             initialCandidates = new Candidates(session);
             initialCandidates.populate(toPopulate);
+            m_logger.logPhaseTime(Logger.PHASE_POPULATE, System.nanoTime() - start);
         }
 
         // Merge any fragments into hosts.
+        start = System.nanoTime();
         ResolutionError prepareError = initialCandidates.prepare();
+        m_logger.logPhaseTime(Logger.PHASE_PREPARE, System.nanoTime() - start);
         if (prepareError != null)
         {
             session.setCurrentError(prepareError);
@@ -558,6 +646,9 @@ public class ResolverImpl implements Resolver
     private Candidates findValidCandidates(ResolveSession session, Map<Resource, ResolutionError> faultyResources) {
         Candidates allCandidates = null;
         boolean foundFaultyResources = false;
+        // the outcome of permutations checked ahead of time, by identity
+        Map<Candidates, SpeculativePermutation> speculativePermutations =
+            new IdentityHashMap<Candidates, SpeculativePermutation>();
         do
         {
             allCandidates = session.getNextPermutation();
@@ -568,42 +659,134 @@ public class ResolverImpl implements Resolver
 
 //allCandidates.dump();
 
-            Map<Resource, ResolutionError> currentFaultyResources = new HashMap<Resource, ResolutionError>();
-
-            session.setCurrentError(
-                    checkConsistency(
-                            session,
-                            allCandidates,
-                            currentFaultyResources
-                    )
-            );
+            SpeculativePermutation speculative = speculativePermutations.remove(allCandidates);
+            if (speculative != null && !speculative.isValid(session))
+            {
+                // substitution permutations were added since it was checked
+                speculativePermutations.clear();
+                speculative = null;
+            }
+            if (speculative == null && m_permutationBatchSize > 1)
+            {
+                speculative = checkPermutations(session, allCandidates, speculativePermutations);
+            }
 
-            if (!currentFaultyResources.isEmpty())
+            Map<Resource, ResolutionError> currentFaultyResources;
+            if (speculative != null)
             {
-                if (!foundFaultyResources)
-                {
-                    foundFaultyResources = true;
-                    faultyResources.putAll(currentFaultyResources);
-                }
-                else if (faultyResources.size() > currentFaultyResources.size())
-                {
-                    // save the optimal faultyResources which has less
-                    faultyResources.clear();
-                    faultyResources.putAll(currentFaultyResources);
-                }
+                allCandidates = speculative.getCandidates();
+                session.addPermutations(speculative);
+                session.setMultipleCardCandidates(speculative.getMultipleCardCandidates());
+                session.setCurrentError(speculative.getError());
+                currentFaultyResources = speculative.getFaultyResources();
+            }
+            else
+            {
+                currentFaultyResources = new HashMap<Resource, ResolutionError>();
+
+                session.setCurrentError(
+                        checkConsistency(
+                                session,
+                                session,
+                                allCandidates,
+                                currentFaultyResources,
+                                session.getExecutor()
+                        )
+                );
             }
+
+            foundFaultyResources = mergeFaultyResources(
+                faultyResources, currentFaultyResources, foundFaultyResources);
         }
         while (!session.isCancelled() && session.getCurrentError() != null);
 
         return allCandidates;
     }
 
+    /**
+     * Checks the given permutation in parallel with the permutations that
+     * follow it.  Each permutation is checked in isolation, recording the
+     * permutations it would add to the session.  The outcome of the following
+     * permutations is kept so that it can be applied when the search reaches
+     * them; the search order itself is not changed, the permutations derived
+     * from a permutation are still tried before the ones that follow it.
+     * Returns {@code null} if no other permutation is left to check.
+     */
+    private SpeculativePermutation checkPermutations(
+        final ResolveSession session,
+        Candidates allCandidates,
+        Map<Candidates, SpeculativePermutation> speculativePermutations)
+    {
+        List<Candidates> following = session.peekNextPermutations(
+            m_permutationBatchSize - 1, speculativePermutations);
+        if (following.isEmpty())
+        {
+            return null;
+        }
+
+        List<SpeculativePermutation> batch = new ArrayList<SpeculativePermutation>(following.size() + 1);
+        batch.add(new SpeculativePermutation(allCandidates, session.getSubstituteMutated()));
+        for (Candidates next : following)
+        {
+            // checking a permutation modifies it; check a copy so that the
+            // permutation can still be checked if the outcome is discarded
+            batch.add(new SpeculativePermutation(next.copy(), session.getSubstituteMutated()));
+        }
+
+        EnhancedExecutor executor = new EnhancedExecutor(session.getExecutor());
+        for (final SpeculativePermutation speculative : batch)
+        {
+            executor.execute(new Runnable()
+            {
+                public void run()
+                {
+                    // package spaces are calculated on this thread only; the
+                    // parallelism comes from checking several permutations at once
+                    speculative.setError(checkConsistency(
+                        session, speculative, speculative.getCandidates(),
+                        speculative.getFaultyResources(), new DumbExecutor()));
+                }
+            });
+        }
+        executor.await();
+
+        for (int i = 1; i < batch.size(); i++)
+        {
+            speculativePermutations.put(following.get(i - 1), batch.get(i));
+        }
+        return batch.get(0);
+    }
+
+    private static boolean mergeFaultyResources(
+        Map<Resource, ResolutionError> faultyResources,
+        Map<Resource, ResolutionError> currentFaultyResources,
+        boolean foundFaultyResources)
+    {
+        if (!currentFaultyResources.isEmpty())
+        {
+            if (!foundFaultyResources)
+            {
+                foundFaultyResources = true;
+                faultyResources.putAll(currentFaultyResources);
+            }
+            else if (faultyResources.size() > currentFaultyResources.size())
+            {
+                // save the optimal faultyResources which has less
+                faultyResources.clear();
+                faultyResources.putAll(currentFaultyResources);
+            }
+        }
+        return foundFaultyResources;
+    }
+
     private ResolutionError checkConsistency(
         ResolveSession session,
+        PermutationTracker tracker,
         Candidates allCandidates,
-        Map<Resource, ResolutionError> currentFaultyResources)
+        Map<Resource, ResolutionError> currentFaultyResources,
+        Executor executor)
     {
-        ResolutionError rethrow = allCandidates.checkSubstitutes();
+        ResolutionError rethrow = allCandidates.checkSubstitutes(tracker);
         if (rethrow != null)
         {
             return rethrow;
@@ -611,7 +794,7 @@ public class ResolverImpl implements Resolver
         Map<Resource, Resource> allhosts = allCandidates.getRootHosts();
         // Calculate package spaces
         Map<Resource, Packages> resourcePkgMap =
-            calculatePackageSpaces(session, allCandidates, allhosts.values());
+            calculatePackageSpaces(session, executor, allCandidates, allhosts.values());
         ResolutionError error = null;
         // Check package consistency
         Map<Resource, Object> resultCache =
@@ -619,7 +802,7 @@ public class ResolverImpl implements Resolver
         for (Entry<Resource, Resource> entry : allhosts.entrySet())
         {
             rethrow = checkPackageSpaceConsistency(
-                    session, entry.getValue(),
+                    session, tracker, entry.getValue(),
                     allCandidates, session.isDynamic(), resourcePkgMap, resultCache);
             if (session.isCancelled()) {
                 return null;
@@ -1120,10 +1303,11 @@ public class ResolverImpl implements Resolver
 
     private static Map<Resource, Packages> calculatePackageSpaces(
             final ResolveSession session,
+            Executor sessionExecutor,
             final Candidates allCandidates,
             Collection<Resource> hosts)
     {
-        final EnhancedExecutor executor = new EnhancedExecutor(session.getExecutor());
+        final EnhancedExecutor executor = new EnhancedExecutor(sessionExecutor);
 
         // Parallel compute wire candidates
         final Map<Resource, List<WireCandidate>> allWireCandidates = new ConcurrentHashMap<Resource, List<WireCandidate>>();
@@ -1291,6 +1475,7 @@ public class ResolverImpl implements Resolver
 
     private ResolutionError checkPackageSpaceConsistency(
         ResolveSession session,
+        PermutationTracker tracker,
         Resource resource,
         Candidates allCandidates,
         boolean dynamic,
@@ -1331,9 +1516,9 @@ public class ResolverImpl implements Resolver
                     else if (!sourceBlame.m_cap.getResource().equals(blame.m_cap.getResource()))
                     {
                         // Try to permutate the conflicting requirement.
-                        session.addPermutation(PermutationType.IMPORT, allCandidates.permutate(blame.m_reqs.get(0)));
+                        tracker.addPermutation(PermutationType.IMPORT, allCandidates.permutate(blame.m_reqs.get(0)));
                         // Try to permutate the source requirement.
-                        session.addPermutation(PermutationType.IMPORT, allCandidates.permutate(sourceBlame.m_reqs.get(0)));
+                        tracker.addPermutation(PermutationType.IMPORT, allCandidates.permutate(sourceBlame.m_reqs.get(0)));
                         // Report conflict.
                         rethrow = new UseConstraintError(
                                 session.getContext(), allCandidates,
@@ -1380,7 +1565,7 @@ public class ResolverImpl implements Resolver
                     mutated = (mutated != null)
                         ? mutated
                         : new HashSet<Requirement>();
-                    rethrow = permuteUsedBlames(session, rethrow, allCandidates, resource,
+                    rethrow = permuteUsedBlames(session, tracker, rethrow, allCandidates, resource,
                         pkgName, null, usedBlames, permRef1, permRef2, mutated);
                 }
             }
@@ -1389,8 +1574,8 @@ public class ResolverImpl implements Resolver
             {
                 if (!mutated.isEmpty())
                 {
-                    session.addPermutation(PermutationType.USES, permRef1.get());
-                    session.addPermutation(PermutationType.USES, permRef2.get());
+                    tracker.addPermutation(PermutationType.USES, permRef1.get());
+                    tracker.addPermutation(PermutationType.USES, permRef2.get());
                 }
                 if (m_logger.isDebugEnabled())
                 {
@@ -1438,7 +1623,7 @@ public class ResolverImpl implements Resolver
                     // Split packages, need to think how to get a good message for split packages (sigh)
                     // For now we just use the first requirement that brings in the package that conflicts
                     Blame requirementBlame = requirementBlames.get(0);
-                    rethrow = permuteUsedBlames(session, rethrow, allCandidates, resource, pkgName, requirementBlame, usedBlames, permRef1, permRef2, mutated);
+                    rethrow = permuteUsedBlames(session, tracker, rethrow, allCandidates, resource, pkgName, requirementBlame, usedBlames, permRef1, permRef2, mutated);
                 }
 
                 // If there was a uses conflict, then we should add a uses
@@ -1452,8 +1637,8 @@ public class ResolverImpl implements Resolver
                     // Add uses permutation if we m_mutated any candidates.
                     if (!mutated.isEmpty())
                     {
-                        session.addPermutation(PermutationType.USES, permRef1.get());
-                        session.addPermutation(PermutationType.USES, permRef2.get());
+                        tracker.addPermutation(PermutationType.USES, permRef1.get());
+                        tracker.addPermutation(PermutationType.USES, permRef2.get());
                     }
 
                     // Try to permutate the candidate for the original
@@ -1468,7 +1653,7 @@ public class ResolverImpl implements Resolver
                             // with existing import decisions, we may end up trying
                             // to permutate the same import a lot of times, so we should
                             // try to check if that the case and only permutate it once.
-                            session.permutateIfNeeded(PermutationType.IMPORT, req, allCandidates);
+                            tracker.permutateIfNeeded(PermutationType.IMPORT, req, allCandidates);
                         }
                     }
 
@@ -1490,7 +1675,7 @@ public class ResolverImpl implements Resolver
         // current resource depends. Keep track of the current number
         // of permutations so we know if the lower level check was
         // able to create a permutation or not in the case of failure.
-        long permCount = session.getPermutationCount();
+        long permCount = tracker.getPermutationCount();
         for (Requirement req : resource.getRequirements(null))
         {
             Capability cap = allCandidates.getFirstCandidate(req);
@@ -1499,7 +1684,7 @@ public class ResolverImpl implements Resolver
                 if (!resource.equals(cap.getResource()))
                 {
                     rethrow = checkPackageSpaceConsistency(
-                            session, cap.getResource(),
+                            session, tracker, cap.getResource(),
                             allCandidates, false, resourcePkgMap, resultCache);
                     if (session.isCancelled()) {
                         return null;
@@ -1510,9 +1695,9 @@ public class ResolverImpl implements Resolver
                         // then we should create an import permutation for the
                         // requirement with the dependency on the failing resource
                         // to backtrack on our current candidate selection.
-                        if (permCount == session.getPermutationCount())
+                        if (permCount == tracker.getPermutationCount())
                         {
-                            session.addPermutation(PermutationType.IMPORT, allCandidates.permutate(req));
+                            tracker.addPermutation(PermutationType.IMPORT, allCandidates.permutate(req));
                         }
                         return rethrow;
                     }
@@ -1522,7 +1707,7 @@ public class ResolverImpl implements Resolver
         return null;
     }
 
-    private ResolutionError permuteUsedBlames(ResolveSession session,
+    private ResolutionError permuteUsedBlames(ResolveSession session, PermutationTracker tracker,
         ResolutionError rethrow, Candidates allCandidates, Resource resource,
         String pkgName, Blame requirementBlame, UsedBlames usedBlames,
         AtomicReference<Candidates> permRef1, AtomicReference<Candidates> permRef2,
@@ -1530,7 +1715,7 @@ public class ResolverImpl implements Resolver
     {
         for (Blame usedBlame : usedBlames.m_blames)
         {
-            if (session.checkMultiple(usedBlames, usedBlame, allCandidates))
+            if (tracker.checkMultiple(usedBlames, usedBlame, allCandidates))
             {
                 // Continue to the next usedBlame, if possible we
                 // removed the conflicting candidates.
@@ -2120,7 +2305,7 @@ public class ResolverImpl implements Resolver
                     return new ArrayList<Blame>();
                 }
             };
-            m_usedPkgs = new OpenHashMap<String, ArrayMap<Capability, UsedBlames>>(128) {
+            m_usedPkgs = new OpenHashMap<String, ArrayMap<Capability, UsedBlames>>(nbReqs) {
                 @Override
                 protected ArrayMap<Capability, UsedBlames> compute(String s) {
                     return new ArrayMap<Capability, UsedBlames>() {
@@ -2442,6 +2627,126 @@ public class ResolverImpl implements Resolver
         }
     }
 
+    private static final class RecordedPermutation
+    {
+        final PermutationType m_type;
+        // only set for permutations added through permutateIfNeeded
+        final Requirement m_req;
+        final Candidates m_permutation;
+
+        RecordedPermutation(PermutationType type, Requirement req, Candidates permutation)
+        {
+            m_type = type;
+            m_req = req;
+            m_permutation = permutation;
+        }
+    }
+
+    // Records the outcome of checking a permutation off the session so
+    // that several permutations can be checked in parallel.
+    static class SpeculativePermutation implements PermutationTracker
+    {
+        private final Candidates m_candidates;
+        private final List<RecordedPermutation> m_recorded = new ArrayList<RecordedPermutation>();
+        private final Set<Requirement> m_mutated = new HashSet<Requirement>();
+        private final Set<Requirement> m_subMutated;
+        private final int m_subMutatedCount;
+        private final Map<Resource, ResolutionError> m_faultyResources = new HashMap<Resource, ResolutionError>();
+        private Candidates m_multipleCardCandidates;
+        private ResolutionError m_error;
+
+        SpeculativePermutation(Candidates candidates, Set<Requirement> substituteMutated)
+        {
+            m_candidates = candidates;
+            m_subMutated = new HashSet<Requirement>(substituteMutated);
+            m_subMutatedCount = substituteMutated.size();
+        }
+
+        // The recorded permutations are the ones the session adds only as
+        // long as no substitution permutation was added since the check;
+        // the substitution mutations of the session never shrink.
+        boolean isValid(ResolveSession session)
+        {
+            return session.getSubstituteMutated().size() == m_subMutatedCount;
+        }
+
+        public void addPermutation(PermutationType type, Candidates permutation)
+        {
+            if (permutation != null)
+            {
+                m_recorded.add(new RecordedPermutation(type, null, permutation));
+            }
+        }
+
+        public void permutateIfNeeded(PermutationType type, Requirement req, Candidates permutation)
+        {
+            List<Capability> candidates = permutation.getCandidates(req);
+            if ((candidates != null) && (candidates.size() > 1))
+            {
+                Set<Requirement> mutated = type == PermutationType.SUBSTITUTE ? m_subMutated : m_mutated;
+                if (mutated.add(req))
+                {
+                    // permutate now; the permutation being checked may still change
+                    Candidates perm = permutation.permutate(req);
+                    if (perm != null)
+                    {
+                        m_recorded.add(new RecordedPermutation(type, req, perm));
+                    }
+                }
+            }
+        }
+
+        public boolean checkMultiple(UsedBlames usedBlames, Blame usedBlame, Candidates permutation)
+        {
+            CandidateSelector candidates = null;
+            Requirement req = usedBlame.m_reqs.get(0);
+            if (Util.isMultiple(req))
+            {
+                if (m_multipleCardCandidates == null)
+                {
+                    m_multipleCardCandidates = permutation.copy();
+                }
+                candidates = m_multipleCardCandidates.clearMultipleCardinalityCandidates(req, usedBlames.getRootCauses(req));
+            }
+            return (candidates != null) && !candidates.isEmpty();
+        }
+
+        public long getPermutationCount()
+        {
+            return m_recorded.size();
+        }
+
+        Candidates getCandidates()
+        {
+            return m_candidates;
+        }
+
+        List<RecordedPermutation> getRecordedPermutations()
+        {
+            return m_recorded;
+        }
+
+        Map<Resource, ResolutionError> getFaultyResources()
+        {
+            return m_faultyResources;
+        }
+
+        Candidates getMultipleCardCandidates()
+        {
+            return m_multipleCardCandidates;
+        }
+
+        ResolutionError getError()
+        {
+            return m_error;
+        }
+
+        void setError(ResolutionError error)
+        {
+            m_error = error;
+        }
+    }
+
     private static class EnhancedExecutor
     {
         private final Executor executor;
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.felix.resolver.util;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.osgi.resource.Capability;
+import org.osgi.resource.Requirement;
+
+/**
+ * Maps requirements to their candidate selectors.  Copies share a base map
+ * which is never modified once shared; the requirements changed by each copy
+ * are kept in a small overlay so that copying only costs the size of the
+ * changes rather than the size of the whole map.
+ */
+public class CandidateSelectorMap {
+
+    // marks a requirement removed from the shared base
+    private static final CandidateSelector REMOVED = new CandidateSelector(
+            Collections.<Capability>emptyList(), new AtomicBoolean(true));
+
+    private OpenHashMapList base;
+    // true once the base and its selectors may be seen by another copy
+    private boolean baseShared;
+    // the changes made since the base got shared
+    private OpenHashMapList overlay;
+
+    public CandidateSelectorMap() {
+        this.base = new OpenHashMapList();
+    }
+
+    private CandidateSelectorMap(OpenHashMapList base, OpenHashMapList overlay) {
+        this.base = base;
+        this.baseShared = true;
+        this.overlay = overlay;
+    }
+
+    public CandidateSelector get(Requirement req) {
+        if (overlay != null) {
+            CandidateSelector selector = overlay.get(req);
+            if (selector != null) {
+                return selector == REMOVED ? null : selector;
+            }
+        }
+        return base.get(req);
+    }
+
+    /**
+     * Returns the selector of the requirement which may be modified without
+     * affecting any other copy of this map.
+     */
+    public CandidateSelector getModifiable(Requirement req) {
+        if (!baseShared) {
+            return base.get(req);
+        }
+        if (overlay == null) {
+            overlay = new OpenHashMapList(4);
+        }
+        CandidateSelector selector = overlay.get(req);
+        if (selector != null) {
+            return selector == REMOVED ? null : selector;
+        }
+        selector = base.get(req);
+        if (selector != null) {
+            selector = selector.copy();
+            overlay.put(req, selector);
+        }
+        return selector;
+    }
+
+    public void put(Requirement req, CandidateSelector selector) {
+        if (!baseShared) {
+            base.put(req, selector);
+            return;
+        }
+        if (overlay == null) {
+            overlay = new OpenHashMapList(4);
+        }
+        overlay.put(req, selector);
+    }
+
+    public CandidateSelector remove(Requirement req) {
+        if (!baseShared) {
+            return base.remove(req);
+        }
+        CandidateSelector previous = get(req);
+        if (previous != null) {
+            if (overlay == null) {
+                overlay = new OpenHashMapList(4);
+            }
+            if (base.containsKey(req)) {
+                overlay.put(req, REMOVED);
+            } else {
+                overlay.remove(req);
+            }
+        }
+        return previous;
+    }
+
+    public void trim() {
+        if (!baseShared) {
+            base.trim();
+        }
+    }
+
+    /**
+     * Returns a fast iterable over the current entries; the entries are reused.
+     */
+    public Iterable<Map.Entry<Requirement, CandidateSelector>> fast() {
+        flatten();
+        return base.fast();
+    }
+
+    /**
+     * Creates a copy of this map.  From now on neither this map nor the copy
+     * modify the shared base or the selectors it contains.
+     */
+    public CandidateSelectorMap copy() {
+        if (overlay != null && overlay.size() > (base.size() >> 2)) {
+            // too many changes; start a new base to keep the overlays small
+            flatten();
+        }
+        baseShared = true;
+        OpenHashMapList overlayCopy = null;
+        if (overlay != null && !overlay.isEmpty()) {
+            overlayCopy = new OpenHashMapList(overlay.size());
+            for (Map.Entry<Requirement, CandidateSelector> entry : overlay.fast()) {
+                CandidateSelector selector = entry.getValue();
+                overlayCopy.put(entry.getKey(), selector == REMOVED ? REMOVED : selector.copy());
+            }
+        }
+        return new CandidateSelectorMap(base, overlayCopy);
+    }
+
+    private void flatten() {
+        if (overlay == null || overlay.isEmpty()) {
+            return;
+        }
+        // the selectors of the merged base may still be seen by other copies
+        OpenHashMapList merged = (OpenHashMapList) base.clone();
+        for (Map.Entry<Requirement, CandidateSelector> entry : overlay.fast()) {
+            if (entry.getValue() == REMOVED) {
+                merged.remove(entry.getKey());
+            } else {
+                merged.put(entry.getKey(), entry.getValue());
+            }
+        }
+        base = merged;
+        overlay = null;
+    }
+}
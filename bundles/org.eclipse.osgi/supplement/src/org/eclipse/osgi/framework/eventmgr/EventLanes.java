@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.osgi.framework.eventmgr;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This package private class is used for asynchronously dispatching events
+ * on a bounded number of threads.  Each listener gets its own lane which
+ * holds the events to deliver to the listener in the order they were posted.
+ * A lane is processed by at most one thread at a time so a listener never
+ * receives events concurrently or out of order, while a slow listener only
+ * delays the events of its own lane.
+ * <p>
+ * Posting to the lanes must be protected by synchronizing on this object.
+ */
+class EventLanes {
+	/**
+	 * The maximum number of events delivered by a lane before the thread is
+	 * given to the other lanes.
+	 */
+	private static final int LANE_BATCH_SIZE = 32;
+
+	private final ThreadPoolExecutor executor;
+	/** the lanes which have events to deliver, by listener */
+	private final Map<Object, Lane> lanes = new IdentityHashMap<>();
+	/** once closed no more events can be posted */
+	private boolean closed;
+
+	EventLanes(final ThreadGroup threadGroup, final String threadName, int maxThreads, final ThreadFactory delegate) {
+		ThreadFactory threadFactory = new ThreadFactory() {
+			private final AtomicInteger nextThreadNumber = new AtomicInteger();
+
+			public Thread newThread(final Runnable runnable) {
+				return AccessController.doPrivileged(new PrivilegedAction<Thread>() {
+					public Thread run() {
+						String name = (threadName == null ? "EventManagerThread" : threadName) + '-' + nextThreadNumber.getAndIncrement(); //$NON-NLS-1$
+						if (delegate != null) {
+							Thread t = delegate.newThread(runnable);
+							t.setName(name);
+							return t;
+						}
+						Thread t = new Thread(threadGroup, runnable, name);
+						t.setDaemon(true); /* Mark thread as daemon thread */
+						return t;
+					}
+				});
+			}
+		};
+		executor = new ThreadPoolExecutor(maxThreads, maxThreads, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory);
+		// go to zero threads when idle
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Queues the event on the lane of each of the listeners.
+	 *
+	 * @param listeners Listener list for this event
+	 * @param dispatcher Dispatcher for this event
+	 * @param action Action for this event
+	 * @param object Object for this event
+	 */
+	synchronized <K, V, E> void postEvent(Set<Map.Entry<K, V>> listeners, EventDispatcher<K, V, E> dispatcher, int action, E object) {
+		if (closed) {
+			throw new IllegalStateException();
+		}
+		for (Map.Entry<K, V> listener : listeners) {
+			getLane(listener.getKey()).events.add(new LaneEvent<>(listener.getKey(), listener.getValue(), dispatcher, action, object));
+		}
+	}
+
+	private Lane getLane(Object listener) {
+		Lane lane = lanes.get(listener);
+		if (lane == null) {
+			lane = new Lane(listener);
+			lanes.put(listener, lane);
+			executor.execute(lane);
+		}
+		return lane;
+	}
+
+	/**
+	 * Waits until the events posted to the lanes before this call are delivered.
+	 *
+	 * @param timeout the maximum time to wait
+	 * @param unit the unit of the timeout
+	 * @return true if the events were delivered before the timeout
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+		final CountDownLatch flushed;
+		synchronized (this) {
+			flushed = new CountDownLatch(lanes.size());
+			for (Lane lane : lanes.values()) {
+				lane.events.add(new Runnable() {
+					public void run() {
+						flushed.countDown();
+					}
+				});
+			}
+		}
+		return flushed.await(timeout, unit);
+	}
+
+	/**
+	 * Stops accepting events.  The events already posted are still delivered.
+	 */
+	synchronized void close() {
+		closed = true;
+		executor.shutdown();
+	}
+
+	/**
+	 * An event queued on a lane.
+	 */
+	private static class LaneEvent<K, V, E> implements Runnable {
+		private final K listener;
+		private final V listenerObject;
+		private final EventDispatcher<K, V, E> dispatcher;
+		private final int action;
+		private final E object;
+
+		LaneEvent(K listener, V listenerObject, EventDispatcher<K, V, E> dispatcher, int action, E object) {
+			this.listener = listener;
+			this.listenerObject = listenerObject;
+			this.dispatcher = dispatcher;
+			this.action = action;
+			this.object = object;
+		}
+
+		public void run() {
+			EventManager.dispatchEvent(listener, listenerObject, dispatcher, action, object);
+		}
+	}
+
+	/**
+	 * The events to deliver to a single listener.  Access to the events
+	 * must be protected by synchronizing on the enclosing EventLanes.
+	 */
+	private class Lane implements Runnable {
+		final Object listener;
+		final ArrayDeque<Runnable> events = new ArrayDeque<>();
+
+		Lane(Object listener) {
+			this.listener = listener;
+		}
+
+		public void run() {
+			for (int delivered = 0;; delivered++) {
+				Runnable event;
+				synchronized (EventLanes.this) {
+					event = events.poll();
+					if (event == null) {
+						// the lane is done; the next event for the listener creates a new lane
+						lanes.remove(listener);
+						return;
+					}
+					if (delivered == LANE_BATCH_SIZE && !closed) {
+						// give the other lanes a chance; continue later in order
+						events.addFirst(event);
+						executor.execute(this);
+						return;
+					}
+				}
+				event.run();
+			}
+		}
+	}
+}
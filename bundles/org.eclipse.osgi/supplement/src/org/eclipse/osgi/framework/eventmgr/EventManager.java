@@ -13,8 +13,10 @@ package org.eclipse.osgi.framework.eventmgr;
 
 import java.security.AccessController;
 import java.security.PrivilegedAction;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class is the central class for the Event Manager. Each
@@ -94,6 +96,13 @@ import java.util.Set;
  * 
  * <p> The highly dynamic nature of the OSGi framework had necessitated these features for 
  * proper and efficient event delivery.  
+ * 
+ * <p>By default all events dispatched asynchronously by an EventManager are delivered in order
+ * by a single thread.  An EventManager can also be constructed with a maximum number of threads.
+ * Each listener then gets its own lane of events which is delivered in order, while the lanes of
+ * different listeners are delivered concurrently.  This prevents a slow listener from delaying
+ * the delivery of events to all the other listeners.  The order of the events delivered
+ * to different listeners is not guaranteed in that case.
  * @since 3.1
  * @noextend This class is not intended to be subclassed by clients.
  */
@@ -107,6 +116,12 @@ public class EventManager {
 	 */
 	private EventThread<?, ?, ?> thread;
 
+	/**
+	 * EventLanes for asynchronous dispatch of events when more than one thread is used.
+	 * Access to this field must be protected by a synchronized region.
+	 */
+	private EventLanes lanes;
+
 	/** 
 	 * Once closed, an attempt to create a new EventThread will result in an 
 	 * IllegalStateException. 
@@ -123,6 +138,16 @@ public class EventManager {
 	 */
 	protected final ThreadGroup threadGroup;
 
+	/**
+	 * The maximum number of threads used for asynchronous event delivery
+	 */
+	private final int maxThreads;
+
+	/**
+	 * The factory of the threads used for asynchronous event delivery; may be <code>null</code>
+	 */
+	private final ThreadFactory threadFactory;
+
 	/**
 	 * EventManager constructor. An EventManager object is responsible for
 	 * the delivery of events to listeners via an EventDispatcher.
@@ -154,10 +179,50 @@ public class EventManager {
 	 * @since 3.4
 	 */
 	public EventManager(String threadName, ThreadGroup threadGroup) {
+		this(threadName, threadGroup, 1);
+	}
+
+	/**
+	 * EventManager constructor. An EventManager object is responsible for
+	 * the delivery of events to listeners via an EventDispatcher.
+	 *
+	 * @param threadName The name to give the event threads associated with
+	 * this EventManager.  A <code>null</code> value is allowed.
+	 * @param threadGroup The thread group to use for the asynchronous event
+	 * threads associated with this EventManager. A <code>null</code> value is allowed.
+	 * @param maxThreads The maximum number of threads used to deliver events asynchronously.
+	 * If greater than one then the events of each listener are delivered in order but events
+	 * to different listeners may be delivered concurrently.
+	 * @since 3.13
+	 */
+	public EventManager(String threadName, ThreadGroup threadGroup, int maxThreads) {
+		this(threadName, threadGroup, maxThreads, null);
+	}
+
+	/**
+	 * EventManager constructor. An EventManager object is responsible for
+	 * the delivery of events to listeners via an EventDispatcher.
+	 *
+	 * @param threadName The name to give the event threads associated with
+	 * this EventManager.  A <code>null</code> value is allowed.
+	 * @param threadGroup The thread group to use for the asynchronous event
+	 * threads associated with this EventManager. A <code>null</code> value is allowed.
+	 * @param maxThreads The maximum number of threads used to deliver events asynchronously.
+	 * If greater than one then the events of each listener are delivered in order but events
+	 * to different listeners may be delivered concurrently.
+	 * @param threadFactory The factory used to create the threads delivering events
+	 * asynchronously, for example a factory of virtual threads.  The threads are named
+	 * with the thread name and the thread group is ignored.  A <code>null</code> value is allowed.
+	 * @since 3.13
+	 */
+	public EventManager(String threadName, ThreadGroup threadGroup, int maxThreads, ThreadFactory threadFactory) {
 		thread = null;
+		lanes = null;
 		closed = false;
 		this.threadName = threadName;
 		this.threadGroup = threadGroup;
+		this.maxThreads = Math.max(maxThreads, 1);
+		this.threadFactory = threadFactory;
 	}
 
 	/**
@@ -176,9 +241,61 @@ public class EventManager {
 			thread.close();
 			thread = null;
 		}
+		if (lanes != null) {
+			lanes.close();
+			lanes = null;
+		}
 		closed = true;
 	}
 
+	/**
+	 * Waits until the events dispatched asynchronously with this EventManager
+	 * before this method was called have been delivered.
+	 *
+	 * @param timeout the maximum time to wait
+	 * @param unit the unit of the timeout argument
+	 * @return true if the events have been delivered; false if the timeout elapsed first
+	 * @throws InterruptedException if interrupted while waiting
+	 * @throws IllegalStateException if this EventManager has been closed
+	 * @since 3.13
+	 */
+	public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+		EventLanes eventLanes = getEventLanes();
+		if (eventLanes != null) {
+			return eventLanes.flush(timeout, unit);
+		}
+		EventDispatcher<Object, Object, CountDownLatch> dispatcher = new EventDispatcher<Object, Object, CountDownLatch>() {
+			public void dispatchEvent(Object eventListener, Object listenerObject, int eventAction, CountDownLatch flushed) {
+				flushed.countDown();
+			}
+		};
+		CountDownLatch flushed = new CountDownLatch(1);
+		EventThread<Object, Object, CountDownLatch> eventThread = getEventThread();
+		synchronized (eventThread) {
+			eventThread.postEvent(Collections.<Object, Object> singletonMap(dispatcher, dispatcher).entrySet(), dispatcher, 0, flushed);
+		}
+		return flushed.await(timeout, unit);
+	}
+
+	/**
+	 * Returns the EventLanes to use for dispatching events asynchronously for
+	 * this EventManager or <code>null</code> if a single EventThread is used.
+	 *
+	 * @return EventLanes to use for dispatching events asynchronously or <code>null</code>.
+	 */
+	synchronized EventLanes getEventLanes() {
+		if (closed) {
+			throw new IllegalStateException();
+		}
+		if (maxThreads == 1) {
+			return null;
+		}
+		if (lanes == null) {
+			lanes = new EventLanes(threadGroup, threadName, maxThreads, threadFactory);
+		}
+		return lanes;
+	}
+
 	/**
 	 * Returns the EventThread to use for dispatching events asynchronously for
 	 * this EventManager.
@@ -194,7 +311,7 @@ public class EventManager {
 			/* if there is no thread, then create a new one */
 			thread = AccessController.doPrivileged(new PrivilegedAction<EventThread<K, V, E>>() {
 				public EventThread<K, V, E> run() {
-					EventThread<K, V, E> t = new EventThread<>(threadGroup, threadName);
+					EventThread<K, V, E> t = new EventThread<>(threadGroup, threadName, threadFactory);
 					return t;
 				}
 			});
@@ -223,26 +340,42 @@ public class EventManager {
 	 */
 	static <K, V, E> void dispatchEvent(Set<Map.Entry<K, V>> listeners, EventDispatcher<K, V, E> dispatcher, int eventAction, E eventObject) {
 		for (Map.Entry<K, V> listener : listeners) { /* iterate over the list of listeners */
-			final K eventListener = listener.getKey();
-			final V listenerObject = listener.getValue();
-			try {
-				/* Call the EventDispatcher to complete the delivery of the event. */
-				dispatcher.dispatchEvent(eventListener, listenerObject, eventAction, eventObject);
-			} catch (Throwable t) {
-				/* Consume and ignore any exceptions thrown by the listener */
-				if (DEBUG) {
-					System.out.println("Exception in " + eventListener); //$NON-NLS-1$
-					t.printStackTrace();
-				}
+			dispatchEvent(listener.getKey(), listener.getValue(), dispatcher, eventAction, eventObject);
+		}
+	}
+
+	/**
+	 * This method calls the EventDispatcher object to complete the dispatch of
+	 * the event to a single listener.
+	 * This method is package private.
+	 *
+	 * @param eventListener The listener to deliver the event to.
+	 * @param listenerObject The companion object of the listener.
+	 * @param dispatcher Call back object which is called to complete the delivery of
+	 * the event.
+	 * @param eventAction This value is passed on to the call back object.
+	 * @param eventObject This object is passed on to the call back object.
+	 */
+	static <K, V, E> void dispatchEvent(K eventListener, V listenerObject, EventDispatcher<K, V, E> dispatcher, int eventAction, E eventObject) {
+		try {
+			/* Call the EventDispatcher to complete the delivery of the event. */
+			dispatcher.dispatchEvent(eventListener, listenerObject, eventAction, eventObject);
+		} catch (Throwable t) {
+			/* Consume and ignore any exceptions thrown by the listener */
+			if (DEBUG) {
+				System.out.println("Exception in " + eventListener); //$NON-NLS-1$
+				t.printStackTrace();
 			}
 		}
 	}
 
 	/**
 	 * This package private class is used for asynchronously dispatching events.
+	 * It runs on its own thread which may be created by a thread factory, so it
+	 * does not extend Thread; virtual threads cannot be subclassed.
 	 */
 
-	static class EventThread<K, V, E> extends Thread {
+	static class EventThread<K, V, E> implements Runnable {
 		private static int nextThreadNumber;
 
 		/**
@@ -285,18 +418,34 @@ public class EventManager {
 		private Queued<K, V, E> tail;
 		/** if false the thread must terminate */
 		private volatile boolean running;
+		/** the thread delivering the events */
+		private final Thread thread;
 
 		/**
 		 * Constructor for the event thread. 
 		 * @param threadName Name of the EventThread 
+		 * @param threadFactory Factory of the thread or <code>null</code>
 		 */
-		EventThread(ThreadGroup threadGroup, String threadName) {
-			super(threadGroup, threadName == null ? getNextName() : threadName);
+		EventThread(ThreadGroup threadGroup, String threadName, ThreadFactory threadFactory) {
+			String name = threadName == null ? getNextName() : threadName;
+			if (threadFactory == null) {
+				thread = new Thread(threadGroup, this, name);
+				thread.setDaemon(true); /* Mark thread as daemon thread */
+			} else {
+				thread = threadFactory.newThread(this);
+				thread.setName(name);
+			}
 			running = true;
 			head = null;
 			tail = null;
+		}
 
-			setDaemon(true); /* Mark thread as daemon thread */
+		/**
+		 * Constructor for the event thread. 
+		 * @param threadName Name of the EventThread 
+		 */
+		EventThread(ThreadGroup threadGroup, String threadName) {
+			this(threadGroup, threadName, null);
 		}
 
 		private static synchronized String getNextName() {
@@ -318,12 +467,19 @@ public class EventManager {
 			this(null, null);
 		}
 
+		/**
+		 * Start thread.
+		 */
+		void start() {
+			thread.start();
+		}
+
 		/**
 		 * Stop thread.
 		 */
 		void close() {
 			running = false;
-			interrupt();
+			thread.interrupt();
 		}
 
 		/**
@@ -367,7 +523,7 @@ public class EventManager {
 		 * @param o Object for this event
 		 */
 		synchronized void postEvent(Set<Map.Entry<K, V>> l, EventDispatcher<K, V, E> d, int a, E o) {
-			if (!isAlive()) { /* If the thread is not alive, throw an exception */
+			if (!thread.isAlive()) { /* If the thread is not alive, throw an exception */
 				throw new IllegalStateException();
 			}
 
@@ -21,7 +21,9 @@ import org.eclipse.osgi.framework.eventmgr.EventManager.EventThread;
  * events to those listeners. A ListenerQueue object is associated with a
  * specific EventManager object. ListenerQueue objects constructed with the same
  * EventManager object will get in-order delivery of events when
- * using asynchronous delivery. No delivery order is guaranteed for synchronous
+ * using asynchronous delivery; if the EventManager uses more than one thread
+ * the in-order delivery is only guaranteed for the events of each listener.
+ * No delivery order is guaranteed for synchronous
  * delivery to avoid any potential deadly embraces.
  *
  * <p>ListenerQueue objects are created as necessary to build a list of listeners
@@ -120,6 +122,15 @@ public class ListenerQueue<K, V, E> {
 		synchronized (this) {
 			readOnly = true;
 		}
+		EventLanes eventLanes = manager.getEventLanes();
+		if (eventLanes != null) {
+			synchronized (eventLanes) { /* synchronize on the EventLanes to ensure no interleaving of posting to the lanes */
+				for (Map.Entry<Set<Map.Entry<K, V>>, EventDispatcher<K, V, E>> entry : queue.entrySet()) { /* iterate over the list of listener lists */
+					eventLanes.postEvent(entry.getKey(), entry.getValue(), eventAction, eventObject);
+				}
+			}
+			return;
+		}
 		EventThread<K, V, E> eventThread = manager.getEventThread();
 		synchronized (eventThread) { /* synchronize on the EventThread to ensure no interleaving of posting to the event thread */
 			for (Map.Entry<Set<Map.Entry<K, V>>, EventDispatcher<K, V, E>> entry : queue.entrySet()) { /* iterate over the list of listener lists */
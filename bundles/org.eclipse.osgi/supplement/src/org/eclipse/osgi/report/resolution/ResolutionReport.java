@@ -149,6 +149,7 @@ public interface ResolutionReport {
 	 * in order to receive a resolution report.  All {@link ResolverHook resolver hooks}
 	 * that also implement the {@link Listener listener} interface will be called
 	 * to receive the resolution report associated with the resolve process.
+	 * The reports given by the framework also implement {@link ResolutionStatistics}.
 	 */
 	public interface Listener {
 		void handleResolutionReport(ResolutionReport report);
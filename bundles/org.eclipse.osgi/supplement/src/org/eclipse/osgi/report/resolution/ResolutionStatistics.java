@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.report.resolution;
+
+import java.util.List;
+import java.util.Map;
+import org.osgi.resource.Requirement;
+
+/**
+ * Statistics about the cost of a single resolve process.  The
+ * {@link ResolutionReport resolution reports} given to the
+ * {@link ResolutionReport.Listener report listeners} by the framework also
+ * implement this interface.  The statistics can be used to find out where the
+ * time of a long resolve process is spent and which requirements make the
+ * resolve process expensive.
+ * @since 3.13
+ */
+public interface ResolutionStatistics {
+	/**
+	 * The phases of a resolve operation.
+	 */
+	enum Phase {
+		/**
+		 * Finding the candidate capabilities for the requirements of the
+		 * resources being resolved.
+		 */
+		CANDIDATE_POPULATION,
+		/**
+		 * Attaching the fragments to their hosts.
+		 */
+		FRAGMENT_ATTACHMENT,
+		/**
+		 * Checking the uses constraints of the candidate permutations.
+		 */
+		USES_CHECKING
+	}
+
+	/**
+	 * An event of the revision batching of the resolve process.
+	 */
+	public interface BatchEvent {
+		enum Type {
+			/**
+			 * A batch of revisions was resolved.
+			 */
+			RESOLVED,
+			/**
+			 * A batch of revisions timed out; the remaining revisions
+			 * are resolved individually.
+			 */
+			TIMED_OUT,
+			/**
+			 * A batch of revisions ran out of memory; the remaining revisions
+			 * are resolved individually.
+			 */
+			OUT_OF_MEMORY
+		}
+
+		/**
+		 * Returns the type of this batch event.
+		 * @return the type of this batch event.
+		 */
+		Type getType();
+
+		/**
+		 * Returns the number of revisions in the batch.
+		 * @return the number of revisions in the batch.
+		 */
+		int getRevisionCount();
+
+		/**
+		 * Returns the time spent on the batch in nanoseconds.
+		 * @return the time spent on the batch in nanoseconds.
+		 */
+		long getTime();
+	}
+
+	/**
+	 * Returns the total time spent in the given phase in nanoseconds.  A
+	 * phase is entered once for each batch of revisions resolved.
+	 * @param phase the resolve phase
+	 * @return the total time spent in the phase in nanoseconds.
+	 */
+	long getPhaseTime(Phase phase);
+
+	/**
+	 * Returns the total number of candidate permutations checked for
+	 * consistency.
+	 * @return the number of candidate permutations checked.
+	 */
+	long getPermutationCount();
+
+	/**
+	 * Returns the requirements with the most candidates, ordered by the
+	 * number of candidates from the largest to the smallest.  The value
+	 * is the number of candidates of the requirement.
+	 * @return the requirements with the most candidates.
+	 */
+	Map<Requirement, Integer> getTopRequirements();
+
+	/**
+	 * Returns the events of the revision batching in the order they happened.
+	 * @return the events of the revision batching.
+	 */
+	List<BatchEvent> getBatchEvents();
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.service.debug;
+
+import java.util.List;
+import org.osgi.framework.Bundle;
+
+/**
+ * Statistics about the delivery of bundle, framework and service events to
+ * the listeners added by bundles.  The statistics can be used to find the
+ * listeners which slow down the delivery of events.
+ * <p>
+ * The framework only collects the statistics and registers this service when
+ * the <code>equinox.event.listener.statistics</code> configuration property
+ * is set to <code>true</code>.
+ * </p>
+ * @since 3.13
+ */
+public interface ListenerStatistics {
+	/**
+	 * The statistics of a single listener.
+	 */
+	public interface Entry {
+		/**
+		 * Returns the bundle which added the listener.
+		 * @return the bundle which added the listener.
+		 */
+		Bundle getBundle();
+
+		/**
+		 * Returns the name of the listener type, for example
+		 * <code>org.osgi.framework.ServiceListener</code>.
+		 * @return the name of the listener type.
+		 */
+		String getType();
+
+		/**
+		 * Returns a description of the listener.  For service listeners the
+		 * description includes the filter of the listener.
+		 * @return a description of the listener.
+		 */
+		String getListener();
+
+		/**
+		 * Returns the number of events delivered to the listener.
+		 * @return the number of events delivered to the listener.
+		 */
+		long getCallCount();
+
+		/**
+		 * Returns the total time the listener spent handling events in nanoseconds.
+		 * @return the total time spent handling events in nanoseconds.
+		 */
+		long getTotalTime();
+
+		/**
+		 * Returns the longest time the listener spent handling a single event
+		 * in nanoseconds.
+		 * @return the longest time spent handling an event in nanoseconds.
+		 */
+		long getMaxTime();
+
+		/**
+		 * Returns the number of service events which were not delivered to
+		 * the listener because the event did not match the filter of the
+		 * listener.  Always zero for bundle and framework listeners.
+		 * @return the number of events rejected by the filter of the listener.
+		 */
+		long getFilterRejectionCount();
+	}
+
+	/**
+	 * Returns the statistics of the current listeners, ordered by the total
+	 * time spent handling events from the largest to the smallest.
+	 * @return the statistics of the listeners.
+	 */
+	List<Entry> getEntries();
+
+	/**
+	 * Discards the statistics collected so far.
+	 */
+	void reset();
+}
@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.service.debug;
+
+/**
+ * Statistics about the entries written to the framework log and delivered to
+ * log listeners.  The statistics can be used to find out if the log writer and
+ * the listeners keep up with the logging threads.
+ * <p>
+ * The entries of the framework log are only queued when the
+ * <code>equinox.log.writer.queue.size</code> configuration property is set to
+ * a positive size.  Otherwise the entries are written by the logging threads
+ * and are never dropped.
+ * </p>
+ * @since 3.13
+ */
+public interface LogStatistics {
+	/**
+	 * Returns the number of entries waiting to be written to the framework
+	 * log by the log writer thread.
+	 * @return the number of queued entries.
+	 */
+	int getWriterQueueDepth();
+
+	/**
+	 * Returns the number of entries which were not written to the framework
+	 * log because the log writer queue was full.
+	 * @return the number of dropped entries.
+	 */
+	long getWriterDroppedCount();
+
+	/**
+	 * Returns the number of log entries which were not delivered to
+	 * asynchronous log listeners because the queue of the listener was full.
+	 * The entries are only queued when the
+	 * <code>equinox.log.listener.queue.size</code> configuration property is
+	 * set to a positive size.
+	 * @return the number of dropped log entries.
+	 */
+	long getListenerDroppedCount();
+}
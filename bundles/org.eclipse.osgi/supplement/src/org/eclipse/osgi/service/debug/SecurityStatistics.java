@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.service.debug;
+
+import java.util.List;
+
+/**
+ * Statistics about the evaluation of the conditional permission table by
+ * permission checks.  The statistics can be used to find the rows and
+ * conditions which slow down permission checks and to order the rows of
+ * the table so that the rows which decide most checks come first.
+ * <p>
+ * The framework only collects the statistics and registers this service when
+ * the <code>equinox.security.statistics</code> configuration property is set
+ * to <code>true</code>.
+ * </p>
+ * @since 3.13
+ */
+public interface SecurityStatistics {
+	/**
+	 * The statistics of a single row of the conditional permission table.
+	 */
+	public interface Entry {
+		/**
+		 * Returns the name of the row.
+		 * @return the name of the row.
+		 */
+		String getName();
+
+		/**
+		 * Returns the encoded form of the row as last evaluated.
+		 * @return the encoded form of the row.
+		 */
+		String getEncoded();
+
+		/**
+		 * Returns the number of times the row was evaluated.
+		 * @return the number of evaluations of the row.
+		 */
+		long getEvaluationCount();
+
+		/**
+		 * Returns the number of evaluations in which the row immediately
+		 * granted or denied the permission.
+		 * @return the number of evaluations decided by the row.
+		 */
+		long getDecisionCount();
+
+		/**
+		 * Returns the number of evaluations in which the row had to postpone
+		 * the evaluation of its conditions.
+		 * @return the number of evaluations postponed by the row.
+		 */
+		long getPostponedCount();
+
+		/**
+		 * Returns the total time spent evaluating the row, including its
+		 * conditions, in nanoseconds.
+		 * @return the total time spent evaluating the row in nanoseconds.
+		 */
+		long getTotalTime();
+	}
+
+	/**
+	 * Returns the statistics of the rows of the current table, ordered by the
+	 * total time spent evaluating them from the largest to the smallest.
+	 * @return the statistics of the rows.
+	 */
+	List<Entry> getEntries();
+
+	/**
+	 * Returns the number of permission checks which consulted the
+	 * conditional permission table.
+	 * @return the number of permission checks.
+	 */
+	long getCheckCount();
+
+	/**
+	 * Returns the number of permission checks which were answered by
+	 * the cached decisions of a bundle without evaluating any row.
+	 * @return the number of permission checks answered from the cache.
+	 */
+	long getCacheHitCount();
+
+	/**
+	 * Returns the number of permission checks whose decision had to be
+	 * postponed until the postponed conditions were evaluated.
+	 * @return the number of postponed permission checks.
+	 */
+	long getPostponedCheckCount();
+
+	/**
+	 * Discards the statistics collected so far.
+	 */
+	void reset();
+}